@@ -0,0 +1,305 @@
+package org.pm4j.apt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a <code>org.pm4j.core.pm.impl.PmClassDescriptor</code> for each PM class of the
+ * compiled sources.
+ * <p>
+ * The processor handles only the classes that have the (inherited) annotation
+ * <code>org.pm4j.core.pm.annotation.PmDescriptorCfg</code> of <code>PmObjectBase</code>.
+ * <p>
+ * The descriptor provides direct (non reflective) accessors for all public non-static fields that
+ * may contain a PM. The fields are read by a single generated <code>switch</code> method. No class
+ * gets generated for the individual fields. The PM meta data initialization uses them instead of a reflective class scan.
+ * It also provides the field signature of the super class. This allows the runtime to detect a
+ * descriptor that was generated for an older version of a super class.
+ * <p>
+ * Classes that can't be referenced from generated code (private, local and anonymous classes) are
+ * skipped. The runtime uses the reflective scan for them.
+ *
+ * @author olaf boede
+ */
+@SupportedAnnotationTypes(PmDescriptorProcessor.PM_DESCRIPTOR_CFG)
+public class PmDescriptorProcessor extends AbstractProcessor {
+
+  static final String PM_DESCRIPTOR_CFG = "org.pm4j.core.pm.annotation.PmDescriptorCfg";
+  static final String PM_OBJECT_BASE = "org.pm4j.core.pm.impl.PmObjectBase";
+  static final String PM_OBJECT = "org.pm4j.core.pm.PmObject";
+  static final String PM_CLASS_DESCRIPTOR = "org.pm4j.core.pm.impl.PmClassDescriptor";
+  static final String PM_FIELD_ACCESSOR = "org.pm4j.core.pm.impl.PmFieldAccessor";
+  /** Needs to match <code>PmClassDescriptor.CLASS_NAME_SUFFIX</code>. */
+  static final String CLASS_NAME_SUFFIX = "$$PmDescriptor";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    TypeElement pmObjectBase = processingEnv.getElementUtils().getTypeElement(PM_OBJECT_BASE);
+    TypeElement pmObject = processingEnv.getElementUtils().getTypeElement(PM_OBJECT);
+    // Nothing to do if pm4j-core is not on the class path.
+    if (pmObjectBase == null || pmObject == null || roundEnv.processingOver()) {
+      return false;
+    }
+
+    for (TypeElement annotation : annotations) {
+      // Provides the nested PM classes too.
+      for (TypeElement t : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+        processType(t, pmObjectBase, pmObject);
+      }
+    }
+
+    // Other processors may handle the same annotation.
+    return false;
+  }
+
+  /**
+   * Abstract PM classes get a descriptor too. It is used to check the descriptors of their sub classes.
+   */
+  private void processType(TypeElement type, TypeElement pmObjectBase, TypeElement pmObject) {
+    if (type.getKind() == ElementKind.CLASS &&
+        isPmClass(type, pmObjectBase) &&
+        isAccessibleFrom(type, getPackage(type))) {
+      List<FieldInfo> fields = collectFields(type, pmObject);
+      if (initAccessClasses(type, fields)) {
+        TypeElement superclass = getSuperclass(type);
+        int superclassSignature = (superclass != null && isPmClass(superclass, pmObjectBase))
+            ? getFieldSignature(collectFields(superclass, pmObject))
+            : 0;
+        writeDescriptor(type, fields, superclassSignature);
+      }
+    }
+  }
+
+  private boolean isPmClass(TypeElement type, TypeElement pmObjectBase) {
+    Types types = processingEnv.getTypeUtils();
+    return types.isSubtype(types.erasure(type.asType()), types.erasure(pmObjectBase.asType()));
+  }
+
+  /**
+   * Collects the fields in the order of <code>ClassUtil.getAllFields()</code>: super class fields
+   * first, each class in declaration order.
+   */
+  private List<FieldInfo> collectFields(TypeElement type, TypeElement pmObject) {
+    List<TypeElement> classes = new ArrayList<TypeElement>();
+    for (TypeElement c = type; c != null; c = getSuperclass(c)) {
+      classes.add(0, c);
+    }
+
+    List<FieldInfo> fields = new ArrayList<FieldInfo>();
+    for (TypeElement c : classes) {
+      for (VariableElement f : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+        Set<Modifier> modifiers = f.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) ||
+            modifiers.contains(Modifier.STATIC) ||
+            !mayContainPm(f.asType(), pmObject)) {
+          continue;
+        }
+        fields.add(new FieldInfo(c, f.getSimpleName().toString(), modifiers.contains(Modifier.FINAL)));
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Defines the classes used by the generated code to read the fields.
+   *
+   * @return <code>false</code> if a field can't be accessed by generated code.
+   */
+  private boolean initAccessClasses(TypeElement type, List<FieldInfo> fields) {
+    Set<String> names = new HashSet<String>();
+    Set<String> hiddenNames = new HashSet<String>();
+    for (FieldInfo fi : fields) {
+      if (!names.add(fi.name)) {
+        hiddenNames.add(fi.name);
+      }
+    }
+
+    for (FieldInfo fi : fields) {
+      if (isAccessibleFrom(fi.declaringClass, getPackage(type))) {
+        fi.accessClass = fi.declaringClass;
+      } else if (!hiddenNames.contains(fi.name)) {
+        // The public field is inherited. It can be read using the PM class.
+        fi.accessClass = type;
+      } else {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "No PM descriptor generated. Hidden field '" + fi.name + "' of " + fi.declaringClass +
+            " can't be accessed from package '" + getPackage(type).getQualifiedName() + "'.", type);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return a hash code of the declaring classes and names of the given fields.<br>
+   *         Needs to provide the same result for the same fields in each compilation.
+   */
+  private int getFieldSignature(List<FieldInfo> fields) {
+    StringBuilder sb = new StringBuilder();
+    for (FieldInfo fi : fields) {
+      sb.append(processingEnv.getElementUtils().getBinaryName(fi.declaringClass)).append('#').append(fi.name).append(';');
+    }
+    return sb.toString().hashCode();
+  }
+
+  /**
+   * @return <code>false</code> if it is sure that a field of the given type can't contain a PM.
+   */
+  private boolean mayContainPm(TypeMirror fieldType, TypeElement pmObject) {
+    if (fieldType.getKind().isPrimitive() || fieldType.getKind() == TypeKind.ARRAY) {
+      return false;
+    }
+    if (fieldType.getKind() == TypeKind.DECLARED) {
+      Types types = processingEnv.getTypeUtils();
+      TypeElement e = (TypeElement) ((DeclaredType) fieldType).asElement();
+      // Final classes and enums can't have a PM sub class.
+      if ((e.getModifiers().contains(Modifier.FINAL) || e.getKind() == ElementKind.ENUM) &&
+          !types.isSubtype(types.erasure(fieldType), types.erasure(pmObject.asType()))) {
+        return false;
+      }
+    }
+    // All other types may contain a PM. The runtime check decides.
+    return true;
+  }
+
+  private void writeDescriptor(TypeElement type, List<FieldInfo> fields, int superclassSignature) {
+    PackageElement pkg = getPackage(type);
+    String pkgName = pkg.getQualifiedName().toString();
+    String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+    String simpleName = pkgName.length() > 0
+        ? binaryName.substring(pkgName.length() + 1)
+        : binaryName;
+    String descriptorName = simpleName + CLASS_NAME_SUFFIX;
+    String qualifiedDescriptorName = pkgName.length() > 0
+        ? pkgName + "." + descriptorName
+        : descriptorName;
+
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedDescriptorName, type);
+      PrintWriter w = new PrintWriter(file.openWriter());
+      try {
+        if (pkgName.length() > 0) {
+          w.println("package " + pkgName + ";");
+          w.println();
+        }
+        w.println("/** Generated by " + getClass().getName() + ". Do not edit. */");
+        w.println("@SuppressWarnings(\"all\")");
+        w.println("public final class " + descriptorName + " implements " + PM_CLASS_DESCRIPTOR + " {");
+        w.println();
+        w.println("  private final " + PM_FIELD_ACCESSOR + "[] accessors = {");
+        for (int i = 0; i < fields.size(); ++i) {
+          FieldInfo fi = fields.get(i);
+          w.println("    new " + PM_FIELD_ACCESSOR + "(this, " + i + ", " + fi.accessClass.getQualifiedName() + ".class, \"" + fi.name + "\", " + fi.finalField + "),");
+        }
+        w.println("  };");
+        w.println();
+        w.println("  @Override");
+        w.println("  public " + PM_FIELD_ACCESSOR + "[] getPmFieldAccessors() {");
+        w.println("    return accessors;");
+        w.println("  }");
+        w.println();
+        w.println("  @Override");
+        w.println("  public Object getFieldValue(Object pm, int fieldIdx) {");
+        w.println("    switch (fieldIdx) {");
+        for (int i = 0; i < fields.size(); ++i) {
+          FieldInfo fi = fields.get(i);
+          w.println("      case " + i + ": return ((" + fi.accessClass.getQualifiedName() + ") pm)." + fi.name + ";");
+        }
+        w.println("      default: throw new IndexOutOfBoundsException(\"Field index: \" + fieldIdx);");
+        w.println("    }");
+        w.println("  }");
+        w.println();
+        w.println("  @Override");
+        w.println("  public int getFieldSignature() {");
+        w.println("    return " + getFieldSignature(fields) + ";");
+        w.println("  }");
+        w.println();
+        w.println("  @Override");
+        w.println("  public int getSuperclassFieldSignature() {");
+        w.println("    return " + superclassSignature + ";");
+        w.println("  }");
+        w.println();
+        w.println("}");
+      } finally {
+        w.close();
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Unable to write PM descriptor " + qualifiedDescriptorName + ": " + e, type);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the type and all enclosing types can be referenced from the given package.
+   */
+  private boolean isAccessibleFrom(TypeElement type, PackageElement pkg) {
+    boolean samePackage = getPackage(type).equals(pkg);
+    for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      TypeElement t = (TypeElement) e;
+      if (t.getNestingKind() == NestingKind.LOCAL ||
+          t.getNestingKind() == NestingKind.ANONYMOUS ||
+          t.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (!t.getModifiers().contains(Modifier.PUBLIC) && !samePackage) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private TypeElement getSuperclass(TypeElement type) {
+    TypeMirror s = type.getSuperclass();
+    return s.getKind() == TypeKind.DECLARED
+        ? (TypeElement) ((DeclaredType) s).asElement()
+        : null;
+  }
+
+  private PackageElement getPackage(Element e) {
+    return processingEnv.getElementUtils().getPackageOf(e);
+  }
+
+  /** A field that gets an accessor. */
+  private static class FieldInfo {
+    final TypeElement declaringClass;
+    final String name;
+    final boolean finalField;
+    /** The class used to read the field. */
+    TypeElement accessClass;
+
+    FieldInfo(TypeElement declaringClass, String name, boolean finalField) {
+      this.declaringClass = declaringClass;
+      this.name = name;
+      this.finalField = finalField;
+    }
+  }
+
+}
@@ -0,0 +1,105 @@
+package org.pm4j.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.benchmarks.domain.CustomerGenerator;
+import org.pm4j.benchmarks.pm.CustomerPm;
+import org.pm4j.benchmarks.pm.CustomerTablePm;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.annotation.PmFactoryCfg;
+import org.pm4j.core.pm.annotation.PmFactoryCfg.BeanPmCacheKind;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmInitApi;
+
+/**
+ * Compares the bean PM cache kinds while paging through a large in-memory table.
+ * <p>
+ * The memory and garbage collection costs get visible using the JMH GC profiler and
+ * the reference processing log of the JVM:
+ *
+ * <pre>
+ * java -jar pm4j-benchmarks/target/benchmarks.jar BeanPmCacheBenchmark -prof gc -jvmArgsAppend -XX:+PrintReferenceGC
+ * </pre>
+ *
+ * @author olaf boede
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class BeanPmCacheBenchmark {
+
+  private static final int PAGE_SIZE = 20;
+
+  /** <code>IDENTITY_RETAINING</code> uses the <code>IDENTITY</code> cache with a retention of 200 PMs. */
+  @Param({"DEFAULT", "IDENTITY", "IDENTITY_RETAINING"})
+  public String cache;
+
+  @Param({"10000"})
+  public int numOfCustomers;
+
+  private List<Customer> customers;
+  private CustomerTablePm tablePm;
+  private long numOfPages;
+  private long pageIdx;
+
+  @Setup
+  public void setUp() {
+    customers = new CustomerGenerator(1).generate(numOfCustomers);
+    PmConversationImpl conversation = new PmConversationImpl();
+    tablePm = "IDENTITY".equals(cache)
+        ? new IdentityCacheTablePm(conversation, customers)
+        : "IDENTITY_RETAINING".equals(cache)
+          ? new RetainingCacheTablePm(conversation, customers)
+          : new CustomerTablePm(conversation, customers);
+    tablePm.setNumOfPageRowPms(PAGE_SIZE);
+    PmInitApi.initPmTree(tablePm);
+    numOfPages = (numOfCustomers + PAGE_SIZE - 1) / PAGE_SIZE;
+  }
+
+  /** Page navigation: each call creates or finds the row PMs of the next page. */
+  @Benchmark
+  public List<CustomerPm> getRowPmsOfNextPage() {
+    pageIdx = (pageIdx + 1) % numOfPages;
+    tablePm.getPmPageableCollection().setPageIdx(pageIdx);
+    return tablePm.getRowPms();
+  }
+
+  /** Switches between two pages. The retaining cache may provide the row PMs of the previous page. */
+  @Benchmark
+  public List<CustomerPm> getRowPmsOfAlternatingPages() {
+    pageIdx = (pageIdx == 0) ? 1 : 0;
+    tablePm.getPmPageableCollection().setPageIdx(pageIdx);
+    return tablePm.getRowPms();
+  }
+
+  @PmFactoryCfg(beanPmClasses=CustomerPm.class, beanPmCache=BeanPmCacheKind.IDENTITY)
+  public static class IdentityCacheTablePm extends CustomerTablePm {
+    public IdentityCacheTablePm(PmObject pmParent, List<Customer> customers) {
+      super(pmParent, customers);
+    }
+  }
+
+  @PmFactoryCfg(beanPmClasses=CustomerPm.class, beanPmCache=BeanPmCacheKind.IDENTITY, beanPmCacheRetainedPms=200)
+  public static class RetainingCacheTablePm extends CustomerTablePm {
+    public RetainingCacheTablePm(PmObject pmParent, List<Customer> customers) {
+      super(pmParent, customers);
+    }
+  }
+
+}
@@ -0,0 +1,197 @@
+package org.pm4j.benchmarks;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.benchmarks.domain.CustomerGenerator;
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpEquals;
+import org.pm4j.common.query.CompOpGe;
+import org.pm4j.common.query.CompOpIn;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.SortOrder;
+import org.pm4j.common.query.inmem.InMemQueryEvaluator;
+import org.pm4j.common.query.inmem.InMemQueryPredicate;
+import org.pm4j.common.query.inmem.InMemSortOrder;
+import org.pm4j.common.query.inmem.InMemTextIndex;
+import org.pm4j.common.util.CollatorComparator;
+
+/**
+ * Measures filter and sort operations of the {@link InMemQueryEvaluator}.
+ *
+ * @author olaf boede
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class InMemQueryEvaluatorBenchmark {
+
+  @Param({"1000", "100000"})
+  public int numOfCustomers;
+
+  @Param({"false", "true"})
+  public boolean parallel;
+
+  private List<Customer> customers;
+  private InMemQueryEvaluator<Customer> evaluator;
+  private InMemQueryEvaluator<Customer> comparatorSortEvaluator;
+  private InMemTextIndex<Customer> nameIndex;
+  private InMemQueryPredicate nameContainsIgnoreCasePredicate;
+  private QueryExpr idIn;
+
+  private final QueryExpr cityEquals = new QueryExprCompare(Customer.ATTR_CITY, CompOpEquals.class, "Hamburg");
+  private final QueryExpr nameLike = new QueryExprCompare(Customer.ATTR_NAME, CompOpLike.class, "%mann%");
+  private final QueryExpr nameLikePrefix = new QueryExprCompare(Customer.ATTR_NAME, CompOpLike.class, "mü%");
+  private final QueryExpr nameLikeSingleCharWildCard = new QueryExprCompare(Customer.ATTR_NAME, CompOpLike.class, "%m_nn%");
+  private final QueryExpr nameContainsIgnoreCase = new QueryExprCompare(Customer.ATTR_NAME, ignoreCase(new CompOpContains()), "MANN");
+  private final QueryExpr cityAndRevenue = new QueryExprAnd(
+      new QueryExprCompare(Customer.ATTR_CITY, CompOpEquals.class, "Berlin"),
+      new QueryExprCompare(Customer.ATTR_REVENUE, CompOpGe.class, new BigDecimal("50000")));
+  private final SortOrder byName = new SortOrder(Customer.ATTR_NAME);
+  private final SortOrder byCityAndRevenue = new SortOrder(Customer.ATTR_CITY, Customer.ATTR_REVENUE);
+  private final SortOrder byNameLocalized = new InMemSortOrder(Customer.ATTR_NAME, new CollatorComparator(Locale.GERMAN));
+
+  @Setup
+  public void setUp() {
+    customers = new CustomerGenerator(1).generate(numOfCustomers);
+    evaluator = new InMemQueryEvaluator<Customer>();
+    evaluator.setParallelExecution(parallel);
+    comparatorSortEvaluator = new InMemQueryEvaluator<Customer>();
+    comparatorSortEvaluator.setParallelExecution(parallel);
+    comparatorSortEvaluator.setPrecomputedSortKeys(false);
+    nameIndex = new InMemTextIndex<Customer>(Customer.ATTR_NAME);
+    nameContainsIgnoreCasePredicate = evaluator.compile(nameContainsIgnoreCase);
+    List<Integer> ids = new ArrayList<Integer>();
+    for (int i = 0; i < 10000; ++i) {
+      ids.add(i * 2);
+    }
+    idIn = new QueryExprCompare(Customer.ATTR_ID, CompOpIn.class, ids);
+    // builds the index
+    evaluator.evaluateSubSet(customers, nameContainsIgnoreCase, nameContainsIgnoreCasePredicate, nameIndex);
+  }
+
+  @Benchmark
+  public List<Customer> filterEquals() {
+    return evaluator.evaluateSubSet(customers, cityEquals);
+  }
+
+  @Benchmark
+  public List<Customer> filterLike() {
+    return evaluator.evaluateSubSet(customers, nameLike);
+  }
+
+  @Benchmark
+  public List<Customer> filterLikePrefix() {
+    return evaluator.evaluateSubSet(customers, nameLikePrefix);
+  }
+
+  /** Uses the regular expression based like evaluation. */
+  @Benchmark
+  public List<Customer> filterLikeSingleCharWildCard() {
+    return evaluator.evaluateSubSet(customers, nameLikeSingleCharWildCard);
+  }
+
+  @Benchmark
+  public List<Customer> filterContainsIgnoreCase() {
+    return evaluator.evaluateSubSet(customers, nameContainsIgnoreCase);
+  }
+
+  /** Checks only the candidates provided by a trigram index. */
+  @Benchmark
+  public List<Customer> filterContainsIgnoreCaseWithTextIndex() {
+    return evaluator.evaluateSubSet(customers, nameContainsIgnoreCase, nameContainsIgnoreCasePredicate, nameIndex);
+  }
+
+  /** A 10k element id list, prepared as a bitmap. */
+  @Benchmark
+  public List<Customer> filterIdIn() {
+    return evaluator.evaluateSubSet(customers, idIn);
+  }
+
+  /** The same id list, checked item by item using <code>List.contains</code>. */
+  @Benchmark
+  public List<Customer> filterIdInWithListContains() {
+    List<Customer> result = new ArrayList<Customer>();
+    for (Customer c : customers) {
+      if (evaluator.evaluate(c, idIn)) {
+        result.add(c);
+      }
+    }
+    return result;
+  }
+
+  @Benchmark
+  public List<Customer> filterAnd() {
+    return evaluator.evaluateSubSet(customers, cityAndRevenue);
+  }
+
+  @Benchmark
+  public List<Customer> sortByName() {
+    return evaluator.sort(customers, byName);
+  }
+
+  @Benchmark
+  public List<Customer> sortByCityAndRevenue() {
+    return evaluator.sort(customers, byCityAndRevenue);
+  }
+
+  /** The comparator based sort that reads the attribute values on each compare call. */
+  @Benchmark
+  public List<Customer> sortByNameWithComparator() {
+    return comparatorSortEvaluator.sort(customers, byName);
+  }
+
+  /** Locale specific sort based on once computed collation keys. Should be close to {@link #sortByName()}. */
+  @Benchmark
+  public List<Customer> sortByNameLocalized() {
+    return evaluator.sort(customers, byNameLocalized);
+  }
+
+  /** Locale specific sort that uses the collator for each compare call. */
+  @Benchmark
+  public List<Customer> sortByNameLocalizedWithComparator() {
+    return comparatorSortEvaluator.sort(customers, byNameLocalized);
+  }
+
+  /** The former localized compare: a new collator instance for each compare call. */
+  @Benchmark
+  public List<Customer> sortByNameWithCollatorPerCompare() {
+    return comparatorSortEvaluator.sort(customers, new InMemSortOrder(Customer.ATTR_NAME, new Comparator<Object>() {
+      @Override
+      public int compare(Object o1, Object o2) {
+        return Collator.getInstance(Locale.GERMAN).compare((String)o1, (String)o2);
+      }
+    }));
+  }
+
+  @SuppressWarnings("deprecation")
+  private static CompOp ignoreCase(CompOpContains compOp) {
+    compOp.setIgnoreCase(true);
+    return compOp;
+  }
+
+}
@@ -0,0 +1,99 @@
+package org.pm4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.benchmarks.domain.CustomerGenerator;
+import org.pm4j.benchmarks.pm.CustomerPm;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmInitApi;
+
+/**
+ * Measures the attribute value access of a bean PM.
+ * <p>
+ * Each accessor factory gets its own JVM fork, because the bean attribute accessors
+ * are part of the PM meta data that gets initialized only once.
+ *
+ * @author olaf boede
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class PmAttrBenchmark {
+
+  @Param({"REFLECTION", "GENERATED"})
+  public String accessorFactory;
+
+  private CustomerPm customerPm;
+  private final String[] names = { "Anna Müller", "Ben Schmidt" };
+  private final String[] revenues = { "1234.50", "98765.43" };
+  private int toggle;
+
+  @Setup
+  public void setUp() {
+    BeanAttrAccessorFactory.setDefault("GENERATED".equals(accessorFactory)
+        ? BeanAttrAccessorFactory.GENERATED
+        : BeanAttrAccessorFactory.REFLECTION);
+    Customer customer = new CustomerGenerator(1).generate(1).get(0);
+    customerPm = PmInitApi.initPmTree(new CustomerPm(new PmConversationImpl(), customer));
+  }
+
+  @Benchmark
+  public Object getValueString() {
+    return customerPm.name.getValue();
+  }
+
+  @Benchmark
+  public Object getValueBigDecimal() {
+    return customerPm.revenue.getValue();
+  }
+
+  @Benchmark
+  public Object getValueBoolean() {
+    return customerPm.active.getValue();
+  }
+
+  @Benchmark
+  public String getValueAsStringString() {
+    return customerPm.name.getValueAsString();
+  }
+
+  @Benchmark
+  public String getValueAsStringBigDecimal() {
+    return customerPm.revenue.getValueAsString();
+  }
+
+  @Benchmark
+  public String getValueAsStringDate() {
+    return customerPm.birthDate.getValueAsString();
+  }
+
+  /** Alternates between two values to get a real value change each time. */
+  @Benchmark
+  public Object setValueAsStringString() {
+    customerPm.name.setValueAsString(names[++toggle & 1]);
+    return customerPm.getPmBean().getName();
+  }
+
+  @Benchmark
+  public Object setValueAsStringBigDecimal() {
+    customerPm.revenue.setValueAsString(revenues[++toggle & 1]);
+    return customerPm.getPmBean().getRevenue();
+  }
+
+}
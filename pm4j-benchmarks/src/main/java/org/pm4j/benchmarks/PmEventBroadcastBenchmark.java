@@ -0,0 +1,67 @@
+package org.pm4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pm4j.benchmarks.domain.CustomerGenerator;
+import org.pm4j.benchmarks.pm.CustomerPm;
+import org.pm4j.benchmarks.pm.CustomerSearchPm;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.impl.BroadcastPmEventProcessor;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmInitApi;
+
+/**
+ * Measures {@link BroadcastPmEventProcessor#broadcastAllChangeEvent(org.pm4j.core.pm.PmObject, int)}
+ * for a search dialog with a table and for a single bean PM.
+ *
+ * @author olaf boede
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class PmEventBroadcastBenchmark {
+
+  private CustomerSearchPm searchPm;
+  private CustomerPm customerPm;
+
+  @Setup
+  public void setUp() {
+    CustomerGenerator generator = new CustomerGenerator(1);
+    searchPm = PmInitApi.initPmTree(new CustomerSearchPm(new PmConversationImpl(), generator.generate(1000)));
+    // renders the first page to get some row PMs.
+    searchPm.customerTable.getRowPms();
+    customerPm = PmInitApi.initPmTree(new CustomerPm(new PmConversationImpl(), generator.generate(1).get(0)));
+  }
+
+  @Benchmark
+  public Object broadcastToSearchDialog() {
+    BroadcastPmEventProcessor.broadcastAllChangeEvent(searchPm, 0);
+    return searchPm;
+  }
+
+  @Benchmark
+  public Object broadcastReloadToSearchDialog() {
+    BroadcastPmEventProcessor.broadcastAllChangeEvent(searchPm, PmEvent.RELOAD);
+    return searchPm;
+  }
+
+  @Benchmark
+  public Object broadcastToBeanPm() {
+    BroadcastPmEventProcessor.broadcastAllChangeEvent(customerPm, 0);
+    return customerPm;
+  }
+
+}
@@ -0,0 +1,70 @@
+package org.pm4j.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.benchmarks.domain.CustomerGenerator;
+import org.pm4j.benchmarks.pm.CustomerSearchPm;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmInitApi;
+
+/**
+ * Measures the initialization of a PM tree.
+ * <p>
+ * The PM meta data is initialized only once for each PM class and field within the JVM.
+ * The cold initialization is therefore measured as a single shot in a fresh JVM for each sample.
+ * That includes the class loading of the PM and pm4j classes, as it happens on the first
+ * use of a dialog in production.
+ *
+ * @author olaf boede
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PmMetaDataInitBenchmark {
+
+  private List<Customer> customers;
+
+  @Setup
+  public void setUp() {
+    customers = new CustomerGenerator(1).generate(100);
+  }
+
+  /** The first dialog initialization within the JVM: creates the meta data. */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations=0)
+  @Measurement(iterations=1)
+  @Fork(20)
+  public CustomerSearchPm initPmTreeCold() {
+    return initSearchPm();
+  }
+
+  /** All further dialog initializations: the meta data is already available. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations=5, time=1)
+  @Measurement(iterations=5, time=1)
+  @Fork(1)
+  public CustomerSearchPm initPmTreeWarm() {
+    return initSearchPm();
+  }
+
+  private CustomerSearchPm initSearchPm() {
+    CustomerSearchPm pm = new CustomerSearchPm(new PmConversationImpl(), customers);
+    PmInitApi.initPmTree(pm);
+    pm.customerTable.getRowPms();
+    return pm;
+  }
+
+}
@@ -0,0 +1,110 @@
+package org.pm4j.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.benchmarks.domain.CustomerGenerator;
+import org.pm4j.benchmarks.pm.CustomerPm;
+import org.pm4j.benchmarks.pm.CustomerTablePm;
+import org.pm4j.benchmarks.service.CustomerIdQueryService;
+import org.pm4j.benchmarks.service.CustomerPageQueryService;
+import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmInitApi;
+
+/**
+ * Measures the row PM provision of {@link CustomerTablePm} for the different
+ * kinds of backing collections:
+ * <ul>
+ *  <li><code>IN_MEM</code>: {@link org.pm4j.common.pageable.inmem.InMemCollectionImpl}</li>
+ *  <li><code>PAGE_QUERY</code>: {@link org.pm4j.common.pageable.querybased.pagequery.PageQueryCollection}</li>
+ *  <li><code>ID_QUERY</code>: {@link org.pm4j.common.pageable.querybased.idquery.IdQueryCollectionImpl}</li>
+ * </ul>
+ *
+ * @author olaf boede
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class PmTableBenchmark {
+
+  private static final int PAGE_SIZE = 20;
+
+  @Param({"IN_MEM", "PAGE_QUERY", "ID_QUERY"})
+  public String collection;
+
+  @Param({"1000", "10000"})
+  public int numOfCustomers;
+
+  private List<Customer> customers;
+  private CustomerPageQueryService pageQueryService;
+  private CustomerIdQueryService idQueryService;
+  private CustomerTablePm tablePm;
+  private long numOfPages;
+  private long pageIdx;
+
+  @Setup
+  public void setUp() {
+    customers = new CustomerGenerator(1).generate(numOfCustomers);
+    pageQueryService = new CustomerPageQueryService(customers);
+    idQueryService = new CustomerIdQueryService(customers);
+    tablePm = makeTablePm();
+    numOfPages = (numOfCustomers + PAGE_SIZE - 1) / PAGE_SIZE;
+
+    // Makes sure that the table provides rows at all.
+    PageableCollection<CustomerPm> pc = tablePm.getPmPageableCollection();
+    if (pc.getNumOfItems() != numOfCustomers || pc.getItemsOnPage().size() != PAGE_SIZE) {
+      throw new IllegalStateException("Unexpected table content: " + pc.getNumOfItems() + " items, " + pc.getItemsOnPage().size() + " on page.");
+    }
+  }
+
+  /** The usual render case: the rows of the current page are requested several times. */
+  @Benchmark
+  public List<CustomerPm> getRowPmsOfCurrentPage() {
+    return tablePm.getRowPms();
+  }
+
+  /** Page navigation: each call provides the rows of the next page. */
+  @Benchmark
+  public List<CustomerPm> getRowPmsOfNextPage() {
+    pageIdx = (pageIdx + 1) % numOfPages;
+    tablePm.getPmPageableCollection().setPageIdx(pageIdx);
+    return tablePm.getRowPms();
+  }
+
+  /** A new table gets opened and renders its first page. */
+  @Benchmark
+  public List<CustomerPm> getRowPmsOfNewTable() {
+    return makeTablePm().getRowPms();
+  }
+
+  private CustomerTablePm makeTablePm() {
+    PmConversationImpl conversation = new PmConversationImpl();
+    CustomerTablePm t;
+    if ("PAGE_QUERY".equals(collection)) {
+      t = new CustomerTablePm(conversation, pageQueryService);
+    } else if ("ID_QUERY".equals(collection)) {
+      t = new CustomerTablePm(conversation, idQueryService);
+    } else {
+      t = new CustomerTablePm(conversation, customers);
+    }
+    t.setNumOfPageRowPms(PAGE_SIZE);
+    return PmInitApi.initPmTree(t);
+  }
+
+}
@@ -0,0 +1,46 @@
+package org.pm4j.benchmarks.domain;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.pm4j.common.query.QueryAttr;
+
+/**
+ * The domain bean used by the benchmarks.
+ *
+ * @author olaf boede
+ */
+public class Customer {
+
+  public static final QueryAttr ATTR_ID = new QueryAttr("id", Integer.class);
+  public static final QueryAttr ATTR_NAME = new QueryAttr("name", String.class);
+  public static final QueryAttr ATTR_CITY = new QueryAttr("city", String.class);
+  public static final QueryAttr ATTR_REVENUE = new QueryAttr("revenue", BigDecimal.class);
+  public static final QueryAttr ATTR_BIRTH_DATE = new QueryAttr("birthDate", Date.class);
+
+  private Integer id;
+  private String name;
+  private String city;
+  private BigDecimal revenue;
+  private Date birthDate;
+  private boolean active;
+
+  public Integer getId() { return id; }
+  public void setId(Integer id) { this.id = id; }
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+  public String getCity() { return city; }
+  public void setCity(String city) { this.city = city; }
+  public BigDecimal getRevenue() { return revenue; }
+  public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+  public Date getBirthDate() { return birthDate; }
+  public void setBirthDate(Date birthDate) { this.birthDate = birthDate; }
+  public boolean isActive() { return active; }
+  public void setActive(boolean active) { this.active = active; }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -0,0 +1,72 @@
+package org.pm4j.benchmarks.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible sets of {@link Customer} beans.
+ * <p>
+ * The values are not uniformly distributed: some cities and names are much more
+ * frequent than others. That matches typical production data better than random strings.
+ *
+ * @author olaf boede
+ */
+public class CustomerGenerator {
+
+  private static final String[] FIRST_NAMES = {
+    "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta", "Hannes", "Ida", "Jonas",
+    "Karla", "Lukas", "Mia", "Noah", "Olga", "Paul", "Rosa", "Simon", "Tina", "Ulrich"
+  };
+
+  private static final String[] LAST_NAMES = {
+    "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer", "Wagner", "Becker",
+    "Schulz", "Hoffmann", "Koch", "Richter", "Klein", "Wolf", "Schröder", "Neumann"
+  };
+
+  private static final String[] CITIES = {
+    "Berlin", "Hamburg", "München", "Köln", "Frankfurt", "Stuttgart", "Düsseldorf",
+    "Leipzig", "Dortmund", "Essen", "Bremen", "Dresden", "Hannover", "Nürnberg"
+  };
+
+  private final long seed;
+
+  /**
+   * @param seed the random seed. The same seed generates the same customers.
+   */
+  public CustomerGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @param numOfCustomers the number of customers to generate.
+   * @return the new customers having the IDs <code>1..numOfCustomers</code>.
+   */
+  public List<Customer> generate(int numOfCustomers) {
+    Random random = new Random(seed);
+    Calendar cal = new GregorianCalendar(1950, Calendar.JANUARY, 1);
+    List<Customer> list = new ArrayList<Customer>(numOfCustomers);
+    for (int i = 1; i <= numOfCustomers; ++i) {
+      Customer c = new Customer();
+      c.setId(i);
+      c.setName(pickSkewed(random, FIRST_NAMES) + " " + pickSkewed(random, LAST_NAMES));
+      c.setCity(pickSkewed(random, CITIES));
+      c.setRevenue(BigDecimal.valueOf(random.nextInt(10000000), 2));
+      cal.set(1950 + random.nextInt(55), random.nextInt(12), 1 + random.nextInt(28));
+      c.setBirthDate(cal.getTime());
+      c.setActive(random.nextInt(10) < 8);
+      list.add(c);
+    }
+    return list;
+  }
+
+  /** Prefers the first array items. */
+  private static String pickSkewed(Random random, String[] values) {
+    int idx = (int) (Math.abs(random.nextGaussian()) * values.length / 3);
+    return values[Math.min(idx, values.length - 1)];
+  }
+
+}
@@ -0,0 +1,48 @@
+package org.pm4j.benchmarks.pm;
+
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.core.pm.PmAttrBigDecimal;
+import org.pm4j.core.pm.PmAttrBoolean;
+import org.pm4j.core.pm.PmAttrDate;
+import org.pm4j.core.pm.PmAttrInteger;
+import org.pm4j.core.pm.PmAttrString;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.annotation.PmAttrCfg;
+import org.pm4j.core.pm.annotation.PmBeanCfg;
+import org.pm4j.core.pm.impl.PmAttrBigDecimalImpl;
+import org.pm4j.core.pm.impl.PmAttrBooleanImpl;
+import org.pm4j.core.pm.impl.PmAttrDateImpl;
+import org.pm4j.core.pm.impl.PmAttrIntegerImpl;
+import org.pm4j.core.pm.impl.PmAttrStringImpl;
+import org.pm4j.core.pm.impl.PmBeanBase;
+
+/**
+ * PM for a {@link Customer}. Is used as table row PM and as detail form PM.
+ *
+ * @author olaf boede
+ */
+@PmBeanCfg(beanClass=Customer.class)
+public class CustomerPm extends PmBeanBase<Customer> {
+
+  @PmAttrCfg(readOnly=true)
+  public final PmAttrInteger id = new PmAttrIntegerImpl(this);
+
+  @PmAttrCfg(required=true, maxLen=60)
+  public final PmAttrString name = new PmAttrStringImpl(this);
+
+  public final PmAttrString city = new PmAttrStringImpl(this);
+
+  public final PmAttrBigDecimal revenue = new PmAttrBigDecimalImpl(this);
+
+  public final PmAttrDate birthDate = new PmAttrDateImpl(this);
+
+  public final PmAttrBoolean active = new PmAttrBooleanImpl(this);
+
+  public CustomerPm() {
+  }
+
+  public CustomerPm(PmObject pmParent, Customer customer) {
+    super(pmParent, customer);
+  }
+
+}
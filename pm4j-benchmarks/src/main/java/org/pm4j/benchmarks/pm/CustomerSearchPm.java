@@ -0,0 +1,36 @@
+package org.pm4j.benchmarks.pm;
+
+import java.util.Collection;
+
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.core.pm.PmAttrBigDecimal;
+import org.pm4j.core.pm.PmAttrBoolean;
+import org.pm4j.core.pm.PmAttrString;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.impl.PmAttrBigDecimalImpl;
+import org.pm4j.core.pm.impl.PmAttrBooleanImpl;
+import org.pm4j.core.pm.impl.PmAttrStringImpl;
+import org.pm4j.core.pm.impl.PmObjectBase;
+
+/**
+ * A customer search dialog: some filter attributes and a result table.
+ * <p>
+ * Represents a typical PM tree for the event broadcast and initialization benchmarks.
+ *
+ * @author olaf boede
+ */
+public class CustomerSearchPm extends PmObjectBase {
+
+  public final PmAttrString searchName = new PmAttrStringImpl(this);
+  public final PmAttrString searchCity = new PmAttrStringImpl(this);
+  public final PmAttrBigDecimal minRevenue = new PmAttrBigDecimalImpl(this);
+  public final PmAttrBoolean onlyActive = new PmAttrBooleanImpl(this);
+
+  public final CustomerTablePm customerTable;
+
+  public CustomerSearchPm(PmObject pmParent, Collection<Customer> customers) {
+    super(pmParent);
+    customerTable = new CustomerTablePm(this, customers);
+  }
+
+}
@@ -0,0 +1,83 @@
+package org.pm4j.benchmarks.pm;
+
+import java.util.Collection;
+
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.common.pageable.querybased.QueryService;
+import org.pm4j.common.query.QueryOptions;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.PmTableCol;
+import org.pm4j.core.pm.annotation.PmBoolean;
+import org.pm4j.core.pm.annotation.PmFactoryCfg;
+import org.pm4j.core.pm.annotation.PmTableColCfg;
+import org.pm4j.core.pm.impl.PmTableColImpl;
+import org.pm4j.core.pm.impl.PmTableImpl;
+
+/**
+ * A customer table that gets its rows either from an in-memory collection
+ * or from a query service.
+ *
+ * @author olaf boede
+ */
+@PmFactoryCfg(beanPmClasses=CustomerPm.class)
+public class CustomerTablePm extends PmTableImpl<CustomerPm, Customer> {
+
+  public final PmTableCol id = new PmTableColImpl(this);
+  @PmTableColCfg(sortable=PmBoolean.TRUE)
+  public final PmTableCol name = new PmTableColImpl(this);
+  @PmTableColCfg(sortable=PmBoolean.TRUE)
+  public final PmTableCol city = new PmTableColImpl(this);
+  @PmTableColCfg(sortable=PmBoolean.TRUE)
+  public final PmTableCol revenue = new PmTableColImpl(this);
+  public final PmTableCol birthDate = new PmTableColImpl(this);
+  public final PmTableCol active = new PmTableColImpl(this);
+
+  private final Collection<Customer> customers;
+  private final QueryService<Customer, ?> service;
+
+  /**
+   * Creates an in-memory table.
+   *
+   * @param pmParent the PM hierarchy parent.
+   * @param customers the customers to display.
+   */
+  public CustomerTablePm(PmObject pmParent, Collection<Customer> customers) {
+    super(pmParent);
+    this.customers = customers;
+    this.service = null;
+  }
+
+  /**
+   * Creates a service based table.
+   *
+   * @param pmParent the PM hierarchy parent.
+   * @param service a {@link org.pm4j.common.pageable.querybased.pagequery.PageQueryService} or
+   *          an {@link org.pm4j.common.pageable.querybased.idquery.IdQueryService}.
+   */
+  public CustomerTablePm(PmObject pmParent, QueryService<Customer, ?> service) {
+    super(pmParent);
+    this.customers = null;
+    this.service = service;
+  }
+
+  @Override
+  protected QueryService<Customer, ?> getPmQueryServiceImpl() {
+    return service;
+  }
+
+  @Override
+  protected Collection<Customer> getPmBeansImpl() {
+    return customers;
+  }
+
+  @Override
+  protected QueryOptions getPmQueryOptions() {
+    QueryOptions qo = super.getPmQueryOptions();
+    qo.setIdAttribute(Customer.ATTR_ID);
+    qo.addSortOrder(Customer.ATTR_NAME);
+    qo.addSortOrder(Customer.ATTR_CITY);
+    qo.addSortOrder(Customer.ATTR_REVENUE);
+    return qo;
+  }
+
+}
@@ -0,0 +1,22 @@
+package org.pm4j.benchmarks.service;
+
+import java.util.Collection;
+
+import org.pm4j.benchmarks.domain.Customer;
+import org.pm4j.common.pageable.querybased.idquery.IdQueryServiceFake;
+
+/**
+ * An in-process {@link org.pm4j.common.pageable.querybased.idquery.IdQueryService}
+ * that provides the customers it was initialized with.
+ *
+ * @author olaf boede
+ */
+public class CustomerIdQueryService extends IdQueryServiceFake.WithIntegerId<Customer> {
+
+  public CustomerIdQueryService(Collection<Customer> customers) {
+    for (Customer c : customers) {
+      save(c);
+    }
+  }
+
+}
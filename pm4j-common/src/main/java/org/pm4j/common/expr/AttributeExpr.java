@@ -3,7 +3,9 @@ package org.pm4j.common.expr;
 import org.pm4j.common.expr.NameWithModifier.Modifier;
 import org.pm4j.common.expr.parser.ParseCtxt;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
+import org.pm4j.common.util.reflection.ClassInlineCache;
+import org.pm4j.common.util.reflection.ClassInlineCachePerFactory;
 import org.pm4j.common.util.reflection.ReflectionException;
 
 /**
@@ -13,8 +15,18 @@ import org.pm4j.common.util.reflection.ReflectionException;
  */
 public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
 
+  /** Marks a class that does not provide the attribute. */
+  private static final Object NO_ACCESSOR = new Object();
+
+  /** An accessor provided by the creator of this expression. Used for all objects. */
   private BeanAttrAccessor accessor;
 
+  /**
+   * The accessors for the classes this expression was executed on.
+   * Separated by the {@link ExprExecCtxt#getBeanAttrAccessorFactory()} that created them.
+   */
+  private final ClassInlineCachePerFactory<Object> classToAccessorCache = new ClassInlineCachePerFactory<Object>();
+
   public AttributeExpr(ParseCtxt ctxt, NameWithModifier name, BeanAttrAccessor accessor) {
     this(ctxt, name);
     this.accessor = accessor;
@@ -35,11 +47,6 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
 
   @Override
   public Object execImpl(ExprExecCtxt ctxt) {
-    BeanAttrAccessor accessor = ensureAccessor(ctxt);
-    if (accessor == null) {
-      return null;
-    }
-
     Object currentObj = ctxt.getCurrentValue();
 
     if (currentObj == null) {
@@ -50,6 +57,11 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
       }
     }
 
+    BeanAttrAccessor accessor = ensureAccessor(ctxt);
+    if (accessor == null) {
+      return null;
+    }
+
     return accessor.getBeanAttrValue(currentObj);
   }
 
@@ -59,10 +71,17 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
   }
 
   private BeanAttrAccessor ensureAccessor(ExprExecCtxt ctxt) {
-    // FIXME: check in addition the used class of the accessor!
-    if (accessor == null) {
+    if (accessor != null) {
+      return accessor;
+    }
+
+    Class<?> currentClass = ctxt.getCurrentValue().getClass();
+    BeanAttrAccessorFactory factory = ctxt.getBeanAttrAccessorFactory();
+    ClassInlineCache<Object> cache = classToAccessorCache.forFactory(factory);
+    Object a = cache.get(currentClass);
+    if (a == null) {
       try {
-        accessor = new BeanAttrAccessorImpl(ctxt.getCurrentValue().getClass(), nameWithModifier.getName());
+        a = factory.create(currentClass, nameWithModifier.getName());
       } catch (ReflectionException e) {
       // Property does not exist. Check if that's ok.
       // Consider the old meaning of 'o' which also worked like an 'x'.
@@ -75,10 +94,13 @@ public class AttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
               throw new ExprExecExeption(ctxt, "Unable to resolve expression part '" + nameWithModifier + "'.", e);
           }
         }
-        return null;
+        a = NO_ACCESSOR;
       }
+      cache.put(currentClass, a);
     }
-    return accessor;
+    return (a != NO_ACCESSOR)
+        ? (BeanAttrAccessor) a
+        : null;
   }
 
   public static AttributeExpr parse(String exprString) {
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.pm4j.common.exception.CheckedExceptionWrapper;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
 
 /**
  * The execution context for expressions.<br>
@@ -102,6 +103,14 @@ public class ExprExecCtxt implements Cloneable {
     return currentExpr;
   }
 
+  /**
+   * @return The factory used to create the attribute accessors. This implementation provides
+   *         {@link BeanAttrAccessorFactory#getDefault()}.
+   */
+  public BeanAttrAccessorFactory getBeanAttrAccessorFactory() {
+    return BeanAttrAccessorFactory.getDefault();
+  }
+
   /**
    * Generates a sub context that may be used to evaluate a separate expression.
    * For example an expression that evaluates a method call parameter value.
@@ -6,7 +6,6 @@ import java.beans.PropertyVetoException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -20,11 +19,15 @@ import org.pm4j.common.modifications.ModificationsImpl;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionBase;
 import org.pm4j.common.pageable.PageableCollectionUtil;
+import org.pm4j.common.query.QueryAttr;
 import org.pm4j.common.query.QueryExpr;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.query.SortOrder;
 import org.pm4j.common.query.inmem.InMemQueryEvaluator;
 import org.pm4j.common.query.inmem.InMemQueryEvaluatorSet;
+import org.pm4j.common.query.inmem.InMemQueryPredicate;
+import org.pm4j.common.query.inmem.InMemTextIndex;
 import org.pm4j.common.selection.ItemSetSelection;
 import org.pm4j.common.selection.Selection;
 import org.pm4j.common.selection.SelectionHandler;
@@ -64,13 +67,29 @@ public abstract class InMemCollectionBase<T_ITEM>
   private Object cacheCtxt;
   /** The current set of filtered and sorted items. */
   private List<T_ITEM> filteredAndSortedObjects;
-  /** The currently active sort order comparator. */
-  private Comparator<T_ITEM> sortOrderComparator;
+  /** The compiled form of the current filter expression. */
+  private InMemQueryPredicate filterPredicate;
+  /** The filter expression the {@link #filterPredicate} was compiled for. */
+  private QueryExpr filterPredicateExpr;
+  /** Switches incremental filtering on/off. */
+  private boolean incrementalFiltering;
+  /**
+   * The last filter result that may be used for incremental filtering.<br>
+   * Is <code>null</code> if incremental filtering is not possible.
+   */
+  private List<T_ITEM> refinableObjects;
+  /** The filter expression used to get the {@link #refinableObjects}. */
+  private QueryExpr refinableObjectsExpr;
+  /** The backing collection used to get the {@link #refinableObjects}. */
+  private Collection<T_ITEM> refinableObjectsBackingCollection;
+  /** An optional index used to narrow the items to check for free-text filters. */
+  private InMemTextIndex<T_ITEM> textIndex;
 
   /** A listener gets called if a query property gets changed that affects the effective filter result. */
   private PropertyChangeListener changeFilterListener = new PropertyChangeListener() {
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+      filterPredicate = null;
       filteredAndSortedObjects = null;
     }
   };
@@ -78,7 +97,7 @@ public abstract class InMemCollectionBase<T_ITEM>
   private PropertyChangeListener changeSortOrderListener = new PropertyChangeListener() {
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-      sortOrderComparator = null;
+      refinableObjects = null;
       filteredAndSortedObjects = null;
     }
   };
@@ -156,8 +175,12 @@ public abstract class InMemCollectionBase<T_ITEM>
 
   @Override
   public void clearCaches() {
-    sortOrderComparator = null;
+    filterPredicate = null;
+    refinableObjects = null;
     filteredAndSortedObjects = null;
+    if (textIndex != null) {
+      textIndex.clear();
+    }
     cacheStrategy.clear(cacheCtxt);
   }
 
@@ -168,6 +191,76 @@ public abstract class InMemCollectionBase<T_ITEM>
   public void setInMemQueryEvaluator(InMemQueryEvaluator<T_ITEM> inMemQueryEvaluator) {
     assert inMemQueryEvaluator != null;
     this.inMemQueryEvaluator = inMemQueryEvaluator;
+    this.filterPredicate = null;
+    this.refinableObjects = null;
+    this.filteredAndSortedObjects = null;
+    if (textIndex != null) {
+      textIndex.clear();
+    }
+  }
+
+  /**
+   * Switches incremental filtering on or off.
+   * <p>
+   * If switched on, a filter change that narrows the previous filter (see
+   * {@link InMemQueryEvaluator#isRefinement(QueryExpr, QueryExpr)}) gets applied only to the previous
+   * filter result. The previous item order is kept. No additional sort operation is needed.
+   * <p>
+   * ATTENTION: Items that did not match the previous filter are not re-checked. Bean modifications
+   * should be reported by {@link ModificationHandler#registerUpdatedItem(Object, boolean)} or
+   * {@link #clearCaches()} to force a complete re-calculation.
+   *
+   * @param incrementalFiltering <code>true</code> switches incremental filtering on.
+   */
+  public void setIncrementalFiltering(boolean incrementalFiltering) {
+    this.incrementalFiltering = incrementalFiltering;
+    this.refinableObjects = null;
+  }
+
+  /**
+   * Defines string attributes to index for 'contains', 'starts with' and 'like' filters.
+   * <p>
+   * The filters on these attributes check only the candidate items provided by an
+   * {@link InMemTextIndex}. The filter result is the same as without index. This is useful for
+   * search-as-you-type filters on large collections.
+   * <p>
+   * The index gets maintained by the operations of the {@link ModificationHandler}. Bean
+   * modifications should be reported by {@link ModificationHandler#registerUpdatedItem(Object, boolean)}
+   * or {@link #clearCaches()}.
+   *
+   * @param attrs
+   *          the attributes to index. No attribute switches the index off.
+   */
+  public void setTextIndexAttrs(QueryAttr... attrs) {
+    this.textIndex = (attrs.length > 0)
+        ? new InMemTextIndex<T_ITEM>(attrs)
+        : null;
+    this.filteredAndSortedObjects = null;
+  }
+
+  /**
+   * Reports a modification of the item attribute values that is not reported by
+   * {@link ModificationHandler#registerUpdatedItem(Object, boolean)}.
+   * E.g. an update that was reverted while the item stays registered as updated.
+   * <p>
+   * Updates the optional text index (see {@link #setTextIndexAttrs(QueryAttr...)}) and the
+   * incremental filter base (see {@link #setIncrementalFiltering(boolean)}).
+   *
+   * @param item the modified item.
+   */
+  public void registerItemValueChange(T_ITEM item) {
+    // the updated item may match filter conditions it did not match before.
+    refinableObjects = null;
+    if (textIndex != null) {
+      textIndex.updateItem(item);
+    }
+  }
+
+  /**
+   * @return the evaluator used for filtering and sorting the items.
+   */
+  protected InMemQueryEvaluator<T_ITEM> getInMemQueryEvaluator() {
+    return inMemQueryEvaluator;
   }
 
   /**
@@ -180,28 +273,34 @@ public abstract class InMemCollectionBase<T_ITEM>
     this.cacheCtxt = cacheCtxt;
   }
 
-  private Comparator<T_ITEM> _getSortOrderComparator() {
-    if (sortOrderComparator == null) {
-      sortOrderComparator = inMemQueryEvaluator.getComparator(getQueryParams().getEffectiveSortOrder());
-    }
-    return sortOrderComparator;
-  }
-
   private List<T_ITEM> _getObjects() {
     if (filteredAndSortedObjects == null) {
       Collection<T_ITEM> backingCollection = getBackingCollection();
       if (!getQueryParams().isExecQuery()) {
         filteredAndSortedObjects = Collections.emptyList();
+        refinableObjects = null;
       }
       else {
-        List<T_ITEM> list = _filter(new ArrayList<T_ITEM>(backingCollection));
-        Comparator<T_ITEM> comparator = _getSortOrderComparator();
-
-        if (comparator != null) {
-          Collections.sort(list, comparator);
+        QueryExpr filterExpression = getQueryParams().getQueryExpression();
+        List<T_ITEM> list;
+        if (_isRefinementOfPreviousResult(backingCollection, filterExpression)) {
+          // The previous result is already sorted.
+          list = _filter(new ArrayList<T_ITEM>(refinableObjects), null);
+        }
+        else {
+          list = _filter(backingCollection, textIndex);
+          SortOrder sortOrder = getQueryParams().getEffectiveSortOrder();
+          if (sortOrder != null) {
+            list = inMemQueryEvaluator.sort(list, sortOrder);
+          }
         }
 
         filteredAndSortedObjects = list;
+        if (incrementalFiltering) {
+          refinableObjects = list;
+          refinableObjectsExpr = filterExpression;
+          refinableObjectsBackingCollection = backingCollection;
+        }
       }
 
       // XXX olaf: just moves to the last possible page if necessary.
@@ -213,17 +312,48 @@ public abstract class InMemCollectionBase<T_ITEM>
     return filteredAndSortedObjects;
   }
 
-  /** Generates a list of filtered items based on the given list. */
-  private List<T_ITEM> _filter(List<T_ITEM> unfilteredList) {
+  /**
+   * Checks if the previous filter result may be used to calculate the result for the
+   * given filter expression.
+   * <p>
+   * An identical expression instance is not handled as a refinement because it
+   * may have been modified internally.
+   */
+  private boolean _isRefinementOfPreviousResult(Collection<T_ITEM> backingCollection, QueryExpr filterExpression) {
+    return incrementalFiltering &&
+           refinableObjects != null &&
+           refinableObjectsBackingCollection == backingCollection &&
+           (refinableObjectsExpr != filterExpression || filterExpression == null) &&
+           inMemQueryEvaluator.isRefinement(refinableObjectsExpr, filterExpression);
+  }
+
+  /**
+   * Generates a new list of filtered items based on the given collection.
+   *
+   * @param index an optional index of the given items.
+   */
+  private List<T_ITEM> _filter(Collection<T_ITEM> unfilteredItems, InMemTextIndex<T_ITEM> index) {
     QueryExpr filterExpression = getQueryParams().getQueryExpression();
     if (filterExpression == null) {
-      return unfilteredList;
+      return new ArrayList<T_ITEM>(unfilteredItems);
     }
 
-    List<T_ITEM> filteredList = inMemQueryEvaluator.evaluateSubSet(unfilteredList, filterExpression);
+    List<T_ITEM> filteredList = inMemQueryEvaluator.evaluateSubSet(unfilteredItems, filterExpression, _getFilterPredicate(filterExpression), index);
     return filteredList;
   }
 
+  /**
+   * Provides the compiled filter predicate.<br>
+   * It gets re-compiled after a change of the effective filter.
+   */
+  private InMemQueryPredicate _getFilterPredicate(QueryExpr filterExpression) {
+    if (filterPredicate == null || filterPredicateExpr != filterExpression) {
+      filterPredicate = inMemQueryEvaluator.compile(filterExpression);
+      filterPredicateExpr = filterExpression;
+    }
+    return filterPredicate;
+  }
+
   protected class InMemModificationHandler implements ModificationHandler<T_ITEM> {
 
     private ModificationsImpl<T_ITEM> modifications = new ModificationsImpl<T_ITEM>();
@@ -246,10 +376,15 @@ public abstract class InMemCollectionBase<T_ITEM>
         throw new RuntimeException("Please check if you did provide a modifyable collection. Found collection type: " + getBackingCollection().getClass(), e);
       }
 
+      if (textIndex != null) {
+        textIndex.addItem(getBackingCollection(), item);
+      }
       // synchronize the optionally existing filtered and sorted row object list.
       if (filteredAndSortedObjects != null) {
         filteredAndSortedObjects.add(item);
       }
+      // the added item is not sorted. A refinement of the current result would keep it at the end.
+      refinableObjects = null;
 
       doRegisterAddedItem(item);
       return true;
@@ -270,6 +405,8 @@ public abstract class InMemCollectionBase<T_ITEM>
       // No veto event will be fired here, because the item update is not under control of this
       // collection.
 
+      registerItemValueChange(item);
+
       // a modification of a new item should not lead to a double-listing within the updated list too.
       if (isUpdated && modifications.getAddedItems().contains(item)) {
         return;
@@ -305,6 +442,9 @@ public abstract class InMemCollectionBase<T_ITEM>
       for (T_ITEM i : items) {
         // remove the items from the in-memory item list(s).
         getBackingCollection().remove(i);
+        if (textIndex != null) {
+          textIndex.removeItem(i);
+        }
         if (filteredAndSortedObjects != null) {
           filteredAndSortedObjects.remove(i);
         }
@@ -317,6 +457,8 @@ public abstract class InMemCollectionBase<T_ITEM>
         }
       }
       modifications.setRemovedItems(new ItemSetSelection<T_ITEM>(removedItems));
+      // a refinement of the cached filter result would bring the removed items back.
+      refinableObjects = null;
       firePropertyChange(PageableCollection.EVENT_REMOVE_SELECTION, items, null);
       return true;
     }
@@ -334,10 +476,15 @@ public abstract class InMemCollectionBase<T_ITEM>
           modifications.setRemovedItems(new ItemSetSelection<T_ITEM>(removedItems));
         }
         // handle optionally existing cached information:
+        if (textIndex != null) {
+          textIndex.removeItem(i);
+        }
         if (filteredAndSortedObjects != null) {
           filteredAndSortedObjects.remove(i);
         }
       }
+      // a refinement of the cached filter result would bring the removed items back.
+      refinableObjects = null;
       // all removed items must disappear from any selection.
       selectionHandler.select(false, items);
       Selection<T_ITEM> removedItemsSelection = new ItemSetSelection<T_ITEM>(new HashSet<T_ITEM>(ListUtil.toList(items)));
@@ -32,6 +32,18 @@ public class InMemCollectionImpl<T_ITEM> extends InMemCollectionBase<T_ITEM> {
     }
   }
 
+  /**
+   * Switches parallel filtering and sorting of large backing collections on or off.
+   * <p>
+   * Collections having less items than the threshold defined by
+   * {@link InMemQueryEvaluator#setParallelThreshold(int)} are still handled sequentially.
+   *
+   * @param parallel <code>true</code> switches the parallel evaluation mode on.
+   */
+  public void setParallelExecution(boolean parallel) {
+    getInMemQueryEvaluator().setParallelExecution(parallel);
+    clearCaches();
+  }
 
   @Override
   public Collection<T_ITEM> getBackingCollectionImpl() {
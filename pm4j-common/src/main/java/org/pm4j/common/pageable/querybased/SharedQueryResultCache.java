@@ -0,0 +1,381 @@
+package org.pm4j.common.pageable.querybased;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpBase;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprNot;
+import org.pm4j.common.query.QueryExprOr;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.query.SortOrder;
+
+/**
+ * A query result cache that may be shared by all users of a JVM.
+ * <p>
+ * It is used by caching service decorators like {@link org.pm4j.common.pageable.querybased.pagequery.SharedCachingPageQueryService}
+ * and {@link org.pm4j.common.pageable.querybased.idquery.SharedCachingIdQueryService}.
+ * These decorators are useful if many users execute identical queries. E.g. if they open the same
+ * list using the same default {@link QueryParams}.
+ * <p>
+ * The cache key of a query is derived from the filter expression, the effective sort order,
+ * the max results limit and the query properties of the {@link QueryParams}. Queries that contain
+ * parts without a value based identity (e.g. in-memory conditions or application specific value types)
+ * are not cached.
+ * <p>
+ * The entries expire after {@link #setTimeToLiveMillis(long)}. If the cache contains more than
+ * {@link #setMaxEntries(int)} entries, the least recently used entry gets released.<br>
+ * Applications should call {@link #invalidate(Class)} after changing items of a cached type.
+ *
+ * @author olaf boede
+ */
+public class SharedQueryResultCache {
+
+  /** The default time to live of a cache entry: one minute. */
+  public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60 * 1000;
+
+  /** The default maximal number of cache entries. */
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private static final SharedQueryResultCache DEFAULT_INSTANCE = new SharedQueryResultCache();
+
+  /** Marks a query part that can't be used as a cache key part. */
+  private static final Object NOT_CACHEABLE = new Object();
+
+  private long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /** The cache entries. Sorted from the least to the most recently used one. Guarded by <code>this</code>. */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+      if (size() > maxEntries) {
+        evictionCount.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  };
+
+  /**
+   * @return the JVM wide cache instance that is used by default.
+   */
+  public static SharedQueryResultCache getDefault() {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * Creates a key for a query service call result.
+   *
+   * @param itemClass
+   *          the type of items the result is based on. Used for {@link #invalidate(Class)}.
+   * @param region
+   *          identifies the service that provides the result. Results of different regions are
+   *          never mixed. Services with a restricted result scope (tenant, user etc.) need a region per scope. Needs to provide a value based {@link #equals(Object)} and {@link #hashCode()}.
+   * @param operation
+   *          the name of the service operation.
+   * @param query
+   *          the query to get a result for.
+   * @param args
+   *          additional call arguments that identify the result. E.g. a start index and page size.
+   * @return the key. <code>null</code> if the query can't be identified by its values.
+   */
+  public Key makeKey(Class<?> itemClass, Object region, String operation, QueryParams query, Object... args) {
+    List<Object> queryKey = makeQueryKey(query);
+    if (queryKey == null) {
+      return null;
+    }
+    Object argsKey = snapshot(Arrays.asList(args));
+    if (argsKey == NOT_CACHEABLE) {
+      return null;
+    }
+    return new Key(itemClass, Arrays.asList(region, operation, queryKey, argsKey));
+  }
+
+  /**
+   * @param key the key to get the cached result for.
+   * @return the cached result or <code>null</code> if there is no valid cache entry.
+   */
+  public synchronized Object get(Key key) {
+    Entry e = entries.get(key);
+    if (e != null && e.expiresAt < currentTimeMillis()) {
+      entries.remove(key);
+      e = null;
+    }
+
+    if (e != null) {
+      hitCount.incrementAndGet();
+      return e.value;
+    } else {
+      missCount.incrementAndGet();
+      return null;
+    }
+  }
+
+  /**
+   * @param key the key to store the result for.
+   * @param value the result. Should not be modified after passing it to this cache.
+   */
+  public synchronized void put(Key key, Object value) {
+    entries.put(key, new Entry(value, currentTimeMillis() + timeToLiveMillis));
+  }
+
+  /**
+   * Releases all cached results for the given item type (and its sub classes).
+   *
+   * @param itemClass the item type to release the results for.
+   */
+  public synchronized void invalidate(Class<?> itemClass) {
+    for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext(); ) {
+      if (itemClass.isAssignableFrom(it.next().itemClass)) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Releases all cached results.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * @param timeToLiveMillis the time a cached result is valid.
+   */
+  public void setTimeToLiveMillis(long timeToLiveMillis) {
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  /**
+   * @param maxEntries the maximal number of cached results.
+   */
+  public synchronized void setMaxEntries(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("The cache needs to support at least one entry. Found value: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  /** @return the number of {@link #get(Key)} calls that provided a cached result. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** @return the number of {@link #get(Key)} calls that found no valid cached result. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /** @return the number of entries released because of the {@link #setMaxEntries(int)} limit. */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /** @return the current number of cache entries. Some of them may already be expired. */
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  /** Resets the hit, miss and eviction counters. */
+  public void resetStatistics() {
+    hitCount.set(0);
+    missCount.set(0);
+    evictionCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + ", size=" + getSize();
+  }
+
+  /**
+   * The time source used for entry expiration. May be overridden for testing purposes.
+   *
+   * @return the current time in milliseconds.
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * @return a value based representation of the query. <code>null</code> if the query contains parts
+   *         without a value based identity.
+   */
+  private static List<Object> makeQueryKey(QueryParams query) {
+    List<Object> key = new ArrayList<Object>();
+    key.add(query.isExecQuery());
+    key.add(query.getMaxResults());
+
+    Object exprKey = makeExprKey(query.getQueryExpression());
+    if (exprKey == NOT_CACHEABLE) {
+      return null;
+    }
+    key.add(exprKey);
+
+    for (SortOrder so = query.getEffectiveSortOrder(); so != null; so = so.getNextSortOrder()) {
+      key.add(so.getAttr());
+      key.add(so.isAscending());
+    }
+
+    Map<String, Object> properties = new TreeMap<String, Object>();
+    for (String name : query.getQueryPropertyNames()) {
+      Object value = snapshot(query.getQueryProperty(name));
+      if (value == NOT_CACHEABLE) {
+        return null;
+      }
+      properties.put(name, value);
+    }
+    key.add(properties);
+
+    return key;
+  }
+
+  private static Object makeExprKey(QueryExpr expr) {
+    if (expr == null) {
+      return null;
+    }
+    if (expr instanceof QueryExprAnd || expr instanceof QueryExprOr) {
+      List<QueryExpr> subExprs = (expr instanceof QueryExprAnd)
+          ? ((QueryExprAnd) expr).getExpressions()
+          : ((QueryExprOr) expr).getExpressions();
+      List<Object> key = new ArrayList<Object>(subExprs.size() + 1);
+      key.add(expr.getClass());
+      for (QueryExpr e : subExprs) {
+        Object subKey = makeExprKey(e);
+        if (subKey == NOT_CACHEABLE) {
+          return NOT_CACHEABLE;
+        }
+        key.add(subKey);
+      }
+      return key;
+    }
+    if (expr instanceof QueryExprNot) {
+      Object baseKey = makeExprKey(((QueryExprNot) expr).getBaseExpression());
+      return (baseKey != NOT_CACHEABLE)
+          ? Arrays.asList(QueryExprNot.class, baseKey)
+          : NOT_CACHEABLE;
+    }
+    if (expr.getClass() == QueryExprCompare.class) {
+      QueryExprCompare c = (QueryExprCompare) expr;
+      CompOp compOp = c.getCompOp();
+      Object value = snapshot(c.getValue());
+      // Only the CompOpBase classes provide a value based equals() implementation.
+      if (!(compOp instanceof CompOpBase) || value == NOT_CACHEABLE) {
+        return NOT_CACHEABLE;
+      }
+      return Arrays.asList(QueryExprCompare.class, c.getAttr(), compOp.clone(), value);
+    }
+    return NOT_CACHEABLE;
+  }
+
+  /**
+   * Provides an immutable copy of the given value.
+   *
+   * @return the copy or {@link #NOT_CACHEABLE} if the value type is not known to have a value based identity.
+   */
+  private static Object snapshot(Object value) {
+    if (value == null ||
+        value instanceof String ||
+        value instanceof Integer ||
+        value instanceof Long ||
+        value instanceof Short ||
+        value instanceof Byte ||
+        value instanceof Double ||
+        value instanceof Float ||
+        value instanceof BigDecimal ||
+        value instanceof BigInteger ||
+        value instanceof Boolean ||
+        value instanceof Character ||
+        value instanceof Enum ||
+        value instanceof Class) {
+      return value;
+    }
+    if (value instanceof Date) {
+      return ((Date) value).clone();
+    }
+    if (value instanceof Collection || value instanceof Object[]) {
+      Collection<?> values = (value instanceof Collection)
+          ? (Collection<?>) value
+          : Arrays.asList((Object[]) value);
+      List<Object> copy = new ArrayList<Object>(values.size());
+      for (Object v : values) {
+        Object vCopy = snapshot(v);
+        if (vCopy == NOT_CACHEABLE) {
+          return NOT_CACHEABLE;
+        }
+        copy.add(vCopy);
+      }
+      return Collections.unmodifiableList(copy);
+    }
+    return NOT_CACHEABLE;
+  }
+
+  /**
+   * Identifies a cached query service call result.
+   */
+  public static final class Key {
+    private final Class<?> itemClass;
+    private final List<Object> parts;
+    private final int hashCode;
+
+    private Key(Class<?> itemClass, List<Object> parts) {
+      this.itemClass = itemClass;
+      this.parts = parts;
+      this.hashCode = parts.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return (hashCode == other.hashCode) &&
+             (itemClass == other.itemClass) &&
+             parts.equals(other.parts);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return itemClass.getSimpleName() + parts;
+    }
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final long expiresAt;
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
@@ -0,0 +1,228 @@
+package org.pm4j.common.pageable.querybased.idquery;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pm4j.common.query.QueryParams;
+
+/**
+ * A read-only ID list that loads the ID's of a query result window by window.
+ * <p>
+ * The list size gets determined by a separate {@link IdQueryService#getItemCount(QueryParams)} call.
+ * Only a limited number of recently used windows is kept in memory. Numeric ID's
+ * are stored in primitive <code>long</code> arrays.
+ * <p>
+ * Removed ID's are handled as a position based overlay. This way the windows can still be
+ * re-read from the service using the original query parameters.
+ * <p>
+ * The list reflects the query result at the time the windows get read. If the data gets
+ * changed concurrently, a shortened window provides <code>null</code> for the missing
+ * positions. These are handled like items that are no longer provided by the service.
+ *
+ * @author olaf boede
+ */
+class IdQueryChunkedIdList extends AbstractList<Object> {
+
+  private final IdQueryService<?, ?> service;
+  private final QueryParams queryParams;
+  private final int windowSize;
+  private final int size;
+  private final Map<Integer, IdWindow> windowCache;
+  /** Sorted positions of removed ID's within the query result. */
+  private final List<Integer> removedPositions = new ArrayList<Integer>();
+
+  /**
+   * @param service
+   *          provides the ID's.
+   * @param queryParams
+   *          the query to read the ID's for. Should not be modified after passing it to this list.
+   * @param size
+   *          the number of ID's provided by the query.
+   * @param windowSize
+   *          the number of ID's to read with a single service call.
+   * @param maxCachedWindows
+   *          the number of ID windows to keep in memory.
+   */
+  IdQueryChunkedIdList(IdQueryService<?, ?> service, QueryParams queryParams, int size, int windowSize, final int maxCachedWindows) {
+    this.service = service;
+    this.queryParams = queryParams;
+    this.size = size;
+    this.windowSize = windowSize;
+    this.windowCache = new LinkedHashMap<Integer, IdWindow>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, IdWindow> eldest) {
+        return size() > maxCachedWindows;
+      }
+    };
+  }
+
+  @Override
+  public synchronized Object get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    return getIdAtPosition(toPosition(index));
+  }
+
+  @Override
+  public synchronized int size() {
+    return size - removedPositions.size();
+  }
+
+  @Override
+  public synchronized Object remove(int index) {
+    Object id = get(index);
+    addRemovedPosition(toPosition(index));
+    return id;
+  }
+
+  /**
+   * Searches the ID within the cached windows first. The other windows get read only
+   * if the ID was not found there.
+   */
+  @Override
+  public synchronized boolean remove(Object o) {
+    if (o == null) {
+      return false;
+    }
+    for (Map.Entry<Integer, IdWindow> e : windowCache.entrySet()) {
+      int windowPos = e.getValue().indexOf(o);
+      if (windowPos != -1) {
+        int pos = e.getKey() * windowSize + windowPos;
+        if (Collections.binarySearch(removedPositions, pos) < 0) {
+          addRemovedPosition(pos);
+          return true;
+        }
+      }
+    }
+    int idx = indexOf(o);
+    if (idx != -1) {
+      remove(idx);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Translates a list index to the position within the query result by skipping the removed positions.
+   */
+  private int toPosition(int index) {
+    int pos = index;
+    for (int removedPos : removedPositions) {
+      if (removedPos <= pos) {
+        ++pos;
+      } else {
+        break;
+      }
+    }
+    return pos;
+  }
+
+  private void addRemovedPosition(int pos) {
+    int insertIdx = Collections.binarySearch(removedPositions, pos);
+    if (insertIdx < 0) {
+      removedPositions.add(-insertIdx - 1, pos);
+      ++modCount;
+    }
+  }
+
+  private Object getIdAtPosition(int pos) {
+    int windowIdx = pos / windowSize;
+    IdWindow window = windowCache.get(windowIdx);
+    if (window == null) {
+      window = new IdWindow(service.findIds(queryParams, (long) windowIdx * windowSize, windowSize));
+      windowCache.put(windowIdx, window);
+    }
+    return window.get(pos % windowSize);
+  }
+
+  /**
+   * A window of ID's.<br>
+   * Stores the ID's in a <code>long[]</code> if all ID's are {@link Long} or all ID's are
+   * {@link Integer} values.
+   */
+  static final class IdWindow {
+    private final long[] longIds;
+    private final boolean integerIds;
+    private final Object[] objectIds;
+
+    IdWindow(List<?> ids) {
+      Class<?> idClass = getCommonIdClass(ids);
+      if (idClass == Long.class || idClass == Integer.class) {
+        longIds = new long[ids.size()];
+        for (int i = 0; i < longIds.length; ++i) {
+          longIds[i] = ((Number) ids.get(i)).longValue();
+        }
+        integerIds = (idClass == Integer.class);
+        objectIds = null;
+      } else {
+        longIds = null;
+        integerIds = false;
+        objectIds = ids.toArray();
+      }
+    }
+
+    Object get(int i) {
+      if (longIds != null) {
+        if (i >= longIds.length) {
+          return null;
+        }
+        // Not a conditional expression: that would unbox and promote both values to long.
+        if (integerIds) {
+          return Integer.valueOf((int) longIds[i]);
+        } else {
+          return Long.valueOf(longIds[i]);
+        }
+      } else {
+        return (i < objectIds.length)
+            ? objectIds[i]
+            : null;
+      }
+    }
+
+    int indexOf(Object id) {
+      if (longIds != null) {
+        if ((integerIds && id instanceof Integer) || (!integerIds && id instanceof Long)) {
+          long l = ((Number) id).longValue();
+          for (int i = 0; i < longIds.length; ++i) {
+            if (longIds[i] == l) {
+              return i;
+            }
+          }
+        }
+        return -1;
+      } else {
+        for (int i = 0; i < objectIds.length; ++i) {
+          if (id.equals(objectIds[i])) {
+            return i;
+          }
+        }
+        return -1;
+      }
+    }
+
+    /**
+     * @return the class of all ID's or <code>null</code> if the list is empty, contains a <code>null</code> or different ID classes.
+     */
+    private static Class<?> getCommonIdClass(List<?> ids) {
+      Class<?> idClass = null;
+      for (Object id : ids) {
+        if (id == null) {
+          return null;
+        }
+        if (idClass == null) {
+          idClass = id.getClass();
+        } else if (idClass != id.getClass()) {
+          return null;
+        }
+      }
+      return idClass;
+    }
+  }
+
+}
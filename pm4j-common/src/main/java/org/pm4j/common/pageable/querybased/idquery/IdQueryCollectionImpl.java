@@ -5,9 +5,16 @@ import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.pm4j.common.exception.CheckedExceptionWrapper;
 import org.pm4j.common.modifications.ModificationHandler;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionUtil;
@@ -28,9 +35,9 @@ import org.slf4j.LoggerFactory;
  * To get the items it first asks the service for the ID's by calling {@link IdQueryService#findIds(QueryParams, long, int)}.
  * After that it asks the service to provide the items for the current page by calling {@link IdQueryService#getItems(List)}.
  * <p>
- * The current implementation is can handle a limited result set size because it holds all item ID's in
- * memory.<br>
- * Future implementations overcome that limitation by reading chunks of ID's.
+ * The default {@link SingleQueryStrategy} holds all item ID's in memory. For large result sets
+ * the {@link ChunkedIdQueryStrategy} may be used. It reads only windows of ID's around the
+ * requested items.
  *
  * @author oboede
  *
@@ -48,6 +55,10 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
   private List<T_ITEM>                          currentPageItems;
   private AddItemStrategy                       addItemStrategy = new AddItemStrategyAtTheEnd();
   private final IdQueryStrategy                 idQueryStrategy;
+  private int                                   iteratorBlockSizeHint = 20;
+  private ExecutorService                       iteratorPrefetchExecutor;
+  /** The iterators having a pending prefetch read. */
+  private final Set<ItemIterator>               prefetchingIterators = new HashSet<ItemIterator>();
 
   /**
    * Maintains the set of ID's on removing items.
@@ -163,9 +174,43 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
 
   @Override
   public Iterator<T_ITEM> iterator() {
+    // A new iteration supersedes the previous ones. Their prefetch reads get cancelled.
+    cancelIteratorPrefetches();
     return new ItemIterator();
   }
 
+  /**
+   * The {@link #iterator()} reads the items in blocks using {@link IdQueryService#getItems(List)}.
+   *
+   * @param iteratorBlockSizeHint the number of items to read with a single service call. Default: 20.
+   */
+  public void setIteratorBlockSizeHint(int iteratorBlockSizeHint) {
+    if (iteratorBlockSizeHint < 1) {
+      throw new IllegalArgumentException("The iterator block size needs to be at least 1. Found value: " + iteratorBlockSizeHint);
+    }
+    this.iteratorBlockSizeHint = iteratorBlockSizeHint;
+  }
+
+  /**
+   * @return the number of items read by the {@link #iterator()} with a single service call.
+   */
+  public int getIteratorBlockSizeHint() {
+    return iteratorBlockSizeHint;
+  }
+
+  /**
+   * Activates the asynchronous read-ahead of the {@link #iterator()}.
+   * <p>
+   * If an executor is set, the iterator requests the next item block in the background
+   * while the current block gets consumed. The service needs to support calls
+   * of {@link IdQueryService#getItems(List)} from threads of that executor.
+   *
+   * @param iteratorPrefetchExecutor the executor used to read the next item block. <code>null</code> switches the prefetch off (default).
+   */
+  public void setIteratorPrefetchExecutor(ExecutorService iteratorPrefetchExecutor) {
+    this.iteratorPrefetchExecutor = iteratorPrefetchExecutor;
+  }
+
   @Override
   public SelectionHandler<T_ITEM> getSelectionHandler() {
     return selectionHandler;
@@ -179,10 +224,29 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
   @Override
   public void clearCaches() {
     super.clearCaches();
+    cancelIteratorPrefetches();
     ids = null;
     currentPageItems = null;
   }
 
+  /**
+   * Cancels the pending prefetch reads of the iterators.<br>
+   * A cancelled iterator reads its next block synchronously if it gets used again.
+   */
+  private void cancelIteratorPrefetches() {
+    List<ItemIterator> iterators;
+    synchronized (prefetchingIterators) {
+      if (prefetchingIterators.isEmpty()) {
+        return;
+      }
+      iterators = new ArrayList<ItemIterator>(prefetchingIterators);
+      prefetchingIterators.clear();
+    }
+    for (ItemIterator i : iterators) {
+      i.cancelPrefetch();
+    }
+  }
+
 
   /**
    * Provides all matching IDs using a lazy loading mechanism.
@@ -228,14 +292,26 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
   }
 
   /**
-   * A simple iterator that iterates slowly over all items using a lot of service calls.
+   * An iterator that reads the items in blocks of {@link #getIteratorBlockSizeHint()} items.
+   * <p>
+   * If an {@link #setIteratorPrefetchExecutor(ExecutorService)} is configured, the next block
+   * gets read in the background while the current block is consumed.
    *
    * @author olaf boede
    */
   class ItemIterator implements Iterator<T_ITEM> {
-    private int nextIdx = -1;
     private T_ITEM next = null;
     private final List<T_ID> ids = getIds();
+    private final int blockSize = iteratorBlockSizeHint;
+    private final ExecutorService prefetchExecutor = iteratorPrefetchExecutor;
+    /** The index of the first ID of the next block to read. */
+    private int nextBlockIdIdx = 0;
+    private List<T_ITEM> block = Collections.emptyList();
+    private int blockPos = 0;
+    private Future<List<T_ITEM>> prefetchedBlock;
+    /** The index of the first ID of the prefetched block. */
+    private int prefetchedBlockIdIdx;
+    private int addedItemIdx = 0;
 
     public ItemIterator() {
       addItemStrategy.readNext(this);
@@ -257,6 +333,87 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
     public void remove() {
       throw new UnsupportedOperationException("Remove is not supported.");
     }
+
+    /**
+     * @return <code>true</code> if there are ID's that are not yet read.
+     */
+    synchronized boolean hasMoreIdBlocks() {
+      return (prefetchedBlock != null) || (nextBlockIdIdx < ids.size());
+    }
+
+    /**
+     * Makes the next item block the current one.<br>
+     * Starts the prefetch of the following block if a prefetch executor is configured.
+     */
+    synchronized void readNextBlock() {
+      if (prefetchedBlock != null) {
+        block = getPrefetchedBlock();
+      } else {
+        block = readBlock(nextIdBlock());
+      }
+      blockPos = 0;
+
+      if ((prefetchExecutor != null) && (nextBlockIdIdx < ids.size())) {
+        prefetchedBlockIdIdx = nextBlockIdIdx;
+        final List<T_ID> blockIds = nextIdBlock();
+        prefetchedBlock = prefetchExecutor.submit(new Callable<List<T_ITEM>>() {
+          @Override
+          public List<T_ITEM> call() {
+            return readBlock(blockIds);
+          }
+        });
+        synchronized (prefetchingIterators) {
+          prefetchingIterators.add(this);
+        }
+      }
+    }
+
+    /**
+     * Cancels a pending prefetch read. The not yet consumed block gets read again on demand.
+     */
+    synchronized void cancelPrefetch() {
+      if (prefetchedBlock != null) {
+        prefetchedBlock.cancel(false);
+        prefetchedBlock = null;
+        nextBlockIdIdx = prefetchedBlockIdIdx;
+      }
+    }
+
+    /**
+     * @return a copy of the next ID block. A copy is used because the ID list may be modified while
+     *         a block is read.
+     */
+    private List<T_ID> nextIdBlock() {
+      int from = nextBlockIdIdx;
+      int to = Math.min(from + blockSize, ids.size());
+      nextBlockIdIdx = to;
+      return new ArrayList<T_ID>(ids.subList(from, to));
+    }
+
+    private List<T_ITEM> readBlock(List<T_ID> blockIds) {
+      List<T_ITEM> items = service.getItems(blockIds);
+      if (LOG.isDebugEnabled() && (items.size() < blockIds.size() || items.contains(null))) {
+        LOG.debug("Not all items found for ID's: " + blockIds + ". Iteration skips the missing items.");
+      }
+      return items;
+    }
+
+    private List<T_ITEM> getPrefetchedBlock() {
+      try {
+        return prefetchedBlock.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CheckedExceptionWrapper(e);
+      } catch (ExecutionException e) {
+        CheckedExceptionWrapper.throwAsRuntimeException(e.getCause());
+        return null;
+      } finally {
+        prefetchedBlock = null;
+        synchronized (prefetchingIterators) {
+          prefetchingIterators.remove(this);
+        }
+      }
+    }
   }
 
   /**
@@ -291,26 +448,21 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
 
     @Override
     public void readNext(ItemIterator iter) {
-      int maxIdListIdx = iter.ids.size()-1;
-      do {
-      ++iter.nextIdx;
-        if (iter.nextIdx > maxIdListIdx) {
+      iter.next = null;
+      while (iter.next == null) {
+        if (iter.blockPos < iter.block.size()) {
+          // Missing items (possibly deleted by other users) are skipped.
+          iter.next = iter.block.get(iter.blockPos++);
+        } else if (iter.hasMoreIdBlocks()) {
+          iter.readNextBlock();
+        } else {
           List<T_ITEM> addedItems = modificationHandler.getModifications().getAddedItems();
-          int addedItemIdx = iter.nextIdx - maxIdListIdx - 1;
-          iter.next = (addedItemIdx < addedItems.size())
-            ? addedItems.get(addedItemIdx)
+          iter.next = (iter.addedItemIdx < addedItems.size())
+            ? addedItems.get(iter.addedItemIdx++)
             : null;
           return;
         }
-
-        T_ID id = iter.ids.get(iter.nextIdx);
-        iter.next = service.getItemForId(id);
-        if (iter.next == null) {
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("No item found for ID: " + id + ". Iteration skips this item.");
-          }
-        }
-      } while (iter.next == null);
+      }
     }
 
     public List<T_ITEM> getCurrentPageItems() {
@@ -448,4 +600,49 @@ public class IdQueryCollectionImpl<T_ITEM, T_ID> extends QueryCollectionBase<T_I
       return findIds(service, queryParams, maxResults);
     }
   }
+
+  /**
+   * A strategy that reads the ID's window by window instead of holding the complete ID set in memory.
+   * <p>
+   * The number of matching items gets determined by a separate {@link IdQueryService#getItemCount(QueryParams)}
+   * call. The ID windows get read on demand by calling {@link IdQueryService#findIds(QueryParams, long, int)}.
+   * Only the most recently used windows are kept in memory.
+   * <p>
+   * That strategy is useful for large result sets that are mainly accessed page by page.<br>
+   * Operations that need all ID's, like an inverted selection, read all windows.
+   */
+  public static class ChunkedIdQueryStrategy implements IdQueryStrategy {
+
+    /** An instance that reads windows of 1000 ID's and keeps up to 10 of them. */
+    public static final ChunkedIdQueryStrategy INSTANCE = new ChunkedIdQueryStrategy(1000, 10);
+
+    private final int windowSize;
+    private final int maxCachedWindows;
+
+    /**
+     * @param windowSize
+     *          the number of ID's to read with a single service call.
+     * @param maxCachedWindows
+     *          the maximal number of ID windows to keep in memory.
+     */
+    public ChunkedIdQueryStrategy(int windowSize, int maxCachedWindows) {
+      if (windowSize < 1 || maxCachedWindows < 1) {
+        throw new IllegalArgumentException("Window size and number of cached windows need to be at least 1. Found values: " + windowSize + ", " + maxCachedWindows);
+      }
+      this.windowSize = windowSize;
+      this.maxCachedWindows = maxCachedWindows;
+    }
+
+    @Override
+    public List<?> getIds(IdQueryService<?, ?> service, QueryParams queryParams) {
+      int maxResults = getMaxResultsAsInt(queryParams);
+      long itemCount = service.getItemCount(queryParams);
+      if (itemCount > maxResults) {
+        throw new MaxQueryResultsViolationException(maxResults, itemCount);
+      }
+
+      // A copy of the query parameters ensures that later windows are read using the same query.
+      return new IdQueryChunkedIdList(service, queryParams.clone(), (int) itemCount, windowSize, maxCachedWindows);
+    }
+  }
 }
@@ -0,0 +1,120 @@
+package org.pm4j.common.pageable.querybased.idquery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pm4j.common.pageable.querybased.SharedQueryResultCache;
+import org.pm4j.common.query.QueryParams;
+
+/**
+ * An {@link IdQueryService} decorator that shares the query results with all users of a
+ * {@link SharedQueryResultCache}.
+ * <p>
+ * The results of {@link #getItemCount(QueryParams)}, {@link #findIds(QueryParams, long, int)} and
+ * {@link #getItems(List)} are cached. Each caller gets its own copy of the cached lists. But the items
+ * itself are shared. That's why the decorator should only be used for items that are not modified by the users.
+ *
+ * @param <T_ITEM> type of collection items.
+ * @param <T_ID> type of collection item id's.
+ *
+ * @author olaf boede
+ */
+public class SharedCachingIdQueryService<T_ITEM, T_ID> implements IdQueryService<T_ITEM, T_ID> {
+
+  private static final String OP_GET_ITEM_COUNT = "getItemCount";
+  private static final String OP_FIND_IDS = "findIds";
+  private static final String OP_GET_ITEMS = "getItems";
+  /** The {@link #getItems(List)} operation is not query based. */
+  private static final QueryParams NO_QUERY = new QueryParams();
+
+  private final IdQueryService<T_ITEM, T_ID> delegate;
+  private final Class<T_ITEM> itemClass;
+  private final SharedQueryResultCache cache;
+  private final Object region;
+
+  /**
+   * @param delegate the service to cache the results for.
+   * @param itemClass the item type. Used for {@link SharedQueryResultCache#invalidate(Class)}.
+   * @param cache the cache to use.
+   * @param region identifies the results of the delegate service within the cache.<br>
+   *        Services that share a region share their results. That's why the region has to contain each
+   *        scope information the delegate uses to restrict its results (e.g. the tenant or the user
+   *        permissions). Needs to provide a value based {@link Object#equals(Object)} and {@link Object#hashCode()}.
+   */
+  public SharedCachingIdQueryService(IdQueryService<T_ITEM, T_ID> delegate, Class<T_ITEM> itemClass, SharedQueryResultCache cache, Object region) {
+    assert delegate != null;
+    assert itemClass != null;
+    assert cache != null;
+    assert region != null;
+
+    this.delegate = delegate;
+    this.itemClass = itemClass;
+    this.cache = cache;
+    this.region = region;
+  }
+
+  @Override
+  public T_ID getIdForItem(T_ITEM item) {
+    return delegate.getIdForItem(item);
+  }
+
+  @Override
+  public T_ITEM getItemForId(T_ID id) {
+    return delegate.getItemForId(id);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<T_ID> findIds(QueryParams query, long startIdx, int pageSize) {
+    SharedQueryResultCache.Key key = cache.makeKey(itemClass, region, OP_FIND_IDS, query, startIdx, pageSize);
+    if (key == null) {
+      return delegate.findIds(query, startIdx, pageSize);
+    }
+
+    List<T_ID> ids = (List<T_ID>) cache.get(key);
+    if (ids == null) {
+      ids = new ArrayList<T_ID>(delegate.findIds(query, startIdx, pageSize));
+      cache.put(key, ids);
+    }
+    return new ArrayList<T_ID>(ids);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<T_ITEM> getItems(List<T_ID> ids) {
+    SharedQueryResultCache.Key key = cache.makeKey(itemClass, region, OP_GET_ITEMS, NO_QUERY, ids);
+    if (key == null) {
+      return delegate.getItems(ids);
+    }
+
+    List<T_ITEM> items = (List<T_ITEM>) cache.get(key);
+    if (items == null) {
+      items = new ArrayList<T_ITEM>(delegate.getItems(ids));
+      cache.put(key, items);
+    }
+    return new ArrayList<T_ITEM>(items);
+  }
+
+  @Override
+  public long getItemCount(QueryParams query) {
+    SharedQueryResultCache.Key key = cache.makeKey(itemClass, region, OP_GET_ITEM_COUNT, query);
+    if (key == null) {
+      return delegate.getItemCount(query);
+    }
+
+    Long count = (Long) cache.get(key);
+    if (count == null) {
+      count = delegate.getItemCount(query);
+      cache.put(key, count);
+    }
+    return count;
+  }
+
+  /**
+   * @return the service behind this decorator.
+   */
+  public IdQueryService<T_ITEM, T_ID> getDelegate() {
+    return delegate;
+  }
+
+}
@@ -2,11 +2,18 @@ package org.pm4j.common.pageable.querybased.pagequery;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.pm4j.common.exception.CheckedExceptionWrapper;
 import org.pm4j.common.query.QueryParams;
 import org.pm4j.common.util.beanproperty.ReleaseOnPropChangeRef;
 
@@ -15,6 +22,9 @@ import org.pm4j.common.util.beanproperty.ReleaseOnPropChangeRef;
  * If subsequent queries for one and the same query are requested, always the result for the first
  * call gets returned.
  * <p>
+ * A limited number of recently used pages gets cached. Optionally the next page may be read
+ * in the background (see {@link Cache#setReadAheadExecutor(ExecutorService)}).
+ * <p>
  * Observes the provided {@link QueryParams}. It resets cached data if the query parameter data
  * get changed.
  *
@@ -47,7 +57,7 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
 
   @Override
   public T_ITEM getItemForId(T_ID id) {
-    T_ITEM i = cache.idToPageItemsCache.get(id);
+    T_ITEM i = cache.getItemForId(id);
     return (i != null)
             ? i
             : baseService.getItemForId(id);
@@ -60,17 +70,13 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
       return Collections.EMPTY_LIST;
     }
 
-    if ((query == cache.pageCacheQuery.getRef()) &&
-      (startIdx == cache.cachedPageStartIdx) &&
-        (pageSize == cache.cachedPageSize)
-        ) {
-      return cache.pageItemsCache;
-    }
-    else {
-      List<T_ITEM> items = baseService.getItems(query, startIdx, pageSize);
+    List<T_ITEM> items = cache.getPage(query, startIdx, pageSize);
+    if (items == null) {
+      items = baseService.getItems(query, startIdx, pageSize);
       cache.setPageCache(query, items, startIdx, pageSize);
-      return items;
     }
+    cache.readAhead(query, startIdx + pageSize, pageSize);
+    return items;
   }
 
   @Override
@@ -101,12 +107,23 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
     return baseService;
   }
 
+  /**
+   * Caches the recently used pages of a single query.<br>
+   * The pages are identified by their start index and page size. The least recently used
+   * page gets released if more than {@link #setMaxCachedPages(int)} pages are cached.
+   * <p>
+   * All pages get released if the cache gets used for another query or if the filter or sort
+   * order of the observed query gets changed.
+   */
   static class Cache<T_ITEM, T_ID> {
+    /** The default number of pages to cache. */
+    public static final int DEFAULT_MAX_CACHED_PAGES = 3;
+
     private final PageQueryService<T_ITEM, T_ID> service;
-    private long                                     cachedPageStartIdx = -1;
-    private int                                      cachedPageSize = -1;
-    private List<T_ITEM>                             pageItemsCache;
-    private Map<T_ID, T_ITEM>                        idToPageItemsCache = Collections.emptyMap();
+    private int                                      maxCachedPages = DEFAULT_MAX_CACHED_PAGES;
+    private ExecutorService                          readAheadExecutor;
+    /** The pages of the {@link #pageCacheQuery}. Sorted from the least to the most recently used one. */
+    private final LinkedHashMap<PageKey, CachedPage<T_ITEM, T_ID>> pages;
     private final ReleaseOnPropChangeRef<QueryParams> pageCacheQuery;
     private final ReleaseOnPropChangeRef<QueryParams> itemCountCacheQuery;
     /** Cached number of items for the current {@link #itemCountCacheQuery}. */
@@ -115,6 +132,17 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
     public Cache(PageQueryService<T_ITEM, T_ID> service) {
       assert service != null;
       this.service = service;
+      this.pages = new LinkedHashMap<PageKey, CachedPage<T_ITEM, T_ID>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PageKey, CachedPage<T_ITEM, T_ID>> eldest) {
+          if (size() > maxCachedPages) {
+            eldest.getValue().cancelReadAhead();
+            return true;
+          }
+          return false;
+        }
+      };
       this.pageCacheQuery = new ReleaseOnPropChangeRef<QueryParams>(null, QueryParams.PROP_EFFECTIVE_FILTER, QueryParams.PROP_EFFECTIVE_SORT_ORDER) {
         @Override
         protected void onSetRef() {
@@ -129,16 +157,38 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
       };
     }
 
+    /**
+     * @param maxCachedPages the maximal number of pages to keep. Default: {@link #DEFAULT_MAX_CACHED_PAGES}.
+     */
+    public void setMaxCachedPages(int maxCachedPages) {
+      if (maxCachedPages < 1) {
+        throw new IllegalArgumentException("At least one page needs to be cached. Found value: " + maxCachedPages);
+      }
+      this.maxCachedPages = maxCachedPages;
+      clearPageCache();
+    }
+
+    /**
+     * @param readAheadExecutor
+     *          if not <code>null</code> the page following the requested one gets read in the
+     *          background using this executor. The service needs to support calls of
+     *          {@link PageQueryService#getItems(QueryParams, long, int)} from threads of that
+     *          executor.
+     */
+    public void setReadAheadExecutor(ExecutorService readAheadExecutor) {
+      this.readAheadExecutor = readAheadExecutor;
+    }
+
     public void clearPageCache() {
-      if ((pageItemsCache != null) && LOG.isTraceEnabled()) {
+      if (!pages.isEmpty() && LOG.isTraceEnabled()) {
         LOG.trace("Clearing page cache for query service: " + service.getClass().getSimpleName());
       }
 
       pageCacheQuery.setRefQuietly(null);
-      cachedPageStartIdx = -1;
-      cachedPageSize = -1;
-      idToPageItemsCache = Collections.emptyMap();
-      pageItemsCache = null;
+      for (CachedPage<T_ITEM, T_ID> p : pages.values()) {
+        p.cancelReadAhead();
+      }
+      pages.clear();
     }
 
     public void clearItemCountCache() {
@@ -156,16 +206,164 @@ class CachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM,
     }
 
     public void setPageCache(QueryParams forQuery, List<T_ITEM> pageItemsCache, long startIdx, int pageSize) {
-      HashMap<T_ID, T_ITEM> id2Items = new HashMap<T_ID, T_ITEM>();
-      for (T_ITEM i : pageItemsCache) {
-        T_ID id = service.getIdForItem(i);
-        id2Items.put(id, i);
-      }
-      this.pageCacheQuery.setRefQuietly(forQuery);
-      this.cachedPageStartIdx = startIdx;
-      this.cachedPageSize = pageSize;
-      this.pageItemsCache = pageItemsCache;
-      this.idToPageItemsCache = id2Items;
+      switchToQuery(forQuery);
+      CachedPage<T_ITEM, T_ID> replacedPage = pages.put(new PageKey(startIdx, pageSize), new CachedPage<T_ITEM, T_ID>(service, pageItemsCache));
+      if (replacedPage != null) {
+        replacedPage.cancelReadAhead();
+      }
+    }
+
+    /**
+     * @return the cached page items or <code>null</code> if the page is not cached.
+     */
+    List<T_ITEM> getPage(QueryParams forQuery, long startIdx, int pageSize) {
+      if (forQuery != pageCacheQuery.getRef()) {
+        return null;
+      }
+      PageKey key = new PageKey(startIdx, pageSize);
+      CachedPage<T_ITEM, T_ID> page = pages.get(key);
+      if (page == null) {
+        return null;
+      }
+      List<T_ITEM> items = page.getItems();
+      if (items == null) {
+        // The read-ahead failed. The page will be read again by the caller.
+        pages.remove(key);
+      }
+      return items;
+    }
+
+    /**
+     * Starts a background read of the specified page if a {@link #readAheadExecutor} is configured and
+     * the page is not yet cached.
+     */
+    void readAhead(final QueryParams forQuery, final long startIdx, final int pageSize) {
+      if ((readAheadExecutor == null) ||
+          (maxCachedPages < 2) ||
+          ((forQuery == itemCountCacheQuery.getRef()) && (itemCountCache != -1) && (startIdx >= itemCountCache))) {
+        return;
+      }
+
+      switchToQuery(forQuery);
+      PageKey key = new PageKey(startIdx, pageSize);
+      if (!pages.containsKey(key)) {
+        Future<List<T_ITEM>> f = readAheadExecutor.submit(new Callable<List<T_ITEM>>() {
+          @Override
+          public List<T_ITEM> call() {
+            return service.getItems(forQuery, startIdx, pageSize);
+          }
+        });
+        pages.put(key, new CachedPage<T_ITEM, T_ID>(service, f));
+      }
+    }
+
+    /** Releases the cached pages if the cache gets used for another query. */
+    private void switchToQuery(QueryParams query) {
+      if (query != pageCacheQuery.getRef()) {
+        clearPageCache();
+        pageCacheQuery.setRefQuietly(query);
+      }
+    }
+
+    /**
+     * @return the cached item or <code>null</code> if there is no cached page containing an item with the given ID.
+     */
+    T_ITEM getItemForId(T_ID id) {
+      for (CachedPage<T_ITEM, T_ID> p : pages.values()) {
+        T_ITEM i = p.getLoadedItemForId(id);
+        if (i != null) {
+          return i;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Identifies a page of a query result. */
+  private static final class PageKey {
+    private final long startIdx;
+    private final int pageSize;
+
+    PageKey(long startIdx, int pageSize) {
+      this.startIdx = startIdx;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof PageKey)) {
+        return false;
+      }
+      PageKey other = (PageKey) obj;
+      return (startIdx == other.startIdx) && (pageSize == other.pageSize);
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (startIdx ^ (startIdx >>> 32)) * 31 + pageSize;
+    }
+  }
+
+  /** A cached page. May be still in the read-ahead state. */
+  private static final class CachedPage<T_ITEM, T_ID> {
+    private final PageQueryService<T_ITEM, T_ID> service;
+    private Future<List<T_ITEM>> readAhead;
+    private List<T_ITEM> items;
+    private Map<T_ID, T_ITEM> idToItemMap;
+
+    CachedPage(PageQueryService<T_ITEM, T_ID> service, List<T_ITEM> items) {
+      this.service = service;
+      setItems(items);
+    }
+
+    CachedPage(PageQueryService<T_ITEM, T_ID> service, Future<List<T_ITEM>> readAhead) {
+      this.service = service;
+      this.readAhead = readAhead;
+    }
+
+    /**
+     * @return the page items. <code>null</code> if the read-ahead operation failed.
+     */
+    List<T_ITEM> getItems() {
+      if (readAhead != null) {
+        try {
+          setItems(readAhead.get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CheckedExceptionWrapper(e);
+        } catch (ExecutionException e) {
+          LOG.debug("Page read-ahead failed. The page will be read again.", e.getCause());
+          return null;
+        } catch (CancellationException e) {
+          return null;
+        } finally {
+          readAhead = null;
+        }
+      }
+      return items;
+    }
+
+    /** Only already loaded items are considered. A pending read-ahead is not awaited. */
+    T_ITEM getLoadedItemForId(T_ID id) {
+      return (idToItemMap != null)
+          ? idToItemMap.get(id)
+          : null;
+    }
+
+    /** Cancels a pending read-ahead of a released page. */
+    void cancelReadAhead() {
+      if (readAhead != null) {
+        readAhead.cancel(false);
+      }
+    }
+
+    private void setItems(List<T_ITEM> items) {
+      Map<T_ID, T_ITEM> id2Items = new HashMap<T_ID, T_ITEM>();
+      for (T_ITEM i : items) {
+        id2Items.put(service.getIdForItem(i), i);
+      }
+      this.items = items;
+      this.idToItemMap = id2Items;
     }
   }
 }
@@ -3,6 +3,9 @@ package org.pm4j.common.pageable.querybased.pagequery;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
+
+import org.pm4j.common.util.collection.CompressedIdSet;
 
 /**
  * An quite internal collection of individually selected or unselected items.
@@ -10,6 +13,10 @@ import java.util.Collections;
  * In case of an inverted selection it contains the manually de-selected items.
  * <p>
  * Inverted selection is a synonym for 'select all'.
+ * <p>
+ * Clicked id sets that are related to the same query may be combined using {@link #and(ClickedIds)},
+ * {@link #or(ClickedIds)} and {@link #invert()}. The results are read-only {@link CompressedIdSet}s
+ * (see {@link CompressedIdSet#unmodifiableSet(Set)}). Combining them again uses their bitmaps.
  *
  * @author olaf boede
  *
@@ -52,4 +59,76 @@ public class ClickedIds<T_ID> implements Serializable {
     return invertedSelection;
   }
 
+  /**
+   * @param id
+   *          an item id.
+   * @return <code>true</code> if the item with the given id is selected.
+   */
+  public boolean isSelected(T_ID id) {
+    return ids.contains(id) != invertedSelection;
+  }
+
+  /**
+   * Provides the complementary selection. Shares the id set of this instance.
+   *
+   * @return the inverted selection.
+   */
+  public ClickedIds<T_ID> invert() {
+    return new ClickedIds<T_ID>(ids, !invertedSelection);
+  }
+
+  /**
+   * Provides the items that are selected in this and in the other selection.
+   *
+   * @param other
+   *          a selection that is related to the same query.
+   * @return the intersection.
+   */
+  public ClickedIds<T_ID> and(ClickedIds<T_ID> other) {
+    if (!invertedSelection) {
+      return other.invertedSelection
+          ? new ClickedIds<T_ID>(minus(ids, other.ids), false)
+          : new ClickedIds<T_ID>(intersect(ids, other.ids), false);
+    } else {
+      return other.invertedSelection
+          ? new ClickedIds<T_ID>(union(ids, other.ids), true)
+          : new ClickedIds<T_ID>(minus(other.ids, ids), false);
+    }
+  }
+
+  /**
+   * Provides the items that are selected in this or in the other selection.
+   *
+   * @param other
+   *          a selection that is related to the same query.
+   * @return the union.
+   */
+  public ClickedIds<T_ID> or(ClickedIds<T_ID> other) {
+    return invert().and(other.invert()).invert();
+  }
+
+  private static <T> Set<T> union(Collection<T> lhs, Collection<T> rhs) {
+    Set<T> set = new CompressedIdSet<T>(lhs);
+    set.addAll(rhs);
+    return CompressedIdSet.unmodifiableSet(set);
+  }
+
+  private static <T> Set<T> intersect(Collection<T> lhs, Collection<T> rhs) {
+    // iterate the smaller set
+    Set<T> set = new CompressedIdSet<T>(lhs.size() <= rhs.size() ? lhs : rhs);
+    set.retainAll(asSet(lhs.size() <= rhs.size() ? rhs : lhs));
+    return CompressedIdSet.unmodifiableSet(set);
+  }
+
+  private static <T> Set<T> minus(Collection<T> lhs, Collection<T> rhs) {
+    Set<T> set = new CompressedIdSet<T>(lhs);
+    set.removeAll(asSet(rhs));
+    return CompressedIdSet.unmodifiableSet(set);
+  }
+
+  /** Provides a fast <code>contains</code> call for the set operations. */
+  private static <T> Collection<T> asSet(Collection<T> c) {
+    return (c instanceof Set) ? c : new CompressedIdSet<T>(c);
+  }
+
 }
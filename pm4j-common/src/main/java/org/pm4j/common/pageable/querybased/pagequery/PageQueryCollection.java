@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.pm4j.common.modifications.ModificationHandler;
 import org.pm4j.common.pageable.PageableCollection;
@@ -88,14 +89,6 @@ public class PageQueryCollection<T_ITEM, T_ID> extends QueryCollectionBase<T_ITE
         (this, cachingService, queryParams, getPageIdx(), getModifications().getAddedItems());
   }
 
-  @Override
-  public void setPageIdx(long pageIdx) {
-    if (pageIdx != getPageIdx()) {
-      cachingService.getCache().clearPageCache();
-    }
-    super.setPageIdx(pageIdx);
-  }
-
   @Override
   public long getNumOfItems() {
     QueryParams queryParams = getQueryParamsWithRemovedItems();
@@ -145,6 +138,28 @@ public class PageQueryCollection<T_ITEM, T_ID> extends QueryCollectionBase<T_ITE
     return service;
   }
   
+  /**
+   * Defines the number of recently used pages to keep in memory.<br>
+   * Pages get released on filter or sort order changes and on {@link #clearCaches()}.
+   *
+   * @param maxCachedPages the number of pages to cache. Default: 3.
+   */
+  public void setMaxCachedPages(int maxCachedPages) {
+    cachingService.getCache().setMaxCachedPages(maxCachedPages);
+  }
+
+  /**
+   * Activates the asynchronous read-ahead of the page following the currently read page.
+   * <p>
+   * The service needs to support calls of {@link PageQueryService#getItems(QueryParams, long, int)}
+   * from threads of the given executor.
+   *
+   * @param readAheadExecutor the executor used to read the next page. <code>null</code> switches the read-ahead off (default).
+   */
+  public void setReadAheadExecutor(ExecutorService readAheadExecutor) {
+    cachingService.getCache().setReadAheadExecutor(readAheadExecutor);
+  }
+
   /**
    * @param useGetItemForIdForSingleItem
    *          Switch for an optimization that may disturb implementations that
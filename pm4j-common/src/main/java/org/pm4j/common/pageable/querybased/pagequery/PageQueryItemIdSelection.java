@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.pm4j.common.pageable.querybased.NoItemForKeyFoundException;
 import org.pm4j.common.pageable.querybased.QueryService;
@@ -12,17 +13,22 @@ import org.pm4j.common.query.QueryAttr;
 import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryParams;
 import org.pm4j.common.selection.Selection;
-import org.pm4j.common.util.CompareUtil;
+import org.pm4j.common.util.collection.CompressedIdSet;
 
 /**
  * A selection that holds the ID's of selected items.
  * <p>
  * It uses a {@link PageQueryService} instance to retrieve the selected instances from the service.
+ * <p>
+ * The id's are held in a {@link Set}. Id collections of other types get copied to a
+ * {@link CompressedIdSet}. This provides a fast {@link #contains(Object)} check and a compact
+ * storage for large numeric id sets.
  */
 /* package */ class PageQueryItemIdSelection<T_ITEM, T_ID> extends PageQuerySelectionHandler.QuerySelectionWithClickedIds<T_ITEM, T_ID> {
   private static final long serialVersionUID = 1L;
 
-  private final Collection<T_ID> ids;
+  /** The selected id's. Is not modified by this class. Get exposed only as an unmodifiable set. */
+  private final Set<T_ID> ids;
 
   private int readBlockSize = 1;
 
@@ -35,18 +41,19 @@ import org.pm4j.common.util.CompareUtil;
    * @param service the service used to retrieve items for the selected id's.
    * @param idAttr the item ID attribute to use.
    * @param queryParams provides the sort order and custom query properties for the {@link QueryService} that executes the internally used query operation.
-   * @param ids the set of selected id's.
+   * @param ids the set of selected id's. A {@link Set} is used as it is. The caller should not modify it afterwards.
    * @param sortOrderAware true of the iteration must use the original sort order, false if this is not necessary (more efficient)
    */
-  @SuppressWarnings("unchecked")
   /*package*/ PageQueryItemIdSelection(PageQueryService<T_ITEM, T_ID> service, QueryAttr idAttr, QueryParams queryParams, Collection<T_ID> ids, boolean sortOrderAware) {
     super(service);
-    this.ids = (ids != null) ? Collections.unmodifiableCollection(ids) : Collections.EMPTY_LIST;
+    this.ids = (ids instanceof Set)
+        ? (Set<T_ID>) ids
+        : new CompressedIdSet<T_ID>(ids != null ? ids : Collections.<T_ID>emptySet());
     this.selectedIdsQueryParams = queryParams.clone(); // keep parameters like sort order, but use a different query expression
     if (!sortOrderAware) {
       queryParams.setSortOrder(null); // to speed up the queries
     }
-    this.selectedIdsQueryParams.setQueryExpression(new QueryExprCompare(idAttr, CompOpIn.class, ids));
+    this.selectedIdsQueryParams.setQueryExpression(new QueryExprCompare(idAttr, CompOpIn.class, Collections.unmodifiableSet(this.ids)));
   }
 
   @Override
@@ -80,7 +87,15 @@ import org.pm4j.common.util.CompareUtil;
 
   @Override
   public ClickedIds<T_ID> getClickedIds() {
-    return new ClickedIds<T_ID>(ids, false);
+    // a read-only view that keeps the bitmap access for combining the clicked ids.
+    return new ClickedIds<T_ID>(CompressedIdSet.unmodifiableSet(ids), false);
+  }
+
+  /**
+   * @return the set of selected id's. Should not be modified.
+   */
+  /*package*/ Set<T_ID> getIdSet() {
+    return ids;
   }
 
   @Override
@@ -95,7 +110,7 @@ import org.pm4j.common.util.CompareUtil;
     if (!(other instanceof PageQueryItemIdSelection)) {
       throw new UnsupportedOperationException("Unable to compare to: " + other);
     }
-    return CompareUtil.equalItemSet(ids, ((PageQueryItemIdSelection<T_ITEM, T_ID>)other).ids);
+    return ids.equals(((PageQueryItemIdSelection<T_ITEM, T_ID>)other).ids);
   }
 
   @Override
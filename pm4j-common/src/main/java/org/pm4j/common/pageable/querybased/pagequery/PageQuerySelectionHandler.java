@@ -1,8 +1,8 @@
 package org.pm4j.common.pageable.querybased.pagequery;
 
 import java.beans.PropertyVetoException;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -16,6 +16,7 @@ import org.pm4j.common.selection.Selection;
 import org.pm4j.common.selection.SelectionHandlerBase;
 import org.pm4j.common.selection.SelectionHandlerUtil;
 import org.pm4j.common.util.CloneUtil;
+import org.pm4j.common.util.collection.CompressedIdSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +32,8 @@ import org.slf4j.LoggerFactory;
  * <li>{@link InvertedSelection}: contains the {@link QueryParams} to represent
  * the 'ALL' selection and a set of de-selected id's.
  * </ul>
+ * The clicked id's are held in a {@link CompressedIdSet}. Selections may be combined using the
+ * set operations of their {@link ClickedIds} and {@link #makeSelection(ClickedIds)}.
  *
  * @author olaf boede
  *
@@ -128,9 +131,16 @@ public abstract class PageQuerySelectionHandler<T_ITEM, T_ID> extends SelectionH
       throw new RuntimeException("Invert selection is not supported for select mode: " + getSelectMode());
     }
 
-    return setSelection(isInverse()
-        ? new PageQueryItemIdSelection<T_ITEM, T_ID>(service, getQueryOptions().getIdAttribute(),  getQueryParams(), currentSelection.getClickedIds().getIds(), false)
-        : new InvertedSelection<T_ITEM, T_ID>(service, getQueryParams(), currentSelection));
+    if (!isInverse()) {
+      return setSelection(new InvertedSelection<T_ITEM, T_ID>(service, getQueryParams(), currentSelection));
+    }
+
+    // Uses the id set of the base selection. No id set needs to be copied.
+    QuerySelectionWithClickedIds<T_ITEM, T_ID> baseSelection = ((InvertedSelection<T_ITEM, T_ID>) currentSelection).baseSelection;
+    Collection<T_ID> ids = (baseSelection instanceof PageQueryItemIdSelection)
+        ? ((PageQueryItemIdSelection<T_ITEM, T_ID>) baseSelection).getIdSet()
+        : baseSelection.getClickedIds().getIds();
+    return setSelection(new PageQueryItemIdSelection<T_ITEM, T_ID>(service, getQueryOptions().getIdAttribute(),  getQueryParams(), ids, false));
   }
 
   @Override
@@ -199,9 +209,27 @@ public abstract class PageQuerySelectionHandler<T_ITEM, T_ID> extends SelectionH
     return (currentSelection instanceof InvertedSelection);
   }
 
-  /** @return the set of clicked id's */
+  /**
+   * Creates a selection for a set of clicked id's.
+   *
+   * @param clickedIds
+   *          the selected id's or (in case of an inverted selection) the de-selected id's.
+   * @return the corresponding selection.
+   */
+  public QuerySelectionWithClickedIds<T_ITEM, T_ID> makeSelection(ClickedIds<T_ID> clickedIds) {
+    PageQueryItemIdSelection<T_ITEM, T_ID> idSelection = clickedIds.getIds().isEmpty()
+                  ? emptySelection
+                  : new PageQueryItemIdSelection<T_ITEM, T_ID>(service, getQueryOptions().getIdAttribute(), getQueryParams(), clickedIds.getIds(), true);
+    idSelection.setUseGetItemForIdForSingleItem(useGetItemForIdForSingleItem);
+
+    return clickedIds.isInvertedSelection()
+                  ? new InvertedSelection<T_ITEM, T_ID>(service, getQueryParams(), idSelection)
+                  : idSelection;
+  }
+
+  /** @return a modifiable copy of the set of clicked id's */
   private Set<T_ID> getClickedIdSet() {
-    return new HashSet<T_ID>(currentSelection.getClickedIds().getIds());
+    return new CompressedIdSet<T_ID>(currentSelection.getClickedIds().getIds());
   }
 
   /**
@@ -210,14 +238,7 @@ public abstract class PageQuerySelectionHandler<T_ITEM, T_ID> extends SelectionH
    * @param selectedIds the new set of selected id's. In case if an inverted selection: the new set of de-selected id's.
    */
   private boolean setSelection(Set<T_ID> selectedIds) {
-    PageQueryItemIdSelection<T_ITEM, T_ID> idSelection = selectedIds.isEmpty()
-                  ? emptySelection
-                  : new PageQueryItemIdSelection<T_ITEM, T_ID>(service, getQueryOptions().getIdAttribute(), getQueryParams(), selectedIds, true);
-    idSelection.setUseGetItemForIdForSingleItem(useGetItemForIdForSingleItem);
-
-    return setSelection(isInverse()
-                  ? new InvertedSelection<T_ITEM, T_ID>(service, getQueryParams(), idSelection)
-                  : idSelection);
+    return setSelection(makeSelection(new ClickedIds<T_ID>(selectedIds, isInverse())));
   }
 
   /** Base class for query based selections that consider a set of clicked ID's. */
@@ -0,0 +1,101 @@
+package org.pm4j.common.pageable.querybased.pagequery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pm4j.common.pageable.querybased.SharedQueryResultCache;
+import org.pm4j.common.query.QueryParams;
+
+/**
+ * A {@link PageQueryService} decorator that shares the query results with all users of a
+ * {@link SharedQueryResultCache}.
+ * <p>
+ * The results of {@link #getItemCount(QueryParams)} and {@link #getItems(QueryParams, long, int)}
+ * are cached. Each caller gets its own copy of the cached item list. But the items itself are shared.
+ * That's why the decorator should only be used for items that are not modified by the users.
+ *
+ * @param <T_ITEM> type of collection items.
+ * @param <T_ID> type of collection item id's.
+ *
+ * @author olaf boede
+ */
+public class SharedCachingPageQueryService<T_ITEM, T_ID> implements PageQueryService<T_ITEM, T_ID> {
+
+  private static final String OP_GET_ITEM_COUNT = "getItemCount";
+  private static final String OP_GET_ITEMS = "getItems";
+
+  private final PageQueryService<T_ITEM, T_ID> delegate;
+  private final Class<T_ITEM> itemClass;
+  private final SharedQueryResultCache cache;
+  private final Object region;
+
+  /**
+   * @param delegate the service to cache the results for.
+   * @param itemClass the item type. Used for {@link SharedQueryResultCache#invalidate(Class)}.
+   * @param cache the cache to use.
+   * @param region identifies the results of the delegate service within the cache.<br>
+   *        Services that share a region share their results. That's why the region has to contain each
+   *        scope information the delegate uses to restrict its results (e.g. the tenant or the user
+   *        permissions). Needs to provide a value based {@link Object#equals(Object)} and {@link Object#hashCode()}.
+   */
+  public SharedCachingPageQueryService(PageQueryService<T_ITEM, T_ID> delegate, Class<T_ITEM> itemClass, SharedQueryResultCache cache, Object region) {
+    assert delegate != null;
+    assert itemClass != null;
+    assert cache != null;
+    assert region != null;
+
+    this.delegate = delegate;
+    this.itemClass = itemClass;
+    this.cache = cache;
+    this.region = region;
+  }
+
+  @Override
+  public T_ID getIdForItem(T_ITEM item) {
+    return delegate.getIdForItem(item);
+  }
+
+  @Override
+  public T_ITEM getItemForId(T_ID id) {
+    return delegate.getItemForId(id);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<T_ITEM> getItems(QueryParams query, long startIdx, int pageSize) {
+    SharedQueryResultCache.Key key = cache.makeKey(itemClass, region, OP_GET_ITEMS, query, startIdx, pageSize);
+    if (key == null) {
+      return delegate.getItems(query, startIdx, pageSize);
+    }
+
+    List<T_ITEM> items = (List<T_ITEM>) cache.get(key);
+    if (items == null) {
+      items = new ArrayList<T_ITEM>(delegate.getItems(query, startIdx, pageSize));
+      cache.put(key, items);
+    }
+    return new ArrayList<T_ITEM>(items);
+  }
+
+  @Override
+  public long getItemCount(QueryParams query) {
+    SharedQueryResultCache.Key key = cache.makeKey(itemClass, region, OP_GET_ITEM_COUNT, query);
+    if (key == null) {
+      return delegate.getItemCount(query);
+    }
+
+    Long count = (Long) cache.get(key);
+    if (count == null) {
+      count = delegate.getItemCount(query);
+      cache.put(key, count);
+    }
+    return count;
+  }
+
+  /**
+   * @return the service behind this decorator.
+   */
+  public PageQueryService<T_ITEM, T_ID> getDelegate() {
+    return delegate;
+  }
+
+}
@@ -1,8 +1,10 @@
 package org.pm4j.common.query;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.pm4j.common.pageable.querybased.pagequery.PageQueryService;
@@ -193,6 +195,13 @@ public class QueryParams extends PropertyChangeSupportedBase implements Cloneabl
     return propertyMap.get(name);
   }
 
+  /**
+   * @return the names of all properties set by {@link #setQueryProperty(String, Object)}.
+   */
+  public Set<String> getQueryPropertyNames() {
+    return Collections.unmodifiableSet(propertyMap.keySet());
+  }
+
   /**
    * Sets an optional parameter object and fires a property change event for
    * {@link #PROP_EFFECTIVE_FILTER}.
@@ -0,0 +1,128 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpIn;
+import org.pm4j.common.util.collection.CompressedBitmap;
+
+/**
+ * Evaluates the IN operator.
+ * <p>
+ * The compare value needs to be a {@link Collection}. A compiled query expression (see
+ * {@link InMemQueryEvaluator#compile(org.pm4j.common.query.QueryExpr)}) converts a larger value
+ * collection once to a structure that provides a constant time lookup:
+ * <ul>
+ * <li>A collection of {@link Integer} or {@link Long} values (usually item ids) gets translated to
+ * a {@link CompressedBitmap}.</li>
+ * <li>Other values get copied to a {@link HashSet}.</li>
+ * </ul>
+ * Value collections that are already a {@link Set} are used as they are.
+ * <p>
+ * The bitmap and the hash set are snapshots of the value collection. Changes of the value collection
+ * after compiling the expression may not be considered by the compiled predicate. This also applies
+ * to the predicate cached by an in-memory collection. Please set a new query expression (or call
+ * <code>clearCaches()</code> of the collection) after changing the values.
+ *
+ * @author olaf boede
+ */
+public class InMemCompOpEvaluatorIn extends InMemCompOpEvaluatorBase<CompOpIn, Object>
+    implements InMemCompOpEvaluatorPreparable {
+
+  /** Up to this size a linear search is fast enough. */
+  static final int MAX_LINEAR_SEARCH_SIZE = 16;
+
+  @Override
+  protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, CompOpIn compOp, Object attrValue, Object compareToValue) {
+    return getValues(compareToValue).contains(attrValue);
+  }
+
+  @Override
+  public InMemQueryPredicate prepare(CompOp compOp, Object compareToValue) {
+    Collection<?> values = getValues(compareToValue);
+    if (values instanceof Set || values.size() <= MAX_LINEAR_SEARCH_SIZE) {
+      return new ContainsCheck(values);
+    }
+
+    InMemQueryPredicate bitmapCheck = NumberBitmapCheck.makeCheck(values);
+    return (bitmapCheck != null)
+        ? bitmapCheck
+        : new ContainsCheck(new HashSet<Object>(values));
+  }
+
+  private static Collection<?> getValues(Object compareToValue) {
+    if (! (compareToValue instanceof Collection)) {
+      throw new IllegalArgumentException("The IN operator expects a Collection as parameter.");
+    }
+    return (Collection<?>) compareToValue;
+  }
+
+  /** Checks the attribute values using the <code>contains</code> method of a value collection. */
+  static final class ContainsCheck implements InMemQueryPredicate {
+    private final Collection<?> values;
+
+    ContainsCheck(Collection<?> values) {
+      this.values = values;
+    }
+
+    @Override
+    public boolean eval(Object attrValue) {
+      return values.contains(attrValue);
+    }
+  }
+
+  /**
+   * Checks the attribute values using a bitmap of {@link Integer} or {@link Long} values.
+   * <p>
+   * Provides the same result as a <code>contains</code> call: Only attribute values of the same
+   * number type are equal to the values.
+   */
+  static final class NumberBitmapCheck implements InMemQueryPredicate {
+    private final Class<?> numberClass;
+    private final CompressedBitmap bitmap;
+    private final boolean containsNull;
+
+    private NumberBitmapCheck(Class<?> numberClass, CompressedBitmap bitmap, boolean containsNull) {
+      this.numberClass = numberClass;
+      this.bitmap = bitmap;
+      this.containsNull = containsNull;
+    }
+
+    /**
+     * @return the check or <code>null</code> if the values are not all of type {@link Integer} or
+     *         all of type {@link Long}.
+     */
+    static NumberBitmapCheck makeCheck(Collection<?> values) {
+      Class<?> numberClass = null;
+      boolean containsNull = false;
+      CompressedBitmap bitmap = new CompressedBitmap();
+      for (Object v : values) {
+        if (v == null) {
+          containsNull = true;
+          continue;
+        }
+        Class<?> c = v.getClass();
+        if (numberClass == null && (c == Integer.class || c == Long.class)) {
+          numberClass = c;
+        }
+        if (c != numberClass) {
+          return null;
+        }
+        bitmap.add(((Number) v).longValue());
+      }
+      return (numberClass != null)
+          ? new NumberBitmapCheck(numberClass, bitmap, containsNull)
+          : null;
+    }
+
+    @Override
+    public boolean eval(Object attrValue) {
+      return (attrValue != null)
+          ? attrValue.getClass() == numberClass && bitmap.contains(((Number) attrValue).longValue())
+          : containsNull;
+    }
+  }
+
+}
@@ -1,38 +1,29 @@
 package org.pm4j.common.query.inmem;
 
-import java.util.Map;
-import java.util.regex.Pattern;
-
 import org.pm4j.common.query.CompOpLike;
 
 /**
- * A like evaluator based no a solution found in:
+ * A case insensitive SQL like evaluator.
+ * <p>
+ * The like patterns get compiled to specialized matchers by {@link InMemStringMatcher#like(String)}.
+ * Only patterns containing the single character wild card <code>_</code> are evaluated using a
+ * regular expression, based on a solution found in:
  * http://stackoverflow.com/questions/898405/how-to-implement-a-sql-like-like-operator-in-java
  *
  * @author oboede
  *
  */
-public class InMemCompOpEvaluatorLike extends InMemCompOpEvaluatorBase<CompOpLike, String> {
+public class InMemCompOpEvaluatorLike extends InMemCompOpEvaluatorStringMatch<CompOpLike> {
 
   private static final String LIKE_PATTERN_CACHE_KEY = "likePatterns";
 
-  @Override
-  protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, CompOpLike compOp, String attrValue, String compareToValue) {
-    return (attrValue != null)
-        ? getPattern(ctxt, compareToValue).matcher(attrValue).matches()
-        : false;
+  public InMemCompOpEvaluatorLike() {
+    super(LIKE_PATTERN_CACHE_KEY);
   }
 
-  static Pattern getPattern(InMemQueryEvaluator<?> ctxt, final String expr) {
-    Map<Object, Object> cache = ctxt.getCache(LIKE_PATTERN_CACHE_KEY);
-    Pattern p = (Pattern) cache.get(expr);
-    if (p == null) {
-      String regex = quotemeta(expr);
-      regex = regex.replace("_", ".").replace("%", ".*?");
-      p = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-      cache.put(expr, p);
-    }
-    return p;
+  @Override
+  protected InMemStringMatcher makeMatcher(CompOpLike compOp, String compareToValue) {
+    return InMemStringMatcher.like(compareToValue);
   }
 
   static String quotemeta(String s) {
@@ -0,0 +1,31 @@
+package org.pm4j.common.query.inmem;
+
+import org.pm4j.common.query.CompOp;
+
+/**
+ * An in-memory compare operation evaluator that may prepare its compare value once for a
+ * compiled query expression.
+ * <p>
+ * Examples: A string match operation translates its compare value to an {@link InMemStringMatcher}.
+ * The IN operation translates its value collection to a structure that provides fast lookups.
+ *
+ * @author olaf boede
+ */
+public interface InMemCompOpEvaluatorPreparable extends InMemCompOpEvaluator {
+
+  /**
+   * Prepares the evaluation of a compare operation with a fix compare value.
+   * <p>
+   * Gets called by {@link InMemQueryEvaluator#compile(org.pm4j.common.query.QueryExpr)}.
+   *
+   * @param compOp
+   *          the compare operator. Needs to be compatible to this evaluator.
+   * @param compareToValue
+   *          the restriction value.
+   * @return a predicate that gets called with the attribute value found in each checked item.<br>
+   *         <code>null</code> if the given compare value can't be prepared. In this case the
+   *         items get checked by {@link #eval(InMemQueryEvaluator, CompOp, Object, Object)}.
+   */
+  InMemQueryPredicate prepare(CompOp compOp, Object compareToValue);
+
+}
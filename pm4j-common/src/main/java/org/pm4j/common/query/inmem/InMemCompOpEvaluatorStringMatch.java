@@ -0,0 +1,126 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.Map;
+
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpBase;
+
+/**
+ * Base class for string compare operation evaluators that are based on an {@link InMemStringMatcher}.
+ * <p>
+ * The matcher gets created only once for a compare value:
+ * <ul>
+ * <li>A compiled query expression (see {@link InMemQueryEvaluator#compile(org.pm4j.common.query.QueryExpr)})
+ * creates the matcher when it gets compiled.</li>
+ * <li>The item by item evaluation finds the matcher in a cache of the evaluation context.</li>
+ * </ul>
+ *
+ * @author olaf boede
+ *
+ * @param <T_COMP_OP> type of compare operator.
+ */
+public abstract class InMemCompOpEvaluatorStringMatch<T_COMP_OP extends CompOp> extends InMemCompOpEvaluatorBase<T_COMP_OP, String>
+    implements InMemCompOpEvaluatorPreparable {
+
+  /** One cache per combination of the ignore-case and ignore-spaces flags. */
+  private final String[] matcherCacheKeys;
+
+  /**
+   * @param matcherCacheKey
+   *          identifies the matcher cache of this evaluator within the evaluation context.
+   */
+  protected InMemCompOpEvaluatorStringMatch(String matcherCacheKey) {
+    matcherCacheKeys = new String[] {
+        matcherCacheKey,
+        matcherCacheKey + ".ignoreCase",
+        matcherCacheKey + ".ignoreSpaces",
+        matcherCacheKey + ".ignoreCase.ignoreSpaces"
+    };
+  }
+
+  @Override
+  protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, T_COMP_OP compOp, String attrValue, String compareToValue) {
+    return evalMatch(getMatcher(ctxt, compOp, compareToValue), attrValue);
+  }
+
+  @Override
+  public InMemQueryPredicate prepare(CompOp compOp, Object compareToValue) {
+    if (compareToValue != null && !(compareToValue instanceof String)) {
+      return null;
+    }
+    final InMemStringMatcher matcher = getMatcher(compOp, (String) compareToValue);
+    return new InMemQueryPredicate() {
+      @Override
+      public boolean eval(Object attrValue) {
+        return evalMatch(matcher, (String) attrValue);
+      }
+    };
+  }
+
+  /**
+   * Checks the attribute value using a matcher provided by {@link #makeMatcher(CompOp, String)}.
+   * <p>
+   * The default implementation reports a match of the matcher. Negating operations may
+   * override this.
+   *
+   * @param matcher
+   *          the matcher for the compare value.
+   * @param attrValue
+   *          the value found in the object to check. May be <code>null</code>.
+   * @return <code>true</code> if the <code>attrValue</code> matches the restriction.
+   */
+  public boolean evalMatch(InMemStringMatcher matcher, String attrValue) {
+    return matcher.matches(attrValue);
+  }
+
+  /**
+   * Provides the matcher for the given compare operation and value.
+   *
+   * @param compOp
+   *          the compare operator. Needs to be compatible to this evaluator.
+   * @param compareToValue
+   *          the restriction value. May be <code>null</code>.
+   * @return the matcher. Never <code>null</code>.
+   */
+  @SuppressWarnings("unchecked")
+  public InMemStringMatcher getMatcher(CompOp compOp, String compareToValue) {
+    return makeMatcher((T_COMP_OP) compOp, compareToValue);
+  }
+
+  /**
+   * Creates a matcher for the given compare operation and value.
+   *
+   * @param compOp
+   *          the compare operator.
+   * @param compareToValue
+   *          the restriction value. May be <code>null</code>.
+   * @return the matcher. Never <code>null</code>.
+   */
+  protected abstract InMemStringMatcher makeMatcher(T_COMP_OP compOp, String compareToValue);
+
+  private InMemStringMatcher getMatcher(InMemQueryEvaluator<?> ctxt, T_COMP_OP compOp, String compareToValue) {
+    // the cache does not support null keys.
+    if (compareToValue == null) {
+      return makeMatcher(compOp, null);
+    }
+
+    Map<Object, Object> cache = ctxt.getCache(getMatcherCacheKey(compOp));
+    InMemStringMatcher m = (InMemStringMatcher) cache.get(compareToValue);
+    if (m == null) {
+      m = makeMatcher(compOp, compareToValue);
+      cache.put(compareToValue, m);
+    }
+    return m;
+  }
+
+  @SuppressWarnings("deprecation")
+  private String getMatcherCacheKey(CompOp compOp) {
+    int idx = 0;
+    if (compOp instanceof CompOpBase) {
+      CompOpBase<?> c = (CompOpBase<?>) compOp;
+      idx = (c.isIgnoreCase() ? 1 : 0) + (c.isIgnoreSpaces() ? 2 : 0);
+    }
+    return matcherCacheKeys[idx];
+  }
+
+}
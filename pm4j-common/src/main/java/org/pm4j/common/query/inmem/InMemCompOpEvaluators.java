@@ -1,13 +1,10 @@
 package org.pm4j.common.query.inmem;
 
-import java.util.Collection;
-
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.pm4j.common.query.CompOpEquals;
 import org.pm4j.common.query.CompOpGe;
 import org.pm4j.common.query.CompOpGt;
-import org.pm4j.common.query.CompOpIn;
 import org.pm4j.common.query.CompOpIsNull;
 import org.pm4j.common.query.CompOpLe;
 import org.pm4j.common.query.CompOpLt;
@@ -81,36 +78,32 @@ public class InMemCompOpEvaluators {
     }
   };
 
-  public static final InMemCompOpEvaluator STARTS_WITH = new InMemCompOpEvaluatorBase<CompOpStartsWith, String>() {
+  public static final InMemCompOpEvaluator STARTS_WITH = new InMemCompOpEvaluatorStringMatch<CompOpStartsWith>("startsWithMatchers") {
     @Override
-    protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, CompOpStartsWith compOp, String attrValue, String compareToValue) {
-      return CompareUtil.indexOf(attrValue, compareToValue, compOp.isIgnoreCase(), compOp.isIgnoreSpaces()) == 0;
+    protected InMemStringMatcher makeMatcher(CompOpStartsWith compOp, String compareToValue) {
+      return InMemStringMatcher.startsWith(compareToValue, compOp.isIgnoreCase(), compOp.isIgnoreSpaces());
     }
   };
 
-  public static final InMemCompOpEvaluator CONTAINS = new InMemCompOpEvaluatorBase<CompOpContains, String>() {
+  public static final InMemCompOpEvaluator CONTAINS = new InMemCompOpEvaluatorStringMatch<CompOpContains>("containsMatchers") {
     @Override
-    protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, CompOpContains compOp, String attrValue, String compareToValue) {
-      return CompareUtil.indexOf(attrValue, compareToValue, compOp.isIgnoreCase(), compOp.isIgnoreSpaces()) != -1;
+    protected InMemStringMatcher makeMatcher(CompOpContains compOp, String compareToValue) {
+      return InMemStringMatcher.contains(compareToValue, compOp.isIgnoreCase(), compOp.isIgnoreSpaces());
     }
   };
 
-  public static final InMemCompOpEvaluator NOT_CONTAINS = new InMemCompOpEvaluatorBase<CompOpNotContains, String>() {
+  public static final InMemCompOpEvaluator NOT_CONTAINS = new InMemCompOpEvaluatorStringMatch<CompOpNotContains>("notContainsMatchers") {
     @Override
-    protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, CompOpNotContains compOp, String attrValue, String compareToValue) {
-      return CompareUtil.indexOf(attrValue, compareToValue, compOp.isIgnoreCase(), compOp.isIgnoreSpaces()) == -1;
+    protected InMemStringMatcher makeMatcher(CompOpNotContains compOp, String compareToValue) {
+      return InMemStringMatcher.contains(compareToValue, compOp.isIgnoreCase(), compOp.isIgnoreSpaces());
     }
-  };
 
-  public static final InMemCompOpEvaluator IN = new InMemCompOpEvaluatorBase<CompOpIn, Object>() {
     @Override
-    protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, CompOpIn compOp, Object attrValue, Object compareToValue) {
-      if (! (compareToValue instanceof Collection)) {
-        throw new IllegalArgumentException("The IN operator expects a Collection as parameter.");
-      }
-      return ((Collection<?>)compareToValue).contains(attrValue);
+    public boolean evalMatch(InMemStringMatcher matcher, String attrValue) {
+      return !matcher.matches(attrValue);
     }
   };
 
+  public static final InMemCompOpEvaluator IN = new InMemCompOpEvaluatorIn();
 
 }
@@ -0,0 +1,318 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pm4j.common.exception.CheckedExceptionWrapper;
+
+/**
+ * Helper algorithms for the parallel evaluation mode of {@link InMemQueryEvaluator}.
+ * <p>
+ * The item array gets split into a set of ranges that are processed by the given
+ * executor. The results are joined in range order. This way the parallel results are
+ * identical to the results of the corresponding sequential algorithms.
+ * <p>
+ * A parallel evaluation that gets started within a task of another parallel evaluation (e.g. by a
+ * filter predicate) is executed sequentially. Otherwise the outer task would wait for tasks that may be
+ * queued behind it. With a saturated executor that would be a deadlock.
+ *
+ * @author olaf boede
+ */
+final class InMemParallelExecution {
+
+  /** Shared executor, used if no application specific executor is configured. */
+  private static ExecutorService defaultExecutor;
+
+  /** Marks the threads that currently execute a task of a parallel evaluation. */
+  private static final ThreadLocal<Boolean> IN_PARALLEL_TASK = new ThreadLocal<Boolean>();
+
+  /**
+   * Provides a shared executor with a daemon thread for each available processor.
+   *
+   * @return the shared executor instance.
+   */
+  static synchronized ExecutorService getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      defaultExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "pm4j-inmem-query-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Provides the items that match the given predicate.
+   *
+   * @param executor the executor to use.
+   * @param numOfTasks the number of ranges to process in parallel.
+   * @param items the items to check.
+   * @param predicate the filter to apply.
+   * @return the matching items in their original order.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> List<T> filter(ExecutorService executor, int numOfTasks, final Object[] items, final InMemQueryPredicate predicate) {
+    final int[] bounds = splitRange(items.length, numOfTasks);
+    List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(bounds.length - 1);
+    for (int i = 0; i < bounds.length - 1; ++i) {
+      final int from = bounds[i];
+      final int to = bounds[i + 1];
+      tasks.add(new Callable<List<T>>() {
+        @Override
+        public List<T> call() {
+          List<T> partResult = new ArrayList<T>();
+          for (int j = from; j < to; ++j) {
+            if (predicate.eval(items[j])) {
+              partResult.add((T) items[j]);
+            }
+          }
+          return partResult;
+        }
+      });
+    }
+
+    List<List<T>> partResults = invokeAll(executor, tasks);
+    int size = 0;
+    for (List<T> l : partResults) {
+      size += l.size();
+    }
+    List<T> result = new ArrayList<T>(size);
+    for (List<T> l : partResults) {
+      result.addAll(l);
+    }
+    return result;
+  }
+
+  /**
+   * A stable parallel merge sort.
+   * <p>
+   * Sorts an index array using {@link #sort(ExecutorService, int, int[], IndexComparator)}
+   * and re-arranges the items accordingly.
+   *
+   * @param executor the executor to use.
+   * @param numOfTasks the number of ranges to sort in parallel.
+   * @param items the items to sort. Will be sorted in place.
+   * @param comparator the comparator to use. Must be usable by several threads concurrently.
+   */
+  static <T> void sort(ExecutorService executor, int numOfTasks, final T[] items, final Comparator<? super T> comparator) {
+    final T[] src = items.clone();
+    int[] idx = new int[items.length];
+    for (int i = 0; i < idx.length; ++i) {
+      idx[i] = i;
+    }
+    sort(executor, numOfTasks, idx, new IndexComparator() {
+      @Override
+      public int compare(int i1, int i2) {
+        return comparator.compare(src[i1], src[i2]);
+      }
+    });
+    for (int i = 0; i < idx.length; ++i) {
+      items[i] = src[idx[i]];
+    }
+  }
+
+  /**
+   * A stable merge sort for an array of item indexes.
+   * <p>
+   * Sorts the array ranges in parallel and merges the sorted ranges pairwise
+   * in parallel until a single sorted range is left.
+   *
+   * @param executor the executor to use. <code>null</code> for a sequential sort.
+   * @param numOfTasks the number of ranges to sort in parallel.
+   * @param idx the indexes to sort. Will be sorted in place.
+   * @param comparator the index comparator to use. Must be usable by several threads concurrently.
+   */
+  static void sort(ExecutorService executor, int numOfTasks, final int[] idx, final IndexComparator comparator) {
+    final int[] tmp = idx.clone();
+    int[] bounds = splitRange(idx.length, (executor != null) ? numOfTasks : 1);
+    if (bounds.length == 2) {
+      mergeSort(tmp, idx, 0, idx.length, comparator);
+      return;
+    }
+
+    List<Callable<Object>> sortTasks = new ArrayList<Callable<Object>>(bounds.length - 1);
+    for (int i = 0; i < bounds.length - 1; ++i) {
+      final int from = bounds[i];
+      final int to = bounds[i + 1];
+      sortTasks.add(new Callable<Object>() {
+        @Override
+        public Object call() {
+          mergeSort(tmp, idx, from, to, comparator);
+          return null;
+        }
+      });
+    }
+    invokeAll(executor, sortTasks);
+
+    int[] src = idx;
+    int[] dest = tmp;
+    while (bounds.length > 2) {
+      final int[] mergeSrc = src;
+      final int[] mergeDest = dest;
+      int numOfRanges = bounds.length - 1;
+      int[] mergedBounds = new int[(numOfRanges + 1) / 2 + 1];
+      List<Callable<Object>> mergeTasks = new ArrayList<Callable<Object>>(numOfRanges / 2);
+      for (int i = 0; i < numOfRanges; i += 2) {
+        final int from = bounds[i];
+        mergedBounds[i / 2] = from;
+        if (i + 1 < numOfRanges) {
+          final int mid = bounds[i + 1];
+          final int to = bounds[i + 2];
+          mergeTasks.add(new Callable<Object>() {
+            @Override
+            public Object call() {
+              merge(mergeSrc, mergeDest, from, mid, to, comparator);
+              return null;
+            }
+          });
+        } else {
+          // an odd range without merge partner just gets copied.
+          System.arraycopy(mergeSrc, from, mergeDest, from, bounds[i + 1] - from);
+        }
+      }
+      mergedBounds[mergedBounds.length - 1] = idx.length;
+      invokeAll(executor, mergeTasks);
+
+      bounds = mergedBounds;
+      src = mergeDest;
+      dest = mergeSrc;
+    }
+
+    if (src != idx) {
+      System.arraycopy(src, 0, idx, 0, idx.length);
+    }
+  }
+
+  /**
+   * A stable top down merge sort. Sorts the range <code>[from, to)</code> of <code>dest</code>.
+   * <code>src</code> needs to contain the same values within that range at call time.
+   */
+  private static void mergeSort(int[] src, int[] dest, int from, int to, IndexComparator comparator) {
+    int length = to - from;
+    if (length < 8) {
+      // insertion sort for small ranges
+      for (int i = from + 1; i < to; ++i) {
+        for (int j = i; j > from && comparator.compare(dest[j - 1], dest[j]) > 0; --j) {
+          int tmp = dest[j];
+          dest[j] = dest[j - 1];
+          dest[j - 1] = tmp;
+        }
+      }
+      return;
+    }
+
+    int mid = (from + to) >>> 1;
+    mergeSort(dest, src, from, mid, comparator);
+    mergeSort(dest, src, mid, to, comparator);
+
+    // the ranges are already in the right order.
+    if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+      System.arraycopy(src, from, dest, from, length);
+      return;
+    }
+    merge(src, dest, from, mid, to, comparator);
+  }
+
+  /**
+   * Merges two adjacent sorted ranges of the source array into the destination array.<br>
+   * Items of the left range are preferred on equal compare results to keep the merge stable.
+   */
+  private static void merge(int[] src, int[] dest, int from, int mid, int to, IndexComparator comparator) {
+    int l = from;
+    int r = mid;
+    int d = from;
+    while (l < mid && r < to) {
+      dest[d++] = (comparator.compare(src[l], src[r]) <= 0)
+          ? src[l++]
+          : src[r++];
+    }
+    System.arraycopy(src, l, dest, d, mid - l);
+    System.arraycopy(src, r, dest, d + mid - l, to - r);
+  }
+
+  /**
+   * Splits the range <code>[0, size)</code> into at most <code>numOfParts</code> ranges
+   * of nearly the same size.
+   *
+   * @return the range bounds. The last bound is <code>size</code>.
+   */
+  private static int[] splitRange(int size, int numOfParts) {
+    int parts = Math.max(1, Math.min(numOfParts, size));
+    int[] bounds = new int[parts + 1];
+    for (int i = 0; i <= parts; ++i) {
+      bounds[i] = (int) ((long) size * i / parts);
+    }
+    return bounds;
+  }
+
+  private static <T> List<T> invokeAll(ExecutorService executor, List<? extends Callable<T>> tasks) {
+    if (IN_PARALLEL_TASK.get() != null) {
+      return callAll(tasks);
+    }
+
+    List<Callable<T>> markedTasks = new ArrayList<Callable<T>>(tasks.size());
+    for (final Callable<T> t : tasks) {
+      markedTasks.add(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          IN_PARALLEL_TASK.set(Boolean.TRUE);
+          try {
+            return t.call();
+          } finally {
+            IN_PARALLEL_TASK.remove();
+          }
+        }
+      });
+    }
+
+    try {
+      List<Future<T>> futures = executor.invokeAll(markedTasks);
+      List<T> results = new ArrayList<T>(futures.size());
+      for (Future<T> f : futures) {
+        results.add(f.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CheckedExceptionWrapper(e);
+    } catch (ExecutionException e) {
+      CheckedExceptionWrapper.throwAsRuntimeException(e.getCause());
+      return null;
+    }
+  }
+
+  /** Executes the tasks sequentially within the current thread. */
+  private static <T> List<T> callAll(List<? extends Callable<T>> tasks) {
+    List<T> results = new ArrayList<T>(tasks.size());
+    for (Callable<T> t : tasks) {
+      try {
+        results.add(t.call());
+      } catch (Exception e) {
+        CheckedExceptionWrapper.throwAsRuntimeException(e);
+      }
+    }
+    return results;
+  }
+
+  /** Compares two item indexes. */
+  interface IndexComparator {
+    int compare(int i1, int i2);
+  }
+
+  private InMemParallelExecution() {
+  }
+
+}
@@ -3,17 +3,27 @@ package org.pm4j.common.query.inmem;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
+import org.apache.commons.lang.ObjectUtils;
+import org.pm4j.common.exception.CheckedExceptionWrapper;
 import org.pm4j.common.expr.Expression;
 import org.pm4j.common.expr.PathExpressionChain;
+import org.pm4j.common.query.CompOp;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpStartsWith;
 import org.pm4j.common.query.QueryAttr;
 import org.pm4j.common.query.QueryAttrMulti;
 import org.pm4j.common.query.QueryEvaluatorSet;
 import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
 import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.SortOrder;
 import org.pm4j.common.util.collection.ListUtil;
@@ -24,6 +34,10 @@ import org.pm4j.common.util.collection.MultiObjectValue;
  * It also provides algorithms for item sorting based on a given {@link SortOrder}.
  * <p>
  * It's a stateful object, because it contains cached values.
+ * <p>
+ * An optional parallel evaluation mode may be switched on by {@link #setParallelExecution(boolean)}.
+ * It splits filter and sort operations for large item collections into several tasks that get executed
+ * concurrently. The results are identical to the results of the sequential algorithms.
  *
  * @param <T_ITEM> the type of handled items.
  *
@@ -31,14 +45,36 @@ import org.pm4j.common.util.collection.MultiObjectValue;
  */
 public class InMemQueryEvaluator<T_ITEM> {
 
+  /** The default minimal number of items that need to be handled to use parallel evaluation. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
   /** Evaluator set for the set of expressions and compare operators to handle. */
   private QueryEvaluatorSet evaluatorSet;
 
   /** Attribute path's are evaluated very often (especially when evaluating long lists). */
-  private Map<QueryAttr, Expression> queryAttrToPathExpressionCache = new HashMap<QueryAttr, Expression>();
+  private Map<QueryAttr, Expression> queryAttrToPathExpressionCache = new ConcurrentHashMap<QueryAttr, Expression>();
 
-  /** A cache that may be used to prevent repeated evaluations. */
-  private Map<String, Map<Object, Object>> cacheKeyToCacheMap = new HashMap<String, Map<Object,Object>>();
+  /**
+   * A cache that may be used to prevent repeated evaluations.
+   * <p>
+   * Is a concurrent map because it may be used by parallel evaluation tasks.
+   */
+  private ConcurrentHashMap<String, Map<Object, Object>> cacheKeyToCacheMap = new ConcurrentHashMap<String, Map<Object,Object>>();
+
+  /** The executor used for parallel evaluation. Is <code>null</code> if parallel evaluation is switched off. */
+  private ExecutorService parallelExecutor;
+
+  /** The minimal number of items that need to be handled to use parallel evaluation. */
+  private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+  /** Switches sorting based on once extracted sort keys on/off. */
+  private boolean precomputedSortKeys = true;
+
+  /**
+   * Is <code>true</code> if a sub class provides its own {@link #getAttrValue(Object, QueryAttr)} implementation.<br>
+   * In this case compiled predicates can't use the attribute path expressions directly.
+   */
+  private final boolean customAttrValueResolution;
 
   public InMemQueryEvaluator() {
     this(InMemQueryEvaluatorSet.INSTANCE);
@@ -46,6 +82,11 @@ public class InMemQueryEvaluator<T_ITEM> {
 
   public InMemQueryEvaluator(QueryEvaluatorSet evaluatorSet) {
     this.evaluatorSet = evaluatorSet;
+    try {
+      this.customAttrValueResolution = getClass().getMethod("getAttrValue", Object.class, QueryAttr.class).getDeclaringClass() != InMemQueryEvaluator.class;
+    } catch (NoSuchMethodException e) {
+      throw new CheckedExceptionWrapper(e);
+    }
   }
 
   /**
@@ -72,18 +113,37 @@ public class InMemQueryEvaluator<T_ITEM> {
    * @return the set of items that match the filter criteria.
    */
   public List<T_ITEM> evaluateSubSet(Collection<T_ITEM> items, QueryExpr expr) {
+    return evaluateSubSet(items, expr != null ? compile(expr) : null);
+  }
+
+  /**
+   * Provides a list that contains the filtered sub set.
+   * <p>
+   * Should be used if the same filter gets applied repeatedly. The predicate may be
+   * created once by {@link #compile(QueryExpr)}.
+   *
+   * @param items
+   *          the collection of all items.
+   * @param predicate
+   *          the compiled filter to apply. May be <code>null</code>.
+   * @return the set of items that match the filter criteria.
+   */
+  public List<T_ITEM> evaluateSubSet(Collection<T_ITEM> items, InMemQueryPredicate predicate) {
     if (items == null) {
       return new ArrayList<T_ITEM>();
     }
 
-    if (expr == null) {
+    if (predicate == null) {
       return ListUtil.toList(items);
     }
 
-    InMemExprEvaluator ev = getExprEvaluator(expr);
+    if (isParallelExecution(items.size())) {
+      return InMemParallelExecution.filter(parallelExecutor, getParallelTaskCount(), items.toArray(), predicate);
+    }
+
     List<T_ITEM> resultList = new ArrayList<T_ITEM>();
     for (T_ITEM i : items) {
-      if (ev.eval(this, i, expr)) {
+      if (predicate.eval(i)) {
         resultList.add(i);
       }
     }
@@ -91,6 +151,152 @@ public class InMemQueryEvaluator<T_ITEM> {
     return resultList;
   }
 
+  /**
+   * Provides a list that contains the filtered sub set.
+   * <p>
+   * Uses the given text index to narrow the set of items to check. The compiled predicate gets
+   * applied only to the candidates provided by the index. The result is the same as the result of
+   * {@link #evaluateSubSet(Collection, InMemQueryPredicate)}.
+   *
+   * @param items
+   *          the collection of all items.
+   * @param expr
+   *          the filter to apply. May be <code>null</code>.
+   * @param predicate
+   *          the compiled form of <code>expr</code>. May be <code>null</code> if <code>expr</code> is <code>null</code>.
+   * @param textIndex
+   *          the index of the given items. May be <code>null</code>.
+   * @return the set of items that match the filter criteria.
+   */
+  public List<T_ITEM> evaluateSubSet(Collection<T_ITEM> items, QueryExpr expr, InMemQueryPredicate predicate, InMemTextIndex<T_ITEM> textIndex) {
+    List<T_ITEM> candidates = (textIndex != null && items != null && expr != null)
+        ? textIndex.findCandidates(this, items, expr)
+        : null;
+    return evaluateSubSet(candidates != null ? candidates : items, predicate);
+  }
+
+  /**
+   * Compiles the given expression to a predicate that can be applied to many items.
+   * <p>
+   * The expression and compare operator evaluators as well as the attribute path expressions get
+   * resolved only once. Evaluators that are not derived from
+   * {@link InMemQueryEvaluatorSet.InMemExprEvaluatorBase} get called by the compiled predicate
+   * as usual.
+   * <p>
+   * The predicate reflects the structure of the expression at compile time. It needs to be compiled again
+   * if sub expressions get added or replaced. A compare expression that gets a new value, compare operator
+   * or attribute is still evaluated correctly, but without the compiled optimizations.
+   *
+   * @param expr
+   *          the expression to compile.
+   * @return the predicate. Is never <code>null</code>.
+   */
+  public InMemQueryPredicate compile(final QueryExpr expr) {
+    if (expr == null) {
+      throw new IllegalArgumentException("A 'null' expression can't be compiled.");
+    }
+
+    final InMemExprEvaluator ev = getExprEvaluator(expr);
+    if (ev instanceof InMemQueryEvaluatorSet.InMemExprEvaluatorBase) {
+      return ((InMemQueryEvaluatorSet.InMemExprEvaluatorBase<?>)ev).compile(this, expr);
+    } else {
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          return ev.eval(InMemQueryEvaluator.this, item, expr);
+        }
+      };
+    }
+  }
+
+  /**
+   * Checks if the new expression is a refinement of the previous one. That means that each item
+   * that matches the new expression also matches the previous expression.
+   * <p>
+   * In this case the new filter result may be calculated by filtering only the previous filter result.
+   * <p>
+   * This implementation is conservative. It detects:
+   * <ul>
+   *  <li>a previous <code>null</code> expression (no filter),</li>
+   *  <li>equal expressions,</li>
+   *  <li>AND expressions that contain refinements of all previous AND terms,</li>
+   *  <li>extended 'starts with' and 'contains' values and</li>
+   *  <li>extended 'like' patterns of previous patterns that end with a '%' wild card.</li>
+   * </ul>
+   * All other changes are reported as non-refinements.
+   *
+   * @param prevExpr
+   *          the previous filter expression. May be <code>null</code>.
+   * @param newExpr
+   *          the new filter expression. May be <code>null</code>.
+   * @return <code>true</code> if the new expression is a known refinement of the previous one.
+   */
+  public boolean isRefinement(QueryExpr prevExpr, QueryExpr newExpr) {
+    if (prevExpr == null) {
+      return true;
+    }
+    if (newExpr == null) {
+      return false;
+    }
+    if (prevExpr.equals(newExpr)) {
+      return true;
+    }
+
+    if (newExpr instanceof QueryExprAnd) {
+      List<QueryExpr> newTerms = ((QueryExprAnd) newExpr).getExpressions();
+      List<QueryExpr> prevTerms = (prevExpr instanceof QueryExprAnd)
+          ? ((QueryExprAnd) prevExpr).getExpressions()
+          : Arrays.asList(prevExpr);
+      for (QueryExpr prevTerm : prevTerms) {
+        if (! isRefinedByAnyTerm(prevTerm, newTerms)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    if (prevExpr instanceof QueryExprCompare && newExpr instanceof QueryExprCompare) {
+      return isRefinement((QueryExprCompare) prevExpr, (QueryExprCompare) newExpr);
+    }
+
+    return false;
+  }
+
+  private boolean isRefinedByAnyTerm(QueryExpr prevTerm, List<QueryExpr> newTerms) {
+    for (QueryExpr newTerm : newTerms) {
+      if (newTerm != null && isRefinement(prevTerm, newTerm)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isRefinement(QueryExprCompare prevExpr, QueryExprCompare newExpr) {
+    if (!ObjectUtils.equals(prevExpr.getAttr(), newExpr.getAttr()) ||
+        !ObjectUtils.equals(prevExpr.getCompOp(), newExpr.getCompOp()) ||
+        !(prevExpr.getValue() instanceof String) ||
+        !(newExpr.getValue() instanceof String)) {
+      return false;
+    }
+
+    // The refinement rules are only known for the default evaluators.
+    CompOp compOp = newExpr.getCompOp();
+    InMemCompOpEvaluator compOpEvaluator = getCompOpEvaluator(newExpr);
+    String prevValue = (String) prevExpr.getValue();
+    String newValue = (String) newExpr.getValue();
+    if (compOp instanceof CompOpStartsWith && compOpEvaluator == InMemCompOpEvaluators.STARTS_WITH) {
+      return newValue.startsWith(prevValue);
+    }
+    if (compOp instanceof CompOpContains && compOpEvaluator == InMemCompOpEvaluators.CONTAINS) {
+      return newValue.contains(prevValue);
+    }
+    if (compOp instanceof CompOpLike && compOpEvaluator == InMemCompOpEvaluators.LIKE) {
+      return prevValue.endsWith("%") &&
+             newValue.startsWith(prevValue.substring(0, prevValue.length()-1));
+    }
+    return false;
+  }
+
   /**
    * Provides a {@link Comparator} for the given {@link SortOrder}.
    * <p>
@@ -132,12 +338,113 @@ public class InMemQueryEvaluator<T_ITEM> {
     else {
       @SuppressWarnings("unchecked")
       T_ITEM[] beanArray = (T_ITEM[]) items.toArray(new Object[items.size()]);
-      Comparator<T_ITEM> comparator = getComparator(sortOrder);
-      Arrays.sort(beanArray, comparator);
+      if (precomputedSortKeys) {
+        InMemSortKeySorter.sort(this, beanArray, sortOrder,
+            isParallelExecution(beanArray.length) ? parallelExecutor : null,
+            getParallelTaskCount());
+      } else {
+        Comparator<T_ITEM> comparator = getComparator(sortOrder);
+        sortArray(beanArray, comparator);
+      }
       return new ArrayList<T_ITEM>(Arrays.asList(beanArray));
     }
   }
 
+  /**
+   * Sorts the given list using the given comparator.
+   * <p>
+   * Uses a parallel merge sort if parallel execution is switched on and the list is large enough.
+   *
+   * @param list
+   *          the list to sort in place.
+   * @param comparator
+   *          the comparator to use. May be <code>null</code> if the list should not be sorted.
+   */
+  public void sort(List<T_ITEM> list, Comparator<? super T_ITEM> comparator) {
+    if (comparator == null || list.size() < 2) {
+      return;
+    }
+
+    if (isParallelExecution(list.size())) {
+      @SuppressWarnings("unchecked")
+      T_ITEM[] array = (T_ITEM[]) list.toArray();
+      sortArray(array, comparator);
+      ListIterator<T_ITEM> it = list.listIterator();
+      for (T_ITEM i : array) {
+        it.next();
+        it.set(i);
+      }
+    } else {
+      Collections.sort(list, comparator);
+    }
+  }
+
+  private void sortArray(T_ITEM[] array, Comparator<? super T_ITEM> comparator) {
+    if (isParallelExecution(array.length)) {
+      InMemParallelExecution.sort(parallelExecutor, getParallelTaskCount(), array, comparator);
+    } else {
+      Arrays.sort(array, comparator);
+    }
+  }
+
+  /**
+   * Switches sorting based on precomputed sort keys on or off.
+   * <p>
+   * If switched on (the default), {@link #sort(Collection, SortOrder)} reads the sort attribute values only
+   * once for each item. Numeric and date values that are sorted by their natural order are compared
+   * as primitive values.<br>
+   * If switched off, the items get sorted using the comparator provided by {@link #getComparator(SortOrder)}.
+   *
+   * @param precomputedSortKeys
+   *          <code>false</code> switches back to the comparator based sort.
+   */
+  public void setPrecomputedSortKeys(boolean precomputedSortKeys) {
+    this.precomputedSortKeys = precomputedSortKeys;
+  }
+
+  /**
+   * Switches the parallel evaluation mode on or off.
+   * <p>
+   * Uses a shared executor that provides a thread for each available processor.
+   *
+   * @param parallel
+   *          <code>true</code> switches parallel evaluation of large item collections on.
+   */
+  public void setParallelExecution(boolean parallel) {
+    setParallelExecutor(parallel ? InMemParallelExecution.getDefaultExecutor() : null);
+  }
+
+  /**
+   * Defines the executor used for parallel evaluation.
+   * <p>
+   * In parallel mode all used expression and compare operator evaluators as well as the used sort order
+   * comparators need to support concurrent calls.
+   *
+   * @param executor
+   *          the executor to use. <code>null</code> switches parallel evaluation off.
+   */
+  public void setParallelExecutor(ExecutorService executor) {
+    this.parallelExecutor = executor;
+  }
+
+  /**
+   * @param parallelThreshold
+   *          the minimal number of items that need to be handled to use parallel evaluation.<br>
+   *          Smaller item collections are handled sequentially. The default value is {@value #DEFAULT_PARALLEL_THRESHOLD}.
+   */
+  public void setParallelThreshold(int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  private boolean isParallelExecution(int numOfItems) {
+    return parallelExecutor != null && numOfItems >= parallelThreshold;
+  }
+
+  /** Provides some more tasks than processors to compensate different task execution times. */
+  private int getParallelTaskCount() {
+    return Runtime.getRuntime().availableProcessors() * 2;
+  }
+
   protected InMemExprEvaluator getExprEvaluator(QueryExpr expr) {
     return (InMemExprEvaluator) evaluatorSet.getExprEvaluator(expr);
   }
@@ -151,13 +458,37 @@ public class InMemQueryEvaluator<T_ITEM> {
    * Sub classes may define here other value resolution algorithms.
    */
   public Object getAttrValue(Object item, QueryAttr attr) {
+    Object value = getAttrPathExpr(attr).getValue(item);
+    return value;
+  }
+
+  /**
+   * Provides the parsed path expression used by {@link #getAttrValue(Object, QueryAttr)}.
+   *
+   * @param attr the attribute to get the expression for.
+   * @return the (cached) path expression.
+   */
+  protected Expression getAttrPathExpr(QueryAttr attr) {
     Expression expr = queryAttrToPathExpressionCache.get(attr);
     if (expr == null) {
       expr = PathExpressionChain.parse(attr.getPath());
       queryAttrToPathExpressionCache.put(attr, expr);
     }
-    Object value = expr.getValue(item);
-    return value;
+    return expr;
+  }
+
+  /**
+   * Used for compiled predicates to access attribute values without a call to
+   * {@link #getAttrValue(Object, QueryAttr)} for each item.
+   *
+   * @param attr the attribute to get the expression for.
+   * @return the path expression to use or <code>null</code> if a sub class provides
+   *         its own attribute value resolution.
+   */
+  Expression findAttrPathExprForCompiledAccess(QueryAttr attr) {
+    return customAttrValueResolution
+        ? null
+        : getAttrPathExpr(attr);
   }
 
   /**
@@ -167,13 +498,16 @@ public class InMemQueryEvaluator<T_ITEM> {
    * side effects to other comparators.
    *
    * @param cacheKey An identifier for the cache.
-   * @return A map that can be used as a cache.
+   * @return A map that can be used as a cache. It's a concurrent map that does not support <code>null</code> keys.
    */
   public Map<Object, Object> getCache(String cacheKey) {
     Map<Object, Object> cacheMap = cacheKeyToCacheMap.get(cacheKey);
     if (cacheMap == null) {
-      cacheMap = new HashMap<Object, Object>();
-      cacheKeyToCacheMap.put(cacheKey, cacheMap);
+      cacheMap = new ConcurrentHashMap<Object, Object>();
+      Map<Object, Object> existingMap = cacheKeyToCacheMap.putIfAbsent(cacheKey, cacheMap);
+      if (existingMap != null) {
+        cacheMap = existingMap;
+      }
     }
     return cacheMap;
   }
@@ -196,23 +530,38 @@ public class InMemQueryEvaluator<T_ITEM> {
   static class AttrPathComparator<T> implements Comparator<T> {
 
     private final InMemQueryEvaluator<T> evaluatorCtxt;
-    private final InMemSortOrder sortOrder;
+    /** The chain of sort orders to consider. The first one is the most significant. */
+    private final InMemSortOrder[] sortOrders;
 
     public AttrPathComparator(InMemQueryEvaluator<T> evaluatorCtxt, InMemSortOrder sortOrder) {
       assert evaluatorCtxt != null;
       assert sortOrder != null;
 
       this.evaluatorCtxt = evaluatorCtxt;
-      this.sortOrder = sortOrder;
+      List<InMemSortOrder> list = new ArrayList<InMemSortOrder>();
+      for (SortOrder so = sortOrder; so != null; ) {
+        InMemSortOrder inMemSo = (so instanceof InMemSortOrder)
+            ? (InMemSortOrder) so
+            : new InMemSortOrder(so);
+        list.add(inMemSo);
+        so = inMemSo.getNextSortOrder();
+      }
+      this.sortOrders = list.toArray(new InMemSortOrder[list.size()]);
     }
 
     @Override
     public int compare(T o1, T o2) {
-      QueryAttr d = sortOrder.getAttr();
-      Object v1 = evaluatorCtxt.getAttrValue(o1, d);
-      Object v2 = evaluatorCtxt.getAttrValue(o2, d);
+      for (InMemSortOrder so : sortOrders) {
+        QueryAttr d = so.getAttr();
+        Object v1 = evaluatorCtxt.getAttrValue(o1, d);
+        Object v2 = evaluatorCtxt.getAttrValue(o2, d);
 
-      return sortOrder.getComparator().compare(v1, v2);
+        int result = so.getComparator().compare(v1, v2);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return 0;
     }
 
   }
@@ -3,6 +3,8 @@ package org.pm4j.common.query.inmem;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.pm4j.common.expr.Expression;
+import org.pm4j.common.query.CompOp;
 import org.pm4j.common.query.CompOpContains;
 import org.pm4j.common.query.CompOpEquals;
 import org.pm4j.common.query.CompOpGe;
@@ -80,6 +82,33 @@ public class InMemQueryEvaluatorSet extends QueryEvaluatorSet {
       // all conditions are true
       return true;
     }
+
+    @Override
+    protected InMemQueryPredicate compileImpl(InMemQueryEvaluator<?> ctxt, QueryExprAnd expr) {
+      List<QueryExpr> list = expr.getExpressions();
+      if (list.isEmpty()) {
+        throw new IllegalArgumentException("An AND expression should have at least a single member expression.");
+      }
+      final InMemQueryPredicate[] predicates = new InMemQueryPredicate[list.size()];
+      for (int i=0; i<predicates.length; ++i) {
+        QueryExpr e = list.get(i);
+        if (e == null) {
+          throw new RuntimeException("An AND expression with a 'null' item can't be handled.");
+        }
+        predicates[i] = ctxt.compile(e);
+      }
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          for (InMemQueryPredicate p : predicates) {
+            if (! p.eval(item)) {
+              return false;
+            }
+          }
+          return true;
+        }
+      };
+    }
   }
 
   /** Evaluates logical OR expressions. */
@@ -99,6 +128,29 @@ public class InMemQueryEvaluatorSet extends QueryEvaluatorSet {
       // all conditions are false
       return false;
     }
+
+    @Override
+    protected InMemQueryPredicate compileImpl(InMemQueryEvaluator<?> ctxt, QueryExprOr expr) {
+      List<QueryExpr> list = expr.getExpressions();
+      if (list.isEmpty()) {
+        throw new IllegalArgumentException("An OR expression should have at least a single member expression.");
+      }
+      final InMemQueryPredicate[] predicates = new InMemQueryPredicate[list.size()];
+      for (int i=0; i<predicates.length; ++i) {
+        predicates[i] = ctxt.compile(list.get(i));
+      }
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          for (InMemQueryPredicate p : predicates) {
+            if (p.eval(item)) {
+              return true;
+            }
+          }
+          return false;
+        }
+      };
+    }
   }
 
   /** Evaluates logical compare expressions. */
@@ -117,7 +169,56 @@ public class InMemQueryEvaluatorSet extends QueryEvaluatorSet {
       }
     }
 
-}
+    /**
+     * The compiled predicate checks if the attribute, the compare operator or the value of the
+     * expression was replaced after compilation. In this case it evaluates the current state of the
+     * expression without using the compiled parts.
+     */
+    @Override
+    protected InMemQueryPredicate compileImpl(final InMemQueryEvaluator<?> ctxt, final QueryExprCompare expr) {
+      final QueryAttr attr = expr.getAttr();
+      final CompOp compOp = expr.getCompOp();
+      final Object compareToValue = expr.getValue();
+      if (attr instanceof QueryAttrMulti) {
+        final InMemQueryPredicate multiPartPredicate = ctxt.compile(QueryExprUtil.makeMultiPartCompareExpr(expr));
+        return new InMemQueryPredicate() {
+          @Override
+          public boolean eval(Object item) {
+            return isChanged(expr, attr, compOp, compareToValue)
+                ? evalImpl(ctxt, item, expr)
+                : multiPartPredicate.eval(item);
+          }
+        };
+      }
+
+      final Expression attrPathExpr = ctxt.findAttrPathExprForCompiledAccess(attr);
+      final InMemCompOpEvaluator compOpEvaluator = ctxt.getCompOpEvaluator(expr);
+      final InMemQueryPredicate valueCheck = (compOpEvaluator instanceof InMemCompOpEvaluatorPreparable)
+          ? ((InMemCompOpEvaluatorPreparable) compOpEvaluator).prepare(compOp, compareToValue)
+          : null;
+
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          if (isChanged(expr, attr, compOp, compareToValue)) {
+            return evalImpl(ctxt, item, expr);
+          }
+          Object attrValue = (attrPathExpr != null)
+              ? attrPathExpr.getValue(item)
+              : ctxt.getAttrValue(item, attr);
+          return (valueCheck != null)
+              ? valueCheck.eval(attrValue)
+              : compOpEvaluator.eval(ctxt, compOp, attrValue, compareToValue);
+        }
+      };
+    }
+
+    private static boolean isChanged(QueryExprCompare expr, QueryAttr attr, CompOp compOp, Object compareToValue) {
+      return expr.getValue() != compareToValue ||
+             expr.getCompOp() != compOp ||
+             expr.getAttr() != attr;
+    }
+  }
 
   /** Evaluates logical NOT expressions. */
   public static class NotEvaluator extends InMemExprEvaluatorBase<QueryExprNot> {
@@ -127,6 +228,17 @@ public class InMemQueryEvaluatorSet extends QueryEvaluatorSet {
       InMemExprEvaluator baseExprEv = ctxt.getExprEvaluator(baseExpr);
       return ! baseExprEv.eval(ctxt, item, baseExpr);
     }
+
+    @Override
+    protected InMemQueryPredicate compileImpl(InMemQueryEvaluator<?> ctxt, QueryExprNot expr) {
+      final InMemQueryPredicate basePredicate = ctxt.compile(expr.getBaseExpression());
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          return ! basePredicate.eval(item);
+        }
+      };
+    }
   }
 
   /**
@@ -136,6 +248,16 @@ public class InMemQueryEvaluatorSet extends QueryEvaluatorSet {
     protected boolean evalImpl(InMemQueryEvaluator<?> ctxt, Object item, QueryExprInMemCondition<Object> expr) {
       return expr.eval(item);
     }
+
+    @Override
+    protected InMemQueryPredicate compileImpl(InMemQueryEvaluator<?> ctxt, final QueryExprInMemCondition<Object> expr) {
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          return expr.eval(item);
+        }
+      };
+    }
   }
 
   /**
@@ -152,10 +274,40 @@ public class InMemQueryEvaluatorSet extends QueryEvaluatorSet {
       return evalImpl(ctxt, item, (T_EXPR)expr);
     }
 
+    /**
+     * Compiles the given expression to a predicate that may be applied to many items.
+     *
+     * @param ctxt
+     *          the query evaluator context.
+     * @param expr
+     *          the expression to compile.
+     * @return the compiled predicate.
+     */
+    @SuppressWarnings("unchecked")
+    public InMemQueryPredicate compile(InMemQueryEvaluator<?> ctxt, QueryExpr expr) {
+      return compileImpl(ctxt, (T_EXPR)expr);
+    }
+
     /**
      * Type safe signature for {@link InMemExprEvaluator#eval(InMemQueryEvaluator, Object, QueryExpr)}.
      */
     protected abstract boolean evalImpl(InMemQueryEvaluator<?> ctxt, Object item, T_EXPR expr);
+
+    /**
+     * Type safe signature for {@link #compile(InMemQueryEvaluator, QueryExpr)}.
+     * <p>
+     * The default implementation provides a predicate that calls
+     * {@link #evalImpl(InMemQueryEvaluator, Object, QueryExpr)} for each item.<br>
+     * Sub classes may override this method to resolve their evaluation details only once.
+     */
+    protected InMemQueryPredicate compileImpl(final InMemQueryEvaluator<?> ctxt, final T_EXPR expr) {
+      return new InMemQueryPredicate() {
+        @Override
+        public boolean eval(Object item) {
+          return evalImpl(ctxt, item, expr);
+        }
+      };
+    }
   }
 
 }
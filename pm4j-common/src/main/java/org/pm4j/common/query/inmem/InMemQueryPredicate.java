@@ -0,0 +1,25 @@
+package org.pm4j.common.query.inmem;
+
+import org.pm4j.common.query.QueryExpr;
+
+/**
+ * A {@link QueryExpr} that is compiled for repeated in-memory evaluation.
+ * <p>
+ * The evaluators and attribute accessors needed to check an item are resolved
+ * once when the predicate gets created by {@link InMemQueryEvaluator#compile(QueryExpr)}.
+ * This way the evaluation of long item lists does not repeat these lookups for each item.
+ *
+ * @author olaf boede
+ */
+public interface InMemQueryPredicate {
+
+  /**
+   * Checks if the given item matches the compiled query expression.
+   *
+   * @param item
+   *          the data object to check.
+   * @return <code>true</code> if the given item did match the filter criteria.
+   */
+  boolean eval(Object item);
+
+}
@@ -0,0 +1,263 @@
+package org.pm4j.common.query.inmem;
+
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.pm4j.common.expr.Expression;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.SortOrder;
+import org.pm4j.common.util.CollatorComparator;
+import org.pm4j.common.util.InvertingComparator;
+
+/**
+ * Sorts items based on sort keys that get extracted only once for each item.
+ * <p>
+ * A comparator based sort reads the attribute values for each compare operation. That
+ * means about <code>2 * n * log(n)</code> attribute value reads. This sorter reads the values
+ * of each sort order level only once per item and sorts an index array based on these keys.
+ * <p>
+ * Numeric and date keys that are compared by their natural order get stored in primitive
+ * arrays. Strings compared by a {@link CollatorComparator} are represented by their
+ * {@link CollationKey}s.
+ *
+ * @author olaf boede
+ */
+final class InMemSortKeySorter {
+
+  /**
+   * Sorts the given items.
+   *
+   * @param ctxt
+   *          provides the attribute values.
+   * @param items
+   *          the items to sort. Will be sorted in place.
+   * @param sortOrder
+   *          the sort order. All items of the sort order chain are considered.
+   * @param parallelExecutor
+   *          an executor for a parallel index sort. May be <code>null</code>.
+   * @param numOfTasks
+   *          the number of parallel sort tasks.
+   */
+  static <T> void sort(InMemQueryEvaluator<T> ctxt, T[] items, SortOrder sortOrder, ExecutorService parallelExecutor, int numOfTasks) {
+    int size = items.length;
+    if (size < 2) {
+      return;
+    }
+
+    final List<SortKeys> keyList = new ArrayList<SortKeys>();
+    for (SortOrder so = sortOrder; so != null; ) {
+      InMemSortOrder inMemSo = (so instanceof InMemSortOrder)
+          ? (InMemSortOrder) so
+          : new InMemSortOrder(so);
+      keyList.add(extractKeys(ctxt, items, inMemSo));
+      so = inMemSo.getNextSortOrder();
+    }
+    final SortKeys[] keys = keyList.toArray(new SortKeys[keyList.size()]);
+
+    int[] idx = new int[size];
+    for (int i = 0; i < size; ++i) {
+      idx[i] = i;
+    }
+
+    InMemParallelExecution.sort(parallelExecutor, numOfTasks, idx, new InMemParallelExecution.IndexComparator() {
+      @Override
+      public int compare(int i1, int i2) {
+        return compareIdx(keys, i1, i2);
+      }
+    });
+
+    Object[] src = items.clone();
+    for (int i = 0; i < size; ++i) {
+      @SuppressWarnings("unchecked")
+      T item = (T) src[idx[i]];
+      items[i] = item;
+    }
+  }
+
+  private static int compareIdx(SortKeys[] keys, int i1, int i2) {
+    for (SortKeys k : keys) {
+      int result = k.compare(i1, i2);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private static SortKeys extractKeys(InMemQueryEvaluator<?> ctxt, Object[] items, InMemSortOrder sortOrder) {
+    QueryAttr attr = sortOrder.getAttr();
+    Expression pathExpr = ctxt.findAttrPathExprForCompiledAccess(attr);
+    Object[] values = new Object[items.length];
+    for (int i = 0; i < items.length; ++i) {
+      values[i] = (pathExpr != null)
+          ? pathExpr.getValue(items[i])
+          : ctxt.getAttrValue(items[i], attr);
+    }
+
+    Comparator<Object> comparator = sortOrder.getComparator();
+    boolean descending = false;
+    if (comparator instanceof InvertingComparator) {
+      comparator = ((InvertingComparator<Object>) comparator).getBaseComparator();
+      descending = true;
+    }
+
+    // Primitive keys can only be used if the values are compared by their natural order.
+    if (comparator instanceof InMemSortOrder.ComparableComparator) {
+      Class<?> valueClass = getCommonValueClass(values);
+      if (valueClass == Integer.class || valueClass == Long.class ||
+          valueClass == Short.class || valueClass == Byte.class) {
+        return new LongKeys(values, descending, false);
+      }
+      if (valueClass == Date.class) {
+        return new LongKeys(values, descending, true);
+      }
+      if (valueClass == Double.class || valueClass == Float.class) {
+        return new DoubleKeys(values, descending);
+      }
+    }
+    // Localized string keys get compared using once computed collation keys.
+    if (comparator instanceof CollatorComparator) {
+      return new CollationKeys(values, (CollatorComparator) comparator, descending);
+    }
+    return new ObjectKeys(values, sortOrder.getComparator());
+  }
+
+  /**
+   * @return the class of all not-<code>null</code> values or <code>null</code> if there are different value classes.
+   */
+  private static Class<?> getCommonValueClass(Object[] values) {
+    Class<?> valueClass = null;
+    for (Object v : values) {
+      if (v != null) {
+        if (valueClass == null) {
+          valueClass = v.getClass();
+        } else if (valueClass != v.getClass()) {
+          return null;
+        }
+      }
+    }
+    return valueClass;
+  }
+
+  /** The extracted sort keys of a single sort order level. */
+  private interface SortKeys {
+    int compare(int i1, int i2);
+  }
+
+  /** Keys compared by the comparator of the sort order. */
+  private static class ObjectKeys implements SortKeys {
+    private final Object[] values;
+    private final Comparator<Object> comparator;
+
+    ObjectKeys(Object[] values, Comparator<Object> comparator) {
+      this.values = values;
+      this.comparator = comparator;
+    }
+
+    @Override
+    public int compare(int i1, int i2) {
+      return comparator.compare(values[i1], values[i2]);
+    }
+  }
+
+  /** Base class for primitive keys. A <code>null</code> value is less than any other value. */
+  private static abstract class PrimitiveKeys implements SortKeys {
+    protected final boolean[] nulls;
+    private final boolean descending;
+
+    PrimitiveKeys(Object[] values, boolean descending) {
+      this.nulls = new boolean[values.length];
+      this.descending = descending;
+      for (int i = 0; i < values.length; ++i) {
+        nulls[i] = (values[i] == null);
+      }
+    }
+
+    @Override
+    public int compare(int i1, int i2) {
+      int result;
+      if (nulls[i1] || nulls[i2]) {
+        result = (nulls[i1] == nulls[i2])
+            ? 0
+            : (nulls[i1] ? -1 : 1);
+      } else {
+        result = compareValues(i1, i2);
+      }
+      return descending ? -result : result;
+    }
+
+    protected abstract int compareValues(int i1, int i2);
+  }
+
+  /** Keys for integral numbers and dates. */
+  private static class LongKeys extends PrimitiveKeys {
+    private final long[] keys;
+
+    LongKeys(Object[] values, boolean descending, boolean dates) {
+      super(values, descending);
+      keys = new long[values.length];
+      for (int i = 0; i < values.length; ++i) {
+        if (values[i] != null) {
+          keys[i] = dates
+              ? ((Date) values[i]).getTime()
+              : ((Number) values[i]).longValue();
+        }
+      }
+    }
+
+    @Override
+    protected int compareValues(int i1, int i2) {
+      long k1 = keys[i1];
+      long k2 = keys[i2];
+      return (k1 < k2) ? -1 : ((k1 == k2) ? 0 : 1);
+    }
+  }
+
+  /** Keys for floating point numbers. */
+  private static class DoubleKeys extends PrimitiveKeys {
+    private final double[] keys;
+
+    DoubleKeys(Object[] values, boolean descending) {
+      super(values, descending);
+      keys = new double[values.length];
+      for (int i = 0; i < values.length; ++i) {
+        if (values[i] != null) {
+          keys[i] = ((Number) values[i]).doubleValue();
+        }
+      }
+    }
+
+    @Override
+    protected int compareValues(int i1, int i2) {
+      return Double.compare(keys[i1], keys[i2]);
+    }
+  }
+
+  /** Keys for a locale specific string sort order. */
+  private static class CollationKeys extends PrimitiveKeys {
+    private final CollationKey[] keys;
+
+    CollationKeys(Object[] values, CollatorComparator comparator, boolean descending) {
+      super(values, descending);
+      keys = new CollationKey[values.length];
+      for (int i = 0; i < values.length; ++i) {
+        if (values[i] != null) {
+          keys[i] = comparator.getCollationKey(values[i].toString());
+        }
+      }
+    }
+
+    @Override
+    protected int compareValues(int i1, int i2) {
+      return keys[i1].compareTo(keys[i2]);
+    }
+  }
+
+  private InMemSortKeySorter() {
+  }
+
+}
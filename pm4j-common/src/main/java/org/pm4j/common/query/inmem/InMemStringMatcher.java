@@ -0,0 +1,370 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Checks strings against a string restriction without creating objects for each checked string.
+ * <p>
+ * A matcher gets created once for a restriction value and can then be applied to any number of
+ * items. Case insensitive matches are done character by character (like
+ * {@link String#regionMatches(boolean, int, String, int, int)}). Ignored spaces are handled by
+ * moving the match bounds. This way no upper case or trimmed copy of the checked string gets
+ * created.
+ * <p>
+ * SQL like patterns get compiled to a matcher that is specialized for the pattern kind (literal,
+ * prefix, suffix, infix and a sequence of <code>%</code> separated parts). Only patterns that use
+ * the single character wild card <code>_</code> are translated to a regular expression.
+ * <p>
+ * Matcher instances are immutable and thread safe.
+ *
+ * @author olaf boede
+ */
+public abstract class InMemStringMatcher {
+
+  /** A matcher that does not match any string. Used for <code>null</code> restriction values. */
+  public static final InMemStringMatcher NONE = new InMemStringMatcher(false, false) {
+    @Override
+    boolean matches(String s, int start, int end) {
+      return false;
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+    }
+  };
+
+  final boolean ignoreCase;
+  final boolean ignoreSpaces;
+
+  InMemStringMatcher(boolean ignoreCase, boolean ignoreSpaces) {
+    this.ignoreCase = ignoreCase;
+    this.ignoreSpaces = ignoreSpaces;
+  }
+
+  /**
+   * @param s
+   *          the string to check. May be <code>null</code>.
+   * @return <code>true</code> if the string matches. A <code>null</code> string never matches.
+   */
+  public final boolean matches(String s) {
+    if (s == null) {
+      return false;
+    }
+    int start = 0;
+    int end = s.length();
+    if (ignoreSpaces) {
+      while (start < end && s.charAt(start) <= ' ') {
+        ++start;
+      }
+      while (end > start && s.charAt(end - 1) <= ' ') {
+        --end;
+      }
+    }
+    return matches(s, start, end);
+  }
+
+  /**
+   * @param s
+   *          the string to check.
+   * @param start
+   *          the index of the first relevant character.
+   * @param end
+   *          the index after the last relevant character.
+   * @return <code>true</code> if the given string region matches.
+   */
+  abstract boolean matches(String s, int start, int end);
+
+  /**
+   * Provides the literal parts each matching string contains (case insensitive).<br>
+   * Used by {@link InMemTextIndex} to find the candidate items.
+   *
+   * @param parts
+   *          the list to add the parts to.
+   */
+  abstract void addRequiredParts(List<String> parts);
+
+  /**
+   * Provides a matcher for a substring search.
+   *
+   * @param part
+   *          the substring to find. A <code>null</code> value matches no string.
+   * @param ignoreCase
+   *          <code>true</code> makes the match case insensitive.
+   * @param ignoreSpaces
+   *          <code>true</code> ignores leading and trailing spaces of the substring and the checked strings.
+   * @return the matcher.
+   */
+  public static InMemStringMatcher contains(String part, boolean ignoreCase, boolean ignoreSpaces) {
+    return (part != null)
+        ? new Infix(trim(part, ignoreSpaces), ignoreCase, ignoreSpaces)
+        : NONE;
+  }
+
+  /**
+   * Provides a matcher that checks the start of the strings.
+   *
+   * @param prefix
+   *          the expected string start. A <code>null</code> value matches no string.
+   * @param ignoreCase
+   *          <code>true</code> makes the match case insensitive.
+   * @param ignoreSpaces
+   *          <code>true</code> ignores leading and trailing spaces of the prefix and the checked strings.
+   * @return the matcher.
+   */
+  public static InMemStringMatcher startsWith(String prefix, boolean ignoreCase, boolean ignoreSpaces) {
+    return (prefix != null)
+        ? new Prefix(trim(prefix, ignoreSpaces), ignoreCase, ignoreSpaces)
+        : NONE;
+  }
+
+  /**
+   * Provides a case insensitive matcher for an SQL like pattern.
+   * <p>
+   * The pattern may contain the wild cards <code>%</code> (any character sequence) and
+   * <code>_</code> (any single character).
+   *
+   * @param pattern
+   *          the like pattern. A <code>null</code> pattern is handled like an empty string.
+   * @return the matcher.
+   */
+  public static InMemStringMatcher like(String pattern) {
+    String p = (pattern != null) ? pattern : "";
+    if (p.indexOf('_') != -1) {
+      return new Regex(p);
+    }
+
+    List<String> parts = splitLikePattern(p);
+    int lastIdx = parts.size() - 1;
+    if (lastIdx == 0) {
+      return new Literal(p, true);
+    }
+
+    String first = parts.get(0);
+    String last = parts.get(lastIdx);
+    if (lastIdx == 1) {
+      if (last.length() == 0) {
+        return new Prefix(first, true, false);
+      }
+      if (first.length() == 0) {
+        return new Suffix(last, true);
+      }
+    }
+    if (lastIdx == 2 && first.length() == 0 && last.length() == 0) {
+      return new Infix(parts.get(1), true, false);
+    }
+    return new Parts(first, parts.subList(1, lastIdx).toArray(new String[lastIdx - 1]), last, true);
+  }
+
+  /**
+   * Splits the pattern at its <code>%</code> characters.<br>
+   * The first and the last part may be empty. Empty inner parts (<code>%%</code>) are skipped.
+   */
+  private static List<String> splitLikePattern(String p) {
+    List<String> parts = new ArrayList<String>();
+    int partStart = 0;
+    for (int i = 0; i <= p.length(); ++i) {
+      if (i == p.length() || p.charAt(i) == '%') {
+        String part = p.substring(partStart, i);
+        if (part.length() > 0 || parts.isEmpty() || i == p.length()) {
+          parts.add(part);
+        }
+        partStart = i + 1;
+      }
+    }
+    return parts;
+  }
+
+  private static String trim(String s, boolean ignoreSpaces) {
+    return ignoreSpaces ? s.trim() : s;
+  }
+
+  /**
+   * @return <code>true</code> if the given part is found at the given position of <code>s</code>.
+   */
+  final boolean regionMatches(String s, int offset, String part) {
+    return s.regionMatches(ignoreCase, offset, part, 0, part.length());
+  }
+
+  /**
+   * Finds the first position of <code>part</code> within the region <code>[from, to)</code> of <code>s</code>.
+   *
+   * @return the found position or <code>-1</code>.
+   */
+  final int indexOf(String s, String part, int from, int to) {
+    int partLen = part.length();
+    int lastPos = to - partLen;
+    if (partLen == 0) {
+      return (from <= to) ? from : -1;
+    }
+    if (!ignoreCase) {
+      int i = s.indexOf(part, from);
+      return (i <= lastPos) ? i : -1;
+    }
+
+    char c0 = part.charAt(0);
+    char c0Upper = Character.toUpperCase(c0);
+    char c0Lower = Character.toLowerCase(c0);
+    for (int i = from; i <= lastPos; ++i) {
+      char c = s.charAt(i);
+      // Non-ASCII characters may have special case mappings. They get checked by regionMatches.
+      if ((c == c0 || c == c0Upper || c == c0Lower || c > 127) &&
+          s.regionMatches(true, i, part, 0, partLen)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Matches strings that are equal to the given literal. */
+  static final class Literal extends InMemStringMatcher {
+    private final String literal;
+
+    Literal(String literal, boolean ignoreCase) {
+      super(ignoreCase, false);
+      this.literal = literal;
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+      parts.add(literal);
+    }
+
+    @Override
+    boolean matches(String s, int start, int end) {
+      return (end - start == literal.length()) && regionMatches(s, start, literal);
+    }
+  }
+
+  /** Matches strings that start with the given prefix. */
+  static final class Prefix extends InMemStringMatcher {
+    private final String prefix;
+
+    Prefix(String prefix, boolean ignoreCase, boolean ignoreSpaces) {
+      super(ignoreCase, ignoreSpaces);
+      this.prefix = prefix;
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+      parts.add(prefix);
+    }
+
+    @Override
+    boolean matches(String s, int start, int end) {
+      return (end - start >= prefix.length()) && regionMatches(s, start, prefix);
+    }
+  }
+
+  /** Matches strings that end with the given suffix. */
+  static final class Suffix extends InMemStringMatcher {
+    private final String suffix;
+
+    Suffix(String suffix, boolean ignoreCase) {
+      super(ignoreCase, false);
+      this.suffix = suffix;
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+      parts.add(suffix);
+    }
+
+    @Override
+    boolean matches(String s, int start, int end) {
+      return (end - start >= suffix.length()) && regionMatches(s, end - suffix.length(), suffix);
+    }
+  }
+
+  /** Matches strings that contain the given substring. */
+  static final class Infix extends InMemStringMatcher {
+    private final String infix;
+
+    Infix(String infix, boolean ignoreCase, boolean ignoreSpaces) {
+      super(ignoreCase, ignoreSpaces);
+      this.infix = infix;
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+      parts.add(infix);
+    }
+
+    @Override
+    boolean matches(String s, int start, int end) {
+      return indexOf(s, infix, start, end) != -1;
+    }
+  }
+
+  /**
+   * Matches a like pattern with several <code>%</code> wild cards.<br>
+   * The inner parts get searched from left to right. The first match of each part is sufficient,
+   * because the following <code>%</code> matches any remaining character sequence.
+   */
+  static final class Parts extends InMemStringMatcher {
+    private final String first;
+    private final String[] inner;
+    private final String last;
+
+    Parts(String first, String[] inner, String last, boolean ignoreCase) {
+      super(ignoreCase, false);
+      this.first = first;
+      this.inner = inner;
+      this.last = last;
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+      parts.add(first);
+      parts.addAll(Arrays.asList(inner));
+      parts.add(last);
+    }
+
+    @Override
+    boolean matches(String s, int start, int end) {
+      int innerEnd = end - last.length();
+      int pos = start + first.length();
+      if (pos > innerEnd ||
+          !regionMatches(s, start, first) ||
+          !regionMatches(s, innerEnd, last)) {
+        return false;
+      }
+      for (String part : inner) {
+        int foundPos = indexOf(s, part, pos, innerEnd);
+        if (foundPos == -1) {
+          return false;
+        }
+        pos = foundPos + part.length();
+      }
+      return true;
+    }
+  }
+
+  /** The regular expression based fallback for like patterns that use the single character wild card. */
+  static final class Regex extends InMemStringMatcher {
+    private final String likePattern;
+    private final Pattern pattern;
+
+    Regex(String likePattern) {
+      super(true, false);
+      this.likePattern = likePattern;
+      String regex = InMemCompOpEvaluatorLike.quotemeta(likePattern).replace("_", ".").replace("%", ".*?");
+      this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    @Override
+    boolean matches(String s, int start, int end) {
+      return pattern.matcher(s).matches();
+    }
+
+    @Override
+    void addRequiredParts(List<String> parts) {
+      for (String part : likePattern.split("[%_]")) {
+        parts.add(part);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,468 @@
+package org.pm4j.common.query.inmem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryAttrMulti;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprOr;
+
+/**
+ * An optional trigram index that narrows the items to check for free-text filters on large
+ * in-memory collections.
+ * <p>
+ * For each indexed attribute it maps each three character sequence of the attribute values to the
+ * ascending positions of the items that contain it. The characters are case normalized the same way
+ * {@link String#regionMatches(boolean, int, String, int, int)} compares them.
+ * <p>
+ * Each literal part of a 'contains', 'starts with' or 'like' compare expression needs to be
+ * contained in a matching value. This applies to the compare operators evaluated by
+ * {@link InMemCompOpEvaluators#CONTAINS}, {@link InMemCompOpEvaluators#STARTS_WITH} and
+ * {@link InMemCompOpEvaluators#LIKE}. The intersection of the position lists of their trigrams
+ * provides the candidate items. The exact filter predicate still gets applied to each candidate.
+ * This way the filter result is identical to the result of a full scan.
+ * <ul>
+ * <li>Patterns without a literal part of at least three characters can't be narrowed.</li>
+ * <li>AND expressions use the candidates of their indexable terms.</li>
+ * <li>OR expressions can be narrowed only if all their terms are indexable.</li>
+ * </ul>
+ * The index gets maintained by the item modification operations of
+ * <code>InMemCollectionBase</code>. It gets re-built if it is used for another item collection,
+ * if the number of items differs from the number of indexed items (e.g. after an external change
+ * of the collection) or after a call of {@link #clear()}.
+ * <p>
+ * The candidates get provided in the item order of the indexed collection. Items added later
+ * get appended. This matches the behavior of a {@link List} backing collection. The index gets
+ * re-built on add operations for any other collection kind.
+ * <p>
+ * Is not thread safe.
+ *
+ * @param <T_ITEM> the type of indexed items.
+ *
+ * @author olaf boede
+ */
+public class InMemTextIndex<T_ITEM> {
+
+  private static final int[] NO_SLOTS = new int[0];
+
+  private final Map<QueryAttr, AttrIndex> attrToIndex = new LinkedHashMap<QueryAttr, AttrIndex>();
+
+  /** The collection that was used to build the index. Is <code>null</code> if there is no valid index. */
+  private Collection<T_ITEM> indexedCollection;
+  /** The evaluator used to read the attribute values. */
+  private InMemQueryEvaluator<T_ITEM> indexCtxt;
+  /** The indexed items. The position within this list is the item slot. Removed items leave a <code>null</code> slot. */
+  private List<T_ITEM> slotItems = new ArrayList<T_ITEM>();
+  private Map<T_ITEM, Integer> itemToSlot = new IdentityHashMap<T_ITEM, Integer>();
+  private int itemCount;
+  private int removedSlotCount;
+  /** Is <code>true</code> if the indexed collection can't be handled by this index. */
+  private boolean disabled;
+
+  /**
+   * @param attrs
+   *          the string attributes to index.
+   */
+  public InMemTextIndex(QueryAttr... attrs) {
+    if (attrs.length == 0) {
+      throw new IllegalArgumentException("At least one attribute to index is required.");
+    }
+    for (QueryAttr a : attrs) {
+      if (a instanceof QueryAttrMulti) {
+        throw new IllegalArgumentException("Multi part attributes can't be indexed. Please index the parts: " + a);
+      }
+      attrToIndex.put(a, new AttrIndex(a));
+    }
+  }
+
+  /**
+   * @return the indexed attributes.
+   */
+  public List<QueryAttr> getAttrs() {
+    return new ArrayList<QueryAttr>(attrToIndex.keySet());
+  }
+
+  /**
+   * Provides the items that may match the given filter expression.
+   *
+   * @param ctxt
+   *          the evaluator used to read the attribute values and to identify the compare operator
+   *          evaluators.
+   * @param items
+   *          the collection of all items.
+   * @param expr
+   *          the filter expression.
+   * @return the candidate items in collection order.<br>
+   *         <code>null</code> if the index can't narrow the items for the given expression.
+   */
+  public List<T_ITEM> findCandidates(InMemQueryEvaluator<T_ITEM> ctxt, Collection<T_ITEM> items, QueryExpr expr) {
+    if (indexedCollection != items ||
+        indexCtxt != ctxt ||
+        itemCount != items.size()) {
+      build(ctxt, items);
+    }
+    if (disabled) {
+      return null;
+    }
+
+    int[] slots = findSlots(expr);
+    if (slots == null) {
+      return null;
+    }
+
+    List<T_ITEM> candidates = new ArrayList<T_ITEM>(slots.length);
+    for (int slot : slots) {
+      T_ITEM item = slotItems.get(slot);
+      if (item != null) {
+        candidates.add(item);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Adds an item that was appended to the indexed collection.
+   *
+   * @param items
+   *          the collection the item was added to.
+   * @param item
+   *          the new item.
+   */
+  public void addItem(Collection<T_ITEM> items, T_ITEM item) {
+    if (!isMaintained()) {
+      return;
+    }
+    if (indexedCollection != items || !(items instanceof List) || itemToSlot.containsKey(item)) {
+      clear();
+      return;
+    }
+    addSlot(item);
+  }
+
+  /**
+   * Removes an item that was removed from the indexed collection.
+   *
+   * @param item
+   *          the removed item.
+   */
+  public void removeItem(T_ITEM item) {
+    if (!isMaintained()) {
+      return;
+    }
+    Integer slot = itemToSlot.remove(item);
+    if (slot == null) {
+      clear();
+      return;
+    }
+    // The position lists still contain the slot. It gets skipped when the candidates get provided.
+    slotItems.set(slot, null);
+    --itemCount;
+    ++removedSlotCount;
+    if (removedSlotCount > slotItems.size() / 2) {
+      clear();
+    }
+  }
+
+  /**
+   * Re-indexes the attribute values of an updated item.
+   *
+   * @param item
+   *          the updated item.
+   */
+  public void updateItem(T_ITEM item) {
+    if (!isMaintained()) {
+      return;
+    }
+    Integer slot = itemToSlot.get(item);
+    if (slot == null) {
+      clear();
+      return;
+    }
+    for (AttrIndex ai : attrToIndex.values()) {
+      String oldValue = ai.slotValues.get(slot);
+      String newValue = readValue(ai.attr, item);
+      if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+        ai.removeValue(slot, oldValue);
+        ai.addValue(slot, newValue);
+        ai.slotValues.set(slot, newValue);
+      }
+    }
+  }
+
+  /**
+   * Invalidates the index. It gets re-built on next use.
+   */
+  public void clear() {
+    indexedCollection = null;
+    indexCtxt = null;
+    slotItems = new ArrayList<T_ITEM>();
+    itemToSlot = new IdentityHashMap<T_ITEM, Integer>();
+    itemCount = 0;
+    removedSlotCount = 0;
+    disabled = false;
+    for (AttrIndex ai : attrToIndex.values()) {
+      ai.clear();
+    }
+  }
+
+  /**
+   * @return <code>true</code> if there is an index that should be updated on item modifications.
+   */
+  private boolean isMaintained() {
+    if (disabled) {
+      clear();
+    }
+    return indexedCollection != null;
+  }
+
+  private void build(InMemQueryEvaluator<T_ITEM> ctxt, Collection<T_ITEM> items) {
+    clear();
+    indexCtxt = ctxt;
+    for (T_ITEM item : items) {
+      // The slot order can't reflect the order of multiple references to the same item.
+      if (itemToSlot.containsKey(item)) {
+        clear();
+        indexCtxt = ctxt;
+        itemCount = items.size();
+        disabled = true;
+        break;
+      }
+      addSlot(item);
+    }
+    indexedCollection = items;
+  }
+
+  private void addSlot(T_ITEM item) {
+    int slot = slotItems.size();
+    slotItems.add(item);
+    itemToSlot.put(item, slot);
+    ++itemCount;
+    for (AttrIndex ai : attrToIndex.values()) {
+      String value = readValue(ai.attr, item);
+      ai.slotValues.add(value);
+      ai.addValue(slot, value);
+    }
+  }
+
+  private String readValue(QueryAttr attr, T_ITEM item) {
+    Object value = indexCtxt.getAttrValue(item, attr);
+    if (value != null && !(value instanceof String)) {
+      throw new IllegalArgumentException("The text index supports only string attributes. Attribute '" +
+          attr + "' provides a value of type " + value.getClass().getName());
+    }
+    return (String) value;
+  }
+
+  /**
+   * @return the ascending slots of the items that may match the given expression.<br>
+   *         <code>null</code> if the expression can't be narrowed.
+   */
+  private int[] findSlots(QueryExpr expr) {
+    if (expr instanceof QueryExprCompare) {
+      return findSlots((QueryExprCompare) expr);
+    }
+    if (expr instanceof QueryExprAnd) {
+      List<SlotList> termSlots = new ArrayList<SlotList>();
+      for (QueryExpr e : ((QueryExprAnd) expr).getExpressions()) {
+        int[] slots = (e != null) ? findSlots(e) : null;
+        if (slots != null) {
+          termSlots.add(new SlotList(slots));
+        }
+      }
+      return termSlots.isEmpty() ? null : intersect(termSlots);
+    }
+    if (expr instanceof QueryExprOr) {
+      int[] result = NO_SLOTS;
+      for (QueryExpr e : ((QueryExprOr) expr).getExpressions()) {
+        int[] slots = (e != null) ? findSlots(e) : null;
+        if (slots == null) {
+          return null;
+        }
+        result = union(result, slots);
+      }
+      return result;
+    }
+    return null;
+  }
+
+  private int[] findSlots(QueryExprCompare expr) {
+    AttrIndex ai = attrToIndex.get(expr.getAttr());
+    if (ai == null || !(expr.getValue() instanceof String)) {
+      return null;
+    }
+    InMemCompOpEvaluator ev = indexCtxt.getCompOpEvaluator(expr);
+    if (ev != InMemCompOpEvaluators.CONTAINS &&
+        ev != InMemCompOpEvaluators.STARTS_WITH &&
+        ev != InMemCompOpEvaluators.LIKE) {
+      return null;
+    }
+
+    List<String> parts = new ArrayList<String>();
+    ((InMemCompOpEvaluatorStringMatch<?>) ev).getMatcher(expr.getCompOp(), (String) expr.getValue()).addRequiredParts(parts);
+    List<SlotList> trigramSlots = new ArrayList<SlotList>();
+    for (String part : parts) {
+      for (int i = 0; i + 3 <= part.length(); ++i) {
+        SlotList slots = ai.trigramToSlots.get(trigramKey(part, i));
+        if (slots == null) {
+          return NO_SLOTS;
+        }
+        trigramSlots.add(slots);
+      }
+    }
+    return trigramSlots.isEmpty() ? null : intersect(trigramSlots);
+  }
+
+  static long trigramKey(String s, int i) {
+    return ((long) normalize(s.charAt(i)) << 32) |
+           ((long) normalize(s.charAt(i + 1)) << 16) |
+           normalize(s.charAt(i + 2));
+  }
+
+  /** Maps all characters that are equal for {@link String#regionMatches(boolean, int, String, int, int)} to the same value. */
+  private static char normalize(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /** Intersects slot lists, starting with the shortest one. */
+  private static int[] intersect(List<SlotList> slotLists) {
+    Collections.sort(slotLists, new Comparator<SlotList>() {
+      @Override
+      public int compare(SlotList o1, SlotList o2) {
+        return o1.size - o2.size;
+      }
+    });
+    int[] result = slotLists.get(0).toArray();
+    int count = result.length;
+    for (int i = 1; i < slotLists.size() && count > 0; ++i) {
+      SlotList other = slotLists.get(i);
+      int newCount = 0;
+      for (int j = 0; j < count; ++j) {
+        if (Arrays.binarySearch(other.slots, 0, other.size, result[j]) >= 0) {
+          result[newCount++] = result[j];
+        }
+      }
+      count = newCount;
+    }
+    return (count == result.length) ? result : Arrays.copyOf(result, count);
+  }
+
+  private static int[] union(int[] a, int[] b) {
+    int[] result = new int[a.length + b.length];
+    int i = 0, j = 0, count = 0;
+    while (i < a.length || j < b.length) {
+      int slot = (j == b.length || (i < a.length && a[i] < b[j])) ? a[i++] : b[j++];
+      if (count == 0 || result[count - 1] != slot) {
+        result[count++] = slot;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /** The trigram index of a single attribute. */
+  private static final class AttrIndex {
+    final QueryAttr attr;
+    final Map<Long, SlotList> trigramToSlots = new HashMap<Long, SlotList>();
+    /** The indexed value of each slot. Needed to re-index an updated item. */
+    final List<String> slotValues = new ArrayList<String>();
+
+    AttrIndex(QueryAttr attr) {
+      this.attr = attr;
+    }
+
+    void addValue(int slot, String value) {
+      if (value == null) {
+        return;
+      }
+      for (int i = 0; i + 3 <= value.length(); ++i) {
+        Long key = trigramKey(value, i);
+        SlotList slots = trigramToSlots.get(key);
+        if (slots == null) {
+          slots = new SlotList();
+          trigramToSlots.put(key, slots);
+        }
+        slots.add(slot);
+      }
+    }
+
+    void removeValue(int slot, String value) {
+      if (value == null) {
+        return;
+      }
+      for (int i = 0; i + 3 <= value.length(); ++i) {
+        Long key = trigramKey(value, i);
+        SlotList slots = trigramToSlots.get(key);
+        if (slots != null && slots.remove(slot) && slots.size == 0) {
+          trigramToSlots.remove(key);
+        }
+      }
+    }
+
+    void clear() {
+      trigramToSlots.clear();
+      slotValues.clear();
+    }
+  }
+
+  /** An ascending list of unique slots. */
+  private static final class SlotList {
+    int[] slots;
+    int size;
+
+    SlotList() {
+      slots = new int[2];
+    }
+
+    SlotList(int[] slots) {
+      this.slots = slots;
+      this.size = slots.length;
+    }
+
+    void add(int slot) {
+      // Slots usually get added in ascending order.
+      if (size > 0 && slots[size - 1] >= slot) {
+        int pos = Arrays.binarySearch(slots, 0, size, slot);
+        if (pos >= 0) {
+          return;
+        }
+        insert(-pos - 1, slot);
+      } else {
+        insert(size, slot);
+      }
+    }
+
+    boolean remove(int slot) {
+      int pos = Arrays.binarySearch(slots, 0, size, slot);
+      if (pos < 0) {
+        return false;
+      }
+      System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+      --size;
+      return true;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(slots, size);
+    }
+
+    private void insert(int pos, int slot) {
+      if (size == slots.length) {
+        slots = Arrays.copyOf(slots, size * 2);
+      }
+      System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+      slots[pos] = slot;
+      ++size;
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+package org.pm4j.common.util;
+
+import java.io.Serializable;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Compares strings according to the collation sequence of a {@link Locale}.
+ * <p>
+ * The {@link Collator} gets created only once per thread. {@link Collator#getInstance(Locale)}
+ * creates a clone on each call, which is expensive when called for each compare operation.
+ * <p>
+ * The in-memory sort algorithm of <code>InMemQueryEvaluator</code> recognizes this comparator.
+ * It uses the {@link CollationKey}s provided by {@link #getCollationKey(String)} to compare the
+ * values. These keys get created only once per item and sort operation.
+ * <p>
+ * <code>null</code>s are handled the same way as in {@link CompareUtil#compare(Comparable, Comparable)}.
+ * Non-string values get compared by their string representation.
+ *
+ * @author olaf boede
+ */
+public final class CollatorComparator implements Comparator<Object>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Locale locale;
+  private final int strength;
+  private final int decomposition;
+  private transient ThreadLocal<Collator> threadCollator;
+
+  /**
+   * Creates a comparator that uses the default strength and decomposition of the locale.
+   *
+   * @param locale the locale that defines the collation sequence.
+   */
+  public CollatorComparator(Locale locale) {
+    this(locale, -1, -1);
+  }
+
+  /**
+   * @param locale
+   *          the locale that defines the collation sequence.
+   * @param strength
+   *          the collator strength, e.g. {@link Collator#PRIMARY}. <code>-1</code> uses the
+   *          default of the locale.
+   * @param decomposition
+   *          the collator decomposition mode, e.g. {@link Collator#CANONICAL_DECOMPOSITION}.
+   *          <code>-1</code> uses the default of the locale.
+   */
+  public CollatorComparator(Locale locale, int strength, int decomposition) {
+    if (locale == null) {
+      throw new IllegalArgumentException("Locale should not be null.");
+    }
+    this.locale = locale;
+    this.strength = strength;
+    this.decomposition = decomposition;
+  }
+
+  @Override
+  public int compare(Object o1, Object o2) {
+    if (o1 != null) {
+      return (o2 != null)
+          ? getCollator().compare(o1.toString(), o2.toString())
+          : 1;
+    }
+    else {
+      return (o2 == null)
+          ? 0
+          : -1;
+    }
+  }
+
+  /**
+   * @param s the string to get a key for.
+   * @return the collation key of the given string.
+   */
+  public CollationKey getCollationKey(String s) {
+    return getCollator().getCollationKey(s);
+  }
+
+  /**
+   * Provides the collator of the current thread. Collators are not thread safe.
+   *
+   * @return the configured collator.
+   */
+  public Collator getCollator() {
+    ThreadLocal<Collator> tl = threadCollator;
+    if (tl == null) {
+      tl = threadCollator = new ThreadLocal<Collator>();
+    }
+    Collator c = tl.get();
+    if (c == null) {
+      c = Collator.getInstance(locale);
+      if (strength >= 0) {
+        c.setStrength(strength);
+      }
+      if (decomposition >= 0) {
+        c.setDecomposition(decomposition);
+      }
+      tl.set(c);
+    }
+    return c;
+  }
+
+  public Locale getLocale() {
+    return locale;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(" + locale + ", strength=" + strength + ", decomposition=" + decomposition + ")";
+  }
+
+}
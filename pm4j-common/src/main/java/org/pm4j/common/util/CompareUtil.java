@@ -17,6 +17,9 @@ import org.apache.commons.lang.StringUtils;
  */
 public class CompareUtil {
 
+  /** Collators are not thread safe and expensive to create. Thus they get cached per thread. */
+  private static final ThreadLocal<Map<Locale, Collator>> threadCollators = new ThreadLocal<Map<Locale, Collator>>();
+
   /**
    * Compares two instances. Each of them may be <code>null</code>.
    * A <code>null</code> parameter is always <i>less</i> than a not
@@ -120,7 +123,7 @@ public class CompareUtil {
         return 1;
       }
       else {
-        return Collator.getInstance(locale).compare(lhs, rhs);
+        return getCollator(locale).compare(lhs, rhs);
       }
     }
     else {
@@ -130,6 +133,29 @@ public class CompareUtil {
     }
   }
 
+  /**
+   * Provides the collator for the given locale.
+   * <p>
+   * The collator is cached for the current thread. It should not be modified and should not be
+   * passed to other threads.
+   *
+   * @param locale the locale to get the collator for.
+   * @return the collator.
+   */
+  public static Collator getCollator(Locale locale) {
+    Map<Locale, Collator> map = threadCollators.get();
+    if (map == null) {
+      map = new HashMap<Locale, Collator>();
+      threadCollators.set(map);
+    }
+    Collator c = map.get(locale);
+    if (c == null) {
+      c = Collator.getInstance(locale);
+      map.put(locale, c);
+    }
+    return c;
+  }
+
   /**
    * An special equals implementation for strings.
    *
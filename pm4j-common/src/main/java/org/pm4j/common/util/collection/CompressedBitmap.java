@@ -0,0 +1,568 @@
+package org.pm4j.common.util.collection;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compressed bitmap of <code>long</code> values.
+ * <p>
+ * Follows the idea of roaring bitmaps: The values get partitioned by their high 48 bits. Each
+ * partition holds the low 16 bits of its values in a container:
+ * <ul>
+ * <li>A sparse partition (up to 4096 values) uses a sorted <code>char</code> array.</li>
+ * <li>A dense partition uses a fixed bitmap of 8 KB.</li>
+ * </ul>
+ * This way a set of numeric ids needs about two bytes per id. The containers get switched
+ * automatically when the number of values of a partition crosses the threshold.
+ * <p>
+ * {@link #contains(long)} needs a binary search within the (usually few) partition keys and a
+ * constant time (dense) or a binary search (sparse) container lookup.
+ * <p>
+ * The set operations {@link #or(CompressedBitmap)}, {@link #and(CompressedBitmap)} and
+ * {@link #andNot(CompressedBitmap)} work partition by partition. Dense partitions get combined word
+ * by word.
+ * <p>
+ * Is not thread safe.
+ *
+ * @author olaf boede
+ */
+public class CompressedBitmap implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The maximal number of values held by a sparse container. */
+  static final int MAX_ARRAY_CONTAINER_SIZE = 4096;
+
+  /** The ascending high 48 bits of the contained values. */
+  private long[] keys = new long[4];
+  /** The containers for the low 16 bits of the values, in {@link #keys} order. */
+  private Container[] containers = new Container[4];
+  /** The number of used {@link #keys} and {@link #containers}. */
+  private int containerCount;
+
+  /** Creates an empty bitmap. */
+  public CompressedBitmap() {
+  }
+
+  /**
+   * Creates a copy of the given bitmap.
+   *
+   * @param other
+   *          the bitmap to copy.
+   */
+  public CompressedBitmap(CompressedBitmap other) {
+    keys = other.keys.clone();
+    containers = new Container[keys.length];
+    containerCount = other.containerCount;
+    for (int i = 0; i < containerCount; ++i) {
+      containers[i] = other.containers[i].copy();
+    }
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param value
+   *          the value to add.
+   * @return <code>true</code> if the value was not yet contained.
+   */
+  public boolean add(long value) {
+    long key = value >>> 16;
+    char low = (char) value;
+    int idx = findKeyIdx(key);
+    if (idx < 0) {
+      idx = -idx - 1;
+      insertContainer(idx, key, new ArrayContainer());
+    }
+    Container c = containers[idx];
+    int oldCardinality = c.cardinality;
+    containers[idx] = c.add(low);
+    return containers[idx].cardinality != oldCardinality;
+  }
+
+  /**
+   * Removes a value.
+   *
+   * @param value
+   *          the value to remove.
+   * @return <code>true</code> if the value was contained.
+   */
+  public boolean remove(long value) {
+    int idx = findKeyIdx(value >>> 16);
+    if (idx < 0) {
+      return false;
+    }
+    Container c = containers[idx];
+    int oldCardinality = c.cardinality;
+    c = c.remove((char) value);
+    if (c.cardinality == oldCardinality) {
+      return false;
+    }
+    if (c.cardinality == 0) {
+      removeContainer(idx);
+    } else {
+      containers[idx] = c;
+    }
+    return true;
+  }
+
+  /**
+   * @param value
+   *          the value to check.
+   * @return <code>true</code> if the value is contained.
+   */
+  public boolean contains(long value) {
+    int idx = findKeyIdx(value >>> 16);
+    return (idx >= 0) && containers[idx].contains((char) value);
+  }
+
+  /**
+   * @return the number of contained values.
+   */
+  public long getCardinality() {
+    long cardinality = 0;
+    for (int i = 0; i < containerCount; ++i) {
+      cardinality += containers[i].cardinality;
+    }
+    return cardinality;
+  }
+
+  /**
+   * @return <code>true</code> if there is no value.
+   */
+  public boolean isEmpty() {
+    return containerCount == 0;
+  }
+
+  /**
+   * Adds all values of the given bitmap.
+   *
+   * @param other
+   *          the values to add.
+   */
+  public void or(CompressedBitmap other) {
+    for (int otherIdx = 0; otherIdx < other.containerCount; ++otherIdx) {
+      int idx = findKeyIdx(other.keys[otherIdx]);
+      if (idx < 0) {
+        insertContainer(-idx - 1, other.keys[otherIdx], other.containers[otherIdx].copy());
+      } else {
+        containers[idx] = containers[idx].or(other.containers[otherIdx]);
+      }
+    }
+  }
+
+  /**
+   * Removes all values that are not contained in the given bitmap.
+   *
+   * @param other
+   *          the values to keep.
+   */
+  public void and(CompressedBitmap other) {
+    int newCount = 0;
+    for (int idx = 0; idx < containerCount; ++idx) {
+      int otherIdx = other.findKeyIdx(keys[idx]);
+      Container c = (otherIdx >= 0)
+          ? containers[idx].and(other.containers[otherIdx])
+          : null;
+      if (c != null && c.cardinality > 0) {
+        keys[newCount] = keys[idx];
+        containers[newCount] = c;
+        ++newCount;
+      }
+    }
+    Arrays.fill(containers, newCount, containerCount, null);
+    containerCount = newCount;
+  }
+
+  /**
+   * Removes all values that are contained in the given bitmap.
+   *
+   * @param other
+   *          the values to remove.
+   */
+  public void andNot(CompressedBitmap other) {
+    for (int otherIdx = 0; otherIdx < other.containerCount; ++otherIdx) {
+      int idx = findKeyIdx(other.keys[otherIdx]);
+      if (idx >= 0) {
+        Container c = containers[idx].andNot(other.containers[otherIdx]);
+        if (c.cardinality == 0) {
+          removeContainer(idx);
+        } else {
+          containers[idx] = c;
+        }
+      }
+    }
+  }
+
+  /**
+   * Provides the values in ascending order. Negative values follow the positive ones.
+   * <p>
+   * The iterator supports {@link Iterator#remove()}. Other modifications of the bitmap while
+   * iterating are not detected.
+   *
+   * @return an iterator for the contained values.
+   */
+  public Iterator<Long> iterator() {
+    return new ValueIterator();
+  }
+
+  /**
+   * Removes all values.
+   */
+  public void clear() {
+    keys = new long[4];
+    containers = new Container[4];
+    containerCount = 0;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(cardinality=" + getCardinality() + ", containers=" + containerCount + ")";
+  }
+
+  private int findKeyIdx(long key) {
+    // The keys are never negative (unsigned shift). Negative values get sorted behind the positive ones.
+    return Arrays.binarySearch(keys, 0, containerCount, key);
+  }
+
+  private void insertContainer(int idx, long key, Container c) {
+    if (containerCount == keys.length) {
+      keys = Arrays.copyOf(keys, containerCount * 2);
+      containers = Arrays.copyOf(containers, containerCount * 2);
+    }
+    System.arraycopy(keys, idx, keys, idx + 1, containerCount - idx);
+    System.arraycopy(containers, idx, containers, idx + 1, containerCount - idx);
+    keys[idx] = key;
+    containers[idx] = c;
+    ++containerCount;
+  }
+
+  private void removeContainer(int idx) {
+    System.arraycopy(keys, idx + 1, keys, idx, containerCount - idx - 1);
+    System.arraycopy(containers, idx + 1, containers, idx, containerCount - idx - 1);
+    --containerCount;
+    containers[containerCount] = null;
+  }
+
+  /** Iterates by searching the next value that follows the last provided one. */
+  private class ValueIterator implements Iterator<Long> {
+    private boolean hasNext;
+    private long next;
+    private boolean hasLast;
+    private long last;
+
+    ValueIterator() {
+      findNext(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return hasNext;
+    }
+
+    @Override
+    public Long next() {
+      if (!hasNext) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      hasLast = true;
+      // -1 is the last value in the iteration order.
+      if (last == -1L) {
+        hasNext = false;
+      } else {
+        findNext(last + 1);
+      }
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (!hasLast) {
+        throw new IllegalStateException();
+      }
+      CompressedBitmap.this.remove(last);
+      hasLast = false;
+    }
+
+    private void findNext(long from) {
+      int idx = findKeyIdx(from >>> 16);
+      int fromLow = (char) from;
+      if (idx < 0) {
+        idx = -idx - 1;
+        fromLow = 0;
+      }
+      for (; idx < containerCount; ++idx, fromLow = 0) {
+        int low = containers[idx].ceiling(fromLow);
+        if (low != -1) {
+          next = (keys[idx] << 16) | low;
+          hasNext = true;
+          return;
+        }
+      }
+      hasNext = false;
+    }
+  }
+
+  /** Holds the low 16 bits of the values of a partition. */
+  abstract static class Container implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    int cardinality;
+
+    abstract boolean contains(char low);
+
+    /** @return this container or a replacement that contains the new value. */
+    abstract Container add(char low);
+
+    /** @return this container or a replacement without the value. */
+    abstract Container remove(char low);
+
+    /** @return the smallest value that is greater or equal to <code>low</code>. <code>-1</code> if there is none. */
+    abstract int ceiling(int low);
+
+    abstract Container copy();
+
+    /** @return this container or a replacement that contains also the values of the other container. */
+    abstract Container or(Container other);
+
+    /** @return this container or a replacement that contains only the values that are also in the other container. */
+    abstract Container and(Container other);
+
+    /** @return this container or a replacement without the values of the other container. */
+    abstract Container andNot(Container other);
+  }
+
+  /** A sorted array of the values of a sparse partition. */
+  static final class ArrayContainer extends Container {
+    private static final long serialVersionUID = 1L;
+
+    char[] values = new char[4];
+
+    @Override
+    boolean contains(char low) {
+      return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+    }
+
+    @Override
+    Container add(char low) {
+      int pos = Arrays.binarySearch(values, 0, cardinality, low);
+      if (pos >= 0) {
+        return this;
+      }
+      if (cardinality == MAX_ARRAY_CONTAINER_SIZE) {
+        return toBitmapContainer().add(low);
+      }
+      pos = -pos - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(cardinality * 2, MAX_ARRAY_CONTAINER_SIZE));
+      }
+      System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+      values[pos] = low;
+      ++cardinality;
+      return this;
+    }
+
+    @Override
+    Container remove(char low) {
+      int pos = Arrays.binarySearch(values, 0, cardinality, low);
+      if (pos >= 0) {
+        System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+        --cardinality;
+      }
+      return this;
+    }
+
+    @Override
+    int ceiling(int low) {
+      int pos = Arrays.binarySearch(values, 0, cardinality, (char) low);
+      if (pos < 0) {
+        pos = -pos - 1;
+      }
+      return (pos < cardinality) ? values[pos] : -1;
+    }
+
+    @Override
+    Container copy() {
+      ArrayContainer c = new ArrayContainer();
+      c.values = Arrays.copyOf(values, Math.max(cardinality, 4));
+      c.cardinality = cardinality;
+      return c;
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof BitmapContainer) {
+        return other.copy().or(this);
+      }
+      ArrayContainer o = (ArrayContainer) other;
+      Container c = this;
+      for (int i = 0; i < o.cardinality; ++i) {
+        c = c.add(o.values[i]);
+      }
+      return c;
+    }
+
+    @Override
+    Container and(Container other) {
+      return filter(other, true);
+    }
+
+    @Override
+    Container andNot(Container other) {
+      return filter(other, false);
+    }
+
+    /** Keeps only the values that are (or are not) contained in the other container. */
+    private Container filter(Container other, boolean keepContained) {
+      int newCardinality = 0;
+      for (int i = 0; i < cardinality; ++i) {
+        if (other.contains(values[i]) == keepContained) {
+          values[newCardinality++] = values[i];
+        }
+      }
+      cardinality = newCardinality;
+      return this;
+    }
+
+    private BitmapContainer toBitmapContainer() {
+      BitmapContainer bc = new BitmapContainer();
+      for (int i = 0; i < cardinality; ++i) {
+        bc.add(values[i]);
+      }
+      return bc;
+    }
+  }
+
+  /** A bitmap of all 65536 possible values of a dense partition. */
+  static final class BitmapContainer extends Container {
+    private static final long serialVersionUID = 1L;
+
+    final long[] words = new long[1024];
+
+    @Override
+    boolean contains(char low) {
+      return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    Container add(char low) {
+      long word = words[low >>> 6];
+      long newWord = word | (1L << low);
+      if (newWord != word) {
+        words[low >>> 6] = newWord;
+        ++cardinality;
+      }
+      return this;
+    }
+
+    @Override
+    Container remove(char low) {
+      long word = words[low >>> 6];
+      long newWord = word & ~(1L << low);
+      if (newWord != word) {
+        words[low >>> 6] = newWord;
+        --cardinality;
+        if (cardinality <= MAX_ARRAY_CONTAINER_SIZE / 2) {
+          return toArrayContainer();
+        }
+      }
+      return this;
+    }
+
+    @Override
+    int ceiling(int low) {
+      int wordIdx = low >>> 6;
+      long word = words[wordIdx] & (-1L << low);
+      while (word == 0) {
+        if (++wordIdx == words.length) {
+          return -1;
+        }
+        word = words[wordIdx];
+      }
+      return (wordIdx << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    Container copy() {
+      BitmapContainer c = new BitmapContainer();
+      System.arraycopy(words, 0, c.words, 0, words.length);
+      c.cardinality = cardinality;
+      return c;
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof ArrayContainer) {
+        ArrayContainer o = (ArrayContainer) other;
+        for (int i = 0; i < o.cardinality; ++i) {
+          add(o.values[i]);
+        }
+        return this;
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      for (int i = 0; i < words.length; ++i) {
+        words[i] |= otherWords[i];
+      }
+      return recount();
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof ArrayContainer) {
+        return other.copy().and(this);
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      for (int i = 0; i < words.length; ++i) {
+        words[i] &= otherWords[i];
+      }
+      return recount();
+    }
+
+    @Override
+    Container andNot(Container other) {
+      if (other instanceof ArrayContainer) {
+        ArrayContainer o = (ArrayContainer) other;
+        Container c = this;
+        for (int i = 0; i < o.cardinality; ++i) {
+          c = c.remove(o.values[i]);
+        }
+        return c;
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      for (int i = 0; i < words.length; ++i) {
+        words[i] &= ~otherWords[i];
+      }
+      return recount();
+    }
+
+    /** Updates the cardinality after a word operation and switches to an array if the bitmap got sparse. */
+    private Container recount() {
+      int newCardinality = 0;
+      for (long word : words) {
+        newCardinality += Long.bitCount(word);
+      }
+      cardinality = newCardinality;
+      return (cardinality <= MAX_ARRAY_CONTAINER_SIZE / 2)
+          ? toArrayContainer()
+          : this;
+    }
+
+    private ArrayContainer toArrayContainer() {
+      ArrayContainer ac = new ArrayContainer();
+      ac.values = new char[cardinality];
+      for (int i = 0; i < words.length; ++i) {
+        long word = words[i];
+        while (word != 0) {
+          int bit = Long.numberOfTrailingZeros(word);
+          ac.values[ac.cardinality++] = (char) ((i << 6) + bit);
+          word &= word - 1;
+        }
+      }
+      return ac;
+    }
+  }
+
+}
@@ -0,0 +1,344 @@
+package org.pm4j.common.util.collection;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A set of item identifiers.
+ * <p>
+ * As long as all identifiers are of type {@link Integer} or all are of type {@link Long} they get
+ * stored in a {@link CompressedBitmap}. This way large id sets need only a few bytes per id and the
+ * set operations {@link #addAll(Collection)}, {@link #retainAll(Collection)} and
+ * {@link #removeAll(Collection)} between two bitmap based sets get executed on the bitmaps.
+ * <p>
+ * Any other identifier (including <code>null</code>) switches the set to a {@link HashSet} based
+ * storage.
+ * <p>
+ * The iteration order of bitmap based sets is the ascending id order (negative ids last).
+ * <p>
+ * {@link #unmodifiableSet(Set)} provides a read-only view that keeps the bitmap based set operations.
+ * <p>
+ * Is not thread safe.
+ *
+ * @author olaf boede
+ *
+ * @param <T>
+ *          the identifier type.
+ */
+public class CompressedIdSet<T> extends AbstractSet<T> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The bitmap storage. Is <code>null</code> if the set uses the {@link #hashSet}. */
+  private CompressedBitmap bitmap = new CompressedBitmap();
+  /** The id type stored in the {@link #bitmap}. Is <code>null</code> as long as no id was added. */
+  private Class<?> numberClass;
+  /** The fallback storage for ids that can't be stored in a bitmap. */
+  private HashSet<T> hashSet;
+
+  /** Creates an empty set. */
+  public CompressedIdSet() {
+  }
+
+  /**
+   * Creates a set containing the given ids.
+   *
+   * @param ids
+   *          the ids to add.
+   */
+  @SuppressWarnings("unchecked")
+  public CompressedIdSet(Collection<? extends T> ids) {
+    CompressedIdSet<? extends T> other = (CompressedIdSet<? extends T>) asCompressedIdSet(ids);
+    if (other != null) {
+      if (other.bitmap != null) {
+        bitmap = new CompressedBitmap(other.bitmap);
+        numberClass = other.numberClass;
+      } else {
+        bitmap = null;
+        hashSet = new HashSet<T>(other.hashSet);
+      }
+    } else {
+      addAll(ids);
+    }
+  }
+
+  /**
+   * Provides a read-only view of the given set.
+   * <p>
+   * In difference to {@link Collections#unmodifiableSet(Set)} the view of a {@link CompressedIdSet}
+   * is a {@link CompressedIdSet} too. So the set operations of other {@link CompressedIdSet}s
+   * still use the bitmap of the viewed set.
+   *
+   * @param set
+   *          the set to provide a read-only view for.
+   * @return the read-only view. Is a {@link CompressedIdSet} if the given set is a {@link CompressedIdSet}.
+   */
+  public static <T> Set<T> unmodifiableSet(Set<T> set) {
+    if (set instanceof UnmodifiableCompressedIdSet) {
+      return set;
+    }
+    return (set instanceof CompressedIdSet)
+        ? new UnmodifiableCompressedIdSet<T>((CompressedIdSet<T>) set)
+        : Collections.unmodifiableSet(set);
+  }
+
+  /**
+   * @return <code>true</code> if the ids are stored in a {@link CompressedBitmap}.
+   */
+  public boolean isBitmapBased() {
+    return bitmap != null;
+  }
+
+  @Override
+  public int size() {
+    return (bitmap != null)
+        ? (int) bitmap.getCardinality()
+        : hashSet.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return (bitmap != null)
+        ? bitmap.isEmpty()
+        : hashSet.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (bitmap != null) {
+      return (o != null) && o.getClass() == numberClass && bitmap.contains(((Number) o).longValue());
+    } else {
+      return hashSet.contains(o);
+    }
+  }
+
+  @Override
+  public boolean add(T id) {
+    if (bitmap != null) {
+      Class<?> c = (id != null) ? id.getClass() : null;
+      if ((numberClass == null || bitmap.isEmpty()) && (c == Integer.class || c == Long.class)) {
+        numberClass = c;
+      }
+      if (c != null && c == numberClass) {
+        return bitmap.add(((Number) id).longValue());
+      }
+      switchToHashSet();
+    }
+    return hashSet.add(id);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (bitmap != null) {
+      return (o != null) && o.getClass() == numberClass && bitmap.remove(((Number) o).longValue());
+    } else {
+      return hashSet.remove(o);
+    }
+  }
+
+  @Override
+  public void clear() {
+    bitmap = new CompressedBitmap();
+    numberClass = null;
+    hashSet = null;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (bitmap == null) {
+      return hashSet.iterator();
+    }
+
+    final Iterator<Long> bitmapIterator = bitmap.iterator();
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return bitmapIterator.hasNext();
+      }
+
+      @Override
+      public T next() {
+        return toId(bitmapIterator.next());
+      }
+
+      @Override
+      public void remove() {
+        bitmapIterator.remove();
+      }
+    };
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends T> c) {
+    CompressedBitmap otherBitmap = getCompatibleBitmap(c);
+    if (otherBitmap == null) {
+      return super.addAll(c);
+    }
+    if (numberClass == null) {
+      numberClass = asCompressedIdSet(c).numberClass;
+    }
+    long oldSize = bitmap.getCardinality();
+    bitmap.or(otherBitmap);
+    return bitmap.getCardinality() != oldSize;
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    CompressedBitmap otherBitmap = getCompatibleBitmap(c);
+    if (otherBitmap == null) {
+      return super.retainAll(c);
+    }
+    long oldSize = bitmap.getCardinality();
+    bitmap.and(otherBitmap);
+    return bitmap.getCardinality() != oldSize;
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    CompressedBitmap otherBitmap = getCompatibleBitmap(c);
+    if (otherBitmap == null) {
+      return super.removeAll(c);
+    }
+    long oldSize = bitmap.getCardinality();
+    bitmap.andNot(otherBitmap);
+    return bitmap.getCardinality() != oldSize;
+  }
+
+  /**
+   * @return the bitmap of the given collection if it may be combined with the bitmap of this set.
+   *         Otherwise <code>null</code>.
+   */
+  private CompressedBitmap getCompatibleBitmap(Collection<?> c) {
+    CompressedIdSet<?> other = asCompressedIdSet(c);
+    if (bitmap == null || other == null) {
+      return null;
+    }
+    if (other.bitmap == null) {
+      return null;
+    }
+    return (numberClass == null || other.numberClass == null || numberClass == other.numberClass)
+        ? other.bitmap
+        : null;
+  }
+
+  /**
+   * @return the set that holds the ids of the given collection if it is a {@link CompressedIdSet}.
+   *         Otherwise <code>null</code>.
+   */
+  private static CompressedIdSet<?> asCompressedIdSet(Collection<?> c) {
+    if (c instanceof UnmodifiableCompressedIdSet) {
+      return ((UnmodifiableCompressedIdSet<?>) c).set;
+    }
+    return (c instanceof CompressedIdSet)
+        ? (CompressedIdSet<?>) c
+        : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T toId(long value) {
+    Object id = (numberClass == Integer.class)
+        ? (Object) Integer.valueOf((int) value)
+        : (Object) Long.valueOf(value);
+    return (T) id;
+  }
+
+  private void switchToHashSet() {
+    hashSet = new HashSet<T>();
+    for (Iterator<T> it = iterator(); it.hasNext();) {
+      hashSet.add(it.next());
+    }
+    bitmap = null;
+    numberClass = null;
+  }
+
+  /**
+   * A read-only view of a {@link CompressedIdSet}. See {@link CompressedIdSet#unmodifiableSet(Set)}.
+   */
+  private static final class UnmodifiableCompressedIdSet<T> extends CompressedIdSet<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CompressedIdSet<T> set;
+
+    UnmodifiableCompressedIdSet(CompressedIdSet<T> set) {
+      this.set = set;
+    }
+
+    @Override
+    public boolean isBitmapBased() {
+      return set.isBitmapBased();
+    }
+
+    @Override
+    public int size() {
+      return set.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return set.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return set.contains(o);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      final Iterator<T> setIterator = set.iterator();
+      return new Iterator<T>() {
+        @Override
+        public boolean hasNext() {
+          return setIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+          return setIterator.next();
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public boolean add(T id) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
@@ -0,0 +1,165 @@
+package org.pm4j.common.util.reflection;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.ClassUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.pm4j.common.util.reflection.GeneratedBeanAttrAccessor.DirectAccess;
+
+/**
+ * Generates {@link DirectAccess} classes using the ASM library.
+ * <p>
+ * Each generated class gets its own class loader. This way it may be garbage collected
+ * together with its accessor.
+ *
+ * @author olaf boede
+ */
+final class BeanAttrAccessorClassGenerator implements Opcodes {
+
+  private static final String DIRECT_ACCESS_NAME = Type.getInternalName(DirectAccess.class);
+  private static final String GENERATED_CLASS_PFX = "org/pm4j/common/util/reflection/generated/Accessor$";
+  private static final AtomicInteger classCounter = new AtomicInteger();
+
+  /**
+   * @param beanClass the bean class to generate the accessor for.
+   * @param getter the getter to call. May be <code>null</code>.
+   * @param getField the field to read if there is no getter. May be <code>null</code>.
+   * @param setter the setter to call. May be <code>null</code>.
+   * @param setField the field to write if there is no setter. May be <code>null</code>.
+   * @return a new instance of the generated class. Operations without getter/setter or field
+   *         throw an {@link UnsupportedOperationException}.
+   */
+  static DirectAccess generate(Class<?> beanClass, Method getter, Field getField, Method setter, Field setField) {
+    String className = GENERATED_CLASS_PFX + beanClass.getSimpleName() + "$" + classCounter.incrementAndGet();
+    String beanName = Type.getInternalName(beanClass);
+
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, DIRECT_ACCESS_NAME, null);
+
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitMethodInsn(INVOKESPECIAL, DIRECT_ACCESS_NAME, "<init>", "()V", false);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    mv = cw.visitMethod(ACC_PUBLIC, "get", "(Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+    mv.visitCode();
+    if (getter != null || getField != null) {
+      mv.visitVarInsn(ALOAD, 1);
+      mv.visitTypeInsn(CHECKCAST, beanName);
+      Class<?> valueType;
+      if (getter != null) {
+        visitCall(mv, beanClass, getter);
+        valueType = getter.getReturnType();
+      } else {
+        mv.visitFieldInsn(GETFIELD, beanName, getField.getName(), Type.getDescriptor(getField.getType()));
+        valueType = getField.getType();
+      }
+      visitBox(mv, valueType);
+      mv.visitInsn(ARETURN);
+    } else {
+      visitThrowUnsupported(mv);
+    }
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    mv = cw.visitMethod(ACC_PUBLIC, "set", "(Ljava/lang/Object;Ljava/lang/Object;)V", null, null);
+    mv.visitCode();
+    if (setter != null || setField != null) {
+      mv.visitVarInsn(ALOAD, 1);
+      mv.visitTypeInsn(CHECKCAST, beanName);
+      mv.visitVarInsn(ALOAD, 2);
+      if (setter != null) {
+        visitUnbox(mv, setter.getParameterTypes()[0]);
+        visitCall(mv, beanClass, setter);
+        if (setter.getReturnType() != void.class) {
+          mv.visitInsn((setter.getReturnType() == long.class || setter.getReturnType() == double.class) ? POP2 : POP);
+        }
+      } else {
+        visitUnbox(mv, setField.getType());
+        mv.visitFieldInsn(PUTFIELD, beanName, setField.getName(), Type.getDescriptor(setField.getType()));
+      }
+      mv.visitInsn(RETURN);
+    } else {
+      visitThrowUnsupported(mv);
+    }
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    cw.visitEnd();
+
+    Class<?> generatedClass = new AccessorClassLoader(beanClass.getClassLoader())
+        .define(className.replace('/', '.'), cw.toByteArray());
+    try {
+      return (DirectAccess) generatedClass.newInstance();
+    } catch (Exception e) {
+      throw new ReflectionException("Unable to instantiate generated accessor class for " + beanClass, e);
+    }
+  }
+
+  private static void visitCall(MethodVisitor mv, Class<?> beanClass, Method m) {
+    boolean isInterface = beanClass.isInterface();
+    mv.visitMethodInsn(isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL,
+        Type.getInternalName(beanClass), m.getName(), Type.getMethodDescriptor(m), isInterface);
+  }
+
+  private static void visitBox(MethodVisitor mv, Class<?> type) {
+    if (type == void.class) {
+      mv.visitInsn(ACONST_NULL);
+    } else if (type.isPrimitive()) {
+      Type wrapper = Type.getType(ClassUtils.primitiveToWrapper(type));
+      mv.visitMethodInsn(INVOKESTATIC, wrapper.getInternalName(), "valueOf",
+          "(" + Type.getDescriptor(type) + ")" + wrapper.getDescriptor(), false);
+    }
+  }
+
+  private static void visitUnbox(MethodVisitor mv, Class<?> type) {
+    if (type.isPrimitive()) {
+      String wrapperName = Type.getInternalName(ClassUtils.primitiveToWrapper(type));
+      mv.visitTypeInsn(CHECKCAST, wrapperName);
+      mv.visitMethodInsn(INVOKEVIRTUAL, wrapperName, type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+    } else if (type != Object.class) {
+      mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+    }
+  }
+
+  private static void visitThrowUnsupported(MethodVisitor mv) {
+    mv.visitTypeInsn(NEW, "java/lang/UnsupportedOperationException");
+    mv.visitInsn(DUP);
+    mv.visitMethodInsn(INVOKESPECIAL, "java/lang/UnsupportedOperationException", "<init>", "()V", false);
+    mv.visitInsn(ATHROW);
+  }
+
+  /**
+   * Loads the generated class. Resolves {@link DirectAccess} using the pm4j class loader
+   * and all other classes using the class loader of the bean class.
+   */
+  private static final class AccessorClassLoader extends ClassLoader {
+
+    AccessorClassLoader(ClassLoader beanClassLoader) {
+      super((beanClassLoader != null) ? beanClassLoader : DirectAccess.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      return name.equals(DirectAccess.class.getName())
+          ? DirectAccess.class
+          : super.loadClass(name, resolve);
+    }
+
+    Class<?> define(String name, byte[] bytes) {
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+
+  private BeanAttrAccessorClassGenerator() {
+  }
+
+}
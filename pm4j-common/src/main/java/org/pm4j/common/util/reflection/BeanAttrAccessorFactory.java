@@ -0,0 +1,83 @@
+package org.pm4j.common.util.reflection;
+
+/**
+ * Creates {@link BeanAttrAccessor} instances.
+ * <p>
+ * Two implementations are provided:
+ * <ul>
+ *  <li>{@link #REFLECTION}: uses reflection for each attribute access.</li>
+ *  <li>{@link #GENERATED}: generates accessor classes that call the getters and setters directly.
+ *      Uses reflection if an accessor class can't be generated. E.g. for non-public classes or
+ *      if the optional ASM library is not available.</li>
+ * </ul>
+ * The factory used by default may be configured globally using {@link #setDefault(BeanAttrAccessorFactory)}.
+ *
+ * @author olaf boede
+ */
+public abstract class BeanAttrAccessorFactory {
+
+  /** Creates {@link BeanAttrAccessorImpl} instances. */
+  public static final BeanAttrAccessorFactory REFLECTION = new BeanAttrAccessorFactory() {
+    @Override
+    public BeanAttrAccessor create(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+      return new BeanAttrAccessorImpl(beanClass, attrName, allowFieldAccess);
+    }
+  };
+
+  /** Creates accessors that use generated classes to call the getters and setters. */
+  public static final BeanAttrAccessorFactory GENERATED = new BeanAttrAccessorFactory() {
+    @Override
+    public BeanAttrAccessor create(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+      return GeneratedBeanAttrAccessor.create(new BeanAttrAccessorImpl(beanClass, attrName, allowFieldAccess));
+    }
+  };
+
+  private static volatile BeanAttrAccessorFactory defaultFactory = REFLECTION;
+
+  /**
+   * @return the factory to use if there is no specific configuration.
+   */
+  public static BeanAttrAccessorFactory getDefault() {
+    return defaultFactory;
+  }
+
+  /**
+   * @param factory the factory to use if there is no specific configuration.
+   */
+  public static void setDefault(BeanAttrAccessorFactory factory) {
+    if (factory == null) {
+      throw new IllegalArgumentException("The default bean attribute accessor factory can't be null.");
+    }
+    defaultFactory = factory;
+  }
+
+  /**
+   * Creates an accessor based on the bean naming conventions.
+   *
+   * @param beanClass
+   *          Class of beans to access.
+   * @param attrName
+   *          Name of the attribute.
+   * @param allowFieldAccess
+   *          Defines if it is allowed to use direct field access when the
+   *          getter/setter are not available to the field.
+   * @return the accessor.
+   * @throws ReflectionException if there is no matching getter or field.
+   */
+  public abstract BeanAttrAccessor create(Class<?> beanClass, String attrName, boolean allowFieldAccess);
+
+  /**
+   * Creates an accessor based on the bean naming conventions. Allows direct field access.
+   *
+   * @param beanClass
+   *          Class of beans to access.
+   * @param attrName
+   *          Name of the attribute.
+   * @return the accessor.
+   * @throws ReflectionException if there is no matching getter or field.
+   */
+  public BeanAttrAccessor create(Class<?> beanClass, String attrName) {
+    return create(beanClass, attrName, true);
+  }
+
+}
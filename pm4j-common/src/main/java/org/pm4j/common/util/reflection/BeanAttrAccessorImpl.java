@@ -228,6 +228,26 @@ public class BeanAttrAccessorImpl implements BeanAttrAccessor {
           : fieldName);
   }
 
+  /** @return the getter found for the bean class. <code>null</code> if there is none. */
+  Method getGetter() {
+    return getterMethod;
+  }
+
+  /** @return the setter found for the bean class. <code>null</code> if there is none. */
+  Method getSetter() {
+    return setterMethod;
+  }
+
+  /** @return the field that is used if there is no getter. May be <code>null</code>. */
+  Field getField() {
+    return field;
+  }
+
+  /** @return the bean class this accessor was created for. */
+  Class<?> getBeanClass() {
+    return beanClass;
+  }
+
   // -- internal helper --
 
   /**
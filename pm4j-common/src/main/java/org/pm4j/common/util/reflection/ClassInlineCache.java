@@ -0,0 +1,72 @@
+package org.pm4j.common.util.reflection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A small class to value cache, optimized for a few different classes.
+ * <p>
+ * Expressions are usually executed on objects of only one or a few classes.
+ * The entries for the first {@link #INLINE_SIZE} classes are kept in an array
+ * that gets scanned by identity comparison. Entries for additional classes are
+ * kept in a {@link ConcurrentHashMap}.
+ * <p>
+ * The cache is thread safe. A concurrent {@link #put(Class, Object)} of the same
+ * class may result in a duplicate entry. That does not harm because both values are
+ * expected to be equivalent.
+ *
+ * @param <T> the type of cached values.
+ *
+ * @author olaf boede
+ */
+public final class ClassInlineCache<T> {
+
+  /** The number of entries that are kept in the inline array. */
+  public static final int INLINE_SIZE = 4;
+
+  /** Alternating class and value entries. Gets replaced on each modification. */
+  private volatile Object[] inlineEntries = {};
+
+  /** Used for the classes that don't fit into the inline array. Gets created on demand. */
+  private volatile Map<Class<?>, T> overflowMap;
+
+  /**
+   * @param cls the class to get the value for.
+   * @return the cached value or <code>null</code> if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(Class<?> cls) {
+    Object[] entries = inlineEntries;
+    for (int i = 0; i < entries.length; i += 2) {
+      if (entries[i] == cls) {
+        return (T) entries[i + 1];
+      }
+    }
+    Map<Class<?>, T> map = overflowMap;
+    return (map != null)
+        ? map.get(cls)
+        : null;
+  }
+
+  /**
+   * @param cls the class to store the value for.
+   * @param value the value to store. May not be <code>null</code>.
+   */
+  public synchronized void put(Class<?> cls, T value) {
+    assert value != null;
+    Object[] entries = inlineEntries;
+    if (entries.length < INLINE_SIZE * 2) {
+      Object[] newEntries = new Object[entries.length + 2];
+      System.arraycopy(entries, 0, newEntries, 0, entries.length);
+      newEntries[entries.length] = cls;
+      newEntries[entries.length + 1] = value;
+      inlineEntries = newEntries;
+    } else {
+      if (overflowMap == null) {
+        overflowMap = new ConcurrentHashMap<Class<?>, T>();
+      }
+      overflowMap.put(cls, value);
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package org.pm4j.common.util.reflection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides a separate {@link ClassInlineCache} for each {@link BeanAttrAccessorFactory}.
+ * <p>
+ * Allows to cache accessor related values in shared objects (e.g. expressions) while
+ * different factories are used by different conversations.<br>
+ * Usually only a single factory is used. The cache of the first used factory is found by
+ * an identity comparison. The caches of other factories are kept in a {@link ConcurrentHashMap}.
+ *
+ * @param <T> the type of cached values.
+ *
+ * @author olaf boede
+ */
+public final class ClassInlineCachePerFactory<T> {
+
+  private volatile BeanAttrAccessorFactory firstFactory;
+  private final ClassInlineCache<T> firstFactoryCache = new ClassInlineCache<T>();
+
+  /** The caches of the other factories. Gets created on demand. */
+  private volatile ConcurrentMap<BeanAttrAccessorFactory, ClassInlineCache<T>> otherFactoryCaches;
+
+  /**
+   * @param factory the factory to get the cache for.
+   * @return the cache for values related to the given factory. Never <code>null</code>.
+   */
+  public ClassInlineCache<T> forFactory(BeanAttrAccessorFactory factory) {
+    if (firstFactory == factory) {
+      return firstFactoryCache;
+    }
+    return forFactoryImpl(factory);
+  }
+
+  private synchronized ClassInlineCache<T> forFactoryImpl(BeanAttrAccessorFactory factory) {
+    if (firstFactory == null) {
+      firstFactory = factory;
+    }
+    if (firstFactory == factory) {
+      return firstFactoryCache;
+    }
+
+    if (otherFactoryCaches == null) {
+      otherFactoryCaches = new ConcurrentHashMap<BeanAttrAccessorFactory, ClassInlineCache<T>>();
+    }
+    ClassInlineCache<T> cache = otherFactoryCaches.get(factory);
+    if (cache == null) {
+      cache = new ClassInlineCache<T>();
+      otherFactoryCaches.put(factory, cache);
+    }
+    return cache;
+  }
+
+}
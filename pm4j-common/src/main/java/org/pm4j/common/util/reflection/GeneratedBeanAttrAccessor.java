@@ -0,0 +1,168 @@
+package org.pm4j.common.util.reflection;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link BeanAttrAccessor} that uses a generated class to call the getter and setter
+ * (or to access the public field) directly.
+ * <p>
+ * Beans that are not instances of the class the accessor was generated for are handled
+ * by the reflection based accessor.
+ *
+ * @author olaf boede
+ */
+final class GeneratedBeanAttrAccessor implements BeanAttrAccessor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GeneratedBeanAttrAccessor.class);
+
+  /** Set to <code>false</code> if the code generation library is not available. */
+  private static volatile boolean generatorAvailable = true;
+
+  private final BeanAttrAccessorImpl reflectionAccessor;
+  private final Class<?> beanClass;
+  private final DirectAccess directAccess;
+  private final boolean directGet;
+  private final boolean directSet;
+
+  private GeneratedBeanAttrAccessor(BeanAttrAccessorImpl reflectionAccessor, DirectAccess directAccess, boolean directGet, boolean directSet) {
+    this.reflectionAccessor = reflectionAccessor;
+    this.beanClass = reflectionAccessor.getBeanClass();
+    this.directAccess = directAccess;
+    this.directGet = directGet;
+    this.directSet = directSet;
+  }
+
+  /**
+   * Generates a direct access class for the getter/setter or field of the given accessor.
+   *
+   * @param reflectionAccessor provides the getter, setter and field to use.
+   * @return the generated accessor or the given one if no direct access class can be generated.
+   */
+  static BeanAttrAccessor create(BeanAttrAccessorImpl reflectionAccessor) {
+    if (!generatorAvailable || !isAccessible(reflectionAccessor.getBeanClass())) {
+      return reflectionAccessor;
+    }
+
+    Method getter = reflectionAccessor.getGetter();
+    Method setter = reflectionAccessor.getSetter();
+    Field field = reflectionAccessor.getField();
+    boolean directGet = (getter != null)
+        ? isAccessible(getter)
+        : (field != null && isAccessible(field));
+    boolean directSet = (getter != null)
+        ? (setter != null && isAccessible(setter) && isAccessible(setter.getParameterTypes()[0]))
+        : (field != null && isAccessible(field) && isAccessible(field.getType()) && !Modifier.isFinal(field.getModifiers()));
+    if (!directGet && !directSet) {
+      return reflectionAccessor;
+    }
+
+    try {
+      DirectAccess directAccess = BeanAttrAccessorClassGenerator.generate(
+          reflectionAccessor.getBeanClass(),
+          directGet ? getter : null,
+          (directGet && getter == null) ? field : null,
+          directSet ? setter : null,
+          (directSet && getter == null) ? field : null);
+      return new GeneratedBeanAttrAccessor(reflectionAccessor, directAccess, directGet, directSet);
+    } catch (NoClassDefFoundError e) {
+      LOG.info("Bean attribute accessor classes can't be generated. Reflection will be used instead. Cause: " + e);
+      generatorAvailable = false;
+      return reflectionAccessor;
+    } catch (LinkageError e) {
+      LOG.warn("Unable to generate an accessor class for '" + reflectionAccessor + "'. Reflection will be used instead.", e);
+      return reflectionAccessor;
+    } catch (RuntimeException e) {
+      LOG.warn("Unable to generate an accessor class for '" + reflectionAccessor + "'. Reflection will be used instead.", e);
+      return reflectionAccessor;
+    }
+  }
+
+  @Override
+  public String getName() {
+    return reflectionAccessor.getName();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getBeanAttrValue(Object bean) {
+    if (directGet && beanClass.isInstance(bean)) {
+      try {
+        return (T) directAccess.get(bean);
+      } catch (Exception e) {
+        throw new ReflectionException("Unable to read attribute '" + getName() + "' of bean class '" + beanClass + "'.", e);
+      }
+    }
+    return reflectionAccessor.getBeanAttrValue(bean);
+  }
+
+  @Override
+  public void setBeanAttrValue(Object bean, Object value) {
+    if (directSet && beanClass.isInstance(bean)) {
+      try {
+        directAccess.set(bean, value);
+        return;
+      } catch (Exception e) {
+        throw new ReflectionException("Unable to write attribute '" + getName() + "' of bean class '" + beanClass + "' for value '" + value + "'.", e);
+      }
+    }
+    reflectionAccessor.setBeanAttrValue(bean, value);
+  }
+
+  @Override
+  public boolean canSet() {
+    return reflectionAccessor.canSet();
+  }
+
+  @Override
+  public Class<?> getFieldClass() {
+    return reflectionAccessor.getFieldClass();
+  }
+
+  @Override
+  public String toString() {
+    return reflectionAccessor.toString();
+  }
+
+  /**
+   * A generated class can only access public members of public classes.
+   */
+  private static boolean isAccessible(Class<?> cls) {
+    Class<?> type = cls;
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAccessible(Member member) {
+    return Modifier.isPublic(member.getModifiers()) && !Modifier.isStatic(member.getModifiers());
+  }
+
+  /**
+   * Base class of the generated accessor classes.
+   */
+  public static abstract class DirectAccess {
+
+    protected DirectAccess() {
+    }
+
+    public abstract Object get(Object bean);
+
+    public abstract void set(Object bean, Object value);
+  }
+
+}
@@ -1,7 +1,13 @@
 package org.pm4j.common.expr;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.TestCase;
 
+import org.pm4j.common.util.reflection.BeanAttrAccessor;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
+
 public class AttributeExprTest extends TestCase {
 
   public final class MyBean {
@@ -26,9 +32,42 @@ public class AttributeExprTest extends TestCase {
     assertEquals("world", AttributeExpr.parse("s").getValue(new MyBean()));
   }
 
+  public final class OtherBean {
+    public String getS()        {  return "other"; }
+  }
+
+  public void testReadFromDifferentClasses() {
+    AttributeExpr expr = AttributeExpr.parse("s");
+    for (int i = 0; i < 2; ++i) {
+      assertEquals("world", expr.getValue(new MyBean()));
+      assertEquals("other", expr.getValue(new OtherBean()));
+    }
+  }
+
   public void testUsePublicSetter() {
     MyBean bean = new MyBean();
     AttributeExpr.parse("s").setValue(bean, ":-)");
     assertEquals(":-)", bean.getS());
   }
+
+  public void testUseTheFactoryOfTheExecutionContext() {
+    final List<String> createdAccessors = new ArrayList<String>();
+    final BeanAttrAccessorFactory factory = new BeanAttrAccessorFactory() {
+      @Override
+      public BeanAttrAccessor create(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+        createdAccessors.add(attrName);
+        return REFLECTION.create(beanClass, attrName, allowFieldAccess);
+      }
+    };
+    AttributeExpr expr = AttributeExpr.parse("s");
+
+    assertEquals("world", expr.getValue(new MyBean()));
+    assertEquals("world", expr.exec(new ExprExecCtxt(new MyBean()) {
+      @Override
+      public BeanAttrAccessorFactory getBeanAttrAccessorFactory() {
+        return factory;
+      }
+    }));
+    assertEquals("[s]", createdAccessors.toString());
+  }
 }
@@ -11,9 +11,13 @@ import org.pm4j.common.pageable.TestBean;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionTestBase;
 import org.pm4j.common.pageable.PageableCollectionUtil;
+import org.pm4j.common.query.CompOpContains;
 import org.pm4j.common.query.CompOpStartsWith;
 import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryOptions;
+import org.pm4j.common.query.SortOrder;
+import org.pm4j.common.query.inmem.InMemQueryEvaluator;
 import org.pm4j.common.query.filter.FilterDefinition;
 
 public class InMemCollectionTest extends PageableCollectionTestBase<TestBean> {
@@ -65,6 +69,97 @@ public class InMemCollectionTest extends PageableCollectionTestBase<TestBean> {
     assertEquals("[ , a]", shallowCopy(collection.getModifications().getRemovedItems()).toString());
   }
 
+  @Test
+  public void testIncrementalFilteringChecksOnlyThePreviousResult() {
+    final int[] attrReadCount = {0};
+    InMemQueryEvaluator<TestBean> countingEvaluator = new InMemQueryEvaluator<TestBean>() {
+      @Override
+      public Object getAttrValue(Object item, QueryAttr attr) {
+        ++attrReadCount[0];
+        return super.getAttrValue(item, attr);
+      }
+    };
+    InMemCollectionImpl<TestBean> c = new InMemCollectionImpl<TestBean>(countingEvaluator, makeBeans("ab", "b", "abc", "abd", "x"), null);
+    c.setIncrementalFiltering(true);
+    c.getQueryParams().setSortOrder(new SortOrder(TestBean.ATTR_NAME, false));
+
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "a"));
+    assertEquals("[abd, abc, ab]", PageableCollectionUtil.shallowCopy(c).toString());
+
+    attrReadCount[0] = 0;
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "abc"));
+    assertEquals("[abc]", PageableCollectionUtil.shallowCopy(c).toString());
+    assertEquals("Only the three items of the previous result are checked. No sort is needed.", 3, attrReadCount[0]);
+
+    attrReadCount[0] = 0;
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "b"));
+    assertEquals("[b]", PageableCollectionUtil.shallowCopy(c).toString());
+    assertEquals("A changed filter is applied to all items.", 5, attrReadCount[0]);
+
+    c.getQueryParams().setQueryExpression(null);
+    assertEquals("[x, b, abd, abc, ab]", PageableCollectionUtil.shallowCopy(c).toString());
+  }
+
+  @Test
+  public void testIncrementalFilteringDoesNotRestoreRemovedItems() {
+    InMemCollectionImpl<TestBean> c = new InMemCollectionImpl<TestBean>(makeBeans("ab", "abc", "abd", "abe", "x"), null);
+    c.setIncrementalFiltering(true);
+    c.getQueryParams().setSortOrder(new SortOrder(TestBean.ATTR_NAME));
+
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "ab"));
+    assertEquals("[ab, abc, abd, abe]", PageableCollectionUtil.shallowCopy(c).toString());
+
+    // items get removed while the result of the previous filter is still cached
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "a"));
+    c.getSelectionHandler().select(true, findItem(c, "abc"));
+    c.getModificationHandler().removeSelectedItems();
+    TestBean externallyRemovedBean = findItem(c, "abd");
+    c.getBackingCollection().remove(externallyRemovedBean);
+    c.getModificationHandler().registerRemovedItems(Arrays.asList(externallyRemovedBean));
+
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "abc"));
+    assertEquals("[]", PageableCollectionUtil.shallowCopy(c).toString());
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, "abd"));
+    assertEquals("[]", PageableCollectionUtil.shallowCopy(c).toString());
+  }
+
+  @Test
+  public void testTextIndexNarrowsTheItemsToCheck() {
+    final int[] attrReadCount = {0};
+    InMemQueryEvaluator<TestBean> countingEvaluator = new InMemQueryEvaluator<TestBean>() {
+      @Override
+      public Object getAttrValue(Object item, QueryAttr attr) {
+        ++attrReadCount[0];
+        return super.getAttrValue(item, attr);
+      }
+    };
+    InMemCollectionImpl<TestBean> c = new InMemCollectionImpl<TestBean>(countingEvaluator, makeBeans("Hamburg", "Bamberg", "Augsburg", "Berlin", "Bremen"), null);
+    c.setTextIndexAttrs(TestBean.ATTR_NAME);
+    c.getQueryParams().setSortOrder(new SortOrder(TestBean.ATTR_NAME));
+
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "burg"));
+    assertEquals("[Augsburg, Hamburg]", PageableCollectionUtil.shallowCopy(c).toString());
+
+    attrReadCount[0] = 0;
+    c.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "berg"));
+    assertEquals("[Bamberg]", PageableCollectionUtil.shallowCopy(c).toString());
+    assertEquals("Only the single index candidate gets checked.", 1, attrReadCount[0]);
+
+    TestBean newBean = new TestBean(13, "Heidelberg");
+    c.getModificationHandler().addItem(newBean);
+    c.clearCaches();
+    assertEquals("[Bamberg, Heidelberg]", PageableCollectionUtil.shallowCopy(c).toString());
+  }
+
+  private static TestBean findItem(InMemCollectionImpl<TestBean> c, String name) {
+    for (TestBean b : c.getBackingCollection()) {
+      if (b.name.equals(name)) {
+        return b;
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+
   protected void assertCollectionItems(String itemString) {
     assertEquals(itemString, PageableCollectionUtil.shallowCopy(collection).toString());
   }
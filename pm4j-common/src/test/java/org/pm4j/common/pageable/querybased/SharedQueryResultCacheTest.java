@@ -0,0 +1,151 @@
+package org.pm4j.common.pageable.querybased;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pm4j.common.pageable.TestBean;
+import org.pm4j.common.pageable.querybased.idquery.IdQueryServiceFake;
+import org.pm4j.common.pageable.querybased.idquery.SharedCachingIdQueryService;
+import org.pm4j.common.pageable.querybased.pagequery.BeanPageQueryServiceFake;
+import org.pm4j.common.pageable.querybased.pagequery.SharedCachingPageQueryService;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprInMemCondition;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.query.SortOrder;
+
+public class SharedQueryResultCacheTest {
+
+  private long now = 0;
+  private SharedQueryResultCache cache = new SharedQueryResultCache() {
+    @Override
+    protected long currentTimeMillis() {
+      return now;
+    }
+  };
+  private BeanPageQueryServiceFake pageService = new BeanPageQueryServiceFake();
+  private SharedCachingPageQueryService<TestBean, Integer> cachingPageService =
+      new SharedCachingPageQueryService<TestBean, Integer>(pageService, TestBean.class, cache, "pageService");
+
+  @Before
+  public void setUp() {
+    for (String s : new String[] { "a", "b", "ab", "c" }) {
+      pageService.save(new TestBean(s));
+    }
+  }
+
+  @Test
+  public void testEqualQueriesShareTheResult() {
+    assertEquals("[ab, a]", cachingPageService.getItems(makeQuery("a", false), 0, 10).toString());
+    assertEquals("[ab, a]", cachingPageService.getItems(makeQuery("a", false), 0, 10).toString());
+    assertEquals(2, cachingPageService.getItemCount(makeQuery("a", false)));
+    assertEquals(2, cachingPageService.getItemCount(makeQuery("a", false)));
+    pageService.callCounter.assertCalls("Two query params instances with the same values.", "{getItemCount=1, getItems=1}");
+    assertEquals(2, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+
+    pageService.callCounter.reset();
+    assertEquals("[a, ab]", cachingPageService.getItems(makeQuery("a", true), 0, 10).toString());
+    assertEquals("[a]", cachingPageService.getItems(makeQuery("a", true), 0, 1).toString());
+    assertEquals("[b]", cachingPageService.getItems(makeQuery("b", true), 0, 10).toString());
+    pageService.callCounter.assertCalls("Different sort order, page size and filter value.", "{getItems=3}");
+  }
+
+  @Test
+  public void testCallersGetIndependentLists() {
+    cachingPageService.getItems(makeQuery("a", true), 0, 10).clear();
+    assertEquals("[a, ab]", cachingPageService.getItems(makeQuery("a", true), 0, 10).toString());
+  }
+
+  @Test
+  public void testQueryParamChangeAfterCachingDoesNotAffectTheCachedResult() {
+    QueryParams query = makeQuery("a", true);
+    assertEquals("[a, ab]", cachingPageService.getItems(query, 0, 10).toString());
+    ((QueryExprCompare) query.getQueryExpression()).setValue("b");
+    assertEquals("[b]", cachingPageService.getItems(query, 0, 10).toString());
+    pageService.callCounter.assertCalls("{getItems=2}");
+  }
+
+  @Test
+  public void testInvalidateByItemClass() {
+    cachingPageService.getItemCount(makeQuery("a", true));
+    cache.invalidate(String.class);
+    cachingPageService.getItemCount(makeQuery("a", true));
+    pageService.callCounter.assertCalls("Other item type invalidated.", "{getItemCount=1}");
+
+    cache.invalidate(Object.class);
+    cachingPageService.getItemCount(makeQuery("a", true));
+    pageService.callCounter.assertCalls("Invalidated by super class.", "{getItemCount=2}");
+  }
+
+  @Test
+  public void testExpiration() {
+    cache.setTimeToLiveMillis(100);
+    cachingPageService.getItemCount(makeQuery("a", true));
+    now = 100;
+    cachingPageService.getItemCount(makeQuery("a", true));
+    pageService.callCounter.assertCalls("{getItemCount=1}");
+
+    now = 101;
+    cachingPageService.getItemCount(makeQuery("a", true));
+    pageService.callCounter.assertCalls("{getItemCount=2}");
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryGetsEvicted() {
+    cache.setMaxEntries(2);
+    cachingPageService.getItemCount(makeQuery("a", true));
+    cachingPageService.getItemCount(makeQuery("b", true));
+    cachingPageService.getItemCount(makeQuery("a", true));
+    cachingPageService.getItemCount(makeQuery("c", true));
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2, cache.getSize());
+
+    cachingPageService.getItemCount(makeQuery("a", true));
+    pageService.callCounter.assertCalls("Entry 'b' was released.", "{getItemCount=3}");
+  }
+
+  @Test
+  public void testQueryWithInMemConditionIsNotCached() {
+    QueryParams query = new QueryParams();
+    query.setQueryExpression(new QueryExprInMemCondition<TestBean>() {
+      @Override
+      public boolean eval(TestBean item) {
+        return true;
+      }
+    });
+    assertNull(cache.makeKey(TestBean.class, "pageService", "getItemCount", query));
+    cachingPageService.getItemCount(query);
+    cachingPageService.getItemCount(query);
+    pageService.callCounter.assertCalls("{getItemCount=2}");
+  }
+
+  @Test
+  public void testIdQueryServiceResultsAreShared() {
+    IdQueryServiceFake.WithIntegerId<TestBean> idService = new IdQueryServiceFake.WithIntegerId<TestBean>();
+    for (String s : new String[] { "a", "b" }) {
+      idService.save(new TestBean(s));
+    }
+    SharedCachingIdQueryService<TestBean, Integer> cachingIdService =
+        new SharedCachingIdQueryService<TestBean, Integer>(idService, TestBean.class, cache, "idService");
+
+    for (int i = 0; i < 2; ++i) {
+      assertEquals("[1, 2]", cachingIdService.findIds(new QueryParams(), 0, 10).toString());
+      assertEquals("[b]", cachingIdService.getItems(Arrays.asList(2)).toString());
+      assertEquals(2, cachingIdService.getItemCount(new QueryParams()));
+    }
+    idService.callCounter.assertCalls("{findIds=1, getItemCount=1, getItems=1}");
+  }
+
+  private QueryParams makeQuery(String nameStart, boolean ascending) {
+    QueryParams query = new QueryParams();
+    query.setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpStartsWith.class, nameStart));
+    query.setSortOrder(new SortOrder(TestBean.ATTR_NAME, ascending));
+    return query;
+  }
+
+}
@@ -1,10 +1,21 @@
 package org.pm4j.common.pageable.querybased.idquery;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.pm4j.common.pageable.TestBean;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionTestBase;
 import org.pm4j.common.pageable.querybased.MaxQueryResultsViolationException;
+import org.pm4j.common.util.collection.IterableUtil;
 
 public class IdQueryCollectionImplWithSingleQueryStrategyTest extends PageableCollectionTestBase<TestBean> {
 
@@ -48,6 +59,78 @@ public class IdQueryCollectionImplWithSingleQueryStrategyTest extends PageableCo
     service.callCounter.assertCalls("One call to get the items of the next page.", "{getItems=1}");
   }
 
+  @Test
+  public void testIteratorReadsItemsInBlocks() {
+    ((IdQueryCollectionImpl<TestBean, Integer>)collection).setIteratorBlockSizeHint(3);
+    assertEquals("[a, b, c, d, e, f]", IterableUtil.shallowCopy(collection).toString());
+    service.callCounter.assertCalls("One ID query and two item blocks for six items.", "{findIds=1, getItems=2}");
+  }
+
+  @Test
+  public void testIteratorSkipsMissingItems() {
+    TestBean b = IterableUtil.shallowCopy(collection).get(1);
+    service.delete(b);
+    service.callCounter.reset();
+
+    ((IdQueryCollectionImpl<TestBean, Integer>)collection).setIteratorBlockSizeHint(2);
+    assertEquals("[a, c, d, e, f]", IterableUtil.shallowCopy(collection).toString());
+    service.callCounter.assertCalls("{getItems=3}");
+  }
+
+  @Test
+  public void testIteratorWithPrefetch() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      IdQueryCollectionImpl<TestBean, Integer> idQueryCollection = (IdQueryCollectionImpl<TestBean, Integer>)collection;
+      idQueryCollection.setIteratorBlockSizeHint(2);
+      idQueryCollection.setIteratorPrefetchExecutor(executor);
+      assertEquals("[a, b, c, d, e, f]", IterableUtil.shallowCopy(collection).toString());
+      service.callCounter.assertCalls("{findIds=1, getItems=3}");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testQueryChangeCancelsThePrefetch() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    final CountDownLatch blockExecutorLatch = new CountDownLatch(1);
+    try {
+      // Keeps the prefetch task in the executor queue.
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            blockExecutorLatch.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+      IdQueryCollectionImpl<TestBean, Integer> idQueryCollection = (IdQueryCollectionImpl<TestBean, Integer>)collection;
+      idQueryCollection.setIteratorBlockSizeHint(2);
+      idQueryCollection.setIteratorPrefetchExecutor(executor);
+      Iterator<TestBean> iterator = collection.iterator();
+      List<TestBean> items = new ArrayList<TestBean>();
+      items.add(iterator.next());
+
+      collection.clearCaches();
+      blockExecutorLatch.countDown();
+      // Waits for the queued tasks.
+      executor.submit(new Runnable() { @Override public void run() {} }).get(10, TimeUnit.SECONDS);
+      service.callCounter.assertCalls("The prefetch read was cancelled.", "{findIds=1, getItems=1}");
+
+      while (iterator.hasNext()) {
+        items.add(iterator.next());
+      }
+      assertEquals("The cancelled block gets read on demand.", "[a, b, c, d, e, f]", items.toString());
+      service.callCounter.assertCalls("{findIds=1, getItems=3}");
+    } finally {
+      blockExecutorLatch.countDown();
+      executor.shutdown();
+    }
+  }
+
   @Test @Override
   public void testItemNavigator() {
     super.testItemNavigator();
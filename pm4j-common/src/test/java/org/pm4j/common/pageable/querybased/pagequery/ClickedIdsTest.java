@@ -0,0 +1,71 @@
+package org.pm4j.common.pageable.querybased.pagequery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the set operations of {@link ClickedIds}.
+ *
+ * @author olaf boede
+ */
+public class ClickedIdsTest {
+
+  private static final List<Long> ALL_IDS = Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L);
+
+  private ClickedIds<Long> selected12 = new ClickedIds<Long>(Arrays.asList(1L, 2L), false);
+  private ClickedIds<Long> selected23 = new ClickedIds<Long>(Arrays.asList(2L, 3L), false);
+  private ClickedIds<Long> allBut2 = new ClickedIds<Long>(Arrays.asList(2L), true);
+  private ClickedIds<Long> allBut34 = new ClickedIds<Long>(Arrays.asList(3L, 4L), true);
+
+  @Test
+  public void testIsSelected() {
+    assertTrue(selected12.isSelected(1L));
+    assertFalse(selected12.isSelected(3L));
+    assertFalse(allBut2.isSelected(2L));
+    assertTrue(allBut2.isSelected(3L));
+  }
+
+  @Test
+  public void testInvert() {
+    assertEquals("[3, 4, 5, 6]", selectedIds(selected12.invert()));
+    assertEquals("[2]", selectedIds(allBut2.invert()));
+    assertTrue("The inverted selection shares the id set.", selected12.getIds() == selected12.invert().getIds());
+  }
+
+  @Test
+  public void testAnd() {
+    assertEquals("[2]", selectedIds(selected12.and(selected23)));
+    assertEquals("[1]", selectedIds(selected12.and(allBut2)));
+    assertEquals("[3]", selectedIds(allBut2.and(selected23)));
+    assertEquals("[1, 5, 6]", selectedIds(allBut2.and(allBut34)));
+    assertTrue(allBut2.and(allBut34).isInvertedSelection());
+  }
+
+  @Test
+  public void testOr() {
+    assertEquals("[1, 2, 3]", selectedIds(selected12.or(selected23)));
+    assertEquals("[1, 2, 3, 4, 5, 6]", selectedIds(selected12.or(allBut2)));
+    assertEquals("[1, 2, 3, 5, 6]", selectedIds(allBut34.or(selected23)));
+    assertEquals("[1, 2, 4, 5, 6]", selectedIds(allBut2.and(allBut34).or(new ClickedIds<Long>(Arrays.asList(2L, 4L), false))));
+    assertEquals("[1, 2, 3, 4, 5, 6]", selectedIds(allBut2.or(allBut34)));
+    assertEquals("[1, 3, 4, 5, 6]", selectedIds(allBut2.or(new ClickedIds<Long>(Arrays.asList(2L, 3L), true))));
+  }
+
+  private static String selectedIds(ClickedIds<Long> clickedIds) {
+    List<Long> ids = new ArrayList<Long>();
+    for (Long id : ALL_IDS) {
+      if (clickedIds.isSelected(id)) {
+        ids.add(id);
+      }
+    }
+    return ids.toString();
+  }
+
+}
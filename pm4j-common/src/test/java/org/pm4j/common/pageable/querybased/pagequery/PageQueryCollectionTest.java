@@ -1,7 +1,24 @@
 package org.pm4j.common.pageable.querybased.pagequery;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.common.pageable.TestBean;
+import org.pm4j.common.pageable.querybased.pagequery.PageQuerySelectionHandler.QuerySelectionWithClickedIds;
+import org.pm4j.common.query.QueryOptions;
+import org.pm4j.common.query.QueryParams;
+import org.pm4j.common.selection.SelectMode;
+import org.pm4j.common.util.collection.CompressedIdSet;
 
 /**
  * Executes the set of standard operations to test for each
@@ -29,5 +46,127 @@ public class PageQueryCollectionTest extends PageQueryCollectionTestBase {
     super.testIterateSingleSelection();
     service.callCounter.assertCalls("{getItemForId=1}");
   }
-  
+
+  @Test
+  public void testCombinedSelectionsUseTheIdBitmap() {
+    PageQuerySelectionHandler<TestBean, Integer> sh = new PageQuerySelectionHandler<TestBean, Integer>(service) {
+      @Override
+      protected QueryParams getQueryParams() {
+        return collection.getQueryParams();
+      }
+      @Override
+      protected QueryOptions getQueryOptions() {
+        return collection.getQueryOptions();
+      }
+    };
+    sh.setSelectMode(SelectMode.MULTI);
+    List<TestBean> page = collection.getItemsOnPage();
+    TestBean a = page.get(0);
+    TestBean b = page.get(1);
+
+    sh.select(true, a);
+    ClickedIds<Integer> selectedA = getClickedIds(sh);
+    sh.selectAll(true);
+    sh.select(false, b);
+    ClickedIds<Integer> allButB = getClickedIds(sh);
+    assertBitmapBased(selectedA.getIds());
+    assertBitmapBased(allButB.getIds());
+
+    ClickedIds<Integer> aAndNotB = selectedA.and(allButB);
+    ClickedIds<Integer> aOrNotB = selectedA.or(allButB);
+    assertBitmapBased(aAndNotB.getIds());
+    assertBitmapBased(aOrNotB.getIds());
+
+    sh.setSelection(sh.makeSelection(aAndNotB));
+    assertTrue(sh.getSelection().contains(a));
+    assertFalse(sh.getSelection().contains(b));
+    assertBitmapBased(getClickedIds(sh).getIds());
+
+    sh.setSelection(sh.makeSelection(aOrNotB));
+    assertTrue(sh.getSelection().contains(a));
+    assertFalse(sh.getSelection().contains(b));
+    assertBitmapBased(getClickedIds(sh).getIds());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ClickedIds<Integer> getClickedIds(PageQuerySelectionHandler<TestBean, Integer> sh) {
+    return ((QuerySelectionWithClickedIds<TestBean, Integer>) sh.getSelection()).getClickedIds();
+  }
+
+  private static void assertBitmapBased(Collection<Integer> ids) {
+    assertTrue("The ids should be provided as a compressed id set: " + ids.getClass(), ids instanceof CompressedIdSet);
+    assertTrue(((CompressedIdSet<Integer>) ids).isBitmapBased());
+  }
+
+  @Test
+  public void testPagingBackAndForthUsesCachedPages() {
+    assertEquals("[a, b]", collection.getItemsOnPage().toString());
+    collection.setPageIdx(1);
+    assertEquals("[c, d]", collection.getItemsOnPage().toString());
+    collection.setPageIdx(0);
+    assertEquals("[a, b]", collection.getItemsOnPage().toString());
+    collection.setPageIdx(1);
+    assertEquals("[c, d]", collection.getItemsOnPage().toString());
+    service.callCounter.assertCalls("Each page is read only once.", "{getItemCount=1, getItems=2}");
+
+    service.callCounter.reset();
+    ((PageQueryCollection<?, ?>)collection).setMaxCachedPages(1);
+    collection.setPageIdx(0);
+    assertEquals("[a, b]", collection.getItemsOnPage().toString());
+    collection.setPageIdx(1);
+    assertEquals("[c, d]", collection.getItemsOnPage().toString());
+    collection.setPageIdx(0);
+    assertEquals("[a, b]", collection.getItemsOnPage().toString());
+    service.callCounter.assertCalls("A single cached page gets replaced on each page switch.", "{getItems=3}");
+  }
+
+  @Test
+  public void testReadAheadOfNextPage() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    ((PageQueryCollection<?, ?>)collection).setReadAheadExecutor(executor);
+
+    assertEquals("[a, b]", collection.getItemsOnPage().toString());
+    collection.setPageIdx(1);
+    assertEquals("[c, d]", collection.getItemsOnPage().toString());
+
+    executor.shutdown();
+    assertEquals(true, executor.awaitTermination(10, TimeUnit.SECONDS));
+    service.callCounter.assertCalls("The pages 0 and 1 and the read-ahead page 2.", "{getItemCount=1, getItems=3}");
+  }
+
+  @Test
+  public void testEvictedReadAheadGetsCancelled() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    final CountDownLatch blockExecutorLatch = new CountDownLatch(1);
+    try {
+      // Keeps the read-ahead tasks in the executor queue.
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            blockExecutorLatch.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+      ((PageQueryCollection<?, ?>)collection).setMaxCachedPages(2);
+      ((PageQueryCollection<?, ?>)collection).setReadAheadExecutor(executor);
+
+      // cached: page 0, read-ahead page 1
+      assertEquals("[a, b]", collection.getItemsOnPage().toString());
+      // cached: read-ahead page 1, page 2
+      collection.setPageIdx(2);
+      assertEquals("[e, f]", collection.getItemsOnPage().toString());
+      // cached: page 0, new read-ahead page 1. The evicted first read-ahead of page 1 gets cancelled.
+      collection.setPageIdx(0);
+      assertEquals("[a, b]", collection.getItemsOnPage().toString());
+    } finally {
+      blockExecutorLatch.countDown();
+      executor.shutdown();
+    }
+    assertEquals(true, executor.awaitTermination(10, TimeUnit.SECONDS));
+    service.callCounter.assertCalls("The pages 0, 2, 0 and a single read-ahead of page 1.", "{getItemCount=1, getItems=4}");
+  }
+
 }
@@ -60,13 +60,13 @@ public abstract class PageQueryCollectionTestBase extends PageableCollectionTest
   @Override
   public void testSelectedItemsStayInQueryOrderForPositiveSelection() {
     super.testSelectedItemsStayInQueryOrderForPositiveSelection();
-    service.callCounter.assertCalls("{getItemCount=3, getItems=10}");
+    service.callCounter.assertCalls("{getItemCount=3, getItems=9}");
   }
 
   @Override
   public void testSelectedItemsStayInQueryOrderForNegativeSelection() {
     super.testSelectedItemsStayInQueryOrderForNegativeSelection();
-    service.callCounter.assertCalls("{getItemCount=7, getItems=10}");
+    service.callCounter.assertCalls("{getItemCount=7, getItems=9}");
   }
 
   @Override
@@ -78,7 +78,7 @@ public abstract class PageQueryCollectionTestBase extends PageableCollectionTest
   @Override
   public void testAddItem() {
     super.testAddItem();
-    service.callCounter.assertCalls("{getItemCount=2, getItems=5}");
+    service.callCounter.assertCalls("{getItemCount=2, getItems=4}");
   }
 
   @Override
@@ -90,7 +90,7 @@ public abstract class PageQueryCollectionTestBase extends PageableCollectionTest
   @Override
   public void testAddItemInMultiSelectMode() {
     super.testAddItemInMultiSelectMode();
-    service.callCounter.assertCalls("{getItemCount=2, getItems=5}");
+    service.callCounter.assertCalls("{getItemCount=2, getItems=4}");
   }
 
   @Override
@@ -1,12 +1,21 @@
 package org.pm4j.common.query.inmem;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.junit.Test;
 import org.pm4j.common.query.CompOpEquals;
 import org.pm4j.common.query.CompOpGe;
 import org.pm4j.common.query.CompOpGt;
+import org.pm4j.common.query.CompOpIn;
 import org.pm4j.common.query.CompOpLe;
 import org.pm4j.common.query.CompOpLike;
 import org.pm4j.common.query.CompOpLt;
@@ -18,6 +27,7 @@ import org.pm4j.common.query.QueryExprInMemCondition;
 import org.pm4j.common.query.QueryExprNot;
 import org.pm4j.common.query.QueryExprOr;
 import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.SortOrder;
 
 public class InMemEvaluationTest {
 
@@ -153,6 +163,135 @@ public class InMemEvaluationTest {
     assertFalse("Two is not odd.", ctxt.evaluate(2, oddTestExpr));
   }
 
+  @Test
+  public void testCompiledPredicate() {
+    QueryExpr e = new QueryExprAnd(
+        new QueryExprCompare(attrI, CompOpGt.class, 1),
+        new QueryExprOr(new QueryExprNot(new QueryExprCompare(attrS, CompOpEquals.class, "b")),
+                        new QueryExprCompare(attrI, CompOpGe.class, 4)));
+    InMemQueryPredicate p = ctxt.compile(e);
+
+    assertFalse(p.eval(new Bean("a", 1)));
+    assertTrue(p.eval(new Bean("a", 2)));
+    assertFalse(p.eval(new Bean("b", 2)));
+    assertTrue(p.eval(new Bean("b", 4)));
+    assertEquals(Arrays.asList("a2", "b4"), beanNames(ctxt.evaluateSubSet(
+        Arrays.asList(new Bean("a", 1), new Bean("a", 2), new Bean("b", 2), new Bean("b", 4)), p)));
+  }
+
+  @Test
+  public void testCompiledPredicateConsidersChangedCompareValues() {
+    QueryExprCompare compareExpr = new QueryExprCompare(attrI, CompOpGt.class, 1);
+    InMemQueryPredicate p = ctxt.compile(new QueryExprNot(compareExpr));
+    assertFalse(p.eval(new Bean("a", 2)));
+
+    compareExpr.setValue(2);
+    assertTrue(p.eval(new Bean("a", 2)));
+
+    compareExpr.setCompOp(new CompOpGe());
+    assertFalse(p.eval(new Bean("a", 2)));
+
+    compareExpr.setAttr(attrS);
+    compareExpr.setCompOp(new CompOpEquals());
+    compareExpr.setValue("a");
+    assertFalse(p.eval(new Bean("a", 2)));
+    assertTrue(p.eval(new Bean("b", 2)));
+  }
+
+  @Test
+  public void testCompiledPredicateUsesOverriddenAttrValueResolution() {
+    InMemQueryEvaluator<Bean> upperCaseCtxt = new InMemQueryEvaluator<Bean>() {
+      @Override
+      public Object getAttrValue(Object item, QueryAttr attr) {
+        Object v = super.getAttrValue(item, attr);
+        return (v instanceof String) ? ((String)v).toUpperCase() : v;
+      }
+    };
+    InMemQueryPredicate p = upperCaseCtxt.compile(new QueryExprCompare(attrS, CompOpEquals.class, "HI"));
+    assertTrue(p.eval(bean));
+  }
+
+  @Test
+  public void testCompiledCompOpInWithLargeValueCollections() {
+    List<Bean> beans = Arrays.asList(new Bean("a", 1), new Bean("b", 50), new Bean("c", 99999), new Bean("d", -7));
+    List<Integer> intValues = new ArrayList<Integer>();
+    List<Long> longValues = new ArrayList<Long>();
+    List<Object> mixedValues = new ArrayList<Object>();
+    for (int i = -10; i < 1000; i += 3) {
+      intValues.add(i);
+      longValues.add((long) i);
+      mixedValues.add(String.valueOf(i));
+      mixedValues.add(i);
+    }
+
+    assertEquals(Arrays.asList("b50", "d-7"), beanNames(ctxt.evaluateSubSet(beans, new QueryExprCompare(attrI, CompOpIn.class, intValues))));
+    assertEquals("Integer attribute values are not equal to Long values.",
+        0, ctxt.evaluateSubSet(beans, new QueryExprCompare(attrI, CompOpIn.class, longValues)).size());
+    assertEquals(Arrays.asList("b50", "d-7"), beanNames(ctxt.evaluateSubSet(beans, new QueryExprCompare(attrI, CompOpIn.class, mixedValues))));
+    assertEquals(Arrays.asList("a1", "c99999"), beanNames(ctxt.evaluateSubSet(beans, new QueryExprNot(
+        new QueryExprCompare(attrI, CompOpIn.class, new HashSet<Object>(mixedValues))))));
+
+    intValues.add(null);
+    assertTrue(ctxt.compile(new QueryExprCompare(attrS, CompOpIn.class, intValues)).eval(new Bean(null, 0)));
+    assertTrue(ctxt.evaluate(new Bean("x", 2), new QueryExprCompare(attrI, CompOpIn.class, intValues)));
+  }
+
+  @Test
+  public void testParallelFilterAndSortProvideSequentialResults() {
+    List<Bean> beans = new ArrayList<Bean>();
+    for (int i=0; i<1000; ++i) {
+      beans.add(new Bean("b" + i, (i * 7919) % 13));
+    }
+    QueryExpr e = new QueryExprCompare(attrI, CompOpGt.class, 3);
+    SortOrder sortOrder = new SortOrder(attrI);
+
+    InMemQueryEvaluator<Bean> parallelCtxt = new InMemQueryEvaluator<Bean>();
+    parallelCtxt.setParallelExecution(true);
+    parallelCtxt.setParallelThreshold(10);
+
+    List<Bean> expected = ctxt.sort(ctxt.evaluateSubSet(beans, e), sortOrder);
+    List<Bean> parallelResult = parallelCtxt.sort(parallelCtxt.evaluateSubSet(beans, e), sortOrder);
+    assertEquals(beanNames(expected), beanNames(parallelResult));
+
+    List<Bean> sortedInPlace = new ArrayList<Bean>(beans);
+    parallelCtxt.sort(sortedInPlace, parallelCtxt.getComparator(sortOrder));
+    assertEquals(beanNames(ctxt.sort(beans, sortOrder)), beanNames(sortedInPlace));
+  }
+
+  @Test(timeout=20000)
+  public void testNestedParallelEvaluationOnASaturatedExecutor() {
+    final List<Bean> beans = new ArrayList<Bean>();
+    for (int i=0; i<100; ++i) {
+      beans.add(new Bean("b" + i, i % 10));
+    }
+    final InMemQueryEvaluator<Bean> parallelCtxt = new InMemQueryEvaluator<Bean>();
+    ExecutorService executor = Executors.newFixedThreadPool(1);
+    try {
+      parallelCtxt.setParallelExecutor(executor);
+      parallelCtxt.setParallelThreshold(10);
+
+      // A predicate that starts a nested parallel evaluation.
+      final QueryExpr nestedExpr = new QueryExprCompare(attrI, CompOpLt.class, 5);
+      QueryExpr e = new QueryExprInMemCondition<Bean>() {
+        @Override
+        public boolean eval(Bean item) {
+          return parallelCtxt.evaluateSubSet(beans, nestedExpr).size() > item.i * 10;
+        }
+      };
+
+      assertEquals(50, parallelCtxt.evaluateSubSet(beans, e).size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private List<String> beanNames(List<Bean> beans) {
+    List<String> names = new ArrayList<String>();
+    for (Bean b : beans) {
+      names.add(b.s + b.i);
+    }
+    return names;
+  }
 
   private QueryExpr trueCond() {
     return new QueryExprCompare(attrS, CompOpEquals.class, "hi");
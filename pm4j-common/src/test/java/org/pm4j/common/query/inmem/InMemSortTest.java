@@ -0,0 +1,119 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.SortOrder;
+import org.pm4j.common.util.CollatorComparator;
+
+public class InMemSortTest {
+
+  public static class Bean {
+    public final String name;
+    public final Integer num;
+    public final Double amount;
+    public final Date date;
+    public final Bean sub;
+
+    public Bean(String name, Integer num, Double amount, Date date, Bean sub) {
+      this.name = name;
+      this.num = num;
+      this.amount = amount;
+      this.date = date;
+      this.sub = sub;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private QueryAttr attrName = new QueryAttr("name", String.class);
+  private QueryAttr attrNum = new QueryAttr("num", Integer.class);
+  private QueryAttr attrAmount = new QueryAttr("amount", Double.class);
+  private QueryAttr attrDate = new QueryAttr("date", Date.class);
+  private QueryAttr attrSubName = new QueryAttr("sub.name", String.class);
+
+  private List<Bean> beans = new ArrayList<Bean>();
+  {
+    Bean subA = new Bean("a", null, null, null, null);
+    Bean subB = new Bean("b", null, null, null, null);
+    beans.add(new Bean("b1", 2, 1.5, new Date(3000), subB));
+    beans.add(new Bean("a1", 1, null, new Date(1000), subA));
+    beans.add(new Bean("c1", null, 0.5, null, subB));
+    beans.add(new Bean("a2", 1, 2.5, new Date(2000), subA));
+    beans.add(new Bean("b2", 2, -1.0, new Date(1000), subA));
+  }
+
+  @Test
+  public void testSortByNumberWithNullsIsStable() {
+    assertSort("[c1, a1, a2, b1, b2]", new SortOrder(attrNum));
+    assertSort("[b1, b2, a1, a2, c1]", new SortOrder(attrNum, false));
+  }
+
+  @Test
+  public void testSortByDoubleAndDate() {
+    assertSort("[a1, b2, c1, b1, a2]", new SortOrder(attrAmount));
+    assertSort("[c1, a1, b2, a2, b1]", new SortOrder(attrDate));
+  }
+
+  @Test
+  public void testSortOrderChainIsConsidered() {
+    assertSort("[c1, a2, a1, b2, b1]", new SortOrder(attrNum, true, new SortOrder(attrName, false)));
+    assertSort("[a1, a2, b2, b1, c1]", new SortOrder(attrSubName, attrName));
+  }
+
+  @Test
+  public void testLocalizedSortUsesTheCollationSequence() {
+    beans.clear();
+    beans.add(new Bean("\u00c4rger", null, null, null, null));
+    beans.add(new Bean("Zeit", null, null, null, null));
+    beans.add(new Bean(null, null, null, null, null));
+    beans.add(new Bean("arg", null, null, null, null));
+    beans.add(new Bean("Bahn", null, null, null, null));
+
+    assertSort("[null, Bahn, Zeit, arg, \u00c4rger]", new SortOrder(attrName));
+
+    InMemSortOrder localized = new InMemSortOrder(attrName, new CollatorComparator(Locale.GERMAN));
+    assertSort("[null, arg, \u00c4rger, Bahn, Zeit]", localized);
+    assertSort("[Zeit, Bahn, \u00c4rger, arg, null]", localized.getReverseSortOrder());
+  }
+
+  @Test
+  public void testLocalizedSortWithPrimaryStrengthIgnoresCase() {
+    beans.clear();
+    beans.add(new Bean("b", null, null, null, null));
+    beans.add(new Bean("A", null, null, null, null));
+    beans.add(new Bean("a", null, null, null, null));
+
+    // The tertiary default strength considers the case difference.
+    assertSort("[a, A, b]", new InMemSortOrder(attrName, new CollatorComparator(Locale.GERMAN)));
+    // Equal keys keep their original order.
+    assertSort("[A, a, b]", new InMemSortOrder(attrName, new CollatorComparator(Locale.GERMAN, Collator.PRIMARY, -1)));
+  }
+
+  /**
+   * Checks the key based sort, the comparator based sort and the parallel key based sort.
+   */
+  private void assertSort(String expected, SortOrder sortOrder) {
+    InMemQueryEvaluator<Bean> ctxt = new InMemQueryEvaluator<Bean>();
+    assertEquals("key based sort", expected, ctxt.sort(beans, sortOrder).toString());
+
+    ctxt.setPrecomputedSortKeys(false);
+    assertEquals("comparator based sort", expected, ctxt.sort(beans, sortOrder).toString());
+
+    ctxt.setPrecomputedSortKeys(true);
+    ctxt.setParallelExecution(true);
+    ctxt.setParallelThreshold(2);
+    assertEquals("parallel key based sort", expected, ctxt.sort(beans, sortOrder).toString());
+  }
+
+}
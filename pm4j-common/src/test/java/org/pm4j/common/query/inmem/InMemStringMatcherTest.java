@@ -0,0 +1,117 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpNotContains;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExprCompare;
+
+/**
+ * Tests {@link InMemStringMatcher} and the string compare operator evaluators based on it.
+ *
+ * @author olaf boede
+ */
+public class InMemStringMatcherTest {
+
+  @Test
+  public void testLikePatternsGetSpecializedMatchers() {
+    assertEquals(InMemStringMatcher.Literal.class, InMemStringMatcher.like("abc").getClass());
+    assertEquals(InMemStringMatcher.Prefix.class, InMemStringMatcher.like("abc%").getClass());
+    assertEquals(InMemStringMatcher.Suffix.class, InMemStringMatcher.like("%abc").getClass());
+    assertEquals(InMemStringMatcher.Infix.class, InMemStringMatcher.like("%abc%").getClass());
+    assertEquals(InMemStringMatcher.Parts.class, InMemStringMatcher.like("a%b%c").getClass());
+    assertEquals(InMemStringMatcher.Regex.class, InMemStringMatcher.like("a_c").getClass());
+  }
+
+  @Test
+  public void testLikeIsCaseInsensitive() {
+    assertTrue(InMemStringMatcher.like("hello").matches("HeLLo"));
+    assertTrue(InMemStringMatcher.like("he%").matches("HELLO"));
+    assertTrue(InMemStringMatcher.like("%LLO").matches("hello"));
+    assertTrue(InMemStringMatcher.like("%eLl%").matches("hello"));
+    assertTrue(InMemStringMatcher.like("%müller%").matches("Hans MÜLLER"));
+    assertTrue(InMemStringMatcher.like("h_LLO").matches("hello"));
+    assertTrue(InMemStringMatcher.like("%ÄRGER").matches("kein ärger"));
+
+    assertFalse(InMemStringMatcher.like("hello").matches("hello!"));
+    assertFalse(InMemStringMatcher.like("%ell").matches("hello"));
+    assertFalse(InMemStringMatcher.like("hello").matches(null));
+  }
+
+  @Test
+  public void testLikeWithSeveralWildCards() {
+    InMemStringMatcher m = InMemStringMatcher.like("a%b%c");
+    assertTrue(m.matches("abc"));
+    assertTrue(m.matches("a-B-c"));
+    assertTrue(m.matches("abbbc"));
+    assertFalse(m.matches("acb"));
+    assertFalse(m.matches("a-b-cd"));
+
+    assertFalse("The first and the last part may not overlap.", InMemStringMatcher.like("ab%ba").matches("aba"));
+    assertTrue(InMemStringMatcher.like("ab%ba").matches("abba"));
+    assertTrue(InMemStringMatcher.like("a%%b").matches("axb"));
+    assertTrue(InMemStringMatcher.like("%h%l%x%").matches("hello? ..[.[x]"));
+    assertTrue(InMemStringMatcher.like("%").matches(""));
+    assertTrue(InMemStringMatcher.like("%%").matches("x"));
+    assertTrue(InMemStringMatcher.like(null).matches(""));
+    assertFalse(InMemStringMatcher.like(null).matches("x"));
+  }
+
+  @Test
+  public void testContainsAndStartsWith() {
+    assertTrue(InMemStringMatcher.contains("ell", false, false).matches("hello"));
+    assertFalse(InMemStringMatcher.contains("ELL", false, false).matches("hello"));
+    assertTrue(InMemStringMatcher.contains("ELL", true, false).matches("hello"));
+    assertTrue(InMemStringMatcher.contains("", false, false).matches(""));
+    assertFalse(InMemStringMatcher.contains("lo ", false, false).matches("hello"));
+    assertTrue(InMemStringMatcher.contains("lo ", false, true).matches(" hello "));
+    assertSame(InMemStringMatcher.NONE, InMemStringMatcher.contains(null, true, false));
+
+    assertTrue(InMemStringMatcher.startsWith("HE", true, false).matches("hello"));
+    assertFalse(InMemStringMatcher.startsWith("HE", false, false).matches("hello"));
+    assertTrue(InMemStringMatcher.startsWith(" he", false, true).matches("  hello"));
+    assertFalse(InMemStringMatcher.startsWith("hello!", true, false).matches("hello"));
+  }
+
+  @Test
+  public void testCompiledStringCompareExpressions() {
+    InMemQueryEvaluator<Bean> ctxt = new InMemQueryEvaluator<Bean>();
+    List<Bean> beans = Arrays.asList(new Bean("Heidelberg"), new Bean("Bamberg"), new Bean(null), new Bean("Berlin"));
+
+    assertEquals("[Heidelberg, Bamberg]", ctxt.evaluateSubSet(beans, new QueryExprCompare(ATTR_S, CompOpLike.class, "%BERG%")).toString());
+    assertEquals("[Heidelberg, Bamberg]", ctxt.evaluateSubSet(beans, new QueryExprCompare(ATTR_S, CompOpContains.class, "berg")).toString());
+    assertEquals("[]", ctxt.evaluateSubSet(beans, new QueryExprCompare(ATTR_S, CompOpContains.class, "BERG")).toString());
+    assertEquals("[null, Berlin]", ctxt.evaluateSubSet(beans, new QueryExprCompare(ATTR_S, CompOpNotContains.class, "berg")).toString());
+
+    CompOpContains ignoreCaseContains = new CompOpContains();
+    ignoreCaseContains.setIgnoreCase(true);
+    assertEquals("[Heidelberg, Bamberg]", ctxt.evaluateSubSet(beans, new QueryExprCompare(ATTR_S, ignoreCaseContains, "BERG")).toString());
+    assertTrue("Item by item evaluation", ctxt.evaluate(beans.get(0), new QueryExprCompare(ATTR_S, ignoreCaseContains, "BERG")));
+    assertFalse("Item by item evaluation", ctxt.evaluate(beans.get(0), new QueryExprCompare(ATTR_S, CompOpContains.class, "BERG")));
+  }
+
+  private static final QueryAttr ATTR_S = new QueryAttr("s", String.class);
+
+  public static class Bean {
+    public final String s;
+
+    public Bean(String s) {
+      this.s = s;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(s);
+    }
+  }
+
+}
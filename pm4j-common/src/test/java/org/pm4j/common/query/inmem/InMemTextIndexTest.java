@@ -0,0 +1,176 @@
+package org.pm4j.common.query.inmem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.pm4j.common.query.CompOpContains;
+import org.pm4j.common.query.CompOpEquals;
+import org.pm4j.common.query.CompOpLike;
+import org.pm4j.common.query.CompOpNotContains;
+import org.pm4j.common.query.CompOpStartsWith;
+import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExpr;
+import org.pm4j.common.query.QueryExprAnd;
+import org.pm4j.common.query.QueryExprCompare;
+import org.pm4j.common.query.QueryExprNot;
+import org.pm4j.common.query.QueryExprOr;
+
+/**
+ * Tests {@link InMemTextIndex}.
+ *
+ * @author olaf boede
+ */
+public class InMemTextIndexTest {
+
+  private static final QueryAttr ATTR_NAME = new QueryAttr("name", String.class);
+  private static final QueryAttr ATTR_CITY = new QueryAttr("city", String.class);
+  private static final String[] SYLLABLES = { "ma", "nn", "Mü", "ller", "ber", "g", "Ham", "burg", "ö", "SCH", "i", " " };
+
+  private InMemQueryEvaluator<Bean> ctxt = new InMemQueryEvaluator<Bean>();
+  private InMemTextIndex<Bean> index = new InMemTextIndex<Bean>(ATTR_NAME, ATTR_CITY);
+
+  @Test
+  public void testIndexedResultsAreIdenticalToFullScanResults() {
+    List<Bean> beans = makeRandomBeans(2000);
+    CompOpContains ignoreCaseContains = new CompOpContains();
+    ignoreCaseContains.setIgnoreCase(true);
+    CompOpStartsWith ignoreSpacesStartsWith = new CompOpStartsWith();
+    ignoreSpacesStartsWith.setIgnoreSpaces(true);
+    ignoreSpacesStartsWith.setIgnoreCase(true);
+
+    QueryExpr[] exprs = {
+        new QueryExprCompare(ATTR_NAME, CompOpContains.class, "ller"),
+        new QueryExprCompare(ATTR_NAME, CompOpContains.class, "LLER"),
+        new QueryExprCompare(ATTR_NAME, ignoreCaseContains, "LLER"),
+        new QueryExprCompare(ATTR_NAME, ignoreCaseContains, "mü"),
+        new QueryExprCompare(ATTR_NAME, CompOpStartsWith.class, "Mül"),
+        new QueryExprCompare(ATTR_NAME, ignoreSpacesStartsWith, " hamb "),
+        new QueryExprCompare(ATTR_NAME, CompOpLike.class, "%MÜLLER%"),
+        new QueryExprCompare(ATTR_NAME, CompOpLike.class, "ma%burg"),
+        new QueryExprCompare(ATTR_NAME, CompOpLike.class, "%ber_g%"),
+        new QueryExprCompare(ATTR_NAME, CompOpLike.class, "%nn%sch%"),
+        new QueryExprCompare(ATTR_NAME, CompOpNotContains.class, "ller"),
+        new QueryExprCompare(ATTR_NAME, CompOpEquals.class, "manng"),
+        new QueryExprAnd(
+            new QueryExprCompare(ATTR_NAME, CompOpContains.class, "burg"),
+            new QueryExprCompare(ATTR_CITY, CompOpLike.class, "%sch%")),
+        new QueryExprAnd(
+            new QueryExprCompare(ATTR_NAME, CompOpContains.class, "ber"),
+            new QueryExprNot(new QueryExprCompare(ATTR_CITY, CompOpContains.class, "i"))),
+        new QueryExprOr(
+            new QueryExprCompare(ATTR_NAME, CompOpContains.class, "burg"),
+            new QueryExprCompare(ATTR_CITY, CompOpStartsWith.class, "Ham")),
+        new QueryExprOr(
+            new QueryExprCompare(ATTR_NAME, CompOpContains.class, "burg"),
+            new QueryExprCompare(ATTR_CITY, CompOpContains.class, "g")),
+    };
+
+    for (QueryExpr e : exprs) {
+      assertEquals(e.toString(), ctxt.evaluateSubSet(beans, e), ctxt.evaluateSubSet(beans, e, ctxt.compile(e), index));
+    }
+  }
+
+  @Test
+  public void testNarrowsOnlyIndexableExpressions() {
+    List<Bean> beans = makeRandomBeans(1000);
+
+    List<Bean> candidates = index.findCandidates(ctxt, beans, new QueryExprCompare(ATTR_NAME, CompOpContains.class, "müll"));
+    assertNotNull(candidates);
+    assertEquals(ctxt.evaluateSubSet(beans, new QueryExprCompare(ATTR_NAME, CompOpLike.class, "%müll%")), candidates);
+
+    assertEquals("No known value has this trigram.",
+        0, index.findCandidates(ctxt, beans, new QueryExprCompare(ATTR_NAME, CompOpContains.class, "xyz")).size());
+    assertNull("Too short to use a trigram.",
+        index.findCandidates(ctxt, beans, new QueryExprCompare(ATTR_NAME, CompOpContains.class, "mü")));
+    assertNull("A negation can't be narrowed.",
+        index.findCandidates(ctxt, beans, new QueryExprCompare(ATTR_NAME, CompOpNotContains.class, "müll")));
+    assertNull("An OR term is not indexed.",
+        index.findCandidates(ctxt, beans, new QueryExprOr(
+            new QueryExprCompare(ATTR_NAME, CompOpContains.class, "müll"),
+            new QueryExprCompare(ATTR_NAME, CompOpEquals.class, "x"))));
+  }
+
+  @Test
+  public void testIndexMaintenance() {
+    List<Bean> beans = new ArrayList<Bean>();
+    Bean hamburg = new Bean("Hamburg", "");
+    beans.add(hamburg);
+    beans.add(new Bean("Bamberg", ""));
+    QueryExpr containsBurg = new QueryExprCompare(ATTR_NAME, CompOpContains.class, "burg");
+    assertEquals("[Hamburg]", index.findCandidates(ctxt, beans, containsBurg).toString());
+
+    Bean augsburg = new Bean("Augsburg", "");
+    beans.add(augsburg);
+    index.addItem(beans, augsburg);
+    assertEquals("[Hamburg, Augsburg]", index.findCandidates(ctxt, beans, containsBurg).toString());
+
+    hamburg.name = "Hamborg";
+    index.updateItem(hamburg);
+    assertEquals("[Augsburg]", index.findCandidates(ctxt, beans, containsBurg).toString());
+
+    beans.remove(augsburg);
+    index.removeItem(augsburg);
+    assertEquals("[]", index.findCandidates(ctxt, beans, containsBurg).toString());
+
+    // An external change that is not reported to the index leads to a re-build.
+    beans.add(new Bean("Duisburg", ""));
+    assertEquals("[Duisburg]", index.findCandidates(ctxt, beans, containsBurg).toString());
+  }
+
+  @Test
+  public void testMultipleReferencesToTheSameItemAreNotIndexed() {
+    List<Bean> beans = new ArrayList<Bean>();
+    Bean hamburg = new Bean("Hamburg", "");
+    beans.add(hamburg);
+    beans.add(hamburg);
+    assertNull(index.findCandidates(ctxt, beans, new QueryExprCompare(ATTR_NAME, CompOpContains.class, "burg")));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testNonStringAttributesAreNotSupported() {
+    List<Bean> beans = new ArrayList<Bean>();
+    beans.add(new Bean("Hamburg", ""));
+    new InMemTextIndex<Bean>(new QueryAttr("id", Integer.class)).findCandidates(ctxt, beans, new QueryExprCompare(ATTR_NAME, CompOpContains.class, "burg"));
+  }
+
+  private List<Bean> makeRandomBeans(int count) {
+    Random random = new Random(4711);
+    List<Bean> beans = new ArrayList<Bean>();
+    for (int i = 0; i < count; ++i) {
+      beans.add(new Bean(makeRandomString(random), (i % 10 == 0) ? null : makeRandomString(random)));
+    }
+    return beans;
+  }
+
+  private String makeRandomString(Random random) {
+    StringBuilder sb = new StringBuilder();
+    int syllables = 1 + random.nextInt(5);
+    for (int i = 0; i < syllables; ++i) {
+      sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+    }
+    return sb.toString();
+  }
+
+  public static class Bean {
+    public String name;
+    public String city;
+    public Integer id = 1;
+
+    public Bean(String name, String city) {
+      this.name = name;
+      this.city = city;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+}
@@ -0,0 +1,178 @@
+package org.pm4j.common.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link CompressedBitmap}.
+ *
+ * @author olaf boede
+ */
+public class CompressedBitmapTest {
+
+  private CompressedBitmap bitmap = new CompressedBitmap();
+
+  @Test
+  public void testAddRemoveContains() {
+    assertTrue(bitmap.isEmpty());
+    assertTrue(bitmap.add(5));
+    assertFalse(bitmap.add(5));
+    assertTrue(bitmap.add(-1));
+    assertTrue(bitmap.add(Long.MAX_VALUE));
+    assertTrue(bitmap.add(Long.MIN_VALUE));
+    assertEquals(4, bitmap.getCardinality());
+
+    assertTrue(bitmap.contains(5));
+    assertTrue(bitmap.contains(-1));
+    assertTrue(bitmap.contains(Long.MAX_VALUE));
+    assertTrue(bitmap.contains(Long.MIN_VALUE));
+    assertFalse(bitmap.contains(6));
+    assertFalse(bitmap.contains(5 + 0x10000));
+
+    assertTrue(bitmap.remove(5));
+    assertFalse(bitmap.remove(5));
+    assertFalse(bitmap.contains(5));
+    assertEquals(3, bitmap.getCardinality());
+
+    bitmap.clear();
+    assertTrue(bitmap.isEmpty());
+    assertFalse(bitmap.contains(-1));
+  }
+
+  @Test
+  public void testDenseValuesSwitchTheContainerKind() {
+    int count = 3 * CompressedBitmap.MAX_ARRAY_CONTAINER_SIZE;
+    for (int i = 0; i < count; ++i) {
+      bitmap.add(i * 2);
+    }
+    assertEquals(count, bitmap.getCardinality());
+    for (int i = 0; i < count * 2; ++i) {
+      assertEquals(i % 2 == 0, bitmap.contains(i));
+    }
+
+    for (int i = 0; i < count; ++i) {
+      assertTrue(bitmap.remove(i * 2));
+      assertFalse(bitmap.contains(i * 2));
+      assertEquals(count - i - 1, bitmap.getCardinality());
+    }
+    assertTrue(bitmap.isEmpty());
+  }
+
+  @Test
+  public void testRandomValuesBehaveLikeAHashSet() {
+    Random random = new Random(4711);
+    Set<Long> set = new HashSet<Long>();
+    for (int i = 0; i < 50000; ++i) {
+      // a mix of a dense and a sparse value range
+      long value = (i % 2 == 0) ? random.nextInt(20000) : random.nextLong();
+      if (random.nextInt(4) == 0) {
+        assertEquals(set.remove(value), bitmap.remove(value));
+      } else {
+        assertEquals(set.add(value), bitmap.add(value));
+      }
+    }
+
+    assertEquals(set.size(), bitmap.getCardinality());
+    for (long l = -100; l < 20100; ++l) {
+      assertEquals(set.contains(l), bitmap.contains(l));
+    }
+    for (Long l : set) {
+      assertTrue(bitmap.contains(l));
+    }
+  }
+
+  @Test
+  public void testIterationProvidesTheUnsignedValueOrder() {
+    long[] values = { -1, 3, Long.MIN_VALUE, 0x20000, 70000, Long.MAX_VALUE, 2 };
+    for (long v : values) {
+      bitmap.add(v);
+    }
+    assertEquals("[2, 3, 70000, 131072, 9223372036854775807, -9223372036854775808, -1]", toList(bitmap).toString());
+
+    for (Iterator<Long> it = bitmap.iterator(); it.hasNext();) {
+      if (it.next() % 2 != 0) {
+        it.remove();
+      }
+    }
+    assertEquals("[2, 70000, 131072, -9223372036854775808]", toList(bitmap).toString());
+  }
+
+  @Test
+  public void testSetOperationsBehaveLikeHashSetOperations() {
+    Random random = new Random(4711);
+    // sparse and dense partitions
+    int[] ranges = { 200000, 20000 };
+    for (int range1 : ranges) {
+      for (int range2 : ranges) {
+        Set<Long> set1 = new TreeSet<Long>();
+        Set<Long> set2 = new TreeSet<Long>();
+        for (int i = 0; i < 15000; ++i) {
+          set1.add((long) random.nextInt(range1));
+          set2.add((long) random.nextInt(range2));
+        }
+
+        Set<Long> expected = new TreeSet<Long>(set1);
+        expected.addAll(set2);
+        CompressedBitmap result = toBitmap(set1);
+        result.or(toBitmap(set2));
+        assertEquals(new ArrayList<Long>(expected), toList(result));
+        assertEquals(expected.size(), result.getCardinality());
+
+        expected = new TreeSet<Long>(set1);
+        expected.retainAll(set2);
+        result = toBitmap(set1);
+        result.and(toBitmap(set2));
+        assertEquals(new ArrayList<Long>(expected), toList(result));
+        assertEquals(expected.size(), result.getCardinality());
+
+        expected = new TreeSet<Long>(set1);
+        expected.removeAll(set2);
+        result = toBitmap(set1);
+        result.andNot(toBitmap(set2));
+        assertEquals(new ArrayList<Long>(expected), toList(result));
+        assertEquals(expected.size(), result.getCardinality());
+      }
+    }
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    for (int i = 0; i < 10000; ++i) {
+      bitmap.add(i);
+    }
+    CompressedBitmap copy = new CompressedBitmap(bitmap);
+    copy.remove(5);
+    copy.add(-5);
+    assertTrue(bitmap.contains(5));
+    assertFalse(bitmap.contains(-5));
+    assertEquals(10000, copy.getCardinality());
+  }
+
+  private static CompressedBitmap toBitmap(Set<Long> values) {
+    CompressedBitmap b = new CompressedBitmap();
+    for (Long v : values) {
+      b.add(v);
+    }
+    return b;
+  }
+
+  private static List<Long> toList(CompressedBitmap b) {
+    List<Long> list = new ArrayList<Long>();
+    for (Iterator<Long> it = b.iterator(); it.hasNext();) {
+      list.add(it.next());
+    }
+    return list;
+  }
+
+}
@@ -0,0 +1,129 @@
+package org.pm4j.common.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.junit.Test;
+
+/**
+ * Tests {@link CompressedIdSet}.
+ *
+ * @author olaf boede
+ */
+public class CompressedIdSetTest {
+
+  @Test
+  public void testNumericIdsAreStoredInABitmap() {
+    Set<Long> set = new CompressedIdSet<Long>(Arrays.asList(7L, 3L, 7L, -1L));
+    assertTrue(((CompressedIdSet<Long>) set).isBitmapBased());
+    assertEquals(3, set.size());
+    assertTrue(set.contains(3L));
+    assertFalse("An Integer is not equal to a Long.", set.contains(3));
+    assertFalse(set.contains(null));
+    assertEquals("[3, 7, -1]", set.toString());
+    assertEquals(new HashSet<Long>(Arrays.asList(-1L, 3L, 7L)), set);
+    assertEquals(new HashSet<Long>(Arrays.asList(-1L, 3L, 7L)).hashCode(), set.hashCode());
+
+    assertTrue(set.remove(7L));
+    assertFalse(set.remove(7L));
+    assertEquals("[3, -1]", set.toString());
+  }
+
+  @Test
+  public void testOtherIdsSwitchToAHashSet() {
+    Set<Object> set = new CompressedIdSet<Object>(Arrays.<Object>asList(1, 2));
+    set.add("a");
+    assertFalse(((CompressedIdSet<Object>) set).isBitmapBased());
+    set.add(null);
+    assertEquals(new HashSet<Object>(Arrays.<Object>asList(1, 2, "a", null)), set);
+
+    set.clear();
+    set.add(5L);
+    assertTrue("An empty set starts again with a bitmap.", ((CompressedIdSet<Object>) set).isBitmapBased());
+
+    set.remove(5L);
+    set.add(6);
+    assertTrue("The bitmap id type may change as long as the set is empty.", ((CompressedIdSet<Object>) set).isBitmapBased());
+    set.add(6L);
+    assertFalse(((CompressedIdSet<Object>) set).isBitmapBased());
+    assertEquals(new HashSet<Object>(Arrays.<Object>asList(6, 6L)), set);
+  }
+
+  @Test
+  public void testSetOperations() {
+    CompressedIdSet<Integer> set = new CompressedIdSet<Integer>(Arrays.asList(1, 2, 3, 4));
+    CompressedIdSet<Integer> other = new CompressedIdSet<Integer>(Arrays.asList(3, 4, 5));
+
+    CompressedIdSet<Integer> result = new CompressedIdSet<Integer>(set);
+    assertTrue(result.addAll(other));
+    assertFalse(result.addAll(other));
+    assertEquals("[1, 2, 3, 4, 5]", result.toString());
+
+    result = new CompressedIdSet<Integer>(set);
+    assertTrue(result.retainAll(other));
+    assertEquals("[3, 4]", result.toString());
+
+    result = new CompressedIdSet<Integer>(set);
+    assertTrue(result.removeAll(other));
+    assertEquals("[1, 2]", result.toString());
+
+    // operations with other set types
+    result = new CompressedIdSet<Integer>(set);
+    result.retainAll(new HashSet<Integer>(other));
+    assertEquals("[3, 4]", result.toString());
+
+    CompressedIdSet<Object> mixed = new CompressedIdSet<Object>(Arrays.<Object>asList(1, 2L));
+    mixed.retainAll(set);
+    assertEquals("[1]", mixed.toString());
+
+    assertEquals("[1, 2, 3, 4]", set.toString());
+  }
+
+  @Test
+  public void testUnmodifiableSetKeepsTheBitmapSetOperations() {
+    // Set operations with this set would fail if they iterate it.
+    CompressedIdSet<Long> notIterable = new CompressedIdSet<Long>(Arrays.asList(2L, 3L)) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      public Iterator<Long> iterator() {
+        throw new AssertionError("The set should be combined using its bitmap.");
+      }
+    };
+    Set<Long> view = CompressedIdSet.unmodifiableSet((Set<Long>) notIterable);
+    assertTrue(((CompressedIdSet<Long>) view).isBitmapBased());
+    assertTrue(view.contains(2L));
+    assertEquals(2, view.size());
+
+    Set<Long> set = new CompressedIdSet<Long>(Arrays.asList(1L, 2L));
+    set.addAll(view);
+    assertEquals("[1, 2, 3]", set.toString());
+    set.retainAll(view);
+    assertEquals("[2, 3]", set.toString());
+    set.removeAll(view);
+    assertEquals("[]", set.toString());
+    assertEquals(2, new CompressedIdSet<Long>(view).size());
+  }
+
+  @Test(expected=UnsupportedOperationException.class)
+  public void testUnmodifiableSetCantBeModified() {
+    CompressedIdSet.unmodifiableSet((Set<Long>) new CompressedIdSet<Long>()).add(1L);
+  }
+
+  @Test
+  public void testSerialization() {
+    CompressedIdSet<Long> set = new CompressedIdSet<Long>();
+    for (long i = 0; i < 100000; i += 3) {
+      set.add(i);
+    }
+    assertEquals(set, SerializationUtils.deserialize(SerializationUtils.serialize((Serializable) set)));
+  }
+
+}
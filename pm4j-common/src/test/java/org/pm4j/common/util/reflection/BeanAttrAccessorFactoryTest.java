@@ -0,0 +1,120 @@
+package org.pm4j.common.util.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class BeanAttrAccessorFactoryTest {
+
+  public static class Bean {
+    public String pubField = "field";
+    public final String finalField = "final";
+    private int privateField = 3;
+    private int i = 1;
+    private String s = "s";
+
+    public int getI()               { return i; }
+    public void setI(int i)         { this.i = i; }
+    public String getS()            { return s; }
+    public void setS(String s)      { this.s = s; }
+    public String getReadOnly()     { return "ro"; }
+  }
+
+  public static class SubBean extends Bean {
+    @Override
+    public String getS() { return "sub-" + super.getS(); }
+  }
+
+  public static class OtherBean {
+    public String getS() { return "other"; }
+  }
+
+  static class NonPublicBean {
+    public String getS() { return "nonPublic"; }
+  }
+
+  private BeanAttrAccessorFactory factory = BeanAttrAccessorFactory.GENERATED;
+
+  @Test
+  public void testGeneratedAccessorsAreUsedForPublicClasses() {
+    assertTrue(factory.create(Bean.class, "s") instanceof GeneratedBeanAttrAccessor);
+    assertTrue(factory.create(Bean.class, "pubField") instanceof GeneratedBeanAttrAccessor);
+    assertFalse(factory.create(Bean.class, "privateField") instanceof GeneratedBeanAttrAccessor);
+    assertFalse(factory.create(NonPublicBean.class, "s") instanceof GeneratedBeanAttrAccessor);
+  }
+
+  @Test
+  public void testGetterAndSetter() {
+    Bean bean = new Bean();
+    BeanAttrAccessor a = factory.create(Bean.class, "s");
+    a.setBeanAttrValue(bean, "x");
+    assertEquals("x", a.getBeanAttrValue(bean));
+    assertEquals(String.class, a.getFieldClass());
+  }
+
+  @Test
+  public void testPrimitiveValues() {
+    Bean bean = new Bean();
+    BeanAttrAccessor a = factory.create(Bean.class, "i");
+    assertEquals(Integer.valueOf(1), a.getBeanAttrValue(bean));
+    a.setBeanAttrValue(bean, 5);
+    assertEquals(5, bean.getI());
+
+    try {
+      a.setBeanAttrValue(bean, null);
+      fail("A null value can't be assigned to a primitive attribute.");
+    } catch (ReflectionException e) {
+      // ok
+    }
+  }
+
+  @Test
+  public void testFields() {
+    Bean bean = new Bean();
+    BeanAttrAccessor a = factory.create(Bean.class, "pubField");
+    a.setBeanAttrValue(bean, "x");
+    assertEquals("x", a.getBeanAttrValue(bean));
+
+    assertEquals("final", factory.create(Bean.class, "finalField").getBeanAttrValue(bean));
+
+    BeanAttrAccessor privateFieldAccessor = factory.create(Bean.class, "privateField");
+    privateFieldAccessor.setBeanAttrValue(bean, 4);
+    assertEquals(4, privateFieldAccessor.getBeanAttrValue(bean));
+  }
+
+  @Test
+  public void testReadOnlyAttribute() {
+    BeanAttrAccessor a = factory.create(Bean.class, "readOnly");
+    assertEquals("ro", a.getBeanAttrValue(new Bean()));
+    assertFalse(a.canSet());
+  }
+
+  @Test
+  public void testOverriddenGetterOfSubClass() {
+    assertEquals("sub-s", factory.create(Bean.class, "s").getBeanAttrValue(new SubBean()));
+  }
+
+  @Test
+  public void testBeanOfAnotherClassIsHandledByReflection() {
+    assertEquals("other", factory.create(Bean.class, "s").getBeanAttrValue(new OtherBean()));
+  }
+
+  @Test
+  public void testNullBeanIsReported() {
+    try {
+      factory.create(Bean.class, "s").getBeanAttrValue(null);
+      fail("Reading from null should fail.");
+    } catch (ReflectionException e) {
+      // ok
+    }
+  }
+
+  @Test(expected=ReflectionException.class)
+  public void testUnknownAttribute() {
+    factory.create(Bean.class, "unknown");
+  }
+
+}
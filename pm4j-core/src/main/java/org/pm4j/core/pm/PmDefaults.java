@@ -10,6 +10,7 @@ import org.pm4j.common.exception.CheckedExceptionWrapper;
 import org.pm4j.common.expr.Expression.SyntaxVersion;
 import org.pm4j.common.query.filter.FilterDefinitionFactory;
 import org.pm4j.common.query.filter.FilterDefinitionFactoryImpl;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
 import org.pm4j.core.pm.annotation.PmCommandCfg;
 import org.pm4j.core.pm.annotation.PmCommandCfg.BEFORE_DO;
 import org.pm4j.core.pm.annotation.PmInject;
@@ -98,6 +99,14 @@ public class PmDefaults implements Cloneable {
    */
   private SyntaxVersion expressionSyntaxVersion = SyntaxVersion.VERSION_2;
 
+  /**
+   * Creates the accessors used to read and write bean attribute values.<br>
+   * If not defined, {@link BeanAttrAccessorFactory#getDefault()} will be used.<br>
+   * The factory may be configured here globally or per conversation. The shared PM meta data and
+   * expressions keep a separate accessor for each used factory.
+   */
+  private BeanAttrAccessorFactory beanAttrAccessorFactory;
+
   @Override
   public PmDefaults clone() {
     try {
@@ -206,6 +215,23 @@ public class PmDefaults implements Cloneable {
     this.expressionSyntaxVersion = expressionSyntaxVersion;
   }
 
+  /**
+   * @return the factory used to create the bean attribute accessors.
+   */
+  public BeanAttrAccessorFactory getBeanAttrAccessorFactory() {
+    return (beanAttrAccessorFactory != null)
+        ? beanAttrAccessorFactory
+        : BeanAttrAccessorFactory.getDefault();
+  }
+
+  /**
+   * @param beanAttrAccessorFactory the factory used to create the bean attribute accessors.
+   *        E.g. {@link BeanAttrAccessorFactory#GENERATED}.
+   */
+  public void setBeanAttrAccessorFactory(BeanAttrAccessorFactory beanAttrAccessorFactory) {
+    this.beanAttrAccessorFactory = beanAttrAccessorFactory;
+  }
+
   /**
    * @return the diResolverNullCheck
    */
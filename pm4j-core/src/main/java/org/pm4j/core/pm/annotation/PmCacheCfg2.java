@@ -34,6 +34,20 @@ public @interface PmCacheCfg2 {
      * Defines the cache mode.
      */
     CacheMode mode() default CacheMode.ON;
+
+    /**
+     * The time span a cached value is valid in milliseconds.
+     * <p>
+     * Only considered for the cache mode {@link CacheMode#TIME_TO_LIVE}.
+     */
+    long timeToLiveMillis() default 60000;
+
+    /**
+     * The maximal number of values of this cache definition that are kept within a conversation.
+     * <p>
+     * Only considered for the cache mode {@link CacheMode#LRU}.
+     */
+    int maxEntries() default 100;
    
     /**
      * A cache definition is by default only applied for the PM that you annotate.
@@ -89,7 +103,23 @@ public @interface PmCacheCfg2 {
      * This option will currently only be considered in the JSF environment. In
      * other cases (rich client) it has the effect of the option {@link #OFF}.
      */
-    REQUEST
+    REQUEST,
+    /**
+     * The value will be cached locally within the PM instance for the time span
+     * defined by {@link Cache#timeToLiveMillis()}.
+     */
+    TIME_TO_LIVE,
+    /**
+     * The value will be cached locally within the PM instance.<br>
+     * Only the {@link Cache#maxEntries()} most recently used values of the cache definition
+     * are kept within the conversation. The least recently used values get released.
+     */
+    LRU,
+    /**
+     * The value will be cached locally within the PM instance using a soft reference.<br>
+     * The garbage collector may release the value if the memory gets short.
+     */
+    SOFT
   }
   
   /** Configuration values for behavior how to clear cache, when clear method is called. */
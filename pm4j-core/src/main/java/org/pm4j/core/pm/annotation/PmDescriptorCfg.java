@@ -0,0 +1,25 @@
+package org.pm4j.core.pm.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the PM classes the pm4j annotation processor (module <code>pm4j-apt</code>) generates a
+ * {@link org.pm4j.core.pm.impl.PmClassDescriptor} for.
+ * <p>
+ * It is declared on {@link org.pm4j.core.pm.impl.PmObjectBase} and inherited by all PM classes.
+ * Applications don't need to use it.
+ *
+ * @author olaf boede
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.CLASS)
+@Target({ ElementType.TYPE })
+public @interface PmDescriptorCfg {
+
+}
@@ -37,4 +37,42 @@ public @interface PmFactoryCfg {
    * as parent pm reference.
    */
   boolean injectParentPmRef() default false;
+
+  /**
+   * Defines the cache used to find the PMs that were created for the beans.
+   *
+   * @return The kind of bean PM cache to use.
+   */
+  BeanPmCacheKind beanPmCache() default BeanPmCacheKind.DEFAULT;
+
+  /**
+   * The PMs of a bean PM cache are usually only weakly referenced. They get lost as soon
+   * as they are no longer referenced by the application, e.g. when a table row PM
+   * is no longer on the current page.
+   * <p>
+   * Is only supported for {@link BeanPmCacheKind#IDENTITY}.
+   *
+   * @return The number of the most recently used PMs that are kept in memory, even if
+   *         they are not referenced by the application.
+   */
+  int beanPmCacheRetainedPms() default 0;
+
+  /**
+   * The kinds of bean PM caches.
+   */
+  public enum BeanPmCacheKind {
+    /**
+     * Finds the PM for an identical bean instance. If there is no one, it looks
+     * for the PM of an equal bean instance.
+     */
+    DEFAULT,
+    /**
+     * Finds only the PM for an identical bean instance.
+     * <p>
+     * Uses a single weak reference per cached PM. Thus it has a much smaller memory
+     * and garbage collection footprint than the {@link #DEFAULT} cache.<br>
+     * Supports retention of the most recently used PMs (see {@link PmFactoryCfg#beanPmCacheRetainedPms()}).
+     */
+    IDENTITY
+  }
 }
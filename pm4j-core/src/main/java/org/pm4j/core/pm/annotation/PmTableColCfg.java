@@ -48,4 +48,69 @@ public @interface PmTableColCfg {
    * @return The optional path.
    */
   String queryAttrPath() default "";
+
+  /**
+   * Switches the in-memory sort of the column to the collation sequence of the
+   * conversation locale. The column values get compared by their string representation.
+   * <p>
+   * The values are compared using {@link java.text.CollationKey}s that get computed
+   * only once per row and sort operation.
+   *
+   * @return The collation strength. {@link Collation#NONE} sorts by the natural order of the values.
+   */
+  Collation sortCollation() default Collation.NONE;
+
+  /**
+   * Is only relevant if a {@link #sortCollation()} is defined.
+   *
+   * @return The collator decomposition mode.
+   */
+  CollationDecomposition sortCollationDecomposition() default CollationDecomposition.DEFAULT;
+
+  /**
+   * Collation strength options. See {@link java.text.Collator#setStrength(int)}.
+   */
+  public enum Collation {
+    /** No collation. The values are sorted by their natural order. */
+    NONE(-1),
+    /** The default strength of the locale. */
+    DEFAULT(-1),
+    PRIMARY(java.text.Collator.PRIMARY),
+    SECONDARY(java.text.Collator.SECONDARY),
+    TERTIARY(java.text.Collator.TERTIARY),
+    IDENTICAL(java.text.Collator.IDENTICAL);
+
+    private final int strength;
+
+    private Collation(int strength) {
+      this.strength = strength;
+    }
+
+    /** @return The {@link java.text.Collator} strength constant. <code>-1</code> for the locale default. */
+    public int getStrength() {
+      return strength;
+    }
+  }
+
+  /**
+   * Collation decomposition options. See {@link java.text.Collator#setDecomposition(int)}.
+   */
+  public enum CollationDecomposition {
+    /** The default decomposition mode of the locale. */
+    DEFAULT(-1),
+    NO_DECOMPOSITION(java.text.Collator.NO_DECOMPOSITION),
+    CANONICAL_DECOMPOSITION(java.text.Collator.CANONICAL_DECOMPOSITION),
+    FULL_DECOMPOSITION(java.text.Collator.FULL_DECOMPOSITION);
+
+    private final int decomposition;
+
+    private CollationDecomposition(int decomposition) {
+      this.decomposition = decomposition;
+    }
+
+    /** @return The {@link java.text.Collator} decomposition constant. <code>-1</code> for the locale default. */
+    public int getDecomposition() {
+      return decomposition;
+    }
+  }
 }
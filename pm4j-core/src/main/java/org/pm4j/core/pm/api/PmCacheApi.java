@@ -8,6 +8,8 @@ import java.util.Set;
 import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.PmCacheApiHandler;
+import org.pm4j.core.pm.impl.cache.CacheLog;
+import org.pm4j.core.pm.impl.cache.CacheStatistics;
 
 /**
  * API for PM aspect cache handling.
@@ -87,5 +89,18 @@ public class PmCacheApi {
     apiHandler.clearPmCacheInCtxtPath(pm, includeSession, cacheKinds);
   }
 
+  /**
+   * Provides the cache hit, miss, init and eviction counts of all PMs of the given class.
+   * <p>
+   * The counters are only maintained if debug logging is enabled for {@link CacheLog}.
+   *
+   * @param pmClass
+   *          The PM class to get the counters for.
+   * @return The cache counters. Never <code>null</code>.
+   */
+  public static CacheStatistics getCacheStatistics(Class<? extends PmObject> pmClass) {
+    return CacheLog.INSTANCE.getStatistics(pmClass);
+  }
+
 
 }
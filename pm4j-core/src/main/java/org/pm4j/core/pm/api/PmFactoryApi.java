@@ -27,6 +27,23 @@ public class PmFactoryApi {
   }
 
 
+  /**
+   * Provides the presentation models for a set of beans. Creates the missing models.
+   * <p>
+   * Is more efficient than a {@link #getPmForBean(PmObject, Object)} call for each bean
+   * because the PM factory gets resolved and the context PM gets locked only once.
+   *
+   * @param pmCtxt
+   *          The PM context for the PMs to create.
+   * @param beans
+   *          The beans to get the presentation models for. May be <code>null</code>.
+   * @return The presentation models in the order of the given beans.
+   *         Contains <code>null</code> for each <code>null</code> bean.
+   */
+  public static <T, T_PM extends PmBean<T>> List<T_PM> getPmsForBeans(PmObject pmCtxt, Collection<T> beans) {
+    return apiHandler.<T, T_PM>getPmsForBeans(pmCtxt, beans);
+  }
+
   /**
    * Searches an existing presentation model for the given bean.
    * Will <b>not</b> create a new model when none found.
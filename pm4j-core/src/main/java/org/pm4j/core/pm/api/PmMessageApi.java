@@ -6,6 +6,7 @@ import java.util.List;
 import org.pm4j.core.exception.PmResourceData;
 import org.pm4j.core.pm.PmAttr;
 import org.pm4j.core.pm.PmConstants;
+import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.PmMessage;
 import org.pm4j.core.pm.PmMessage.Severity;
 import org.pm4j.core.pm.PmObject;
@@ -142,6 +143,12 @@ public class PmMessageApi {
    * @return
    */
   public static List<PmMessage> getPmTreeMessages(PmObject pm, Severity minSeverity) {
+    PmConversation conversation = pm.getPmConversation();
+    if (conversation instanceof PmConversationImpl) {
+      // Uses the PM tree index of the message store.
+      return ((PmConversationImpl) conversation).getPmTreeMessages(pm, minSeverity);
+    }
+
     List<PmMessage> messages = new ArrayList<PmMessage>();
 
     for (PmMessage m : pm.getPmConversation().getPmMessages()) {
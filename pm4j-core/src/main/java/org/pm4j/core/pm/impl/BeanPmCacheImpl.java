@@ -1,10 +1,14 @@
 package org.pm4j.core.pm.impl;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.slf4j.Logger;
@@ -13,12 +17,22 @@ import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmBean;
 import org.pm4j.core.pm.PmObject;
 
+/**
+ * The default {@link BeanPmCache}.
+ * <p>
+ * {@link #findByBean(Object)} reads without locking. All other operations are synchronized on the
+ * cache instance.<br>
+ * The beans are weakly referenced by the map keys. The entries of garbage collected beans
+ * are removed by the next modification.
+ */
 class BeanPmCacheImpl implements BeanPmCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(BeanPmCacheImpl.class);
 
-  private Map<Object, WeakReference<PmBean<?>>> beanEqualToPmMap = new WeakHashMap<Object, WeakReference<PmBean<?>>>();
-  private Map<BeanIdentity, WeakReference<PmBean<?>>> beanIdentityToPmMap = new WeakHashMap<BeanIdentity, WeakReference<PmBean<?>>>();
+  /** Receives the keys of garbage collected beans. */
+  private final ReferenceQueue<Object> collectedBeanQueue = new ReferenceQueue<Object>();
+  private final Map<BeanEquality, WeakReference<PmBean<?>>> beanEqualToPmMap = new ConcurrentHashMap<BeanEquality, WeakReference<PmBean<?>>>();
+  private final Map<BeanIdentity, WeakReference<PmBean<?>>> beanIdentityToPmMap = new ConcurrentHashMap<BeanIdentity, WeakReference<PmBean<?>>>();
 
   /**
    * Keeps the bean identity alive as long as the presentation model instance
@@ -32,9 +46,10 @@ class BeanPmCacheImpl implements BeanPmCache {
    * @param pmElement A new PM for a bean.
    */
   @Override
-  public void add(PmBean<?> pmElement) {
+  public synchronized void add(PmBean<?> pmElement) {
+    expungeCollectedBeans();
     Object bean = pmElement.getPmBean();
-    BeanIdentity beanIdentity = new BeanIdentity(bean);
+    BeanIdentity beanIdentity = new BeanIdentity(bean, collectedBeanQueue);
     WeakReference<PmBean<?>> pmRef = new WeakReference<PmBean<?>>(pmElement);
 
     if (LOG.isTraceEnabled()) {
@@ -48,7 +63,7 @@ class BeanPmCacheImpl implements BeanPmCache {
     }
 
     // Add it to the equals map.
-    WeakReference<PmBean<?>> oldPmEqualRef = beanEqualToPmMap.put(bean, pmRef);
+    WeakReference<PmBean<?>> oldPmEqualRef = beanEqualToPmMap.put(new BeanEquality(bean, collectedBeanQueue), pmRef);
     if (oldPmEqualRef != null && oldPmEqualRef.get() != null) {
       throw new PmRuntimeException(pmElement, "An equal bean is already added to the PM bean cache: " + beanIdentity);
     }
@@ -60,7 +75,7 @@ class BeanPmCacheImpl implements BeanPmCache {
     if (pmElement.getPmConversation().getPmDefaults().debugHints) {
       HashSet<Object> beanSet = new HashSet<Object>();
       for (BeanIdentity i : beanIdentityToPmMap.keySet()) {
-        Object o = i.beanRef.get();
+        Object o = i.get();
         if (o != null) {
           if (!beanSet.add(o)) {
             throw new PmRuntimeException(pmElement, "Bean already added to the PM bean cache: " + PmUtil.getPmLogString(pmElement));
@@ -74,9 +89,15 @@ class BeanPmCacheImpl implements BeanPmCache {
     }
   }
 
+  /**
+   * Reads without locking. The maps are {@link ConcurrentHashMap}s.
+   */
   @SuppressWarnings("unchecked")
   @Override
   public <T extends PmBean<?>> T findByBean(Object bean) {
+    if (bean == null) {
+      return null;
+    }
     T pm = findByBeanIdentity(bean);
     return (T) (pm == null
         ? findByBeanEquals(bean)
@@ -85,7 +106,7 @@ class BeanPmCacheImpl implements BeanPmCache {
 
   @SuppressWarnings("unchecked")
   private <T extends PmBean<?>> T findByBeanIdentity(Object bean) {
-    WeakReference<PmBean<?>> ref = beanIdentityToPmMap.get(new BeanIdentity(bean));
+    WeakReference<PmBean<?>> ref = beanIdentityToPmMap.get(new BeanIdentity(bean, null));
     return (T) (ref != null
         ? ref.get()
         : null);
@@ -93,30 +114,32 @@ class BeanPmCacheImpl implements BeanPmCache {
 
   @SuppressWarnings("unchecked")
   private <T extends PmBean<?>> T findByBeanEquals(Object bean) {
-    WeakReference<PmBean<?>> ref = beanEqualToPmMap.get(bean);
+    WeakReference<PmBean<?>> ref = beanEqualToPmMap.get(new BeanEquality(bean, null));
     return (T) (ref != null
         ? ref.get()
         : null);
   }
 
   @Override
-  public void removePm(PmBean<?> pmBean) {
+  public synchronized void removePm(PmBean<?> pmBean) {
     Object bean = pmBean.getPmBean();
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(this + ": removed PM '" + logString(pmBean) + "' for bean: " + bean);
     }
 
+    expungeCollectedBeans();
     pmToBeanIdentityMap.remove(pmBean);
     if (bean != null) {
-      beanEqualToPmMap.remove(bean);
-      beanIdentityToPmMap.remove(bean);
+      beanEqualToPmMap.remove(new BeanEquality(bean, null));
+      beanIdentityToPmMap.remove(new BeanIdentity(bean, null));
     }
   }
 
   @Override
-  public void removeBean(Object bean) {
-    WeakReference<PmBean<?>> pmRef = beanIdentityToPmMap.remove(bean);
+  public synchronized void removeBean(Object bean) {
+    expungeCollectedBeans();
+    WeakReference<PmBean<?>> pmRef = beanIdentityToPmMap.remove(new BeanIdentity(bean, null));
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(this + ": removed bean '" + bean + "' cached PM was: " + (pmRef != null ? logString(pmRef.get()) : null));
@@ -125,36 +148,51 @@ class BeanPmCacheImpl implements BeanPmCache {
     if (pmRef != null && pmRef.get() != null) {
       pmToBeanIdentityMap.remove(pmRef.get());
     }
-    pmRef = beanEqualToPmMap.remove(bean);
+    pmRef = beanEqualToPmMap.remove(new BeanEquality(bean, null));
     if (pmRef != null && pmRef.get() != null) {
       pmToBeanIdentityMap.remove(pmRef.get());
     }
   }
 
   @Override
-  public void clear() {
+  public synchronized void clear() {
     int size = pmToBeanIdentityMap.size();
     if (size > 0 && LOG.isTraceEnabled()) {
       LOG.trace(this + ": clear called. Removed " + size + " entries.");
-      for (Object o : beanEqualToPmMap.keySet()) {
-        LOG.trace("  cleared bean reference: " + o);
+      for (BeanEquality e : beanEqualToPmMap.keySet()) {
+        LOG.trace("  cleared bean reference: " + e.get());
       }
     }
 
     pmToBeanIdentityMap.clear();
     beanEqualToPmMap.clear();
     beanIdentityToPmMap.clear();
+    expungeCollectedBeans();
   }
 
   @Override
-  public boolean isEmpty() {
+  public synchronized boolean isEmpty() {
     return pmToBeanIdentityMap.isEmpty();
   }
 
   @SuppressWarnings("unchecked")
   @Override
-  public Collection<PmBean<?>> getItems() {
-    return (Collection<PmBean<?>>)(Object)pmToBeanIdentityMap.keySet();
+  public synchronized Collection<PmBean<?>> getItems() {
+    // A copy that may be iterated without synchronization.
+    return new ArrayList<PmBean<?>>((Collection<PmBean<?>>)(Object)pmToBeanIdentityMap.keySet());
+  }
+
+  /**
+   * Removes the entries of garbage collected beans.<br>
+   * Needs to be called within a synchronized block.
+   */
+  private void expungeCollectedBeans() {
+    Reference<?> r;
+    while ((r = collectedBeanQueue.poll()) != null) {
+      // The key types don't match each other. So only the own map entry gets removed.
+      beanIdentityToPmMap.remove(r);
+      beanEqualToPmMap.remove(r);
+    }
   }
 
   private String logString(PmObject pm) {
@@ -164,25 +202,63 @@ class BeanPmCacheImpl implements BeanPmCache {
   }
 
   /**
-   * Holds only a weak reference to the referenced bean.
+   * Holds only a weak reference to the referenced bean. Compares the bean identity.
+   * <p>
+   * A key of a garbage collected bean is only equal to itself.
    */
-  static class BeanIdentity {
-    private final WeakReference<Object> beanRef;
+  static class BeanIdentity extends WeakReference<Object> {
     private final int hashCode;
 
-    public BeanIdentity(Object bean) {
-      this.beanRef = new WeakReference<Object>(bean);
+    public BeanIdentity(Object bean, ReferenceQueue<Object> queue) {
+      super(bean, queue);
       this.hashCode = System.identityHashCode(bean);
     }
 
-    public boolean isActiveBeanRef() {
-      return beanRef.get() != null;
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      Object bean = get();
+      return (bean != null) &&
+             (obj instanceof BeanIdentity) &&
+             (bean == ((BeanIdentity)obj).get());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return ObjectUtils.identityToString(get());
+    }
+  }
+
+  /**
+   * Holds only a weak reference to the referenced bean. Compares the beans using
+   * <code>equals()</code>.
+   * <p>
+   * A key of a garbage collected bean is only equal to itself.
+   */
+  static class BeanEquality extends WeakReference<Object> {
+    private final int hashCode;
+
+    public BeanEquality(Object bean, ReferenceQueue<Object> queue) {
+      super(bean, queue);
+      this.hashCode = (bean != null) ? bean.hashCode() : 0;
     }
 
     @Override
     public boolean equals(Object obj) {
-      return (obj != null) &&
-             (beanRef.get() == ((BeanIdentity)obj).beanRef.get());
+      if (obj == this) {
+        return true;
+      }
+      Object bean = get();
+      return (bean != null) &&
+             (obj instanceof BeanEquality) &&
+             bean.equals(((BeanEquality)obj).get());
     }
 
     @Override
@@ -192,7 +268,7 @@ class BeanPmCacheImpl implements BeanPmCache {
 
     @Override
     public String toString() {
-      return ObjectUtils.identityToString(beanRef.get());
+      return String.valueOf(get());
     }
   }
 
@@ -0,0 +1,77 @@
+package org.pm4j.core.pm.impl;
+
+/**
+ * A snapshot of the figures of a bean PM cache.
+ * <p>
+ * Helps to compare the memory and garbage collection costs of the bean PM cache kinds.
+ * Is provided by {@link BeanPmCacheUtil#getStatistics(org.pm4j.core.pm.PmObject)}.
+ *
+ * @author olaf boede
+ */
+public final class BeanPmCacheStatistics {
+
+  private final int pmCount;
+  private final int retainedPmCount;
+  private final int tableCapacity;
+  private final long referencesCreated;
+  private final long referencesExpunged;
+  private final long lookups;
+  private final long hits;
+
+  public BeanPmCacheStatistics(int pmCount, int retainedPmCount, int tableCapacity, long referencesCreated, long referencesExpunged, long lookups, long hits) {
+    this.pmCount = pmCount;
+    this.retainedPmCount = retainedPmCount;
+    this.tableCapacity = tableCapacity;
+    this.referencesCreated = referencesCreated;
+    this.referencesExpunged = referencesExpunged;
+    this.lookups = lookups;
+    this.hits = hits;
+  }
+
+  /** @return The number of cached PMs. Each cached PM costs one table entry (which is the weak reference). */
+  public int getPmCount() {
+    return pmCount;
+  }
+
+  /** @return The number of PMs that are kept strongly referenced by the cache. */
+  public int getRetainedPmCount() {
+    return retainedPmCount;
+  }
+
+  /** @return The size of the hash table. */
+  public int getTableCapacity() {
+    return tableCapacity;
+  }
+
+  /** @return The number of weak references created since the cache was created. */
+  public long getReferencesCreated() {
+    return referencesCreated;
+  }
+
+  /** @return The number of weak references of garbage collected PMs that were removed from the cache. */
+  public long getReferencesExpunged() {
+    return referencesExpunged;
+  }
+
+  /** @return The number of bean lookups. */
+  public long getLookups() {
+    return lookups;
+  }
+
+  /** @return The number of bean lookups that found a PM. */
+  public long getHits() {
+    return hits;
+  }
+
+  @Override
+  public String toString() {
+    return "pmCount=" + pmCount +
+        ", retainedPmCount=" + retainedPmCount +
+        ", tableCapacity=" + tableCapacity +
+        ", referencesCreated=" + referencesCreated +
+        ", referencesExpunged=" + referencesExpunged +
+        ", lookups=" + lookups +
+        ", hits=" + hits;
+  }
+
+}
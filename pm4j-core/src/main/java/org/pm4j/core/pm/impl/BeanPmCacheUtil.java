@@ -69,4 +69,18 @@ public final class BeanPmCacheUtil {
         : Collections.EMPTY_LIST;
   }
 
+  /**
+   * Provides the statistics of the bean PM cache of the given PM.
+   *
+   * @param factoryOwningPm The PM that owns the cache.
+   * @return The statistics or <code>null</code> if there is no cache or the cache kind
+   *         does not provide statistics (see {@link org.pm4j.core.pm.annotation.PmFactoryCfg.BeanPmCacheKind#IDENTITY}).
+   */
+  public static BeanPmCacheStatistics getStatistics(PmObject factoryOwningPm) {
+    BeanPmCache cache = ((PmObjectBase)factoryOwningPm).pmBeanFactoryCache;
+    return (cache instanceof IdentityBeanPmCache)
+        ? ((IdentityBeanPmCache)cache).getStatistics()
+        : null;
+  }
+
 }
@@ -15,6 +15,7 @@ import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmBean;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.annotation.PmBeanCfg;
+import org.pm4j.core.pm.annotation.PmFactoryCfg.BeanPmCacheKind;
 
 /**
  * A factory that generates PMs for a fix set of registered
@@ -35,6 +36,9 @@ class BeanPmFactory {
   /** A cache that prevents repeated reflection analysis loops. */
   private Map<Class<?>, Object> classesNotHandledHere = new ConcurrentHashMap<Class<?>, Object>();
 
+  private BeanPmCacheKind beanPmCacheKind = BeanPmCacheKind.DEFAULT;
+  private int beanPmCacheRetainedPms;
+
   /**
    * @param beanPmClasses The set of handled {@link PmBean} classes.
    */
@@ -107,6 +111,32 @@ class BeanPmFactory {
     }
   }
 
+  /**
+   * Defines the kind of cache that gets created by {@link #makeBeanPmCache()}.
+   *
+   * @param kind The cache kind.
+   * @param retainedPms The number of recently used PMs kept by the cache. Is only supported for {@link BeanPmCacheKind#IDENTITY}.
+   */
+  public void setBeanPmCacheCfg(BeanPmCacheKind kind, int retainedPms) {
+    if (retainedPms < 0) {
+      throw new IllegalArgumentException("The number of retained PMs can't be negative: " + retainedPms);
+    }
+    if (retainedPms > 0 && kind != BeanPmCacheKind.IDENTITY) {
+      throw new IllegalArgumentException("PM retention is only supported by the bean PM cache kind " + BeanPmCacheKind.IDENTITY);
+    }
+    this.beanPmCacheKind = kind;
+    this.beanPmCacheRetainedPms = retainedPms;
+  }
+
+  /**
+   * @return A new cache for the PMs created by this factory.
+   */
+  public BeanPmCache makeBeanPmCache() {
+    return (beanPmCacheKind == BeanPmCacheKind.IDENTITY)
+        ? new IdentityBeanPmCache(beanPmCacheRetainedPms)
+        : new BeanPmCacheImpl();
+  }
+
   /**
    * @param object
    *          The object to generate a PM for.
@@ -0,0 +1,311 @@
+package org.pm4j.core.pm.impl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.pm4j.core.exception.PmRuntimeException;
+import org.pm4j.core.pm.PmBean;
+import org.pm4j.core.pm.annotation.PmFactoryCfg.BeanPmCacheKind;
+
+/**
+ * A {@link BeanPmCache} that finds the PMs by bean identity.
+ * <p>
+ * It uses a single hash table. Each table entry is the weak reference to a
+ * cached PM. The bean is reached via {@link PmBean#getPmBean()}, so there is no
+ * additional bean reference or wrapper object.<br>
+ * Entries of garbage collected PMs get removed on the next cache operation.
+ * <p>
+ * Optionally the most recently used PMs are kept strongly referenced. That
+ * preserves the PM state of rows that are temporarily not visible, e.g. after
+ * switching to another table page.
+ * <p>
+ * All operations are synchronized on the cache instance.
+ *
+ * @see BeanPmCacheKind#IDENTITY
+ *
+ * @author olaf boede
+ */
+class IdentityBeanPmCache implements BeanPmCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IdentityBeanPmCache.class);
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final ReferenceQueue<PmBean<?>> queue = new ReferenceQueue<PmBean<?>>();
+  private Entry[] table = new Entry[INITIAL_CAPACITY];
+  private int size;
+
+  /** The most recently used PMs. Is <code>null</code> if there is no retention. */
+  private final Map<Entry, PmBean<?>> retainedPms;
+
+  private long referencesCreated;
+  private long referencesExpunged;
+  private long lookups;
+  private long hits;
+
+  /**
+   * @param maxRetainedPms The number of recently used PMs to keep strongly referenced.
+   */
+  public IdentityBeanPmCache(final int maxRetainedPms) {
+    if (maxRetainedPms < 0) {
+      throw new IllegalArgumentException("The number of retained PMs can't be negative: " + maxRetainedPms);
+    }
+    retainedPms = (maxRetainedPms > 0)
+        ? new LinkedHashMap<Entry, PmBean<?>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Entry, PmBean<?>> eldest) {
+              return size() > maxRetainedPms;
+            }
+          }
+        : null;
+  }
+
+  @Override
+  public synchronized void add(PmBean<?> pmElement) {
+    expungeStaleEntries();
+    Object bean = pmElement.getPmBean();
+    int hash = hash(bean);
+
+    for (Entry e = table[hash & (table.length - 1)]; e != null; e = e.next) {
+      PmBean<?> pm = e.get();
+      if (e.hash == hash && pm != null && pm.getPmBean() == bean) {
+        throw new PmRuntimeException(pmElement, "Bean identity already added to the PM bean cache: " + PmUtil.getPmLogString(pm));
+      }
+    }
+
+    // A PM that gets a new bean is registered again.
+    Entry old = findEntryForPm(pmElement);
+    if (old != null) {
+      removeEntry(old);
+    }
+
+    Entry e = new Entry(pmElement, hash, queue);
+    insertEntry(e);
+    ++referencesCreated;
+    retain(e, pmElement);
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(this + ": added PM '" + PmUtil.getPmLogString(pmElement) + "' for bean: " + bean);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public synchronized <T extends PmBean<?>> T findByBean(Object bean) {
+    expungeStaleEntries();
+    ++lookups;
+    Entry e = findEntryForBean(bean);
+    if (e == null) {
+      return null;
+    }
+    PmBean<?> pm = e.get();
+    if (pm != null) {
+      ++hits;
+      retain(e, pm);
+    }
+    return (T) pm;
+  }
+
+  @Override
+  public synchronized void removePm(PmBean<?> pmBean) {
+    expungeStaleEntries();
+    Entry e = findEntryForPm(pmBean);
+    if (e != null) {
+      removeEntry(e);
+    }
+  }
+
+  @Override
+  public synchronized void removeBean(Object bean) {
+    expungeStaleEntries();
+    Entry e = findEntryForBean(bean);
+    if (e != null) {
+      removeEntry(e);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    if (size > 0 && LOG.isTraceEnabled()) {
+      LOG.trace(this + ": clear called. Removed " + size + " entries.");
+    }
+
+    table = new Entry[INITIAL_CAPACITY];
+    size = 0;
+    if (retainedPms != null) {
+      retainedPms.clear();
+    }
+    // The references of the dropped entries are no longer relevant.
+    while (queue.poll() != null)
+      ;
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    expungeStaleEntries();
+    return size == 0;
+  }
+
+  @Override
+  public synchronized Collection<PmBean<?>> getItems() {
+    expungeStaleEntries();
+    Collection<PmBean<?>> items = new ArrayList<PmBean<?>>(size);
+    for (Entry head : table) {
+      for (Entry e = head; e != null; e = e.next) {
+        PmBean<?> pm = e.get();
+        if (pm != null) {
+          items.add(pm);
+        }
+      }
+    }
+    return items;
+  }
+
+  /**
+   * @return The current cache statistics.
+   */
+  public synchronized BeanPmCacheStatistics getStatistics() {
+    expungeStaleEntries();
+    return new BeanPmCacheStatistics(size,
+        retainedPms != null ? retainedPms.size() : 0,
+        table.length,
+        referencesCreated,
+        referencesExpunged,
+        lookups,
+        hits);
+  }
+
+  private Entry findEntryForBean(Object bean) {
+    int hash = hash(bean);
+    for (Entry e = table[hash & (table.length - 1)]; e != null; e = e.next) {
+      if (e.hash == hash) {
+        PmBean<?> pm = e.get();
+        if (pm != null && pm.getPmBean() == bean) {
+          return e;
+        }
+      }
+    }
+    return null;
+  }
+
+  private Entry findEntryForPm(PmBean<?> pm) {
+    // Usually the PM still represents the bean it was registered for.
+    Object bean = pm.getPmBean();
+    if (bean != null) {
+      for (Entry e = table[hash(bean) & (table.length - 1)]; e != null; e = e.next) {
+        if (e.get() == pm) {
+          return e;
+        }
+      }
+    }
+
+    // The bean of the PM was changed after registration.
+    for (Entry head : table) {
+      for (Entry e = head; e != null; e = e.next) {
+        if (e.get() == pm) {
+          return e;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void retain(Entry e, PmBean<?> pm) {
+    if (retainedPms != null) {
+      retainedPms.put(e, pm);
+    }
+  }
+
+  private void insertEntry(Entry e) {
+    if (size >= table.length * 3 / 4) {
+      resize(table.length * 2);
+    }
+    int idx = e.hash & (table.length - 1);
+    e.next = table[idx];
+    table[idx] = e;
+    ++size;
+  }
+
+  private void removeEntry(Entry entry) {
+    if (unlink(entry) && retainedPms != null) {
+      retainedPms.remove(entry);
+    }
+  }
+
+  /** @return <code>true</code> if the entry was found in the table. */
+  private boolean unlink(Entry entry) {
+    int idx = entry.hash & (table.length - 1);
+    Entry prev = null;
+    for (Entry e = table[idx]; e != null; prev = e, e = e.next) {
+      if (e == entry) {
+        if (prev == null) {
+          table[idx] = e.next;
+        } else {
+          prev.next = e.next;
+        }
+        e.next = null;
+        --size;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void resize(int newCapacity) {
+    Entry[] oldTable = table;
+    table = new Entry[newCapacity];
+    for (Entry head : oldTable) {
+      Entry e = head;
+      while (e != null) {
+        Entry next = e.next;
+        int idx = e.hash & (newCapacity - 1);
+        e.next = table[idx];
+        table[idx] = e;
+        e = next;
+      }
+    }
+  }
+
+  /** Removes the entries of the garbage collected PMs. */
+  private void expungeStaleEntries() {
+    for (Object ref; (ref = queue.poll()) != null; ) {
+      // Retained entries are never enqueued. Thus the retention map does not need to be updated.
+      if (unlink((Entry) ref)) {
+        ++referencesExpunged;
+      }
+    }
+  }
+
+  private static int hash(Object bean) {
+    int h = System.identityHashCode(bean);
+    // Spreads the higher bits to the table index range.
+    return h ^ (h >>> 16);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(this));
+  }
+
+  /**
+   * A weak PM reference that is a hash table entry.
+   */
+  private static final class Entry extends WeakReference<PmBean<?>> {
+    /** The hash of the bean the PM was registered for. */
+    final int hash;
+    Entry next;
+
+    Entry(PmBean<?> pm, int hash, ReferenceQueue<PmBean<?>> queue) {
+      super(pm, queue);
+      this.hash = hash;
+    }
+  }
+
+}
@@ -0,0 +1,205 @@
+package org.pm4j.core.pm.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.pm4j.core.exception.PmRuntimeException;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.PmMessage;
+import org.pm4j.core.pm.PmMessage.Severity;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.api.PmValidationApi;
+import org.pm4j.core.pm.impl.cache.CacheStrategyRequest;
+
+/**
+ * Validates a sequence of row PMs concurrently.
+ * <p>
+ * The rows are fetched in blocks by the calling thread. The first block gets validated by the
+ * calling thread. This initializes the lazily created state of the table, the columns and the
+ * row PM meta data before other threads access it. Each following block gets validated by a task of
+ * the given executor. The messages of each row are buffered and added to the conversation by
+ * the calling thread in row order. Thus the message order does not depend on the thread scheduling.<br>
+ * The events fired by the rows are propagated up to the row PMs by the validating thread. The listeners
+ * of the table and its parents are informed by the calling thread in row order.
+ * <p>
+ * The worker threads have no access to the request of the calling thread. They use the request
+ * generation of the calling thread for the request scoped caches
+ * (see {@link CacheStrategyRequest#_setThreadRequestGeneration(Long)}).
+ * <p>
+ * Once the configured number of error messages is reached, the messages of the following rows are
+ * ignored and the rows that are not yet validated get skipped.
+ *
+ * @author olaf boede
+ */
+class ParallelRowValidation {
+
+  private final ExecutorService executorService;
+  private final int rowBlockSize;
+  private final int maxBlocksInProgress;
+  private final int maxErrorCount;
+
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+  private int errorCount;
+  private PmObject tablePm;
+  private long requestGeneration;
+
+  /**
+   * @param executorService the executor that validates the row blocks.
+   * @param rowBlockSize the number of rows validated by a single task.
+   * @param maxBlocksInProgress the maximum number of fetched row blocks that are not yet completely handled.
+   * @param maxErrorCount the number of error messages that stops the validation.
+   */
+  ParallelRowValidation(ExecutorService executorService, int rowBlockSize, int maxBlocksInProgress, int maxErrorCount) {
+    if (rowBlockSize < 1 || maxBlocksInProgress < 1 || maxErrorCount < 1) {
+      throw new IllegalArgumentException("Block size, number of blocks in progress and max. error count need to be positive.");
+    }
+    this.executorService = executorService;
+    this.rowBlockSize = rowBlockSize;
+    this.maxBlocksInProgress = maxBlocksInProgress;
+    this.maxErrorCount = maxErrorCount;
+  }
+
+  /**
+   * Validates the given rows.
+   *
+   * @param tablePm the table that provides the rows.
+   * @param rows the rows to validate.
+   * @return <code>true</code> if the validation was stopped because of the max. error count.
+   */
+  boolean validate(PmObject tablePm, Iterable<? extends PmObject> rows) {
+    this.tablePm = tablePm;
+    this.requestGeneration = CacheStrategyRequest._getRequestGeneration(tablePm);
+    LinkedList<Future<List<RowResult>>> blocksInProgress = new LinkedList<Future<List<RowResult>>>();
+    try {
+      Iterator<? extends PmObject> iter = rows.iterator();
+      boolean firstBlock = true;
+      while (iter.hasNext() && !cancelled.get()) {
+        List<PmObject> block = new ArrayList<PmObject>(rowBlockSize);
+        while (iter.hasNext() && block.size() < rowBlockSize) {
+          block.add(iter.next());
+        }
+        if (firstBlock) {
+          addRowResults(new BlockValidationTask(block).call());
+          firstBlock = false;
+          continue;
+        }
+        blocksInProgress.add(executorService.submit(new BlockValidationTask(block)));
+
+        while (blocksInProgress.size() >= maxBlocksInProgress) {
+          addRowResults(getResult(blocksInProgress.removeFirst()));
+        }
+      }
+
+      while (!blocksInProgress.isEmpty()) {
+        addRowResults(getResult(blocksInProgress.removeFirst()));
+      }
+    } finally {
+      if (!blocksInProgress.isEmpty()) {
+        // Stop the remaining tasks in case of a failure.
+        cancelled.set(true);
+        for (Future<?> f : blocksInProgress) {
+          f.cancel(false);
+        }
+      }
+    }
+
+    return errorCount >= maxErrorCount;
+  }
+
+  /**
+   * Adds the messages and propagates the events of the next block in row order.
+   * Stops the validation when the max. error count is reached.
+   */
+  private void addRowResults(List<RowResult> rowResults) {
+    for (RowResult r : rowResults) {
+      if (errorCount >= maxErrorCount) {
+        cancelled.set(true);
+        return;
+      }
+      PmConversationImpl._addBufferedMessages(r.messages);
+      PmEventApiHandler._propagateBufferedEvents(tablePm, r.events);
+      for (PmMessage m : r.messages) {
+        if (m.getSeverity() == Severity.ERROR) {
+          ++errorCount;
+        }
+      }
+    }
+    if (errorCount >= maxErrorCount) {
+      cancelled.set(true);
+    }
+  }
+
+  private static <T> T getResult(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PmRuntimeException("Parallel row validation interrupted.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new PmRuntimeException("Parallel row validation failed.", cause);
+    }
+  }
+
+  /**
+   * Validates a block of rows within the request generation of the calling thread.
+   * Provides the buffered messages and events of each validated row.
+   */
+  private class BlockValidationTask implements Callable<List<RowResult>> {
+    private final List<PmObject> rows;
+
+    public BlockValidationTask(List<PmObject> rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public List<RowResult> call() {
+      List<RowResult> result = new ArrayList<RowResult>(rows.size());
+      CacheStrategyRequest._setThreadRequestGeneration(requestGeneration);
+      try {
+        for (PmObject row : rows) {
+          if (cancelled.get()) {
+            break;
+          }
+          List<PmMessage> messages = PmConversationImpl._startThreadMessageBuffer();
+          List<PmEvent> events = PmEventApiHandler._startThreadPropagationBuffer(tablePm);
+          try {
+            PmValidationApi.validate(row);
+          } finally {
+            PmEventApiHandler._stopThreadPropagationBuffer();
+            PmConversationImpl._stopThreadMessageBuffer();
+          }
+          result.add(new RowResult(messages, events));
+        }
+      } finally {
+        CacheStrategyRequest._setThreadRequestGeneration(null);
+      }
+      return result;
+    }
+  }
+
+  /** The buffered validation results of a single row. */
+  private static class RowResult {
+    final List<PmMessage> messages;
+    final List<PmEvent> events;
+
+    RowResult(List<PmMessage> messages, List<PmEvent> events) {
+      this.messages = messages;
+      this.events = events;
+    }
+  }
+
+}
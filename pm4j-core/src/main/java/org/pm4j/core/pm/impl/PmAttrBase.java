@@ -12,6 +12,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -30,7 +32,7 @@ import org.pm4j.common.converter.value.ValueConverterDefault;
 import org.pm4j.common.expr.Expression.SyntaxVersion;
 import org.pm4j.common.util.CompareUtil;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
 import org.pm4j.common.util.reflection.ClassUtil;
 import org.pm4j.common.util.reflection.GenericTypeUtil;
 import org.pm4j.common.util.reflection.ReflectionException;
@@ -45,6 +47,7 @@ import org.pm4j.core.pm.PmBean;
 import org.pm4j.core.pm.PmCommandDecorator;
 import org.pm4j.core.pm.PmConstants;
 import org.pm4j.core.pm.PmDataInput;
+import org.pm4j.core.pm.PmDefaults;
 import org.pm4j.core.pm.PmEvent;
 import org.pm4j.core.pm.PmMessage;
 import org.pm4j.core.pm.PmMessage.Severity;
@@ -1614,7 +1617,10 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
         myMetaData.isPmField &&
         beanClass != null) {
       try {
-        myMetaData.beanAttrAccessor = new BeanAttrAccessorImpl(beanClass, getPmName());
+        myMetaData.beanAttrAccessorFactory = getPmConversation().getPmDefaults().getBeanAttrAccessorFactory();
+        myMetaData.beanAttrAccessor = myMetaData.beanAttrAccessorFactory.create(beanClass, getPmName());
+        myMetaData.beanClass = beanClass;
+        myMetaData.beanAttrName = getPmName();
 
         if (myMetaData.beanAttrAccessor.getFieldClass().isPrimitive()) {
           myMetaData.primitiveType = true;
@@ -1706,6 +1712,12 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
     static final Object                     NOT_INITIALIZED         = "NOT_INITIALIZED";
 
     /* package */ BeanAttrAccessor          beanAttrAccessor;
+    /** The factory of the conversation that initialized the meta data. Has created the {@link #beanAttrAccessor}. */
+    private BeanAttrAccessorFactory         beanAttrAccessorFactory;
+    /** The accessors for conversations that use other factories. Gets created on demand. */
+    private volatile ConcurrentMap<BeanAttrAccessorFactory, BeanAttrAccessor> factoryToBeanAttrAccessorMap;
+    private Class<?>                        beanClass;
+    private String                          beanAttrName;
     private PmOptionSetDef<PmAttr<?>>       optionSetDef            = OptionSetDefNoOption.INSTANCE;
     private PmOptionCfg.NullOption          nullOption              = NullOption.DEFAULT;
     private boolean                         required;
@@ -1729,6 +1741,35 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
     private int                             minLen                  = 0;
     private int                             maxLenDefault;
 
+    /**
+     * @param factory the bean attribute accessor factory of the conversation.
+     * @return the accessor created by the given factory.
+     */
+    /* package */ BeanAttrAccessor getBeanAttrAccessor(BeanAttrAccessorFactory factory) {
+      if (factory == beanAttrAccessorFactory) {
+        return beanAttrAccessor;
+      }
+
+      ConcurrentMap<BeanAttrAccessorFactory, BeanAttrAccessor> map = factoryToBeanAttrAccessorMap;
+      if (map == null) {
+        synchronized (this) {
+          if (factoryToBeanAttrAccessorMap == null) {
+            factoryToBeanAttrAccessorMap = new ConcurrentHashMap<BeanAttrAccessorFactory, BeanAttrAccessor>();
+          }
+          map = factoryToBeanAttrAccessorMap;
+        }
+      }
+      BeanAttrAccessor accessor = map.get(factory);
+      if (accessor == null) {
+        accessor = factory.create(beanClass, beanAttrName);
+        BeanAttrAccessor existingAccessor = map.putIfAbsent(factory, accessor);
+        if (existingAccessor != null) {
+          accessor = existingAccessor;
+        }
+      }
+      return accessor;
+    }
+
     /** Creates meta data using a maxDefaultLen of 255. */
     public MetaData() {
       this(255);
@@ -1918,7 +1959,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
     public Object getValue(PmAttrBase<?, ?> attr) {
       Object bean = getParentPmBean(attr).getPmBean();
       return bean != null
-              ? attr.getOwnMetaData().beanAttrAccessor.<Object>getBeanAttrValue(bean)
+              ? getBeanAttrAccessor(attr).<Object>getBeanAttrValue(bean)
               : null;
     }
 
@@ -1928,7 +1969,7 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
       if (bean == null) {
         throw new PmRuntimeException(attr, "Unable to access an attribute value for a backing pmBean that is 'null'.");
       }
-      attr.getOwnMetaData().beanAttrAccessor.setBeanAttrValue(bean, value);
+      getBeanAttrAccessor(attr).setBeanAttrValue(bean, value);
     }
 
     @Override
@@ -1936,6 +1977,11 @@ public abstract class PmAttrBase<T_PM_VALUE, T_BEAN_VALUE>
       return getParentPmBean(attr).getPmBean();
     }
 
+    /** The accessor created by the factory of the attribute's conversation. */
+    private BeanAttrAccessor getBeanAttrAccessor(PmAttrBase<?, ?> attr) {
+      return attr.getOwnMetaData().getBeanAttrAccessor(attr.getPmConversation().getPmDefaults().getBeanAttrAccessorFactory());
+    }
+
     @SuppressWarnings("unchecked")
     private PmBean<Object> getParentPmBean(PmAttrBase<?, ?> attr) {
       if (attr.parentPmBean == null) {
@@ -196,10 +196,8 @@ public class PmBeanBase<T_BEAN>
 
       // Re-register the bean to PM association to keep the PM system
       // intact.
-      synchronized (getPmConversation()) {
-        // FIXME olaf: what about un-registration in case of bean==null ?
-        registerInPmBeanCache(this);
-      }
+      // FIXME olaf: what about un-registration in case of bean==null ?
+      registerInPmBeanCache(this);
     }
 
     return true;
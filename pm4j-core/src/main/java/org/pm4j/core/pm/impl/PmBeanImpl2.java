@@ -214,10 +214,8 @@ public class PmBeanImpl2<T_BEAN>
       // Re-register the bean to PM association to keep the PM system
       // intact.
       // TODO: check scope. The bean cache should be in the parent instance only.
-      synchronized (getPmConversation()) {
-        // FIXME olaf: what about un-registration in case of bean==null ?
-        registerInPmBeanCache(this);
-      }
+      // FIXME olaf: what about un-registration in case of bean==null ?
+      registerInPmBeanCache(this);
     }
 
     return true;
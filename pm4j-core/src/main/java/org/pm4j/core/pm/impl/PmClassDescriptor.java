@@ -0,0 +1,51 @@
+package org.pm4j.core.pm.impl;
+
+/**
+ * Provides build time information about a PM class.
+ * <p>
+ * The implementations get generated by the pm4j annotation processor (module <code>pm4j-apt</code>)
+ * for each PM class of the compiled sources (see {@link org.pm4j.core.pm.annotation.PmDescriptorCfg}).
+ * The generated class has the name <code>[PM class name]{@value #CLASS_NAME_SUFFIX}</code>.
+ * <p>
+ * The meta data initialization uses the descriptor instead of a reflective field scan of the PM class.
+ * PM classes without a descriptor (e.g. anonymous classes) are handled by the reflective scan.<br>
+ * The descriptor covers only the PM fields. It reads all fields of the PM class using a single
+ * generated method. The PM annotations (<code>@PmAttrCfg</code>,
+ * <code>@PmCacheCfg2</code>, <code>@PmInject</code> etc.) are still read reflectively.
+ * <p>
+ * A descriptor is only used if the descriptor of the super class still provides the field signature
+ * that was found when the descriptor was generated. Otherwise a super class of another module was
+ * changed without recompiling the sub class and the reflective scan is used.
+ *
+ * @author olaf boede
+ */
+public interface PmClassDescriptor {
+
+  /** The name suffix of the generated descriptor classes. */
+  String CLASS_NAME_SUFFIX = "$$PmDescriptor";
+
+  /**
+   * @return accessors for all public non-static fields of the PM class that may contain a PM.
+   *         In the order provided by {@link org.pm4j.common.util.reflection.ClassUtil#getAllFields(Class)}.
+   */
+  PmFieldAccessor[] getPmFieldAccessors();
+
+  /**
+   * @param pm the PM to read the field of.
+   * @param fieldIdx the index of the field within the {@link #getPmFieldAccessors()}.
+   * @return the field value.
+   */
+  Object getFieldValue(Object pm, int fieldIdx);
+
+  /**
+   * @return a hash code of the declaring classes and names of the {@link #getPmFieldAccessors()} fields.
+   */
+  int getFieldSignature();
+
+  /**
+   * @return the {@link #getFieldSignature()} of the super class at generation time.
+   *         Is only relevant if the super class is a PM class.
+   */
+  int getSuperclassFieldSignature();
+
+}
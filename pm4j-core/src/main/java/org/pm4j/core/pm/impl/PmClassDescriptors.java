@@ -0,0 +1,75 @@
+package org.pm4j.core.pm.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the generated {@link PmClassDescriptor} of a PM class.
+ *
+ * @author olaf boede
+ */
+final class PmClassDescriptors {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PmClassDescriptors.class);
+
+  /** Marks classes without a usable descriptor. */
+  private static final Object NO_DESCRIPTOR = new Object();
+
+  private static final ConcurrentMap<Class<?>, Object> classToDescriptorMap = new ConcurrentHashMap<Class<?>, Object>();
+
+  /**
+   * @param pmClass the PM class to get the descriptor for.
+   * @return the generated descriptor or <code>null</code> if there is no up to date descriptor.
+   */
+  static PmClassDescriptor find(Class<?> pmClass) {
+    Object d = classToDescriptorMap.get(pmClass);
+    if (d == null) {
+      d = load(pmClass);
+      classToDescriptorMap.putIfAbsent(pmClass, d);
+    }
+    return (d != NO_DESCRIPTOR) ? (PmClassDescriptor) d : null;
+  }
+
+  private static Object load(Class<?> pmClass) {
+    // Anonymous and local classes can't be handled by the annotation processor.
+    if (pmClass.isAnonymousClass() || pmClass.isLocalClass()) {
+      return NO_DESCRIPTOR;
+    }
+    PmClassDescriptor d;
+    try {
+      Class<?> descriptorClass = Class.forName(pmClass.getName() + PmClassDescriptor.CLASS_NAME_SUFFIX, true, pmClass.getClassLoader());
+      d = (PmClassDescriptor) descriptorClass.newInstance();
+    } catch (ClassNotFoundException e) {
+      return NO_DESCRIPTOR;
+    } catch (Exception e) {
+      LOG.warn("Unable to use the PM class descriptor of " + pmClass + ". Reflection will be used instead.", e);
+      return NO_DESCRIPTOR;
+    } catch (LinkageError e) {
+      LOG.warn("Unable to use the PM class descriptor of " + pmClass + ". Reflection will be used instead.", e);
+      return NO_DESCRIPTOR;
+    }
+
+    // The descriptor contains the super class fields too. They may have changed since the generation.
+    Class<?> superclass = pmClass.getSuperclass();
+    if (PmObjectBase.class.isAssignableFrom(superclass)) {
+      PmClassDescriptor superDescriptor = find(superclass);
+      if (superDescriptor == null) {
+        LOG.debug("The PM class descriptor of " + pmClass + " can't be verified because " + superclass + " has no descriptor. Reflection will be used instead.");
+        return NO_DESCRIPTOR;
+      }
+      if (superDescriptor.getFieldSignature() != d.getSuperclassFieldSignature()) {
+        LOG.warn("The PM class descriptor of " + pmClass + " does not match the fields of " + superclass +
+            ". Reflection will be used instead. Please re-compile " + pmClass + ".");
+        return NO_DESCRIPTOR;
+      }
+    }
+    return d;
+  }
+
+  private PmClassDescriptors() {
+  }
+
+}
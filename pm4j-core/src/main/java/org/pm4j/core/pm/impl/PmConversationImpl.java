@@ -12,6 +12,7 @@ import org.pm4j.core.pm.impl.connector.PmToViewTechnologyConnector;
 import org.pm4j.core.pm.impl.inject.NamedObjectResolver;
 import org.pm4j.core.pm.impl.inject.NamedObjectResolverChain;
 import org.pm4j.core.pm.impl.message.AddPmMessageCallback;
+import org.pm4j.core.pm.impl.message.PmMessageStore;
 import org.pm4j.navi.NaviHistory;
 
 import java.lang.ref.WeakReference;
@@ -66,13 +67,19 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
    */
   private BeanPmFactory pmElementFactory;
 
-  private List<PmMessage> pmMessages = Collections.synchronizedList(new ArrayList<PmMessage>());
+  private PmMessageStore pmMessages = new PmMessageStore();
 
   /**
-   * Weak references to failed attributes to allow an efficient error state
-   * cleanup implementation.
+   * Collects the messages added by the current thread instead of adding them to the conversation.
+   * Used for parallel validation (see {@link #_startThreadMessageBuffer()}).
    */
-  private List<WeakReference<SetValueContainer<?>>> pmInvalidValues = Collections.synchronizedList(new ArrayList<WeakReference<SetValueContainer<?>>>());
+  private static final ThreadLocal<List<PmMessage>> threadMessageBuffer = new ThreadLocal<List<PmMessage>>();
+
+  /**
+   * Weak references to failed attribute values to allow an efficient error state
+   * cleanup implementation. The attribute PMs are weakly referenced too.
+   */
+  private Map<PmObject, WeakReference<SetValueContainer<?>>> pmInvalidValues = Collections.synchronizedMap(new WeakHashMap<PmObject, WeakReference<SetValueContainer<?>>>());
 
   /**
    * A container for named objects that are bound to this conversation.
@@ -352,6 +359,12 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
 
   @Override
   public void addPmMessage(PmMessage pmMessage) {
+    List<PmMessage> buffer = threadMessageBuffer.get();
+    if (buffer != null) {
+      buffer.add(pmMessage);
+      return;
+    }
+
     PmMessage m = (addMessageCallback != null)
         ? addMessageCallback.beforeAddMessage(pmMessage)
         : pmMessage;
@@ -386,26 +399,13 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
   /**
    * Registers the invalid value of a validation message.
    * <p>
-   * Prevents duplicate value references for the same PM and
-   * also cleans garbage collected value references.
+   * Replaces an older value reference for the same PM.
    */
   private void registerInvalidValue(PmValidationMessage msg) {
     WeakReference<SetValueContainer<?>> newRef = msg.getInvalidValueRef();
     SetValueContainer<?> newValue = (newRef != null) ? newRef.get() : null;
-    if (newValue != null) {
-      // Cleanup values for the same PM-attribute and garbage collected values:
-      synchronized (pmInvalidValues) {
-        Iterator<WeakReference<SetValueContainer<?>>> iter = pmInvalidValues.iterator();
-        while (iter.hasNext()) {
-          WeakReference<SetValueContainer<?>> ref = iter.next();
-          SetValueContainer<?> value = ref.get();
-          if ((value == null) ||
-              (value.getPm() == newValue.getPm())) {
-            iter.remove();
-          }
-        }
-      }
-      pmInvalidValues.add(newRef);
+    if (newValue != null && newValue.getPm() != null) {
+      pmInvalidValues.put(newValue.getPm(), newRef);
     }
   }
 
@@ -423,15 +423,19 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
    * @return The messages. An empty collection if there are no messages.
    */
   public List<PmMessage> getPmMessages(PmObject forPm, Severity severity) {
-    if (pmMessages.size() == 0) {
+    if (pmMessages.isEmpty() && threadMessageBuffer.get() == null) {
       return Collections.emptyList();
     }
 
     boolean forAllPms = (forPm == null || forPm == this);
-    List<PmMessage> list = new ArrayList<PmMessage>();
-    synchronized(pmMessages) {
-      for (PmMessage m : pmMessages) {
-        if ((forAllPms || m.isMessageFor(forPm)) &&
+    List<PmMessage> list = pmMessages.getMessages(forAllPms ? null : forPm, severity);
+
+    // The buffered messages of the current thread are visible for the current thread.
+    List<PmMessage> buffer = threadMessageBuffer.get();
+    if (buffer != null) {
+      for (PmMessage m : buffer) {
+        if (m.getPm().getPmConversation() == this &&
+            (forAllPms || m.isMessageFor(forPm)) &&
             (severity == null || severity.equals(m.getSeverity()))
            ) {
             list.add(m);
@@ -442,6 +446,71 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
     return list;
   }
 
+  /**
+   * Gets the messages for the given PM and all its children.
+   *
+   * @param rootPm
+   *          The root of the PM tree to get the messages for.
+   * @param minSeverity
+   *          The minimal severity of the messages to return.
+   * @return The messages. An empty collection if there are no messages.
+   */
+  public List<PmMessage> getPmTreeMessages(PmObject rootPm, Severity minSeverity) {
+    List<PmMessage> list = pmMessages.getTreeMessages(rootPm, minSeverity);
+
+    List<PmMessage> buffer = threadMessageBuffer.get();
+    if (buffer != null) {
+      for (PmMessage m : buffer) {
+        if (m.getPm().getPmConversation() == this &&
+            m.getSeverity().ordinal() >= minSeverity.ordinal() &&
+            (m.isMessageFor(rootPm) || PmUtil.isChild(rootPm, m.getPm()))) {
+          list.add(m);
+        }
+      }
+    }
+
+    return list;
+  }
+
+  /**
+   * Internal method. Starts buffering the messages added by the current thread.
+   * <p>
+   * Until {@link #_stopThreadMessageBuffer()} gets called, messages added by the current
+   * thread are only visible for the current thread. They are not passed to an
+   * {@link AddPmMessageCallback}.
+   * <p>
+   * Allows validating PMs concurrently and adding the messages in a deterministic order
+   * (see {@link #_addBufferedMessages(List)}).
+   *
+   * @return the (initially empty) buffer that receives the messages.
+   */
+  static List<PmMessage> _startThreadMessageBuffer() {
+    if (threadMessageBuffer.get() != null) {
+      throw new IllegalStateException("The message buffer of the current thread is already active.");
+    }
+    List<PmMessage> buffer = new ArrayList<PmMessage>();
+    threadMessageBuffer.set(buffer);
+    return buffer;
+  }
+
+  /**
+   * Internal method. Stops the message buffering started by {@link #_startThreadMessageBuffer()}.
+   */
+  static void _stopThreadMessageBuffer() {
+    threadMessageBuffer.remove();
+  }
+
+  /**
+   * Internal method. Adds buffered messages to their conversations.
+   *
+   * @param bufferedMessages the messages collected by a buffer provided by {@link #_startThreadMessageBuffer()}.
+   */
+  static void _addBufferedMessages(List<PmMessage> bufferedMessages) {
+    for (PmMessage m : bufferedMessages) {
+      m.getPm().getPmConversation().addPmMessage(m);
+    }
+  }
+
   @Override
   public Collection<PmObject> getPmsWithInvalidValues() {
     if (pmInvalidValues.isEmpty()) {
@@ -451,16 +520,14 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
     Collection<PmObject> pms = new HashSet<PmObject>();
 
     synchronized (pmInvalidValues) {
-      Iterator<WeakReference<SetValueContainer<?>>> iter = pmInvalidValues.iterator();
+      Iterator<Map.Entry<PmObject, WeakReference<SetValueContainer<?>>>> iter = pmInvalidValues.entrySet().iterator();
       while (iter.hasNext()) {
-        WeakReference<SetValueContainer<?>> ref = iter.next();
-        SetValueContainer<?> value = ref.get();
+        Map.Entry<PmObject, WeakReference<SetValueContainer<?>>> e = iter.next();
         // immediate cleanup of garbage collected items
-        if (value == null) {
+        if (e.getValue().get() == null) {
           iter.remove();
-          // XXX olaf: double check if null can ever happen.
-        } else if (value.getPm() != null) {
-          pms.add(value.getPm());
+        } else {
+          pms.add(e.getKey());
         }
       }
     }
@@ -498,23 +565,17 @@ public class PmConversationImpl extends PmObjectBase implements PmConversation {
    */
   public void clearPmMessages(PmObject pm, Severity severity) {
     PmEventApi.ensureThreadEventSource(this);
-    synchronized(pmMessages) {
-      if ((pm == this || pm == null) && severity == null) {
-        clearPmInvalidValues();
-        pmMessages.clear();
-      }
-      else {
-        Iterator<PmMessage> iter = new ArrayList<PmMessage>(pmMessages).iterator();
-        while(iter.hasNext()) {
-          PmMessage m = iter.next();
-          if ((pm == null || m.isMessageFor(pm)) &&
-              (severity == null || m.getSeverity().equals(severity))) {
-            if (m instanceof PmValidationMessage) {
-              PmValidationApi.clearInvalidValuesOfSubtree(m.getPm());
-            }
-            pmMessages.remove(m);
-          }
+    if ((pm == this || pm == null) && severity == null) {
+      clearPmInvalidValues();
+      pmMessages.clear();
+    }
+    else {
+      // Only the matching messages get visited.
+      for (PmMessage m : pmMessages.getMessages(pm, severity)) {
+        if (m instanceof PmValidationMessage) {
+          PmValidationApi.clearInvalidValuesOfSubtree(m.getPm());
         }
+        pmMessages.remove(m);
       }
     }
   }
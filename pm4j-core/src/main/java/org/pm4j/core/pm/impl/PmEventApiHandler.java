@@ -1,6 +1,8 @@
 package org.pm4j.core.pm.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.pm4j.core.pm.PmAttr;
@@ -28,6 +30,15 @@ public class PmEventApiHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(PmEventApiHandler.class);
 
+  /**
+   * The PM the current thread stops the event propagation at.
+   * Used for parallel validation (see {@link #_startThreadPropagationBuffer(PmObject)}).
+   */
+  private static final ThreadLocal<PmObject> threadPropagationStopPm = new ThreadLocal<PmObject>();
+
+  /** Receives the events that are not propagated by the current thread. */
+  private static final ThreadLocal<List<PmEvent>> threadPropagationBuffer = new ThreadLocal<List<PmEvent>>();
+
   /**
    * A handler that can hold a reference to an event source within the current thread.<br>
    * May be useful for rich client applications that need to be aware about even source objects
@@ -156,7 +167,12 @@ public class PmEventApiHandler {
     // propagate the event to the parent hierarchy until the conversation is reached.
     PmConversation conversationPm = pm.getPmConversation();
     PmEvent propagationEvent = new PmEvent(event.getSource(), event.pm, event.getChangeMask() | PmEvent.IS_EVENT_PROPAGATION, event.getValueChangeKind());
+    PmObject stopPm = threadPropagationStopPm.get();
     for (PmObject p = pm; p != null; p = p.getPmParent()) {
+      if (p == stopPm) {
+        threadPropagationBuffer.get().add(propagationEvent);
+        break;
+      }
       sendToListeners(p, propagationEvent, false /* handle event */);
       // stop after reaching the conversation.
       if (p == conversationPm) {
@@ -165,6 +181,54 @@ public class PmEventApiHandler {
     }
   }
 
+  /**
+   * Internal method. Stops the event propagation of the current thread at the given PM.
+   * <p>
+   * Until {@link #_stopThreadPropagationBuffer()} gets called, the events that reach the given PM
+   * are collected in the returned buffer instead of informing the listeners of the PM and its parents.
+   * <p>
+   * Allows validating child PMs concurrently without concurrent listener calls for the
+   * shared parent PMs (see {@link #_propagateBufferedEvents(PmObject, List)}).
+   *
+   * @param stopPm the PM to stop the propagation at.
+   * @return the (initially empty) buffer that receives the events to propagate.
+   */
+  static List<PmEvent> _startThreadPropagationBuffer(PmObject stopPm) {
+    if (threadPropagationStopPm.get() != null) {
+      throw new IllegalStateException("The event propagation buffer of the current thread is already active.");
+    }
+    List<PmEvent> buffer = new ArrayList<PmEvent>();
+    threadPropagationBuffer.set(buffer);
+    threadPropagationStopPm.set(stopPm);
+    return buffer;
+  }
+
+  /**
+   * Internal method. Stops the event buffering started by {@link #_startThreadPropagationBuffer(PmObject)}.
+   */
+  static void _stopThreadPropagationBuffer() {
+    threadPropagationStopPm.remove();
+    threadPropagationBuffer.remove();
+  }
+
+  /**
+   * Internal method. Continues the propagation of buffered events.
+   *
+   * @param stopPm the PM the buffered propagation was stopped at.
+   * @param bufferedEvents the events collected by a buffer provided by {@link #_startThreadPropagationBuffer(PmObject)}.
+   */
+  static void _propagateBufferedEvents(PmObject stopPm, List<PmEvent> bufferedEvents) {
+    PmConversation conversationPm = stopPm.getPmConversation();
+    for (PmEvent e : bufferedEvents) {
+      for (PmObject p = stopPm; p != null; p = p.getPmParent()) {
+        sendToListeners(p, e, false /* handle event */);
+        if (p == conversationPm) {
+          break;
+        }
+      }
+    }
+  }
+
   public void firePmEventIfInitialized(PmObject pm, int eventMask, ValueChangeKind valueChangeKind) {
     PmObjectBase pmImpl = (PmObjectBase)pm;
     if (pmImpl.pmInitState == PmInitState.INITIALIZED) {
@@ -186,6 +250,9 @@ public class PmEventApiHandler {
     //           Idea for better performing and convenient call back structure wanted!
     if ((eventMask & PmEvent.VALUE_CHANGE) != 0) {
       pmImpl.onPmValueChange(event);
+      // The built-in reaction is dispatched directly. A listener per PM would cost
+      // a listener and a listener reference array for each PM instance.
+      pmImpl.handleDataExchangeEvent(event);
     }
   }
 
@@ -30,36 +30,53 @@ public class PmFactoryApiHandler {
       return null;
     }
 
-    PmConversation pmConversation = pmCtxt.getPmConversation();
-    synchronized (pmConversation) {
-      T_PM pm = this.<T_PM>findPmForBean(pmCtxt, bean);
-      if (pm != null) {
-        return pm;
-      }
+    // Fast path: no lock for PMs that already exist.
+    T_PM pm = this.<T_PM>findPmForBean(pmCtxt, bean);
+    if (pm != null) {
+      return pm;
+    }
 
-      BeanPmFactory factory = findPmFactory(pmCtxt);
-      if (factory == null) {
-        throw new PmRuntimeException(pmCtxt, "Please add a @PmFactoryCfg configuration to be able to create a PM for a bean of type " + bean.getClass());
-      }
-      
-      if (factory != null &&
-          factory.canMakePmFor(bean)) {
-        pm = factory.<T_PM>makePm(pmCtxt, bean);
-      }
+    BeanPmFactory factory = getPmFactory(pmCtxt, bean);
+    // Only the context PM gets locked. PM lookups in other parts of the conversation are not blocked.
+    synchronized (pmCtxt) {
+      return this.<T, T_PM>findOrMakePm(pmCtxt, factory, bean);
+    }
+  }
 
-      if (pm == null) {
-        // FIXME olaf: only provides context information for the highest factory container (the session)
-        //             does not really provide a hint for the attribute/element location, the factory may be
-        //             placed in too...
-        throw new PmRuntimeException(pmCtxt, "Can't create presentation model for bean of class '" +
-            bean.getClass() +
-            "'.\nPlease check if the intended presentation model is registered in a PM-Factory." +
-            "\nYou may use the annotation '" +
-            PmFactoryCfg.class.getSimpleName() + ".beanPmClasses()' to specify a presentation model factory.");
-      }
+  /**
+   * Provides the PMs for a set of beans. Creates the missing PMs.
+   * <p>
+   * The factory gets resolved only once and the context PM gets locked only once for all beans.
+   *
+   * @param pmCtxt
+   *          The PM context for the PMs to create.
+   * @param beans
+   *          The beans to get PMs for. Can be <code>null</code> or empty.
+   * @return The PMs in the order of the given beans. Contains <code>null</code> for each <code>null</code> bean.
+   */
+  public <T, T_PM extends PmBean<T>> List<T_PM> getPmsForBeans(PmObject pmCtxt, Collection<T> beans) {
+    if (beans == null || beans.isEmpty()) {
+      return Collections.emptyList();
+    }
 
-      return pm;
+    List<T_PM> pms = new ArrayList<T_PM>(beans.size());
+    BeanPmFactory factory = null;
+    synchronized (pmCtxt) {
+      for (T b : beans) {
+        T_PM pm = null;
+        if (b != null) {
+          pm = this.<T_PM>findPmForBean(pmCtxt, b);
+          if (pm == null) {
+            if (factory == null) {
+              factory = getPmFactory(pmCtxt, b);
+            }
+            pm = this.<T, T_PM>findOrMakePm(pmCtxt, factory, b);
+          }
+        }
+        pms.add(pm);
+      }
     }
+    return pms;
   }
 
   /**
@@ -70,15 +87,45 @@ public class PmFactoryApiHandler {
    * @return The presentation model for the given bean or <code>null</code>.
    */
   public <T extends PmBean<?>> T findPmForBean(PmObject pmCtxt, Object bean) {
-    PmObjectBase pmCtxtImpl = (PmObjectBase)pmCtxt;
-    T pmBean = null;
+    // The cache is thread safe.
+    BeanPmCache cache = ((PmObjectBase)pmCtxt).pmBeanFactoryCache;
+    return (cache != null)
+        ? cache.<T>findByBean(bean)
+        : null;
+  }
 
-    if (pmCtxtImpl.pmBeanFactoryCache != null) {
-      synchronized(pmCtxt) {
-        pmBean = pmCtxtImpl.pmBeanFactoryCache.<T>findByBean(bean);
-      }
+  /** Needs to be called within a block that is synchronized on the context PM. */
+  private <T, T_PM extends PmBean<T>> T_PM findOrMakePm(PmObject pmCtxt, BeanPmFactory factory, T bean) {
+    // Double check: another thread may have created the PM in the meantime.
+    T_PM pm = this.<T_PM>findPmForBean(pmCtxt, bean);
+    if (pm != null) {
+      return pm;
+    }
+
+    if (factory.canMakePmFor(bean)) {
+      pm = factory.<T_PM>makePm(pmCtxt, bean);
+    }
+
+    if (pm == null) {
+      // FIXME olaf: only provides context information for the highest factory container (the session)
+      //             does not really provide a hint for the attribute/element location, the factory may be
+      //             placed in too...
+      throw new PmRuntimeException(pmCtxt, "Can't create presentation model for bean of class '" +
+          bean.getClass() +
+          "'.\nPlease check if the intended presentation model is registered in a PM-Factory." +
+          "\nYou may use the annotation '" +
+          PmFactoryCfg.class.getSimpleName() + ".beanPmClasses()' to specify a presentation model factory.");
+    }
+
+    return pm;
+  }
+
+  private static BeanPmFactory getPmFactory(PmObject pmCtxt, Object bean) {
+    BeanPmFactory factory = ((PmObjectBase)pmCtxt).findPmFactory();
+    if (factory == null) {
+      throw new PmRuntimeException(pmCtxt, "Please add a @PmFactoryCfg configuration to be able to create a PM for a bean of type " + bean.getClass());
     }
-    return pmBean;
+    return factory;
   }
 
   /**
@@ -100,8 +147,7 @@ public class PmFactoryApiHandler {
   public <T> List<? extends PmBean<T>> getPmListForBeans(PmObject pmParent, Collection<T> beanList, boolean excludeInvisible) {
     if ((beanList != null) && (beanList.size() > 0)) {
       List<PmBean<T>> list = new ArrayList<PmBean<T>>(beanList.size());
-      for (T o : beanList) {
-        PmBean<T> pm = getPmForBean(pmParent, o);
+      for (PmBean<T> pm : this.<T, PmBean<T>>getPmsForBeans(pmParent, beanList)) {
         if (!excludeInvisible || pm.isPmVisible()) {
           list.add(pm);
         }
@@ -117,14 +163,4 @@ public class PmFactoryApiHandler {
     }
   }
 
-  private static BeanPmFactory findPmFactory(PmObject pm) {
-    BeanPmFactory factory = ((PmObjectBase)pm).getOwnPmElementFactory();
-
-    if ((factory == null) && (pm.getPmParent() != null)) {
-        factory = findPmFactory(pm.getPmParent());
-    }
-
-    return factory;
-  }
-
 }
@@ -0,0 +1,91 @@
+package org.pm4j.core.pm.impl;
+
+import java.lang.reflect.Field;
+
+import org.pm4j.common.util.reflection.BeanAttrAccessor;
+import org.pm4j.common.util.reflection.ReflectionException;
+
+/**
+ * A field accessor provided by a {@link PmClassDescriptor}.
+ * <p>
+ * Reads the field using the generated {@link PmClassDescriptor#getFieldValue(Object, int)} method.
+ * Only {@link #setBeanAttrValue(Object, Object)} and {@link #getFieldClass()} use reflection.
+ *
+ * @author olaf boede
+ */
+public final class PmFieldAccessor implements BeanAttrAccessor {
+
+  private final PmClassDescriptor descriptor;
+  private final int fieldIdx;
+  private final Class<?> ownerClass;
+  private final String name;
+  private final boolean finalField;
+
+  /**
+   * @param descriptor the descriptor that reads the field.
+   * @param fieldIdx the index of the field within the {@link PmClassDescriptor#getPmFieldAccessors()}.
+   * @param ownerClass the class that declares the field or a sub class that inherits it.
+   * @param name the field name.
+   * @param finalField <code>true</code> if the field is declared as <code>final</code>.
+   */
+  public PmFieldAccessor(PmClassDescriptor descriptor, int fieldIdx, Class<?> ownerClass, String name, boolean finalField) {
+    this.descriptor = descriptor;
+    this.fieldIdx = fieldIdx;
+    this.ownerClass = ownerClass;
+    this.name = name;
+    this.finalField = finalField;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getBeanAttrValue(Object bean) {
+    return (T) descriptor.getFieldValue(bean, fieldIdx);
+  }
+
+  @Override
+  public void setBeanAttrValue(Object bean, Object value) {
+    if (finalField) {
+      throw new ReflectionException("Unable to write to final field '" + this + "'.");
+    }
+    try {
+      getField().set(bean, value);
+    } catch (IllegalAccessException e) {
+      throw new ReflectionException("Unable to write field '" + this + "'.", e);
+    }
+  }
+
+  @Override
+  public boolean canSet() {
+    return !finalField;
+  }
+
+  @Override
+  public Class<?> getFieldClass() {
+    return getField().getType();
+  }
+
+  @Override
+  public String toString() {
+    return ownerClass.getName() + "." + name;
+  }
+
+  private Field getField() {
+    for (Class<?> c = ownerClass; c != null; c = c.getSuperclass()) {
+      try {
+        Field f = c.getDeclaredField(name);
+        // The declaring class is not necessarily public.
+        f.setAccessible(true);
+        return f;
+      } catch (NoSuchFieldException e) {
+        // continue with the super class
+      }
+    }
+    throw new ReflectionException("Field '" + this + "' not found.");
+  }
+
+}
@@ -2,8 +2,15 @@ package org.pm4j.core.pm.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.pm4j.common.util.collection.ListUtil;
+import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmAttr;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.api.PmVisitorApi.PmVisitCallBack;
@@ -63,6 +70,77 @@ public class PmInitApi {
     return rootPm;
   }
 
+  /**
+   * Initializes the meta data of the PM trees provided by the given factories in parallel.
+   * <p>
+   * May be used at application startup to prepare the meta data of the application dialogs
+   * before the first user requests arrive.
+   * <p>
+   * Only the meta data of the provided PMs and their field bound child PMs gets initialized.
+   * The PM instances are not initialized (no {@link PmObjectBase#onPmInit()} calls) and get dropped
+   * afterwards. The meta data of dynamically created PMs, such as table row PMs, gets initialized on
+   * first usage.
+   * <p>
+   * The meta data is shared by PMs having the same parent hierarchy. Thus each factory should provide
+   * its PM within the same kind of parent hierarchy (e.g. conversation type) the application uses.
+   *
+   * @param executor
+   *          The executor used for the parallel initialization.
+   * @param rootPmFactories
+   *          Factories that provide the root PMs of the trees to initialize.<br>
+   *          Each factory gets called within an executor thread.
+   * @throws PmRuntimeException
+   *           if one of the trees can't be initialized. Gets thrown after all trees are processed.
+   */
+  public static void warmUpPmMetaData(ExecutorService executor, Collection<? extends Callable<? extends PmObject>> rootPmFactories) {
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(rootPmFactories.size());
+    for (final Callable<? extends PmObject> f : rootPmFactories) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          ((PmObjectBase) f.call()).ensurePmMetaDataInitialization();
+          return null;
+        }
+      }));
+    }
+
+    PmRuntimeException failure = null;
+    for (Future<Void> f : futures) {
+      try {
+        f.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = new PmRuntimeException("PM meta data warm-up failed.", e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PmRuntimeException("Interrupted while waiting for the PM meta data warm-up.", e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Initializes the meta data of the PM trees provided by the given factories in parallel
+   * using a thread for each available processor.
+   * <p>
+   * See {@link #warmUpPmMetaData(ExecutorService, Collection)} for details.
+   *
+   * @param rootPmFactories
+   *          Factories that provide the root PMs of the trees to initialize.
+   */
+  public static void warmUpPmMetaData(Collection<? extends Callable<? extends PmObject>> rootPmFactories) {
+    int numOfThreads = Math.max(1, Math.min(rootPmFactories.size(), Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+    try {
+      warmUpPmMetaData(executor, rootPmFactories);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   /**
    * Checks if the given PM is completely initialized.
    *
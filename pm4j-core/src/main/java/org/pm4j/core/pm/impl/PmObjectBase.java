@@ -13,6 +13,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.ObjectUtils;
@@ -41,6 +43,7 @@ import org.pm4j.core.pm.annotation.PmCacheCfg2;
 import org.pm4j.core.pm.annotation.PmCacheCfg2.Cache;
 import org.pm4j.core.pm.annotation.PmCacheCfg2.CacheMode;
 import org.pm4j.core.pm.annotation.PmCacheCfg2.Clear;
+import org.pm4j.core.pm.annotation.PmDescriptorCfg;
 import org.pm4j.core.pm.annotation.PmFactoryCfg;
 import org.pm4j.core.pm.annotation.PmInit;
 import org.pm4j.core.pm.annotation.PmObjectCfg;
@@ -61,7 +64,11 @@ import org.pm4j.core.pm.api.PmVisitorApi.PmVisitResult;
 import org.pm4j.core.pm.impl.InternalPmCacheCfgUtil.CacheMetaData;
 import org.pm4j.core.pm.impl.PmObjectBase.MetaData.MetaDataId;
 import org.pm4j.core.pm.impl.cache.CacheStrategyBase;
+import org.pm4j.core.pm.impl.cache.CacheStrategyLru;
 import org.pm4j.core.pm.impl.cache.CacheStrategyRequest;
+import org.pm4j.core.pm.impl.cache.CacheStrategySoftReference;
+import org.pm4j.core.pm.impl.cache.CacheStrategyTimeToLive;
+import org.pm4j.core.pm.impl.cache.PmCacheSlots;
 import org.pm4j.core.pm.impl.inject.DiResolver;
 import org.pm4j.core.pm.impl.inject.DiResolverUtil;
 import org.pm4j.core.pm.impl.title.PmTitleProvider;
@@ -74,6 +81,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author olaf boede
  */
+@PmDescriptorCfg
 public class PmObjectBase implements PmObject {
 
   private static final Logger LOG = LoggerFactory.getLogger(PmObjectBase.class);
@@ -127,7 +135,13 @@ public class PmObjectBase implements PmObject {
   /**
    * An optional cache for the bean to PM association within the current PM hierarchy scope.
    */
-  /* package */ BeanPmCache pmBeanFactoryCache;
+  /* package */ volatile BeanPmCache pmBeanFactoryCache;
+
+  /** The factory found by {@link #findPmFactory()}. Gets resolved on demand. */
+  private volatile BeanPmFactory resolvedPmFactory;
+
+  /** Storage for request and conversation scoped cache values. Gets created on demand. */
+  private volatile PmCacheSlots pmCacheSlots;
 
   /** A container for application/user specific additional information. */
   private Map<String, Object> pmProperties = Collections.emptyMap();
@@ -161,28 +175,6 @@ public class PmObjectBase implements PmObject {
    */
   public PmObjectBase(PmObject pmParent) {
     this.pmParent = (PmObjectBase) pmParent;
-
-    // load/reload new data leads to an unchanged state.
-    PmEventApi.addPmEventListener(this, PmEvent.VALUE_CHANGE, new PmEventListenerBase(PmObjectBase.class.getSimpleName() + "#dataExchange") {
-      @Override
-      public void handleEvent(PmEvent event) {
-        if (event.isAllChangedEvent() || event.isReloadEvent()) {
-          // This kind event gets recursively applied to a PM tree (part). Because of that we don't need to
-          // handle the child PMs.
-          _setPmValueChangedForThisInstanceOnly(PmObjectBase.this, false);
-          // XXX needs to be optimized: iterates repeated over the PM tree
-          clearCachedPmValues(CacheKind.ALL_SET);
-
-          // Cleanup gaps in listener array whenever a completely new data scenario appears.
-          if (!event.isReloadEvent() && pmEventListenerRefs != null) {
-            pmEventListenerRefs.compact();
-          }
-
-          onPmDataExchangeEvent(event);
-        }
-      }
-    });
-
   }
 
   /** Clone support for sub classes (PmCommandImpl). */
@@ -445,6 +437,31 @@ public class PmObjectBase implements PmObject {
   protected void onPmDataExchangeEvent(PmEvent event) {
   }
 
+  /**
+   * The built-in reaction on load/reload of new data: leads to an unchanged state.
+   * <p>
+   * Is called by {@link PmEventApiHandler} for each value change event that is fired for this PM.
+   * That happens before the registered event listeners get informed.
+   *
+   * @param event The value change event.
+   */
+  /* package */ void handleDataExchangeEvent(PmEvent event) {
+    if (event.isAllChangedEvent() || event.isReloadEvent()) {
+      // This kind event gets recursively applied to a PM tree (part). Because of that we don't need to
+      // handle the child PMs.
+      _setPmValueChangedForThisInstanceOnly(this, false);
+      // XXX needs to be optimized: iterates repeated over the PM tree
+      clearCachedPmValues(CacheKind.ALL_SET);
+
+      // Cleanup gaps in listener array whenever a completely new data scenario appears.
+      if (!event.isReloadEvent() && pmEventListenerRefs != null) {
+        pmEventListenerRefs.compact();
+      }
+
+      onPmDataExchangeEvent(event);
+    }
+  }
+
 
   /**
    * Implements the fix framework behavior.<br>
@@ -773,10 +790,16 @@ public class PmObjectBase implements PmObject {
   /* package */ void registerInPmBeanCache(PmBean<?> pmBean) {
     BeanPmFactory f = getOwnPmElementFactory();
     if ((f != null) && f.canMakePmFor(pmBean.getPmBean())) {
-      if (pmBeanFactoryCache == null) {
-        pmBeanFactoryCache = new BeanPmCacheImpl();
+      BeanPmCache cache = pmBeanFactoryCache;
+      if (cache == null) {
+        synchronized (this) {
+          cache = pmBeanFactoryCache;
+          if (cache == null) {
+            cache = pmBeanFactoryCache = f.makeBeanPmCache();
+          }
+        }
       }
-      pmBeanFactoryCache.add(pmBean);
+      cache.add(pmBean);
     }
   }
 
@@ -784,6 +807,23 @@ public class PmObjectBase implements PmObject {
     return getPmMetaData().pmElementFactory;
   }
 
+  /**
+   * @return The factory of this PM or (if there is none) the factory of the closest parent.
+   *         <code>null</code> if there is no factory within the parent hierarchy.
+   */
+  /* package */ BeanPmFactory findPmFactory() {
+    BeanPmFactory f = resolvedPmFactory;
+    if (f == null) {
+      f = getOwnPmElementFactory();
+      if (f == null && pmParent != null) {
+        f = pmParent.findPmFactory();
+      }
+      // The factory definitions don't change. Concurrent resolution leads to the same result.
+      resolvedPmFactory = f;
+    }
+    return f;
+  }
+
   // ======== Validation ======== //
 
   /**
@@ -911,6 +951,11 @@ public class PmObjectBase implements PmObject {
    */
   private static Map<Object, MetaData> pmKeyToMetaDataMap = new ConcurrentHashMap<Object, MetaData>();
 
+  /**
+   * The meta data initializations that are currently in progress.
+   */
+  private static ConcurrentMap<MetaDataId, MetaDataInit> pmKeyToMetaDataInitMap = new ConcurrentHashMap<MetaDataId, MetaDataInit>();
+
   /**
    * A reference to the static definition for this presentation model.
    */
@@ -934,6 +979,24 @@ public class PmObjectBase implements PmObject {
     return pmMetaData;
   }
 
+  /**
+   * Internal framework method. Should not be used by application code.
+   *
+   * @return the slot storage used by the request and conversation scoped cache strategies.
+   */
+  public final PmCacheSlots zz_getPmCacheSlots() {
+    PmCacheSlots slots = pmCacheSlots;
+    if (slots == null) {
+      synchronized (this) {
+        slots = pmCacheSlots;
+        if (slots == null) {
+          pmCacheSlots = slots = new PmCacheSlots();
+        }
+      }
+    }
+    return slots;
+  }
+
   protected final boolean isMetaDataInitialized() {
     return pmMetaData != null;
   }
@@ -949,16 +1012,12 @@ public class PmObjectBase implements PmObject {
       }
       // the parent may have generated may metadata.
       if (!hasOwnMetaData()) {
-        // Prevent concurrent double initialization.
-        // Can't be done on class level because of
-        // http://bugs.sun.com/bugdatabase/view_bug.do;jsessionid=82a8144e020c83fd1bd1bd741b6e?bug_id=7031759
-        synchronized(pmKeyToMetaDataMap) {
-          try {
-            zz_initMetaData(pmParent, (String) null, false, false);
-          }
-          catch (RuntimeException e) {
-            PmRuntimeException.throwAsPmRuntimeException(this, e);
-          }
+        // Concurrent double initialization is prevented by zz_initMetaData() for each meta data key.
+        try {
+          zz_initMetaData(pmParent, (String) null, false, false);
+        }
+        catch (RuntimeException e) {
+          PmRuntimeException.throwAsPmRuntimeException(this, e);
         }
       }
     }
@@ -1027,106 +1086,162 @@ public class PmObjectBase implements PmObject {
 
       setPmMetaData(pmKeyToMetaDataMap.get(key));
       if (!hasOwnMetaData()) {
-        // Double check with synchronization to ensure maximum get performance and to ensure that
-        // meta data for each PM class gets initialized only once.
-        // This can't be done on class level because of http://bugs.sun.com/bugdatabase/view_bug.do;jsessionid=82a8144e020c83fd1bd1bd741b6e?bug_id=7031759
-        synchronized (pmKeyToMetaDataMap) {
-          setPmMetaData(pmKeyToMetaDataMap.get(key));
-          if (!hasOwnMetaData()) {
-            MetaData md = makeMetaData();
-            md.id = key; // XXX: should be parameter of the factory method. But that needs a cross-project refactoring.
-            setPmMetaData(md);
-
-            pmMetaData.name = (name != null)
-                                ? name
-                                : StringUtils.uncapitalize(getClass().getSimpleName());
-            pmMetaData.isPmField = isPmField;
-            pmMetaData.isSubPm = isSubPm;
-
-            PmConversation conversation = getPmConversation();
-            if (conversation == null) {
-              throw new PmRuntimeException(this, "PM without pmConversation found. Please make sure that a conversation exists within the PM parent hierarchy.");
-            }
-            pmMetaData.init(conversation.getPmDefaults());
-
-            if (pmParent == null &&
-                ! (this instanceof PmConversation)) {
-              String reportName = name != null ? name : getClass().getSimpleName();
-              throw new PmRuntimeException("Unable to initialize PM '" + reportName + "' without defined pmParent.\n" +
-                  "Please make sure that the pmParent is defined either by using an initializing constructor\n" +
-                  "or by using the method setpmParent(pmParent) before using this instance.\n" +
-                  "PM class: " + getClass().getCanonicalName());
-            }
-
-            pmMetaData.absoluteName = key.getAbsoluteName();
-
-            // Perform the subclass specific meta data initialization after having defined names.
-            try {
-              pmMetaData.ensureDerivedNames(this);
-              initMetaData(pmMetaData);
-            }
-            catch (RuntimeException e) {
-              throw new PmRuntimeException(this, e);
+        // Ensures that the meta data for each key gets initialized only once without a global lock:
+        // The first thread initializes the meta data. Concurrent threads that need the same meta data
+        // wait for the result. Meta data of unrelated PMs gets initialized in parallel.
+        MetaDataInit init = new MetaDataInit();
+        MetaDataInit runningInit = pmKeyToMetaDataInitMap.putIfAbsent(key, init);
+        if (runningInit == null) {
+          try {
+            // The initialization may have been completed after the first map lookup.
+            setPmMetaData(pmKeyToMetaDataMap.get(key));
+            if (!hasOwnMetaData()) {
+              initNewMetaData(key, name, isPmField, isSubPm, init);
             }
-            pmKeyToMetaDataMap.put(key, pmMetaData);
+            init.done(pmMetaData);
+          }
+          catch (RuntimeException e) {
+            init.failed(e);
+            throw e;
+          }
+          catch (Error e) {
+            init.failed(e);
+            throw e;
+          }
+          finally {
+            pmKeyToMetaDataInitMap.remove(key, init);
+          }
+        }
+        else {
+          MetaData md = runningInit.await(this);
+          if (md != null) {
+            setPmMetaData(md);
+          } else {
+            // A nested request of the initializing thread before the meta data instance was created.
+            initNewMetaData(key, name, isPmField, isSubPm, null);
+          }
+        }
+      }
+    }
 
+    if (pmMetaData == null) {
+      throw new PmRuntimeException("failed to initialize PM '" + name +
+          "'. PM class=" + getClass() +
+          (parentPm != null ? " parentPm=" + parentPm : "")
+          );
+    }
+  }
 
-            // -- Meta data initialization for PM fields --
-            List<BeanAttrAccessor> allFields = new ArrayList<BeanAttrAccessor>();
-            for (Field f : ClassUtil.getAllFields(getClass())) {
-              // XXX olaf: Currently only public fields are considered.
-              if ((f.getModifiers() & Modifier.PUBLIC) != 0 &&
-                  (f.getModifiers() & Modifier.STATIC) == 0) {
+  /**
+   * Creates and initializes the meta data for this PM and its field bound children.
+   *
+   * @param init
+   *          The initialization state that gets informed about the created meta data.
+   *          Is <code>null</code> for a nested initialization that should not be registered.
+   */
+  private void initNewMetaData(MetaDataId key, String name, boolean isPmField, boolean isSubPm, MetaDataInit init) {
+    MetaData md = makeMetaData();
+    md.id = key; // XXX: should be parameter of the factory method. But that needs a cross-project refactoring.
+    setPmMetaData(md);
+
+    pmMetaData.name = (name != null)
+                        ? name
+                        : StringUtils.uncapitalize(getClass().getSimpleName());
+    pmMetaData.isPmField = isPmField;
+    pmMetaData.isSubPm = isSubPm;
+
+    PmConversation conversation = getPmConversation();
+    if (conversation == null) {
+      throw new PmRuntimeException(this, "PM without pmConversation found. Please make sure that a conversation exists within the PM parent hierarchy.");
+    }
+    pmMetaData.init(conversation.getPmDefaults());
+
+    if (pmParent == null &&
+        ! (this instanceof PmConversation)) {
+      String reportName = name != null ? name : getClass().getSimpleName();
+      throw new PmRuntimeException("Unable to initialize PM '" + reportName + "' without defined pmParent.\n" +
+          "Please make sure that the pmParent is defined either by using an initializing constructor\n" +
+          "or by using the method setpmParent(pmParent) before using this instance.\n" +
+          "PM class: " + getClass().getCanonicalName());
+    }
 
-                BeanAttrAccessor accessor = new BeanAttrAccessorImpl(getClass(), f);
-                Object fieldValue = accessor.getBeanAttrValue(this);
+    pmMetaData.absoluteName = key.getAbsoluteName();
 
-                if (fieldValue instanceof PmObject) {
-                  if ((f.getModifiers() & Modifier.FINAL) == 0) {
-                    LOG.warn("PM field has no 'final' declaration. " +
-                        "Please check if it may be declared this way. The field: " + f);
-                  }
+    // Perform the subclass specific meta data initialization after having defined names.
+    try {
+      pmMetaData.ensureDerivedNames(this);
+      initMetaData(pmMetaData);
+    }
+    catch (RuntimeException e) {
+      throw new PmRuntimeException(this, e);
+    }
+    if (init != null) {
+      // Makes the meta data available for nested requests of the initializing thread.
+      init.metaData = pmMetaData;
+    }
 
-                  allFields.add(accessor);
-                }
-              }
+    // -- Meta data initialization for PM fields --
+    List<BeanAttrAccessor> allFields = new ArrayList<BeanAttrAccessor>();
+    PmClassDescriptor classDescriptor = PmClassDescriptors.find(getClass());
+    if (classDescriptor != null) {
+      // Generated by the pm4j annotation processor: no reflective field scan needed.
+      for (PmFieldAccessor accessor : classDescriptor.getPmFieldAccessors()) {
+        if (accessor.getBeanAttrValue(this) instanceof PmObject) {
+          if (accessor.canSet()) {
+            LOG.warn("PM field has no 'final' declaration. " +
+                "Please check if it may be declared this way. The field: " + accessor);
+          }
+          allFields.add(accessor);
+        }
+      }
+    } else {
+      for (Field f : ClassUtil.getAllFields(getClass())) {
+        // XXX olaf: Currently only public fields are considered.
+        if ((f.getModifiers() & Modifier.PUBLIC) != 0 &&
+            (f.getModifiers() & Modifier.STATIC) == 0) {
+
+          BeanAttrAccessor accessor = new BeanAttrAccessorImpl(getClass(), f);
+          Object fieldValue = accessor.getBeanAttrValue(this);
+
+          if (fieldValue instanceof PmObject) {
+            if ((f.getModifiers() & Modifier.FINAL) == 0) {
+              LOG.warn("PM field has no 'final' declaration. " +
+                  "Please check if it may be declared this way. The field: " + f);
             }
 
-            int numOfPmFields = allFields.size();
-            if (numOfPmFields > 0) {
-              pmMetaData.childFieldAccessorArray = new BeanAttrAccessor[numOfPmFields];
-              allFields.toArray(pmMetaData.childFieldAccessorArray);
-
-              pmMetaData.childFieldMetaDataArray = new MetaData[numOfPmFields];
-              pmMetaData.nameToChildAccessorMap = new HashMap<String, BeanAttrAccessor>(numOfPmFields);
-              for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
-                BeanAttrAccessor a = pmMetaData.childFieldAccessorArray[i];
-                String attrName = a.getName();
-                PmObjectBase child = (PmObjectBase)a.getBeanAttrValue(this);
-                child.zz_initMetaData(this, attrName, true, true);
-                pmMetaData.childFieldMetaDataArray[i] = child.pmMetaData;
-                pmMetaData.nameToChildAccessorMap.put(attrName, a);
-              }
-              pmInitState = PmInitState.FIELD_BOUND_CHILD_META_DATA_INITIALIZED;
+            allFields.add(accessor);
+          }
+        }
+      }
+    }
 
-              for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
-                PmObjectBase child = pmMetaData.childFieldAccessorArray[i].getBeanAttrValue(this);
-                if (child.pmInitState == PmInitState.NOT_INITIALIZED) {
-                  child.ensurePmMetaDataInitialization();
-                }
-              }
+    int numOfPmFields = allFields.size();
+    if (numOfPmFields > 0) {
+      pmMetaData.childFieldAccessorArray = new BeanAttrAccessor[numOfPmFields];
+      allFields.toArray(pmMetaData.childFieldAccessorArray);
 
-            }
-          }
+      pmMetaData.childFieldMetaDataArray = new MetaData[numOfPmFields];
+      pmMetaData.nameToChildAccessorMap = new HashMap<String, BeanAttrAccessor>(numOfPmFields);
+      for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
+        BeanAttrAccessor a = pmMetaData.childFieldAccessorArray[i];
+        String attrName = a.getName();
+        PmObjectBase child = (PmObjectBase)a.getBeanAttrValue(this);
+        child.zz_initMetaData(this, attrName, true, true);
+        pmMetaData.childFieldMetaDataArray[i] = child.pmMetaData;
+        pmMetaData.nameToChildAccessorMap.put(attrName, a);
+      }
+      pmInitState = PmInitState.FIELD_BOUND_CHILD_META_DATA_INITIALIZED;
+
+      for (int i=0; i<pmMetaData.childFieldAccessorArray.length; ++i) {
+        PmObjectBase child = pmMetaData.childFieldAccessorArray[i].getBeanAttrValue(this);
+        if (child.pmInitState == PmInitState.NOT_INITIALIZED) {
+          child.ensurePmMetaDataInitialization();
         }
       }
     }
 
-    if (pmMetaData == null) {
-      throw new PmRuntimeException("failed to initialize PM '" + name +
-          "'. PM class=" + getClass() +
-          (parentPm != null ? " parentPm=" + parentPm : "")
-          );
+    if (init != null) {
+      pmKeyToMetaDataMap.put(key, pmMetaData);
     }
   }
 
@@ -1243,6 +1358,7 @@ public class PmObjectBase implements PmObject {
     if (factoryAnnotation != null) {
       if (factoryAnnotation.beanPmClasses().length > 0) {
         metaData.pmElementFactory = new BeanPmFactory(factoryAnnotation.beanPmClasses());
+        metaData.pmElementFactory.setBeanPmCacheCfg(factoryAnnotation.beanPmCache(), factoryAnnotation.beanPmCacheRetainedPms());
       }
       else {
         throw new IllegalArgumentException("Missing items in beanPmClasses of annotation " +
@@ -1620,6 +1736,53 @@ public class PmObjectBase implements PmObject {
     }
   }
 
+  /**
+   * The state of a running meta data initialization.
+   * <p>
+   * Other threads that need the same meta data wait for its completion.
+   */
+  private static final class MetaDataInit {
+    private final Thread initThread = Thread.currentThread();
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+    /** Gets assigned as soon as the meta data instance exists. Is only visible for the initializing thread. */
+    MetaData metaData;
+    private volatile MetaData completedMetaData;
+    private volatile Throwable failure;
+
+    void done(MetaData md) {
+      completedMetaData = md;
+      doneLatch.countDown();
+    }
+
+    void failed(Throwable e) {
+      failure = e;
+      doneLatch.countDown();
+    }
+
+    /**
+     * @param pm the PM that needs the meta data.
+     * @return the initialized meta data. For a nested call of the initializing thread the
+     *         not yet completely initialized meta data (may be <code>null</code>).
+     */
+    MetaData await(PmObject pm) {
+      if (initThread == Thread.currentThread()) {
+        return metaData;
+      }
+
+      try {
+        doneLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PmRuntimeException(pm, "Interrupted while waiting for the meta data initialization.", e);
+      }
+
+      if (failure != null) {
+        throw new PmRuntimeException(pm, "Meta data initialization failed in another thread.", failure);
+      }
+      return completedMetaData;
+    }
+  }
+
   /** Factory for PM aspect specific and cache live time specific cache strategies.<br>
    * Supports caching of titles, tooltips, enablement, visibility and sub-nodes. */
   protected static class CacheStrategyFactory {
@@ -1641,7 +1804,13 @@ public class PmObjectBase implements PmObject {
       case ON:
         return createImpl(aspect, cache);
       case REQUEST:
-        return new CacheStrategyRequest("CACHE_"+aspect+"_IN_REQUEST", aspect.toString().substring(0, 2).toLowerCase());
+        return new CacheStrategyRequest("CACHE_"+aspect+"_IN_REQUEST", aspect);
+      case TIME_TO_LIVE:
+        return new CacheStrategyTimeToLive("CACHE_"+aspect+"_TIME_TO_LIVE", aspect, cache.clear(), cache.timeToLiveMillis());
+      case LRU:
+        return new CacheStrategyLru("CACHE_"+aspect+"_LRU", aspect, cache.clear(), cache.maxEntries());
+      case SOFT:
+        return new CacheStrategySoftReference("CACHE_"+aspect+"_SOFT", aspect, cache.clear());
       default:
         throw new PmRuntimeException("Unable to find cache strategy for CacheMode '" + cache.mode() + "'.");
       }
@@ -9,6 +9,8 @@ import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.SortOrder;
 import org.pm4j.common.query.filter.FilterDefinition;
 import org.pm4j.common.query.filter.FilterDefinitionFactory;
+import org.pm4j.common.query.inmem.InMemSortOrder;
+import org.pm4j.common.util.CollatorComparator;
 import org.pm4j.common.util.collection.ListUtil;
 import org.pm4j.core.exception.PmResourceData;
 import org.pm4j.core.exception.PmRuntimeException;
@@ -28,6 +30,8 @@ import org.pm4j.core.pm.annotation.PmCommandCfg;
 import org.pm4j.core.pm.annotation.PmTitleCfg;
 import org.pm4j.core.pm.annotation.PmCommandCfg.BEFORE_DO;
 import org.pm4j.core.pm.annotation.PmTableColCfg;
+import org.pm4j.core.pm.annotation.PmTableColCfg.Collation;
+import org.pm4j.core.pm.annotation.PmTableColCfg.CollationDecomposition;
 import org.pm4j.core.pm.api.PmEventApi;
 import org.pm4j.core.pm.api.PmLocalizeApi;
 import org.pm4j.core.pm.api.PmMessageApi;
@@ -151,6 +155,25 @@ public class PmTableColImpl extends PmObjectBase implements PmTableCol {
     return new QueryAttr(name, path, md.filterType, getPmTitle());
   }
   
+  /**
+   * Provides the sort order option for this column.<br>
+   * Is used for in-memory tables.
+   * <p>
+   * Uses a {@link CollatorComparator} for the conversation locale if a
+   * {@link PmTableColCfg#sortCollation()} is configured.
+   *
+   * @return The sort order for the column query attribute.
+   */
+  protected SortOrder makeColSortOrder() {
+    QueryAttr attr = getColQueryAttr();
+    MetaData md = getOwnMetaData();
+    return (md.sortCollation != Collation.NONE)
+        ? new InMemSortOrder(attr, new CollatorComparator(getPmConversation().getPmLocale(),
+                                                          md.sortCollation.getStrength(),
+                                                          md.sortCollationDecomposition.getDecomposition()))
+        : new SortOrder(attr);
+  }
+
   /* package */ Boolean isSortableConfigured() {
     return PmTableColImpl.this.getOwnMetaDataWithoutPmInitCall().sortable;
   }
@@ -335,6 +358,8 @@ public class PmTableColImpl extends PmObjectBase implements PmTableCol {
 
       md.filterType = a.filterType();
       md.queryAttrPath = StringUtils.defaultIfEmpty(a.queryAttrPath(), null);
+      md.sortCollation = a.sortCollation();
+      md.sortCollationDecomposition = a.sortCollationDecomposition();
     }
   }
 
@@ -342,6 +367,8 @@ public class PmTableColImpl extends PmObjectBase implements PmTableCol {
     private Boolean sortable;
     private Class<?> filterType = Void.class;
     private String queryAttrPath;
+    private Collation sortCollation = Collation.NONE;
+    private CollationDecomposition sortCollationDecomposition = CollationDecomposition.DEFAULT;
     private ColSizeSpec colSizeSpec = null;
   }
 
@@ -11,6 +11,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang.StringUtils;
 import org.pm4j.common.cache.CacheStrategy;
@@ -42,6 +43,7 @@ import org.pm4j.common.util.collection.IterableUtil;
 import org.pm4j.common.util.reflection.ClassUtil;
 import org.pm4j.common.util.reflection.GenericTypeUtil;
 import org.pm4j.core.exception.PmRuntimeException;
+import org.pm4j.core.exception.PmValidationException;
 import org.pm4j.core.pm.PmBean;
 import org.pm4j.core.pm.PmCommandDecorator;
 import org.pm4j.core.pm.PmDefaults;
@@ -63,6 +65,7 @@ import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
 import org.pm4j.core.pm.api.PmEventApi;
 import org.pm4j.core.pm.api.PmExpressionApi;
 import org.pm4j.core.pm.api.PmMessageApi;
+import org.pm4j.core.pm.api.PmValidationApi;
 import org.pm4j.core.pm.impl.cache.CacheStrategyBase;
 import org.pm4j.core.pm.impl.pageable.PmBeanCollection;
 import org.pm4j.core.pm.impl.pathresolver.PathResolver;
@@ -124,6 +127,9 @@ public class PmTableImpl
   /** An indicator that protects a getter logic based table against concurrent setter logic access. */
   boolean pmCollectionGetterLogicUsed;
 
+  /** Validates the rows in parallel. See {@link #setRowValidationExecutorService(ExecutorService)}. */
+  private ExecutorService rowValidationExecutorService;
+
   /**
    * Creates a table PM.
    *
@@ -253,6 +259,29 @@ public class PmTableImpl
     }
   }
 
+  /**
+   * Enables the parallel validation of all table rows. It is used if the {@link TableValidator}
+   * validates {@link RowsToValidate#ALL} rows.
+   * <p>
+   * The rows are fetched in blocks of {@link TableValidator#setRowBlockSize(int)} rows. The first block
+   * gets validated by the calling thread. Each following block gets validated by a task of the given
+   * executor. The validation messages are added in row order.<br>
+   * The worker threads use the request generation of the calling thread for request scoped caches.
+   * They have no access to other request specific data of the view technology.
+   * <p>
+   * The listeners of the table and its parents get informed about the events fired by the rows within
+   * the calling thread.
+   * <p>
+   * WARNING: The validation logic of the row PMs gets called concurrently. It needs to be thread safe.
+   * This applies also to the event listeners registered for the row PMs and their children.
+   *
+   * @param executorService The executor to use for the row validation. <code>null</code> switches
+   *          back to the sequential row validation (default).
+   */
+  public void setRowValidationExecutorService(ExecutorService executorService) {
+    this.rowValidationExecutorService = executorService;
+  }
+
   /** @deprecated Please use <code>getPmPageableBeanCollection().getSelectionHandler()</code> or <code>getPmPageableCollection().getSelectionHandler()</code>. */
   @Override
   @Deprecated
@@ -496,6 +525,8 @@ public class PmTableImpl
 
     private Set<RowsToValidate> rowsToValidate = new HashSet<RowsToValidate>();
     private long itemNumWarningLimit = 5000;
+    private int rowBlockSize = 200;
+    private int maxErrorCount = Integer.MAX_VALUE;
 
     /**
      * @param rowValidationDefinitions Specifies the row set(s) to validate.
@@ -537,6 +568,56 @@ public class PmTableImpl
       return IterableUtil.join(otherChildrenToValidate, rows);
     }
 
+    /**
+     * Validates the rows concurrently if a parallel executor is configured for the table
+     * (see {@link PmTableImpl#setRowValidationExecutorService(ExecutorService)}) and all rows
+     * need to be validated.
+     */
+    @Override
+    protected void validateImpl(PmTableImpl<PmBean<?>, ?> pm) throws PmValidationException {
+      ExecutorService parallelExecutorService = pm.rowValidationExecutorService;
+      if (parallelExecutorService == null || !rowsToValidate.contains(RowsToValidate.ALL)) {
+        super.validateImpl(pm);
+        return;
+      }
+
+      for (PmObject d : super.getChildrenToValidate(pm)) {
+        PmValidationApi.validate(d);
+      }
+
+      checkRowNumLimit(pm, pm.getTotalNumOfPmRows());
+      int maxBlocksInProgress = 2 * Runtime.getRuntime().availableProcessors();
+      boolean stopped = new ParallelRowValidation(parallelExecutorService, rowBlockSize, maxBlocksInProgress, maxErrorCount)
+          .validate(pm, pm.getPmPageableCollection());
+      if (stopped && LOG.isDebugEnabled()) {
+        LOG.debug(pm.getPmRelativeName() + ": Row validation stopped after " + maxErrorCount + " error messages.");
+      }
+    }
+
+    /**
+     * @param rowBlockSize The number of rows validated by a single parallel validation task
+     *          (see {@link PmTableImpl#setRowValidationExecutorService(ExecutorService)}). The default is 200.
+     */
+    public void setRowBlockSize(int rowBlockSize) {
+      if (rowBlockSize < 1) {
+        throw new IllegalArgumentException("Row block size needs to be positive: " + rowBlockSize);
+      }
+      this.rowBlockSize = rowBlockSize;
+    }
+
+    /**
+     * Stops the parallel row validation when the given number of error messages is reached.
+     * The messages of the following rows are ignored.
+     *
+     * @param maxErrorCount The max. number of row error messages. Default: no limit.
+     */
+    public void setMaxErrorCount(int maxErrorCount) {
+      if (maxErrorCount < 1) {
+        throw new IllegalArgumentException("Max. error count needs to be positive: " + maxErrorCount);
+      }
+      this.maxErrorCount = maxErrorCount;
+    }
+
     /**
      * If set to <code>false</code> only the added and modified row PMs will be validated.
      * This is the default setting.<br>
@@ -896,7 +977,8 @@ public class PmTableImpl
         PmTableColImpl colImpl = (PmTableColImpl) col;
         if ((colImpl.isSortableConfigured() == Boolean.TRUE) ||
             (colImpl.isSortableConfigured() == null && tableSortable)) {
-          options.addSortOrder(colImpl.getColQueryAttr());
+          SortOrder so = colImpl.makeColSortOrder();
+          options.addSortOrder(so.getAttr().getName(), so);
         }
 
         FilterDefinition fcd = colImpl.createFilterCompareDefinition(ff);
@@ -1,13 +1,23 @@
 package org.pm4j.core.pm.impl.cache;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.PmUtil;
 
+/**
+ * Collects the cache hit, miss, init and eviction counts for each PM class.
+ * <p>
+ * The counters are only maintained if debug logging is enabled for this class.
+ * Otherwise the cache operations are not slowed down by the shared counters.<br>
+ * If trace logging is enabled, the counters get reported each time the
+ * hit, miss or init count of a PM class reaches a square number.
+ */
 // TODO oboede: remove the PM dependency.
 public final class CacheLog {
 
@@ -15,41 +25,75 @@ public final class CacheLog {
 
   private static final Logger LOG = LoggerFactory.getLogger(CacheLog.class);
 
-  private Map<String, Long> pmCacheHitMap = new ConcurrentHashMap<String, Long>();
-  private Map<String, Long> pmCacheInitMap = new ConcurrentHashMap<String, Long>();
+  private final ConcurrentMap<Class<?>, CacheStatistics> pmClassToStatisticsMap = new ConcurrentHashMap<Class<?>, CacheStatistics>();
 
   public final void logPmCacheHit(PmObject pm, String cacheItem) {
-    if (LOG.isTraceEnabled()) {
-      doLog(pm, cacheItem, pmCacheHitMap, "hit");
+    if (LOG.isDebugEnabled()) {
+      long count = getStatistics(pm.getClass()).incHitCount();
+      doLog(pm, cacheItem, count, "hit");
     }
   }
 
-  public final void logPmCacheInit(PmObject pm, String cacheItem) {
-    if (LOG.isTraceEnabled()) {
-      doLog(pm, cacheItem, pmCacheInitMap, "init");
+  public final void logPmCacheMiss(PmObject pm, String cacheItem) {
+    if (LOG.isDebugEnabled()) {
+      long count = getStatistics(pm.getClass()).incMissCount();
+      doLog(pm, cacheItem, count, "miss");
     }
   }
 
-  private final void doLog(PmObject pm, String cacheItem, Map<String, Long> counterMap, String mapKind) {
-    String key = PmUtil.getAbsoluteName(pm) + "-" + cacheItem;
-    Long count = counterMap.get(key);
-    count = (count == null) ? 1L : ++count;
+  public final void logPmCacheInit(PmObject pm, String cacheItem) {
+    if (LOG.isDebugEnabled()) {
+      long count = getStatistics(pm.getClass()).incInitCount();
+      doLog(pm, cacheItem, count, "init");
+    }
+  }
 
-    counterMap.put(key, count);
+  public final void logPmCacheEviction(PmObject pm, String cacheItem) {
+    if (LOG.isDebugEnabled()) {
+      getStatistics(pm.getClass()).incEvictionCount();
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Pm cache eviction for: " + PmUtil.getAbsoluteName(pm) + "-" + cacheItem);
+      }
+    }
+  }
 
-    double countSqrt = Math.sqrt(count);
-    if ((Math.ceil(countSqrt) - countSqrt) == 0) {
-      LOG.trace("Pm cache " + mapKind + "  for: " + key + getHitRatio(key));
+  /**
+   * @param pmClass the PM class to get the statistics for.
+   * @return the cache counters of the given PM class. Never <code>null</code>.<br>
+   *         The counters stay at zero if debug logging is disabled for this class.
+   */
+  public CacheStatistics getStatistics(Class<?> pmClass) {
+    CacheStatistics s = pmClassToStatisticsMap.get(pmClass);
+    if (s == null) {
+      CacheStatistics newStatistics = new CacheStatistics(pmClass);
+      s = pmClassToStatisticsMap.putIfAbsent(pmClass, newStatistics);
+      if (s == null) {
+        s = newStatistics;
+      }
     }
+    return s;
   }
 
-  private String getHitRatio(String key) {
-    Long inits = pmCacheInitMap.get(key);
-    Long hits = pmCacheHitMap.get(key);
-    inits = (inits == null) ? 0 : inits;
-    hits = (hits == null) ? 0 : hits;
+  /**
+   * @return the counters of all PM classes that have used a cache.
+   */
+  public Collection<CacheStatistics> getStatistics() {
+    return new ArrayList<CacheStatistics>(pmClassToStatisticsMap.values());
+  }
+
+  /** Resets the counters of all PM classes. */
+  public void resetStatistics() {
+    pmClassToStatisticsMap.clear();
+  }
 
-    return " hits/inits=" + hits + "/" + inits;
+  private final void doLog(PmObject pm, String cacheItem, long count, String kind) {
+    if (!LOG.isTraceEnabled()) {
+      return;
+    }
+    double countSqrt = Math.sqrt(count);
+    if ((Math.ceil(countSqrt) - countSqrt) == 0) {
+      LOG.trace("Pm cache " + kind + "  for: " + PmUtil.getAbsoluteName(pm) + "-" + cacheItem + " " + getStatistics(pm.getClass()));
+    }
   }
 
 }
@@ -0,0 +1,78 @@
+package org.pm4j.core.pm.impl.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache usage counters of a PM class.
+ * <p>
+ * Provided by {@link CacheLog#getStatistics(Class)}.
+ *
+ * @author olaf boede
+ */
+public final class CacheStatistics {
+
+  private final Class<?> pmClass;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong initCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  CacheStatistics(Class<?> pmClass) {
+    this.pmClass = pmClass;
+  }
+
+  /** @return the PM class the counters are reported for. */
+  public Class<?> getPmClass() {
+    return pmClass;
+  }
+
+  /** @return the number of read operations that found a cached value. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** @return the number of read operations that found no cached value. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /** @return the number of values written to the cache. */
+  public long getInitCount() {
+    return initCount.get();
+  }
+
+  /** @return the number of cached values released because of an expiration or size limit. */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /** Resets all counters. */
+  public void reset() {
+    hitCount.set(0);
+    missCount.set(0);
+    initCount.set(0);
+    evictionCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return pmClass.getName() + ": hits=" + getHitCount() + ", misses=" + getMissCount() + ", inits=" + getInitCount() + ", evictions=" + getEvictionCount();
+  }
+
+  long incHitCount() {
+    return hitCount.incrementAndGet();
+  }
+
+  long incMissCount() {
+    return missCount.incrementAndGet();
+  }
+
+  long incInitCount() {
+    return initCount.incrementAndGet();
+  }
+
+  long incEvictionCount() {
+    return evictionCount.incrementAndGet();
+  }
+
+}
@@ -54,6 +54,7 @@ public abstract class CacheStrategyBase<PM extends PmObjectBase> implements Cach
     PM pm = (PM)ctxt;
     Object v = readRawValue(pm);
     if (v == null) {
+      logPmCacheMiss(pm);
       return NO_CACHE_VALUE;
     } else {
       logPmCacheHit(pm);
@@ -89,4 +90,12 @@ public abstract class CacheStrategyBase<PM extends PmObjectBase> implements Cach
     CacheLog.INSTANCE.logPmCacheInit(pm, cacheName);
   }
 
+  protected void logPmCacheMiss(PmObject pm) {
+    CacheLog.INSTANCE.logPmCacheMiss(pm, cacheName);
+  }
+
+  protected void logPmCacheEviction(PmObject pm) {
+    CacheLog.INSTANCE.logPmCacheEviction(pm, cacheName);
+  }
+
 }
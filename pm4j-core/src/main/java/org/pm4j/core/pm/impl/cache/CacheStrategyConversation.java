@@ -1,44 +1,35 @@
 package org.pm4j.core.pm.impl.cache;
 
-import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
 import org.pm4j.core.pm.impl.PmObjectBase;
-import org.pm4j.core.pm.impl.PmUtil;
 
+/**
+ * Caches the values for the life time of the PM within its conversation.
+ * <p>
+ * The values are stored in the {@link PmCacheSlots} of the PM.
+ */
 public class CacheStrategyConversation extends CacheStrategyBase<PmObjectBase> {
 
-  private final String cacheVarKeyPfx;
+  private final CacheKind cacheKind;
 
-  public CacheStrategyConversation(String cacheName, String cacheVarKeyPfx) {
+  public CacheStrategyConversation(String cacheName, CacheKind cacheKind) {
     super(cacheName);
-    this.cacheVarKeyPfx = "pm.sc." + cacheVarKeyPfx + "_";
+    this.cacheKind = cacheKind;
   }
 
   @Override
   protected Object readRawValue(PmObjectBase pm) {
-    return pm.getPmConversation().getPmNamedObject(getCacheIdentity(pm));
+    return pm.zz_getPmCacheSlots().get(cacheKind, PmCacheSlots.CONVERSATION_GENERATION);
   }
 
   @Override
   protected void writeRawValue(PmObjectBase pm, Object value) {
-    pm.getPmConversation().setPmNamedObject(getCacheIdentity(pm), value);
+    pm.zz_getPmCacheSlots().set(cacheKind, PmCacheSlots.CONVERSATION_GENERATION, value);
   }
 
   @Override
   protected void clearImpl(PmObjectBase pm) {
-    pm.getPmConversation().setPmNamedObject(getCacheIdentity(pm), null);
+    pm.zz_getPmCacheSlots().clear(cacheKind);
   }
 
-  /**
-   * Provides an identity key for cached items of the given PM.
-   *
-   * @param pm
-   *          The PM to get the key for.
-   * @param forCache
-   *          The special cache of the PM to get the key for.
-   * @return A unique key
-   */
-  private String getCacheIdentity(PmObject pm) {
-    return cacheVarKeyPfx + PmUtil.getAbsoluteName(pm)
-        + Integer.toHexString(System.identityHashCode(pm));
-  }
 }
@@ -0,0 +1,150 @@
+package org.pm4j.core.pm.impl.cache;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pm4j.core.pm.PmConversation;
+import org.pm4j.core.pm.annotation.PmCacheCfg2.Clear;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
+import org.pm4j.core.pm.impl.PmObjectBase;
+
+/**
+ * Caches the values within the PM. The number of cached values is limited per conversation.
+ * <p>
+ * Each strategy instance registers the PMs with a cached value in a conversation scoped
+ * list of recently used PMs. If the list exceeds the maximal number of entries, the value
+ * of the least recently used PM gets released.
+ * <p>
+ * The list references the PMs weakly. It does not prevent released PMs from being garbage collected.
+ *
+ * @author olaf boede
+ */
+public class CacheStrategyLru extends CacheStrategyBase<PmObjectBase> {
+
+  private final CacheKind cacheKind;
+  private final int maxEntries;
+  /** The conversation named object key of the recently used PM list. */
+  private final String lruMapKey;
+
+  public CacheStrategyLru(String cacheName, CacheKind cacheKind, Clear cacheClear, int maxEntries) {
+    super(cacheName, cacheClear);
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("The cache needs to support at least one entry. Found value: " + maxEntries);
+    }
+    this.cacheKind = cacheKind;
+    this.maxEntries = maxEntries;
+    this.lruMapKey = "pm.lru." + cacheName + "_" + Integer.toHexString(System.identityHashCode(this));
+  }
+
+  @Override
+  protected Object readRawValue(PmObjectBase pm) {
+    Object v = pm.zz_getPmCacheSlots().get(cacheKind, PmCacheSlots.CONVERSATION_GENERATION);
+    if (v != null) {
+      LruMap lruMap = getLruMap(pm);
+      synchronized (lruMap) {
+        // touches the entry
+        lruMap.get(new PmRef(pm, null));
+      }
+    }
+    return v;
+  }
+
+  @Override
+  protected void writeRawValue(PmObjectBase pm, Object value) {
+    pm.zz_getPmCacheSlots().set(cacheKind, PmCacheSlots.CONVERSATION_GENERATION, value);
+    LruMap lruMap = getLruMap(pm);
+    synchronized (lruMap) {
+      lruMap.expungeCollectedPms();
+      lruMap.put(new PmRef(pm, lruMap.queue), Boolean.TRUE);
+    }
+  }
+
+  @Override
+  protected void clearImpl(PmObjectBase pm) {
+    pm.zz_getPmCacheSlots().clear(cacheKind);
+    LruMap lruMap = getLruMap(pm);
+    synchronized (lruMap) {
+      lruMap.remove(new PmRef(pm, null));
+    }
+  }
+
+  private LruMap getLruMap(PmObjectBase pm) {
+    PmConversation conversation = pm.getPmConversation();
+    synchronized (conversation) {
+      LruMap lruMap = (LruMap) conversation.getPmNamedObject(lruMapKey);
+      if (lruMap == null) {
+        lruMap = new LruMap();
+        conversation.setPmNamedObject(lruMapKey, lruMap);
+      }
+      return lruMap;
+    }
+  }
+
+  /**
+   * The recently used PMs. Sorted from the least to the most recently used one.
+   */
+  private final class LruMap extends LinkedHashMap<PmRef, Boolean> {
+    private static final long serialVersionUID = 1L;
+    /** Provides the references of garbage collected PMs. */
+    private final transient ReferenceQueue<PmObjectBase> queue = new ReferenceQueue<PmObjectBase>();
+
+    LruMap() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<PmRef, Boolean> eldest) {
+      if (size() > maxEntries) {
+        PmObjectBase evictedPm = eldest.getKey().get();
+        if (evictedPm != null) {
+          evictedPm.zz_getPmCacheSlots().clear(cacheKind);
+          logPmCacheEviction(evictedPm);
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /** Removes the entries of PMs that are already garbage collected. */
+    void expungeCollectedPms() {
+      Reference<? extends PmObjectBase> ref;
+      while ((ref = queue.poll()) != null) {
+        remove(ref);
+      }
+    }
+  }
+
+  /**
+   * A weak PM reference that identifies the PM by identity.
+   * A collected reference is only equal to itself.
+   */
+  private static final class PmRef extends WeakReference<PmObjectBase> {
+    private final int hashCode;
+
+    PmRef(PmObjectBase pm, ReferenceQueue<PmObjectBase> queue) {
+      super(pm, queue);
+      this.hashCode = System.identityHashCode(pm);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof PmRef)) {
+        return false;
+      }
+      PmObjectBase pm = get();
+      return (pm != null) && (pm == ((PmRef) obj).get());
+    }
+  }
+
+}
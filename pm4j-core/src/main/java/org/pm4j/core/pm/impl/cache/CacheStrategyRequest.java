@@ -1,58 +1,110 @@
 package org.pm4j.core.pm.impl.cache;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.annotation.PmCacheCfg2.Clear;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
 import org.pm4j.core.pm.impl.PmConversationImpl;
 import org.pm4j.core.pm.impl.PmObjectBase;
-import org.pm4j.core.pm.impl.PmUtil;
+import org.pm4j.core.pm.impl.connector.PmToViewTechnologyConnector;
 
+/**
+ * Caches the values within the current request.
+ * <p>
+ * The values are stored in the {@link PmCacheSlots} of the PM. Each request gets its own
+ * generation number. It is stored as a single request attribute. Values written within
+ * another request generation are ignored.<br>
+ * A cache hit needs only a single request attribute lookup with a constant key.
+ * <p>
+ * Threads without access to the request attributes (e.g. worker threads of a parallel
+ * table validation) may use the generation of the request that started them.
+ * See {@link #_setThreadRequestGeneration(Long)}.
+ */
 public class CacheStrategyRequest extends CacheStrategyBase<PmObjectBase> {
 
-  private final String cacheVarKeyPfx;
+  /** The name of the request attribute that holds the request generation. */
+  public static final String REQUEST_GENERATION_ATTR = "pm.rc.generation";
+
+  /** Provides the generation numbers. Starts after {@link PmCacheSlots#CONVERSATION_GENERATION}. */
+  private static final AtomicLong generationCounter = new AtomicLong(PmCacheSlots.CONVERSATION_GENERATION);
+
+  /** A request generation handed over to a thread that has no access to the request attributes. */
+  private static final ThreadLocal<Long> threadRequestGeneration = new ThreadLocal<Long>();
+
+  private final CacheKind cacheKind;
 
-  public CacheStrategyRequest(String cacheName, String cacheVarKeyPfx) {
+  public CacheStrategyRequest(String cacheName, CacheKind cacheKind) {
     super(cacheName);
-    this.cacheVarKeyPfx = "pm.rc." + cacheVarKeyPfx + "_";
+    this.cacheKind = cacheKind;
   }
-  
-  public CacheStrategyRequest(String cacheName, String cacheVarKeyPfx, Clear cacheClear) {
+
+  public CacheStrategyRequest(String cacheName, CacheKind cacheKind, Clear cacheClear) {
     super(cacheName, cacheClear);
-    this.cacheVarKeyPfx = "pm.rc." + cacheVarKeyPfx + "_";
+    this.cacheKind = cacheKind;
   }
 
   @Override
   protected Object readRawValue(PmObjectBase pm) {
-    return pmConversationImplOf(pm).getPmToViewTechnologyConnector()
-              .readRequestAttribute(getCacheIdentity(pm));
+    return pm.zz_getPmCacheSlots().get(cacheKind, getRequestGeneration(pm));
   }
 
   @Override
   protected void writeRawValue(PmObjectBase pm, Object value) {
-    pmConversationImplOf(pm).getPmToViewTechnologyConnector().setRequestAttribute(
-        getCacheIdentity(pm), value);
+    pm.zz_getPmCacheSlots().set(cacheKind, getRequestGeneration(pm), value);
   }
 
   @Override
   protected void clearImpl(PmObjectBase pm) {
-    pmConversationImplOf(pm).getPmToViewTechnologyConnector().setRequestAttribute(
-        getCacheIdentity(pm), null);
+    pm.zz_getPmCacheSlots().clear(cacheKind);
   }
 
-  private PmConversationImpl pmConversationImplOf(PmObject pm) {
-    return (PmConversationImpl)pm.getPmConversation();
+  /**
+   * Internal method. Provides the request generation to pass to
+   * {@link #_setThreadRequestGeneration(Long)} of another thread.
+   *
+   * @param pm a PM of the conversation that handles the current request.
+   * @return the generation of the current request.
+   */
+  public static long _getRequestGeneration(PmObject pm) {
+    return getRequestGeneration((PmObjectBase) pm);
   }
 
   /**
-   * Provides an identity key for cached items of the given PM.
+   * Internal method. Lets the current thread use the given request generation instead
+   * of reading it from the request attributes.
    *
-   * @param pm
-   *          The PM to get the key for.
-   * @param forCache
-   *          The special cache of the PM to get the key for.
-   * @return A unique key
+   * @param generation the generation provided by {@link #_getRequestGeneration(PmObject)}.
+   *          <code>null</code> switches back to the request attribute.
    */
-  private String getCacheIdentity(PmObject pm) {
-    return cacheVarKeyPfx + PmUtil.getAbsoluteName(pm)
-        + Integer.toHexString(System.identityHashCode(pm));
+  public static void _setThreadRequestGeneration(Long generation) {
+    if (generation != null) {
+      threadRequestGeneration.set(generation);
+    } else {
+      threadRequestGeneration.remove();
+    }
   }
+
+  /**
+   * Provides the generation of the current request.<br>
+   * A new generation gets started if the request does not yet have one.
+   * <p>
+   * If the view technology does not support request attributes, each call
+   * starts a new generation. In this case nothing gets cached.
+   */
+  private static long getRequestGeneration(PmObjectBase pm) {
+    Long threadGeneration = threadRequestGeneration.get();
+    if (threadGeneration != null) {
+      return threadGeneration;
+    }
+
+    PmToViewTechnologyConnector connector = ((PmConversationImpl)pm.getPmConversation()).getPmToViewTechnologyConnector();
+    Long generation = (Long) connector.readRequestAttribute(REQUEST_GENERATION_ATTR);
+    if (generation == null) {
+      generation = generationCounter.incrementAndGet();
+      connector.setRequestAttribute(REQUEST_GENERATION_ATTR, generation);
+    }
+    return generation;
+  }
+
 }
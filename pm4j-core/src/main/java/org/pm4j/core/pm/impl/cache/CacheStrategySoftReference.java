@@ -0,0 +1,50 @@
+package org.pm4j.core.pm.impl.cache;
+
+import java.lang.ref.SoftReference;
+
+import org.pm4j.core.pm.annotation.PmCacheCfg2.Clear;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
+import org.pm4j.core.pm.impl.PmObjectBase;
+
+/**
+ * Caches the values within the PM using a {@link SoftReference}.
+ * <p>
+ * The garbage collector may release the cached values if the memory gets short.
+ *
+ * @author olaf boede
+ */
+public class CacheStrategySoftReference extends CacheStrategyBase<PmObjectBase> {
+
+  private final CacheKind cacheKind;
+
+  public CacheStrategySoftReference(String cacheName, CacheKind cacheKind, Clear cacheClear) {
+    super(cacheName, cacheClear);
+    this.cacheKind = cacheKind;
+  }
+
+  @Override
+  protected Object readRawValue(PmObjectBase pm) {
+    SoftReference<?> ref = (SoftReference<?>) pm.zz_getPmCacheSlots().get(cacheKind, PmCacheSlots.CONVERSATION_GENERATION);
+    if (ref == null) {
+      return null;
+    }
+    Object v = ref.get();
+    if (v == null) {
+      // released by the garbage collector
+      pm.zz_getPmCacheSlots().clear(cacheKind);
+      logPmCacheEviction(pm);
+    }
+    return v;
+  }
+
+  @Override
+  protected void writeRawValue(PmObjectBase pm, Object value) {
+    pm.zz_getPmCacheSlots().set(cacheKind, PmCacheSlots.CONVERSATION_GENERATION, new SoftReference<Object>(value));
+  }
+
+  @Override
+  protected void clearImpl(PmObjectBase pm) {
+    pm.zz_getPmCacheSlots().clear(cacheKind);
+  }
+
+}
@@ -0,0 +1,71 @@
+package org.pm4j.core.pm.impl.cache;
+
+import org.pm4j.core.pm.annotation.PmCacheCfg2.Clear;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
+import org.pm4j.core.pm.impl.PmObjectBase;
+
+/**
+ * Caches the values within the PM for a limited time span.
+ * <p>
+ * An expired value gets released with the next read operation.
+ *
+ * @author olaf boede
+ */
+public class CacheStrategyTimeToLive extends CacheStrategyBase<PmObjectBase> {
+
+  private final CacheKind cacheKind;
+  private final long timeToLiveMillis;
+
+  public CacheStrategyTimeToLive(String cacheName, CacheKind cacheKind, Clear cacheClear, long timeToLiveMillis) {
+    super(cacheName, cacheClear);
+    if (timeToLiveMillis < 0) {
+      throw new IllegalArgumentException("The cache time to live can't be negative. Found value: " + timeToLiveMillis);
+    }
+    this.cacheKind = cacheKind;
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  @Override
+  protected Object readRawValue(PmObjectBase pm) {
+    Entry e = (Entry) pm.zz_getPmCacheSlots().get(cacheKind, PmCacheSlots.CONVERSATION_GENERATION);
+    if (e == null) {
+      return null;
+    }
+    if (e.expiresAt < currentTimeMillis()) {
+      pm.zz_getPmCacheSlots().clear(cacheKind);
+      logPmCacheEviction(pm);
+      return null;
+    }
+    return e.value;
+  }
+
+  @Override
+  protected void writeRawValue(PmObjectBase pm, Object value) {
+    pm.zz_getPmCacheSlots().set(cacheKind, PmCacheSlots.CONVERSATION_GENERATION, new Entry(value, currentTimeMillis() + timeToLiveMillis));
+  }
+
+  @Override
+  protected void clearImpl(PmObjectBase pm) {
+    pm.zz_getPmCacheSlots().clear(cacheKind);
+  }
+
+  /**
+   * The time source used for value expiration. May be overridden for testing purposes.
+   *
+   * @return the current time in milliseconds.
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final long expiresAt;
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+package org.pm4j.core.pm.impl.cache;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
+
+/**
+ * Storage for the request and conversation scoped cache values of a single PM.
+ * <p>
+ * Each {@link CacheKind} has its own slot. A slot stores the value together with
+ * the generation it was written for. A read for another generation provides
+ * <code>null</code>. This way all request scoped values get invalid as soon as the
+ * next request generation starts, without clearing any slot.
+ * <p>
+ * Conversation scoped values use the generation {@link #CONVERSATION_GENERATION}.
+ * <p>
+ * The slots may be read and written by concurrent threads. A slot holds an immutable
+ * value/generation pair. A reader never sees a value together with the generation of
+ * another write.
+ *
+ * @author olaf boede
+ */
+public final class PmCacheSlots {
+
+  /** The generation used for values that don't expire with the request. */
+  public static final long CONVERSATION_GENERATION = 0;
+
+  private static final int SLOT_COUNT = CacheKind.values().length;
+
+  private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<Slot>(SLOT_COUNT);
+
+  /**
+   * @param kind the cache to read.
+   * @param generation the generation the value should belong to.
+   * @return the stored value or <code>null</code> if there is no value for the given generation.
+   */
+  public Object get(CacheKind kind, long generation) {
+    Slot slot = slots.get(kind.ordinal());
+    return (slot != null && slot.generation == generation)
+        ? slot.value
+        : null;
+  }
+
+  /**
+   * @param kind the cache to write.
+   * @param generation the generation the value belongs to.
+   * @param value the value to store.
+   */
+  public void set(CacheKind kind, long generation, Object value) {
+    slots.set(kind.ordinal(), new Slot(value, generation));
+  }
+
+  /**
+   * @param kind the cache to clear.
+   */
+  public void clear(CacheKind kind) {
+    slots.set(kind.ordinal(), null);
+  }
+
+  /** A value together with the generation it was written for. */
+  private static final class Slot {
+    final Object value;
+    final long generation;
+
+    Slot(Object value, long generation) {
+      this.value = value;
+      this.generation = generation;
+    }
+  }
+
+}
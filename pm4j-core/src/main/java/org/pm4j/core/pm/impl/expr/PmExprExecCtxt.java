@@ -1,6 +1,7 @@
 package org.pm4j.core.pm.impl.expr;
 
 import org.pm4j.common.expr.ExprExecCtxt;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
 import org.pm4j.core.pm.PmConversation;
 import org.pm4j.core.pm.PmDefaults;
 import org.pm4j.core.pm.PmObject;
@@ -11,7 +12,8 @@ import org.pm4j.core.pm.PmObject;
  * It extends the based class by defining
  * <ul>
  *  <li>a context PM that is used to resolve named object references and</li>
- *  <li>obtains an expression syntax version using the {@link PmDefaults} provided by the {@link PmConversation}.</li>
+ *  <li>obtains an expression syntax version and the {@link BeanAttrAccessorFactory} using the {@link PmDefaults}
+ *      provided by the {@link PmConversation}.</li>
  * </ul>
  *
  * @author olaf boede
@@ -33,6 +35,11 @@ public class PmExprExecCtxt extends ExprExecCtxt {
     return pm;
   }
 
+  @Override
+  public BeanAttrAccessorFactory getBeanAttrAccessorFactory() {
+    return pm.getPmConversation().getPmDefaults().getBeanAttrAccessorFactory();
+  }
+
   @Override
   public ExprExecCtxt makeSubCtxt() {
     return new PmExprExecCtxt(pm);
@@ -9,8 +9,11 @@ import org.pm4j.common.expr.OptionalExpression;
 import org.pm4j.common.expr.OptionalExpressionBase;
 import org.pm4j.common.expr.parser.ParseCtxt;
 import org.pm4j.common.util.reflection.BeanAttrAccessor;
-import org.pm4j.common.util.reflection.BeanAttrAccessorImpl;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
+import org.pm4j.common.util.reflection.ClassInlineCache;
+import org.pm4j.common.util.reflection.ClassInlineCachePerFactory;
 import org.pm4j.common.util.reflection.ReflectionException;
+import org.pm4j.core.pm.PmDefaults;
 
 /**
  * An expression that gets initialized by a name that may represent
@@ -22,7 +25,11 @@ import org.pm4j.common.util.reflection.ReflectionException;
  */
 public class PmVariableOrAttributeExpr extends OptionalExpressionBase<ExprExecCtxt> {
 
-  private Expression concreteExpr;
+  /**
+   * The attribute or variable expressions for the classes this expression was executed on.
+   * Separated by the bean attribute accessor factory used to create the attribute expressions.
+   */
+  private final ClassInlineCachePerFactory<Expression> classToExprCache = new ClassInlineCachePerFactory<Expression>();
 
   public PmVariableOrAttributeExpr(ParseCtxt ctxt, NameWithModifier nameWithModifier) {
     super(ctxt, nameWithModifier);
@@ -30,44 +37,67 @@ public class PmVariableOrAttributeExpr extends OptionalExpressionBase<ExprExecCt
 
   @Override
   protected Object execImpl(ExprExecCtxt ctxt) {
-    ensureResolver(ctxt);
-    try {
-      return concreteExpr.exec(ctxt);
-    }
-    catch (ReflectionException e) {
-      // TODO: try it again with a new resolver for the concrete start object.
-      throw e;
-    }
+    Expression concreteExpr = ensureResolver(ctxt);
+    return (concreteExpr != null)
+        ? concreteExpr.exec(ctxt)
+        : null;
   }
 
   @Override
   protected void execAssignImpl(ExprExecCtxt ctxt, Object value) {
-    ensureResolver(ctxt);
+    Expression concreteExpr = ensureResolver(ctxt);
     if (concreteExpr != null) {
       concreteExpr.execAssign(ctxt, value);
     }
   }
 
-  private void ensureResolver(ExprExecCtxt ctxt) {
-    // TODO: enhance performance by checking if the current expression matches...
-    BeanAttrAccessor accessor = null;
+  /**
+   * Provides the attribute or variable expression for the class of the current value.<br>
+   * The reflection based lookup is done only once for each class.
+   *
+   * @return the expression or <code>null</code> if the optional name can't be resolved.
+   */
+  private Expression ensureResolver(ExprExecCtxt ctxt) {
     Class<?> classOfCurrentValue = ctxt.getCurrentValue().getClass();
-    try {
-      String name = nameWithModifier.getName();
-      accessor = new BeanAttrAccessorImpl(classOfCurrentValue, name);
-      concreteExpr = new AttributeExpr(getSyntaxVersion(), nameWithModifier, accessor);
-    }
-    catch (ReflectionException e) {
-      if (ctxt instanceof PmExprExecCtxt) {
-        concreteExpr = new PmVariableExpr(getSyntaxVersion(), nameWithModifier);
+    boolean isPmCtxt = ctxt instanceof PmExprExecCtxt;
+    BeanAttrAccessorFactory factory = getPmDefaults(ctxt).getBeanAttrAccessorFactory();
+    ClassInlineCache<Expression> cache = classToExprCache.forFactory(factory);
+    Expression concreteExpr = cache.get(classOfCurrentValue);
+
+    // A variable expression can only be used in a PM context.
+    if (concreteExpr == null || (concreteExpr instanceof PmVariableExpr && !isPmCtxt)) {
+      try {
+        String name = nameWithModifier.getName();
+        BeanAttrAccessor accessor = factory.create(classOfCurrentValue, name);
+        concreteExpr = new AttributeExpr(getSyntaxVersion(), nameWithModifier, accessor);
+        cache.put(classOfCurrentValue, concreteExpr);
       }
-      else {
-        if (! nameWithModifier.isOptional()) {
-          throw new ExprExecExeption(ctxt, "Unable to resolve '" + nameWithModifier + "' in class '" +
-                                            classOfCurrentValue + "'.", e);
+      catch (ReflectionException e) {
+        if (isPmCtxt) {
+          concreteExpr = new PmVariableExpr(getSyntaxVersion(), nameWithModifier);
+          cache.put(classOfCurrentValue, concreteExpr);
+        }
+        else {
+          if (! nameWithModifier.isOptional()) {
+            throw new ExprExecExeption(ctxt, "Unable to resolve '" + nameWithModifier + "' in class '" +
+                                              classOfCurrentValue + "'.", e);
+          }
+          concreteExpr = null;
         }
       }
     }
+
+    return concreteExpr;
+  }
+
+  /**
+   * @return the defaults of the conversation of the context PM. The global defaults if the expression
+   *         gets executed outside of a PM context.
+   */
+  private static PmDefaults getPmDefaults(ExprExecCtxt ctxt) {
+    return (ctxt instanceof PmExprExecCtxt)
+        ? ((PmExprExecCtxt) ctxt).getPm().getPmConversation().getPmDefaults()
+        : PmDefaults.getInstance();
   }
 
   public static OptionalExpression parse(ParseCtxt ctxt) {
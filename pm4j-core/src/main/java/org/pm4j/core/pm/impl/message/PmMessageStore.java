@@ -0,0 +1,231 @@
+package org.pm4j.core.pm.impl.message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.pm4j.core.pm.PmMessage;
+import org.pm4j.core.pm.PmMessage.Severity;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.impl.PmCommandImpl;
+
+/**
+ * The message container of a conversation.
+ * <p>
+ * Provides the messages in the order they were added. The messages are indexed by their PM
+ * and by the PM tree they belong to. Thus the message queries for a single PM
+ * or a PM sub tree don't need to scan all messages of the conversation.
+ * <p>
+ * Read operations don't block. Modifications are serialized.
+ * <p>
+ * The PM tree index is based on the PM parent chain at the time a message gets added.
+ *
+ * @author olaf boede
+ */
+public class PmMessageStore {
+
+  /** Message sequence number to message maps provide the messages in insertion order. */
+  private final ConcurrentSkipListMap<Long, Entry> allMessages = new ConcurrentSkipListMap<Long, Entry>();
+  private final ConcurrentMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>> pmToMessages = new ConcurrentHashMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>>();
+  /** Contains for each PM the messages of the PM and all its (direct and indirect) children. */
+  private final ConcurrentMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>> treePmToMessages = new ConcurrentHashMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>>();
+  /** Command messages need a special handling because of the command template relation (see {@link PmMessage#isMessageFor(PmObject)}). */
+  private final ConcurrentSkipListMap<Long, PmMessage> commandMessages = new ConcurrentSkipListMap<Long, PmMessage>();
+  private long nextSeq;
+
+  /**
+   * @param message The message to add.
+   */
+  public synchronized void add(PmMessage message) {
+    Long seq = nextSeq++;
+    List<PmObject> treePms = new ArrayList<PmObject>();
+    for (PmObject p = message.getPm(); p != null; p = p.getPmParent()) {
+      treePms.add(p);
+    }
+
+    allMessages.put(seq, new Entry(message, treePms));
+    if (message.getPm() != null) {
+      getOrCreate(pmToMessages, message.getPm()).put(seq, message);
+    }
+    for (PmObject p : treePms) {
+      getOrCreate(treePmToMessages, p).put(seq, message);
+    }
+    if (message.getPm() instanceof PmCommandImpl) {
+      commandMessages.put(seq, message);
+    }
+  }
+
+  /**
+   * Removes the message.
+   *
+   * @param message The message to remove.
+   * @return <code>true</code> if the message was found.
+   */
+  public synchronized boolean remove(PmMessage message) {
+    Long seq = findSeq(message);
+    if (seq == null) {
+      return false;
+    }
+
+    Entry e = allMessages.remove(seq);
+    if (message.getPm() != null) {
+      removeFromIndex(pmToMessages, message.getPm(), seq);
+    }
+    for (PmObject p : e.treePms) {
+      removeFromIndex(treePmToMessages, p, seq);
+    }
+    commandMessages.remove(seq);
+    return true;
+  }
+
+  /**
+   * Removes all messages.
+   */
+  public synchronized void clear() {
+    allMessages.clear();
+    pmToMessages.clear();
+    treePmToMessages.clear();
+    commandMessages.clear();
+  }
+
+  /**
+   * @return <code>true</code> if there is no message.
+   */
+  public boolean isEmpty() {
+    return allMessages.isEmpty();
+  }
+
+  /**
+   * Provides the messages for a PM.
+   *
+   * @param forPm The PM to get the messages for (see {@link PmMessage#isMessageFor(PmObject)}).
+   *          If <code>null</code> is passed here, the messages for all PMs will be returned.
+   * @param severity The severity of the messages to get. If <code>null</code> is passed here, all
+   *          messages will be returned.
+   * @return The messages in the order they were added. A new list that may be modified by the caller.
+   */
+  public List<PmMessage> getMessages(PmObject forPm, Severity severity) {
+    if (forPm == null) {
+      // The severity is not indexed because it may be changed after adding the message.
+      List<PmMessage> list = new ArrayList<PmMessage>();
+      for (Entry e : allMessages.values()) {
+        if (severity == null || e.message.getSeverity() == severity) {
+          list.add(e.message);
+        }
+      }
+      return list;
+    }
+
+    if (forPm instanceof PmCommandImpl) {
+      return filter(commandMessages.values(), forPm, severity, false);
+    }
+
+    ConcurrentSkipListMap<Long, PmMessage> pmMessages = pmToMessages.get(forPm);
+    return pmMessages != null
+        ? filter(pmMessages.values(), null, severity, false)
+        : new ArrayList<PmMessage>();
+  }
+
+  /**
+   * Provides the messages for a PM and all its children.
+   *
+   * @param rootPm The root of the PM tree to get the messages for.
+   * @param minSeverity The minimal severity of the messages to get.
+   * @return The messages in the order they were added. A new list that may be modified by the caller.
+   */
+  public List<PmMessage> getTreeMessages(PmObject rootPm, Severity minSeverity) {
+    ConcurrentSkipListMap<Long, PmMessage> treeMessages = treePmToMessages.get(rootPm);
+    if (!(rootPm instanceof PmCommandImpl)) {
+      return treeMessages != null
+          ? filter(treeMessages.values(), null, minSeverity, true)
+          : new ArrayList<PmMessage>();
+    }
+
+    // Merge the tree messages with the messages of related commands.
+    TreeMap<Long, PmMessage> merged = new TreeMap<Long, PmMessage>();
+    if (treeMessages != null) {
+      merged.putAll(treeMessages);
+    }
+    for (Map.Entry<Long, PmMessage> e : commandMessages.entrySet()) {
+      if (e.getValue().isMessageFor(rootPm)) {
+        merged.put(e.getKey(), e.getValue());
+      }
+    }
+    return filter(merged.values(), null, minSeverity, true);
+  }
+
+  private static List<PmMessage> filter(Collection<PmMessage> messages, PmObject forPm, Severity severity, boolean orHigher) {
+    List<PmMessage> list = new ArrayList<PmMessage>();
+    for (PmMessage m : messages) {
+      if ((forPm == null || m.isMessageFor(forPm)) &&
+          (severity == null ||
+           (orHigher ? m.getSeverity().ordinal() >= severity.ordinal() : m.getSeverity() == severity))) {
+        list.add(m);
+      }
+    }
+    return list;
+  }
+
+  /** Finds the first occurrence of the given message instance. */
+  private Long findSeq(PmMessage message) {
+    if (message.getPm() == null) {
+      for (Map.Entry<Long, Entry> e : allMessages.entrySet()) {
+        if (e.getValue().message == message) {
+          return e.getKey();
+        }
+      }
+      return null;
+    }
+
+    Map<Long, PmMessage> candidates = pmToMessages.get(message.getPm());
+    if (candidates != null) {
+      for (Map.Entry<Long, PmMessage> e : candidates.entrySet()) {
+        if (e.getValue() == message) {
+          return e.getKey();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static ConcurrentSkipListMap<Long, PmMessage> getOrCreate(ConcurrentMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>> index, PmObject pm) {
+    ConcurrentSkipListMap<Long, PmMessage> map = index.get(pm);
+    if (map == null) {
+      map = new ConcurrentSkipListMap<Long, PmMessage>();
+      index.put(pm, map);
+    }
+    return map;
+  }
+
+  private static void removeFromIndex(ConcurrentMap<PmObject, ConcurrentSkipListMap<Long, PmMessage>> index, PmObject pm, Long seq) {
+    ConcurrentSkipListMap<Long, PmMessage> map = index.get(pm);
+    if (map != null) {
+      map.remove(seq);
+      if (map.isEmpty()) {
+        index.remove(pm);
+      }
+    }
+  }
+
+  /** A message and the PMs of the tree index that reference it. */
+  private static final class Entry {
+    final PmMessage message;
+    final List<PmObject> treePms;
+
+    Entry(PmMessage message, List<PmObject> treePms) {
+      this.message = message;
+      this.treePms = treePms;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getMessages(null, null).toString();
+  }
+
+}
@@ -11,6 +11,7 @@ import java.util.List;
 import org.pm4j.common.modifications.ModificationHandler;
 import org.pm4j.common.modifications.Modifications;
 import org.pm4j.common.pageable.PageableCollection;
+import org.pm4j.common.pageable.inmem.InMemCollectionBase;
 import org.pm4j.common.pageable.inmem.InMemCollectionImpl;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.QueryParams;
@@ -306,7 +307,7 @@ public class PmBeanCollection<T_PM extends PmBean<T_BEAN>, T_BEAN> extends Prope
     private final PmChangeListener itemHierarchyChangeListener = new PmChangeListener();
 
     public PmBeanCollectionModificationHandler() {
-      PmEventApi.addHierarchyListener(pmCtxt, PmEvent.VALUE_CHANGED_STATE_CHANGE, itemHierarchyChangeListener);
+      PmEventApi.addHierarchyListener(pmCtxt, PmEvent.VALUE_CHANGED_STATE_CHANGE | PmEvent.VALUE_CHANGE, itemHierarchyChangeListener);
     }
 
     @Override
@@ -431,7 +432,10 @@ public class PmBeanCollection<T_PM extends PmBean<T_BEAN>, T_BEAN> extends Prope
       }
     };
 
-    /** Listens for changed state changes in the subtree and updates the registered changes accordingly. */
+    /**
+     * Listens for changed state changes in the subtree and updates the registered changes accordingly.
+     * Reports value changes of unchanged items to an in-memory bean collection.
+     */
     private class PmChangeListener implements PmEventListener {
       @SuppressWarnings("unchecked")
       @Override
@@ -448,6 +452,11 @@ public class PmBeanCollection<T_PM extends PmBean<T_BEAN>, T_BEAN> extends Prope
         // Solution approach: Modifications allow to distinguish between direct master row and details modifications.
         if (itemPm != null && itemPm.isPmValueChanged()) {
           modificationHandler.registerUpdatedItem((T_PM) itemPm, itemPm.isPmValueChanged());
+        } else if (itemPm != null &&
+                   (event.getChangeMask() & (PmEvent.VALUE_CHANGE | PmEvent.VALUE_CHANGED_STATE_CHANGE)) != 0 &&
+                   beanCollection instanceof InMemCollectionBase) {
+          // The item stays registered as updated. But filters need to consider the current values.
+          ((InMemCollectionBase<T_BEAN>) beanCollection).registerItemValueChange(((T_PM) itemPm).getPmBean());
         }
       }
 
@@ -1,5 +1,10 @@
 package org.pm4j.core.pm.impl.pathresolver;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.commons.lang.StringUtils;
 import org.pm4j.common.expr.ExprExecCtxt;
 import org.pm4j.common.expr.Expression;
@@ -19,6 +24,21 @@ import org.pm4j.core.pm.impl.expr.PmExprExecCtxt;
  */
 public class PmExpressionPathResolver extends PathResolverBase {
 
+  /** The maximal number of parsed expressions kept for each syntax version. */
+  static final int MAX_CACHED_EXPRESSIONS = 2000;
+
+  /**
+   * Parsed expressions for each syntax version.<br>
+   * The expressions are thread safe. They cache the reflection data for the classes
+   * they get executed on.
+   */
+  private static final Map<SyntaxVersion, ConcurrentMap<String, Expression>> syntaxToExprCacheMap = new EnumMap<SyntaxVersion, ConcurrentMap<String, Expression>>(SyntaxVersion.class);
+  static {
+    for (SyntaxVersion v : SyntaxVersion.values()) {
+      syntaxToExprCacheMap.put(v, new ConcurrentHashMap<String, Expression>());
+    }
+  }
+
   private Expression expression;
 
   /**
@@ -31,13 +51,27 @@ public class PmExpressionPathResolver extends PathResolverBase {
   }
 
   /**
+   * The string gets parsed only once for each syntax version. The parsed expression
+   * gets re-used for subsequent calls.
+   *
    * @param exprString The string to parse.
    * @param syntaxVersion The expression syntax version to use.
    */
   public static PathResolver parse(String exprString, SyntaxVersion syntaxVersion) {
-    return StringUtils.isEmpty(exprString)
-            ? PassThroughPathResolver.INSTANCE
-            : new PmExpressionPathResolver(PathExpressionChain.parse(exprString, syntaxVersion), syntaxVersion);
+    if (StringUtils.isEmpty(exprString)) {
+      return PassThroughPathResolver.INSTANCE;
+    }
+
+    ConcurrentMap<String, Expression> exprCache = syntaxToExprCacheMap.get(syntaxVersion);
+    Expression expr = exprCache.get(exprString);
+    if (expr == null) {
+      expr = PathExpressionChain.parse(exprString, syntaxVersion);
+      // Prevents unlimited growth in case of generated expression strings.
+      if (exprCache.size() < MAX_CACHED_EXPRESSIONS) {
+        exprCache.putIfAbsent(exprString, expr);
+      }
+    }
+    return new PmExpressionPathResolver(expr, syntaxVersion);
   }
 
   /**
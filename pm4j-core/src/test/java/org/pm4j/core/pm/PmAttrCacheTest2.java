@@ -1,5 +1,8 @@
 package org.pm4j.core.pm;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.Test;
 import org.pm4j.core.pm.annotation.PmAttrCfg;
 import org.pm4j.core.pm.annotation.PmBeanCfg;
@@ -11,6 +14,7 @@ import org.pm4j.core.pm.annotation.PmCacheCfg2.Observe;
 import org.pm4j.core.pm.api.PmCacheApi;
 import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
 import org.pm4j.core.pm.impl.*;
+import org.pm4j.core.pm.impl.connector.PmToNoViewTechnologyConnector;
 
 import static org.junit.Assert.assertEquals;
 
@@ -47,6 +51,46 @@ public class PmAttrCacheTest2 {
     assertEquals(p.s, pPm.sCachedAndClearedOnValueChange.getValue());
   }
 
+  @Test
+  public void testRequestCacheWithoutRequestAttributeSupportDoesNotCache() {
+    MyPojo p = new MyPojo();
+    MyPojoPm pPm = new MyPojoPm(new PmConversationImpl(), p);
+
+    p.s = "abc";
+    assertEquals(p.s, pPm.sCachedInRequest.getValue());
+    p.s = "123";
+    assertEquals(p.s, pPm.sCachedInRequest.getValue());
+  }
+
+  @Test
+  public void testRequestCacheIsValidWithinTheRequest() {
+    final Map<String, Object> requestAttrs = new HashMap<String, Object>();
+    PmConversationImpl conversation = new PmConversationImpl();
+    conversation.setPmToViewTechnologyConnector(new PmToNoViewTechnologyConnector() {
+      @Override
+      public Object readRequestAttribute(String attrName) {
+        return requestAttrs.get(attrName);
+      }
+      @Override
+      public void setRequestAttribute(String attrName, Object value) {
+        requestAttrs.put(attrName, value);
+      }
+    });
+    MyPojo p = new MyPojo();
+    MyPojoPm pPm = new MyPojoPm(conversation, p);
+
+    p.s = "abc";
+    assertEquals("abc", pPm.sCachedInRequest.getValue());
+    p.s = "123";
+    assertEquals("abc", pPm.sCachedInRequest.getValue());
+
+    // the next request
+    requestAttrs.clear();
+    assertEquals("123", pPm.sCachedInRequest.getValue());
+    p.s = "xyz";
+    assertEquals("123", pPm.sCachedInRequest.getValue());
+  }
+
   @Test
   public void testParentDefinedValueCacheModeAppliedToChildren() {
     MyPojo p = new MyPojo();
@@ -235,6 +279,10 @@ public class PmAttrCacheTest2 {
     @PmAttrCfg(valuePath="pmBean.s")
     public final PmAttrString sCached = new PmAttrStringImpl(this);
 
+    @PmCacheCfg2(@Cache(property=CacheKind.VALUE, mode=CacheMode.REQUEST))
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sCachedInRequest = new PmAttrStringImpl(this);
+
     @PmAttrCfg(valuePath="pmBean.s")
     public final PmAttrString sCachedWithInvalidationListener = new PmAttrStringImpl(this);
 
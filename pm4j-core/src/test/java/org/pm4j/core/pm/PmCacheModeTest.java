@@ -0,0 +1,169 @@
+package org.pm4j.core.pm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+import org.pm4j.common.cache.CacheStrategy;
+import org.pm4j.core.exception.PmRuntimeException;
+import org.pm4j.core.pm.annotation.PmAttrCfg;
+import org.pm4j.core.pm.annotation.PmBeanCfg;
+import org.pm4j.core.pm.annotation.PmCacheCfg2;
+import org.pm4j.core.pm.annotation.PmCacheCfg2.Cache;
+import org.pm4j.core.pm.annotation.PmCacheCfg2.CacheMode;
+import org.pm4j.core.pm.annotation.PmCacheCfg2.Clear;
+import org.pm4j.core.pm.api.PmCacheApi;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
+import org.pm4j.core.pm.impl.PmAttrStringImpl;
+import org.pm4j.core.pm.impl.PmBeanBase;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmObjectBase;
+import org.pm4j.core.pm.impl.cache.CacheStatistics;
+import org.pm4j.core.pm.impl.cache.CacheStrategyTimeToLive;
+
+public class PmCacheModeTest {
+
+  private PmConversationImpl conversation = new PmConversationImpl();
+
+  @Test
+  public void testLruCacheKeepsOnlyTheRecentlyUsedValues() {
+    MyPojo p = new MyPojo("a");
+    MyPojoPm pm1 = new MyPojoPm(conversation, p);
+    MyPojoPm pm2 = new MyPojoPm(conversation, p);
+    MyPojoPm pm3 = new MyPojoPm(conversation, p);
+    CacheStatistics statistics = PmCacheApi.getCacheStatistics(LruAttr.class);
+    statistics.reset();
+
+    assertEquals("a", pm1.sLru.getValue());
+    assertEquals("a", pm2.sLru.getValue());
+    p.s = "b";
+    assertEquals("a", pm1.sLru.getValue());
+    assertEquals("b", pm3.sLru.getValue());
+    assertEquals("pm2 was the least recently used one.", 1, statistics.getEvictionCount());
+
+    assertEquals("a", pm1.sLru.getValue());
+    assertEquals("b", pm2.sLru.getValue());
+    assertEquals(2, statistics.getEvictionCount());
+    assertEquals(2, statistics.getHitCount());
+    assertEquals(4, statistics.getMissCount());
+    assertEquals(4, statistics.getInitCount());
+  }
+
+  @Test
+  public void testLruCacheDoesNotPreventGarbageCollection() throws InterruptedException {
+    MyPojoPm pm = new MyPojoPm(conversation, new MyPojo("a"));
+    assertEquals("a", pm.sLru.getValue());
+    WeakReference<MyPojoPm> pmRef = new WeakReference<MyPojoPm>(pm);
+
+    pm = null;
+    for (int i = 0; (i < 50) && (pmRef.get() != null); ++i) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull("The LRU list of the conversation should not reference the PM.", pmRef.get());
+  }
+
+  @Test
+  public void testSoftReferenceCache() {
+    MyPojo p = new MyPojo("a");
+    MyPojoPm pm = new MyPojoPm(conversation, p);
+
+    assertEquals("a", pm.sSoft.getValue());
+    p.s = "b";
+    assertEquals("a", pm.sSoft.getValue());
+
+    PmCacheApi.clearPmCache(pm);
+    assertEquals("b", pm.sSoft.getValue());
+  }
+
+  @Test
+  public void testTimeToLiveCacheConfiguration() {
+    MyPojo p = new MyPojo("a");
+    MyPojoPm pm = new MyPojoPm(conversation, p);
+
+    assertEquals("a", pm.sTimeToLive.getValue());
+    p.s = "b";
+    assertEquals("The value is valid for a minute.", "a", pm.sTimeToLive.getValue());
+  }
+
+  @Test
+  public void testTimeToLiveCacheExpiration() {
+    final long[] now = { 0 };
+    CacheStrategy strategy = new CacheStrategyTimeToLive("test", CacheKind.VALUE, Clear.DEFAULT, 100) {
+      @Override
+      protected long currentTimeMillis() {
+        return now[0];
+      }
+    };
+    PmObjectBase pm = new PmAttrStringImpl(conversation);
+    PmCacheApi.getCacheStatistics(PmAttrStringImpl.class).reset();
+
+    assertSame(CacheStrategy.NO_CACHE_VALUE, strategy.getCachedValue(pm));
+    strategy.setAndReturnCachedValue(pm, "a");
+    now[0] = 100;
+    assertEquals("a", strategy.getCachedValue(pm));
+
+    now[0] = 101;
+    assertSame(CacheStrategy.NO_CACHE_VALUE, strategy.getCachedValue(pm));
+    assertEquals(1, PmCacheApi.getCacheStatistics(PmAttrStringImpl.class).getEvictionCount());
+  }
+
+  @Test(expected=PmRuntimeException.class)
+  public void testLruCacheNeedsAtLeastOneEntry() {
+    new MyPojoPmWithInvalidLruCfg(conversation, new MyPojo("a")).sLru.getValue();
+  }
+
+  // -- Domain model --
+
+  public static class MyPojo {
+    public String s;
+
+    public MyPojo(String s) {
+      this.s = s;
+    }
+  }
+
+  // -- Presentation models --
+
+  @PmBeanCfg(beanClass=MyPojo.class)
+  public static class MyPojoPm extends PmBeanBase<MyPojo> {
+
+    @PmCacheCfg2(@Cache(property=CacheKind.VALUE, mode=CacheMode.LRU, maxEntries=2))
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sLru = new LruAttr(this);
+
+    @PmCacheCfg2(@Cache(property=CacheKind.VALUE, mode=CacheMode.SOFT))
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sSoft = new PmAttrStringImpl(this);
+
+    @PmCacheCfg2(@Cache(property=CacheKind.VALUE, mode=CacheMode.TIME_TO_LIVE))
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sTimeToLive = new PmAttrStringImpl(this);
+
+    public MyPojoPm(PmObject pmParent, MyPojo myPojo) {
+      super(pmParent, myPojo);
+    }
+  }
+
+  @PmBeanCfg(beanClass=MyPojo.class)
+  public static class MyPojoPmWithInvalidLruCfg extends PmBeanBase<MyPojo> {
+
+    @PmCacheCfg2(@Cache(property=CacheKind.VALUE, mode=CacheMode.LRU, maxEntries=0))
+    @PmAttrCfg(valuePath="pmBean.s")
+    public final PmAttrString sLru = new PmAttrStringImpl(this);
+
+    public MyPojoPmWithInvalidLruCfg(PmObject pmParent, MyPojo myPojo) {
+      super(pmParent, myPojo);
+    }
+  }
+
+  public static class LruAttr extends PmAttrStringImpl {
+    public LruAttr(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+}
@@ -9,6 +9,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.commons.lang.StringUtils;
 import org.junit.Assert;
@@ -32,6 +33,7 @@ import org.pm4j.core.pm.annotation.PmBoolean;
 import org.pm4j.core.pm.annotation.PmFactoryCfg;
 import org.pm4j.core.pm.annotation.PmTableCfg;
 import org.pm4j.core.pm.annotation.PmTableColCfg;
+import org.pm4j.core.pm.annotation.PmTableColCfg.Collation;
 import org.pm4j.core.pm.annotation.PmTitleCfg;
 import org.pm4j.core.pm.api.PmCacheApi;
 import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
@@ -197,6 +199,29 @@ public class PmTableTest {
     assertEquals("[b, c]", myTablePm.getRowPms().toString());
   }
 
+  @Test
+  public void testSortByColumnWithLocalizedCollation() {
+    PmConversationImpl conversation = new PmConversationImpl();
+    conversation.setPmLocale(Locale.GERMAN);
+    final List<RowBean> beans = Arrays.asList(
+        new RowBean("b", "", 1),
+        new RowBean("\u00c4", "", 2),
+        new RowBean("a", "", 3));
+    LocalizedSortTablePm tablePm = PmInitApi.initPmTree(new LocalizedSortTablePm(conversation) {
+      @Override
+      protected Collection<RowBean> getPmBeansImpl() {
+        return beans;
+      }
+    });
+
+    // The natural String order would be [a, b, \u00c4].
+    // The primary strength makes 'a' and '\u00c4' equal. Their original order is kept.
+    setValue(tablePm.name.getSortOrderAttr(), PmSortOrder.ASC);
+    assertEquals("[\u00c4, a, b]", tablePm.getRowPms().toString());
+    setValue(tablePm.name.getSortOrderAttr(), PmSortOrder.DESC);
+    assertEquals("[b, \u00c4, a]", tablePm.getRowPms().toString());
+  }
+
   @Test
   public void testFilterByDescriptionExists() {
     assertEquals("[a, b]", myTablePm.getRowPms().toString());
@@ -348,6 +373,17 @@ public class PmTableTest {
     }
   }
 
+  @PmFactoryCfg(beanPmClasses=RowPm.class)
+  public static class LocalizedSortTablePm extends PmTableImpl<RowPm, RowBean> {
+
+    @PmTableColCfg(sortable=PmBoolean.TRUE, sortCollation=Collation.PRIMARY)
+    public final PmTableCol name = new PmTableColImpl(this);
+
+    public LocalizedSortTablePm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
   @PmBeanCfg(beanClass=RowBean.class)
   public static class RowPm extends PmBeanBase<RowBean> {
     public final PmAttrString name = new PmAttrStringImpl(this);
@@ -1,18 +1,36 @@
 package org.pm4j.core.pm;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.pm4j.core.pm.PmMessage.Severity;
+import org.pm4j.core.pm.annotation.PmAttrCfg;
 import org.pm4j.core.pm.annotation.PmBeanCfg;
+import org.pm4j.core.pm.annotation.PmCacheCfg2;
+import org.pm4j.core.pm.annotation.PmCacheCfg2.Cache;
+import org.pm4j.core.pm.annotation.PmCacheCfg2.CacheMode;
 import org.pm4j.core.pm.annotation.PmFactoryCfg;
 import org.pm4j.core.pm.annotation.PmTableCfg.RowsToValidate;
+import org.pm4j.core.pm.api.PmCacheApi.CacheKind;
+import org.pm4j.core.pm.api.PmEventApi;
+import org.pm4j.core.pm.api.PmMessageApi;
+import org.pm4j.core.pm.api.PmValidationApi;
 import org.pm4j.core.pm.impl.*;
+import org.pm4j.core.pm.impl.connector.PmToNoViewTechnologyConnector;
 import org.pm4j.tools.test._PmAssert;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests {@link PmTableImpl.TableValidator}.
@@ -121,8 +139,149 @@ public class PmTableValidationTest {
     assertEquals("[updated name, added]", t.validatedRows.toString());
   }
 
+  @Test
+  public void testParallelValidationAddsMessagesInRowOrder() {
+    setUpRows(50);
+    TablePm t = new TablePm(new PmConversationImpl()) {
+      @Override
+      protected Validator makePmValidator() {
+        TableValidator v = new TableValidator(RowsToValidate.ALL);
+        v.setRowBlockSize(3);
+        return v;
+      }
+    };
+    t.setRowValidationExecutorService(executor);
+
+    PmValidationApi.validateSubTree(t);
+    assertEquals(50, t.validatedRows.size());
+    assertEquals(expectedErrorMessages(25), messageTitles(t));
+  }
+
+  @Test
+  public void testParallelValidationStopsAtMaxErrorCount() {
+    setUpRows(2000);
+    TablePm t = new TablePm(new PmConversationImpl()) {
+      @Override
+      protected Validator makePmValidator() {
+        TableValidator v = new TableValidator(RowsToValidate.ALL);
+        v.setRowBlockSize(3);
+        v.setMaxErrorCount(5);
+        return v;
+      }
+    };
+    t.setRowValidationExecutorService(executor);
+
+    PmValidationApi.validateSubTree(t);
+    assertEquals(expectedErrorMessages(5), messageTitles(t));
+    assertTrue("Row validation should stop early. Validated rows: " + t.validatedRows.size(),
+        t.validatedRows.size() < 2000);
+  }
+
+  @Test
+  public void testParallelValidationUsesTheRequestCacheOfTheCallingThread() {
+    setUpRows(50);
+    PmConversationImpl conversation = new PmConversationImpl();
+    // Simulates a view technology that provides the request attributes only for the request thread.
+    final Thread requestThread = Thread.currentThread();
+    final Map<String, Object> requestAttrs = new HashMap<String, Object>();
+    conversation.setPmToViewTechnologyConnector(new PmToNoViewTechnologyConnector() {
+      @Override
+      public Object readRequestAttribute(String attrName) {
+        assertRequestThread();
+        return requestAttrs.get(attrName);
+      }
+      @Override
+      public void setRequestAttribute(String attrName, Object value) {
+        assertRequestThread();
+        requestAttrs.put(attrName, value);
+      }
+      private void assertRequestThread() {
+        if (Thread.currentThread() != requestThread) {
+          throw new IllegalStateException("No request context in thread " + Thread.currentThread().getName());
+        }
+      }
+    });
+    TablePm t = new TablePm(conversation) {
+      @Override
+      protected Validator makePmValidator() {
+        TableValidator v = new TableValidator(RowsToValidate.ALL);
+        v.setRowBlockSize(3);
+        return v;
+      }
+    };
+    t.setRowValidationExecutorService(executor);
+
+    PmValidationApi.validateSubTree(t);
+    assertEquals(50, t.validatedRows.size());
+    assertEquals(expectedErrorMessages(25), messageTitles(t));
+
+    // The values cached by the validation threads are valid within the request of the calling thread.
+    for (RowPm r : t.validatedRows) {
+      String validatedName = r.getPmBean().name;
+      r.getPmBean().name = "changed";
+      assertEquals(validatedName, r.nameInRequest.getValue());
+    }
+  }
+
+  @Test
+  public void testParallelValidationInformsTableListenersInTheCallingThread() {
+    setUpRows(50);
+    TablePm t = new TableWithValidationEventsPm(new PmConversationImpl());
+    t.setRowValidationExecutorService(executor);
+    final List<Thread> listenerThreads = new ArrayList<Thread>();
+    PmEventApi.addHierarchyListener(t, PmEvent.VALIDATION_STATE_CHANGE, new PmEventListener() {
+      @Override
+      public void handleEvent(PmEvent event) {
+        if (event.getPm() instanceof RowPm) {
+          listenerThreads.add(Thread.currentThread());
+        }
+      }
+    });
+
+    PmValidationApi.validateSubTree(t);
+    assertEquals(expectedErrorMessages(25), messageTitles(t));
+    assertEquals(Collections.nCopies(25, Thread.currentThread()), listenerThreads);
+  }
+
+  /** Every second row is invalid. */
+  private void setUpRows(int numOfRows) {
+    rowBeans.clear();
+    for (int i = 0; i < numOfRows; ++i) {
+      rowBeans.add(new RowBean((i % 2 == 0 ? "valid" : "invalid") + i));
+    }
+  }
+
+  private List<String> expectedErrorMessages(int numOfMessages) {
+    List<String> titles = new ArrayList<String>();
+    for (int i = 0; i < numOfMessages; ++i) {
+      titles.add("invalid" + (2*i + 1));
+    }
+    return titles;
+  }
+
+  private List<String> messageTitles(TablePm t) {
+    List<String> titles = new ArrayList<String>();
+    for (PmMessage m : t.getPmConversation().getPmMessages()) {
+      titles.add(m.getTitle());
+    }
+    return titles;
+  }
+
   // -- test infrastructure --
 
+  /** Shared by all tables of this test. */
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void setUpExecutor() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterClass
+  public static void shutDownExecutor() {
+    executor.shutdown();
+  }
+
   private List<RowBean> rowBeans = new ArrayList<RowBean>(Arrays.asList(
       new RowBean("a"),
       new RowBean("b"),
@@ -135,7 +294,7 @@ public class PmTableValidationTest {
     public final PmTableCol name = new PmTableColImpl(this);
 
     /** An internal row validation counter for this test. */
-    List<RowPm> validatedRows = new ArrayList<RowPm>();
+    List<RowPm> validatedRows = Collections.synchronizedList(new ArrayList<RowPm>());
 
     /** Defines a page size of two items. */
     public TablePm(PmObject pmParent) {
@@ -151,13 +310,37 @@ public class PmTableValidationTest {
     }
   }
 
+  /** The rows of this table fire validation state change events. */
+  @PmFactoryCfg(beanPmClasses=RowWithValidationEventsPm.class)
+  public class TableWithValidationEventsPm extends TablePm {
+
+    public TableWithValidationEventsPm(PmObject pmParent) {
+      super(pmParent);
+    }
+
+    @Override
+    protected Validator makePmValidator() {
+      TableValidator v = new TableValidator(RowsToValidate.ALL);
+      v.setRowBlockSize(3);
+      return v;
+    }
+  }
+
   @PmBeanCfg(beanClass=RowBean.class)
   public static class RowPm extends PmBeanBase<RowBean> {
     public final PmAttrString name = new PmAttrStringImpl(this);
 
+    @PmCacheCfg2(@Cache(property=CacheKind.VALUE, mode=CacheMode.REQUEST))
+    @PmAttrCfg(valuePath="pmBean.name")
+    public final PmAttrString nameInRequest = new PmAttrStringImpl(this);
+
     @Override
     public void pmValidate() {
       super.pmValidate();
+      nameInRequest.getValue();
+      if (getPmBean().name.startsWith("invalid")) {
+        PmMessageApi.addStringMessage(this, Severity.ERROR, getPmBean().name);
+      }
       ((TablePm)getPmParent()).validatedRows.add(this);
     }
 
@@ -168,6 +351,19 @@ public class PmTableValidationTest {
     }
   }
 
+  /** Fires a validation state change event like the validator of the non-deprecated validation. */
+  @PmBeanCfg(beanClass=RowBean.class)
+  public static class RowWithValidationEventsPm extends RowPm {
+    @Override
+    public void pmValidate() {
+      boolean wasValid = isPmValid();
+      super.pmValidate();
+      if (isPmValid() != wasValid) {
+        PmEventApi.firePmEvent(this, PmEvent.VALIDATION_STATE_CHANGE);
+      }
+    }
+  }
+
   public static class RowBean {
     public String name;
 
@@ -1,8 +1,14 @@
 package org.pm4j.core.pm.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.Assert;
 
@@ -155,6 +161,100 @@ public class BeanPmCacheTest {
   }
 
 
+  @Test
+  public void testGetPmsForBeans() {
+    MyConversation conversation = new MyConversation();
+    MyBean b1 = new MyBean();
+    MyBean b2 = new MyBean();
+    MyBeanPm pm1 = PmFactoryApi.getPmForBean(conversation, b1);
+
+    List<MyBeanPm> pms = PmFactoryApi.getPmsForBeans(conversation, Arrays.asList(b1, null, b2, b1));
+
+    Assert.assertEquals(4, pms.size());
+    Assert.assertSame(pm1, pms.get(0));
+    Assert.assertNull(pms.get(1));
+    Assert.assertSame(b2, pms.get(2).getPmBean());
+    Assert.assertSame(pm1, pms.get(3));
+    Assert.assertSame(pms.get(2), PmFactoryApi.findPmForBean(conversation, b2));
+  }
+
+  @Test
+  public void testConcurrentGetPmForBeanProvidesASinglePm() throws Exception {
+    // The row PMs get created concurrently within an initialized PM tree.
+    final MyConversation conversation = PmInitApi.initPmTree(new MyConversation());
+    final MyBean bean = new MyBean();
+    int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<MyBeanPm>> results = new ArrayList<Future<MyBeanPm>>();
+      for (int i = 0; i < threadCount; ++i) {
+        results.add(executor.submit(new Callable<MyBeanPm>() {
+          @Override
+          public MyBeanPm call() throws Exception {
+            start.await();
+            return PmFactoryApi.getPmForBean(conversation, bean);
+          }
+        }));
+      }
+      start.countDown();
+
+      MyBeanPm pm = results.get(0).get();
+      Assert.assertNotNull(pm);
+      for (Future<MyBeanPm> f : results) {
+        Assert.assertSame(pm, f.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+
+  @Test(timeout=10000)
+  public void testFindByBeanDoesNotWaitForALockedCache() throws Exception {
+    MyConversation conversation = new MyConversation();
+    MyBean bean = new MyBean();
+    MyBeanPm pm = PmFactoryApi.getPmForBean(conversation, bean);
+    final BeanPmCacheImpl cache = new BeanPmCacheImpl();
+    cache.add(pm);
+
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // A writer that holds the cache lock.
+      executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          synchronized (cache) {
+            locked.countDown();
+            release.await();
+          }
+          return null;
+        }
+      });
+      locked.await();
+
+      Assert.assertSame(pm, cache.findByBean(bean));
+      Assert.assertNull(cache.findByBean(new MyBean()));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRemoveBean() {
+    MyConversation conversation = new MyConversation();
+    MyBean bean = new MyBean();
+    MyBeanPm pm = PmFactoryApi.getPmForBean(conversation, bean);
+    BeanPmCacheImpl cache = new BeanPmCacheImpl();
+    cache.add(pm);
+
+    cache.removeBean(bean);
+    Assert.assertNull(cache.findByBean(bean));
+    Assert.assertTrue(cache.isEmpty());
+  }
 
 
   public static class MyBean {
@@ -0,0 +1,162 @@
+package org.pm4j.core.pm.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.pm4j.core.pm.PmAttrString;
+import org.pm4j.core.pm.annotation.PmBeanCfg;
+import org.pm4j.core.pm.annotation.PmFactoryCfg;
+import org.pm4j.core.pm.annotation.PmFactoryCfg.BeanPmCacheKind;
+import org.pm4j.core.pm.api.PmFactoryApi;
+
+/**
+ * Tests {@link IdentityBeanPmCache}.
+ *
+ * @author olaf boede
+ */
+public class IdentityBeanPmCacheTest {
+
+  @Test
+  public void testFindsOnlyThePmOfTheIdenticalBean() {
+    IdentityCacheConversation conversation = new IdentityCacheConversation();
+    MyBean bean = new MyBean("a");
+    MyBean equalBean = new MyBean("a");
+
+    MyBeanPm pm = PmFactoryApi.getPmForBean(conversation, bean);
+    assertSame(pm, PmFactoryApi.getPmForBean(conversation, bean));
+    assertNotSame(pm, PmFactoryApi.getPmForBean(conversation, equalBean));
+
+    BeanPmCacheStatistics s = BeanPmCacheUtil.getStatistics(conversation);
+    assertEquals(2, s.getPmCount());
+    assertEquals(2, s.getReferencesCreated());
+  }
+
+  @Test
+  public void testDefaultCacheFindsThePmOfAnEqualBean() {
+    DefaultCacheConversation conversation = new DefaultCacheConversation();
+    MyBeanPm pm = PmFactoryApi.getPmForBean(conversation, new MyBean("a"));
+
+    assertSame(pm, PmFactoryApi.getPmForBean(conversation, new MyBean("a")));
+    assertNull("The default cache provides no statistics.", BeanPmCacheUtil.getStatistics(conversation));
+  }
+
+  @Test
+  public void testRemoveAndClear() {
+    IdentityCacheConversation conversation = new IdentityCacheConversation();
+    MyBean b1 = new MyBean("1");
+    MyBean b2 = new MyBean("2");
+    MyBean b3 = new MyBean("3");
+    MyBeanPm pm1 = PmFactoryApi.getPmForBean(conversation, b1);
+    MyBeanPm pm2 = PmFactoryApi.getPmForBean(conversation, b2);
+    MyBeanPm pm3 = PmFactoryApi.getPmForBean(conversation, b3);
+    assertEquals(new HashSet<Object>(Arrays.asList(pm1, pm2, pm3)), new HashSet<Object>(BeanPmCacheUtil.getCachedPms(conversation)));
+
+    BeanPmCacheUtil.removeBeanPm(conversation, pm1);
+    BeanPmCacheUtil.removeBean(conversation, b2);
+    assertNull(PmFactoryApi.findPmForBean(conversation, b1));
+    assertNull(PmFactoryApi.findPmForBean(conversation, b2));
+    assertSame(pm3, PmFactoryApi.findPmForBean(conversation, b3));
+
+    BeanPmCacheUtil.clearBeanPmCache(conversation);
+    assertTrue(BeanPmCacheUtil.getCachedPms(conversation).isEmpty());
+    assertNull(PmFactoryApi.findPmForBean(conversation, b3));
+  }
+
+  @Test
+  public void testPmWithNewBeanIsFoundForTheNewBean() {
+    IdentityCacheConversation conversation = new IdentityCacheConversation();
+    MyBean oldBean = new MyBean("old");
+    MyBean newBean = new MyBean("new");
+    MyBeanPm pm = PmFactoryApi.getPmForBean(conversation, oldBean);
+    IdentityBeanPmCache cache = new IdentityBeanPmCache(0);
+    cache.add(pm);
+
+    pm.setPmBean(newBean);
+    cache.add(pm);
+
+    assertNull(cache.findByBean(oldBean));
+    assertSame(pm, cache.findByBean(newBean));
+    assertEquals(1, cache.getStatistics().getPmCount());
+  }
+
+  @Test
+  public void testRetainsTheMostRecentlyUsedPms() {
+    RetainingCacheConversation conversation = new RetainingCacheConversation();
+    MyBean b1 = new MyBean("1");
+    MyBean b2 = new MyBean("2");
+    MyBean b3 = new MyBean("3");
+    PmFactoryApi.getPmForBean(conversation, b1);
+    PmFactoryApi.getPmForBean(conversation, b2);
+    PmFactoryApi.getPmForBean(conversation, b1);
+    PmFactoryApi.getPmForBean(conversation, b3);
+
+    BeanPmCacheStatistics s = BeanPmCacheUtil.getStatistics(conversation);
+    assertEquals(2, s.getRetainedPmCount());
+    assertEquals(3, s.getPmCount());
+    assertEquals(1, s.getHits());
+  }
+
+  @Test
+  public void testManyPms() {
+    IdentityCacheConversation conversation = new IdentityCacheConversation();
+    MyBean[] beans = new MyBean[1000];
+    MyBeanPm[] pms = new MyBeanPm[beans.length];
+    for (int i = 0; i < beans.length; ++i) {
+      beans[i] = new MyBean(Integer.toString(i));
+      pms[i] = PmFactoryApi.getPmForBean(conversation, beans[i]);
+    }
+
+    for (int i = 0; i < beans.length; ++i) {
+      assertSame(pms[i], PmFactoryApi.findPmForBean(conversation, beans[i]));
+    }
+    assertEquals(beans.length, BeanPmCacheUtil.getStatistics(conversation).getPmCount());
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testRetentionNotSupportedByTheDefaultCache() {
+    new BeanPmFactory(MyBeanPm.class).setBeanPmCacheCfg(BeanPmCacheKind.DEFAULT, 10);
+  }
+
+  public static class MyBean {
+    public String s;
+
+    public MyBean(String s) {
+      this.s = s;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return (obj instanceof MyBean) && s.equals(((MyBean)obj).s);
+    }
+
+    @Override
+    public int hashCode() {
+      return s.hashCode();
+    }
+  }
+
+  @PmBeanCfg(beanClass=MyBean.class)
+  public static class MyBeanPm extends PmBeanBase<MyBean> {
+    public final PmAttrString s = new PmAttrStringImpl(this);
+  }
+
+  @PmFactoryCfg(beanPmClasses=MyBeanPm.class, beanPmCache=BeanPmCacheKind.IDENTITY)
+  public static class IdentityCacheConversation extends PmConversationImpl {
+  }
+
+  @PmFactoryCfg(beanPmClasses=MyBeanPm.class, beanPmCache=BeanPmCacheKind.IDENTITY, beanPmCacheRetainedPms=2)
+  public static class RetainingCacheConversation extends PmConversationImpl {
+  }
+
+  @PmFactoryCfg(beanPmClasses=MyBeanPm.class)
+  public static class DefaultCacheConversation extends PmConversationImpl {
+  }
+
+}
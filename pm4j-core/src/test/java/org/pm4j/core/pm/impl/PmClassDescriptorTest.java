@@ -0,0 +1,141 @@
+package org.pm4j.core.pm.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.pm4j.core.pm.PmObject;
+
+/**
+ * Tests the usage of the {@link PmClassDescriptor}s generated by the pm4j annotation processor.
+ *
+ * @author olaf boede
+ */
+public class PmClassDescriptorTest {
+
+  @Test
+  public void testDescriptorProvidesFieldsInReflectionOrder() {
+    PmClassDescriptor d = PmClassDescriptors.find(SubPm.class);
+    assertNotNull("The annotation processor should generate a descriptor for a named PM class.", d);
+
+    List<String> names = new ArrayList<String>();
+    for (PmFieldAccessor a : d.getPmFieldAccessors()) {
+      names.add(a.getName());
+    }
+    // Primitive and String fields can't contain a PM. The Object field may.
+    assertEquals(Arrays.asList("base", "anyValue", "sub", "nonFinal"), names);
+  }
+
+  @Test
+  public void testChildPmsFoundUsingTheDescriptor() {
+    SubPm pm = new SubPm(new PmConversationImpl());
+    pm.anyValue = "not a PM";
+
+    assertEquals(Arrays.<PmObject>asList(pm.base, pm.sub, pm.nonFinal), pm.getPmChildren());
+    assertEquals("nonFinal", pm.nonFinal.getPmName());
+  }
+
+  @Test
+  public void testAccessorOperations() {
+    SubPm pm = new SubPm(new PmConversationImpl());
+    PmFieldAccessor[] accessors = PmClassDescriptors.find(SubPm.class).getPmFieldAccessors();
+    PmFieldAccessor baseAccessor = accessors[0];
+    PmFieldAccessor nonFinalAccessor = accessors[3];
+
+    assertFalse(baseAccessor.canSet());
+    assertEquals(PmAttrStringImpl.class, baseAccessor.getFieldClass());
+    assertTrue(nonFinalAccessor.canSet());
+
+    PmAttrStringImpl newValue = new PmAttrStringImpl(pm);
+    nonFinalAccessor.setBeanAttrValue(pm, newValue);
+    assertEquals(newValue, pm.nonFinal);
+  }
+
+  @Test
+  public void testAnonymousPmClassUsesReflection() {
+    final PmConversationImpl session = new PmConversationImpl();
+    PmObjectBase pm = new PmObjectBase(session) {
+      @SuppressWarnings("unused")
+      public final PmAttrStringImpl s = new PmAttrStringImpl(this);
+    };
+
+    assertNull(PmClassDescriptors.find(pm.getClass()));
+    assertEquals(1, pm.getPmChildren().size());
+    assertEquals("s", pm.getPmChildren().get(0).getPmName());
+  }
+
+  @Test
+  public void testOutdatedDescriptorIsNotUsed() {
+    assertNotNull(PmClassDescriptors.find(BasePm.class));
+    assertNull("The descriptor was generated for an older version of BasePm.", PmClassDescriptors.find(OutdatedPm.class));
+
+    OutdatedPm pm = new OutdatedPm(new PmConversationImpl());
+    assertEquals(Arrays.<PmObject>asList(pm.base, pm.outdated), pm.getPmChildren());
+  }
+
+  @Test
+  public void testAbstractPmClassHasADescriptor() {
+    assertNotNull(PmClassDescriptors.find(PmObjectBase.class));
+    assertNotNull(PmClassDescriptors.find(PmAttrBase.class));
+  }
+
+  public static class BasePm extends PmObjectBase {
+    public final PmAttrStringImpl base = new PmAttrStringImpl(this);
+    public Object anyValue;
+    public int intValue;
+
+    public BasePm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+  public static class SubPm extends BasePm {
+    public final PmAttrStringImpl sub = new PmAttrStringImpl(this);
+    public final String stringValue = "";
+    public PmAttrStringImpl nonFinal = new PmAttrStringImpl(this);
+
+    public SubPm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+  /** A private class. The annotation processor does not generate a descriptor for it. */
+  private static class OutdatedPm extends BasePm {
+    public final PmAttrStringImpl outdated = new PmAttrStringImpl(this);
+
+    public OutdatedPm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+  /** Simulates a descriptor that was generated before a field was added to {@link BasePm}. */
+  static class OutdatedPm$$PmDescriptor implements PmClassDescriptor {
+    @Override
+    public PmFieldAccessor[] getPmFieldAccessors() {
+      return new PmFieldAccessor[0];
+    }
+
+    @Override
+    public Object getFieldValue(Object pm, int fieldIdx) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    @Override
+    public int getFieldSignature() {
+      return 0;
+    }
+
+    @Override
+    public int getSuperclassFieldSignature() {
+      return PmClassDescriptors.find(BasePm.class).getFieldSignature() + 1;
+    }
+  }
+
+}
@@ -0,0 +1,104 @@
+package org.pm4j.core.pm.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.pm4j.common.expr.Expression.SyntaxVersion;
+import org.pm4j.common.util.reflection.BeanAttrAccessor;
+import org.pm4j.common.util.reflection.BeanAttrAccessorFactory;
+import org.pm4j.core.pm.PmAttrString;
+import org.pm4j.core.pm.PmConversation;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.api.PmExpressionApi;
+
+/**
+ * Checks that the bean attribute accessors get created by the factory defined
+ * in the {@link PmConversation#getPmDefaults()}.
+ *
+ * @author olaf boede
+ */
+public class PmConversationBeanAttrAccessorFactoryTest {
+
+  private RecordingFactory factory = new RecordingFactory();
+  private PmConversationImpl conversation = new PmConversationImpl();
+
+  @Test
+  public void testAttributeAccessUsesTheConversationFactory() {
+    conversation.getPmDefaults().setBeanAttrAccessorFactory(factory);
+    MyBeanPm pm = new MyBeanPm(conversation, new MyBean("hello"));
+
+    assertEquals("hello", pm.name.getValue());
+    assertEquals("[MyBean.name]", factory.createdAccessors.toString());
+  }
+
+  @Test
+  public void testExpressionAccessUsesTheConversationFactory() {
+    conversation.getPmDefaults().setBeanAttrAccessorFactory(factory);
+    // the compatibility syntax resolves the names using the PM context.
+    conversation.getPmDefaults().setExpressionSyntaxVersion(SyntaxVersion.VERSION_1);
+    MyBean bean = new MyBean("hello");
+    MyBeanPm pm = new MyBeanPm(conversation, bean);
+
+    assertSame(bean, PmExpressionApi.findByExpression(pm, "pmBean"));
+    assertEquals("[MyBeanPm.pmBean]", factory.createdAccessors.toString());
+  }
+
+  @Test
+  public void testEachConversationUsesItsOwnFactory() {
+    RecordingFactory otherFactory = new RecordingFactory();
+    PmConversationImpl otherConversation = new PmConversationImpl();
+    otherConversation.getPmDefaults().setBeanAttrAccessorFactory(otherFactory);
+    conversation.getPmDefaults().setBeanAttrAccessorFactory(factory);
+    conversation.getPmDefaults().setExpressionSyntaxVersion(SyntaxVersion.VERSION_1);
+    otherConversation.getPmDefaults().setExpressionSyntaxVersion(SyntaxVersion.VERSION_1);
+
+    MyBeanPm pm = new MyBeanPm(conversation, new MyBean("hello"));
+    MyBeanPm otherPm = new MyBeanPm(otherConversation, new MyBean("world"));
+    assertEquals("hello", pm.name.getValue());
+    assertEquals("world", otherPm.name.getValue());
+    assertSame(pm.getPmBean(), PmExpressionApi.findByExpression(pm, "pmBean"));
+    assertSame(otherPm.getPmBean(), PmExpressionApi.findByExpression(otherPm, "pmBean"));
+
+    assertEquals("[MyBean.name, MyBeanPm.pmBean]", otherFactory.createdAccessors.toString());
+  }
+
+  /** Records the created accessors. */
+  static class RecordingFactory extends BeanAttrAccessorFactory {
+    final List<String> createdAccessors = new ArrayList<String>();
+
+    @Override
+    public BeanAttrAccessor create(Class<?> beanClass, String attrName, boolean allowFieldAccess) {
+      createdAccessors.add(beanClass.getSimpleName() + "." + attrName);
+      return REFLECTION.create(beanClass, attrName, allowFieldAccess);
+    }
+  }
+
+  public static class MyBean {
+    private String name;
+
+    public MyBean(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class MyBeanPm extends PmBeanBase<MyBean> {
+    public final PmAttrString name = new PmAttrStringImpl(this);
+
+    public MyBeanPm(PmObject parent, MyBean bean) {
+      super(parent, bean);
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+package org.pm4j.core.pm.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.pm4j.core.pm.PmEvent;
+import org.pm4j.core.pm.PmEvent.ValueChangeKind;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.api.PmEventApi;
+
+/**
+ * Tests the built-in event handling of {@link PmEventApiHandler}.
+ *
+ * @author olaf boede
+ */
+public class PmEventApiHandlerTest {
+
+  private MyPm pm = PmInitApi.initPmTree(new MyPm(new PmConversationImpl()));
+
+  @Test
+  public void testNoListenerRefsAllocatedWithoutRegisteredListener() {
+    assertNull(pm.pmEventListenerRefs);
+    assertNull(pm.s.pmEventListenerRefs);
+
+    PmEventApi.addPmEventListener(pm.s, PmEvent.VALUE_CHANGE, new PmEventListenerBase("test") {
+      @Override
+      public void handleEvent(PmEvent event) {
+      }
+    });
+    assertNotNull(pm.s.pmEventListenerRefs);
+  }
+
+  @Test
+  public void testReloadResetsTheChangedStateBeforeListenersGetInformed() {
+    final List<Boolean> changedStateSeenByListener = new ArrayList<Boolean>();
+    PmEventApi.addPmEventListener(pm.s, PmEvent.VALUE_CHANGE, new PmEventListenerBase("test") {
+      @Override
+      public void handleEvent(PmEvent event) {
+        changedStateSeenByListener.add(pm.s.isPmValueChanged());
+      }
+    });
+
+    pm.s.setValue("new value");
+    assertTrue(pm.s.isPmValueChanged());
+    assertEquals("[true]", changedStateSeenByListener.toString());
+
+    PmEventApi.firePmEvent(pm.s, PmEvent.VALUE_CHANGE | PmEvent.RELOAD, ValueChangeKind.RELOAD);
+    assertFalse(pm.s.isPmValueChanged());
+    assertEquals("[true, false]", changedStateSeenByListener.toString());
+  }
+
+  public static class MyPm extends PmObjectBase {
+    public final PmAttrStringImpl s = new PmAttrStringImpl(this);
+
+    public MyPm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+}
@@ -1,9 +1,22 @@
 package org.pm4j.core.pm.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.pm4j.core.exception.PmRuntimeException;
 import org.pm4j.core.pm.PmObject;
 import org.pm4j.core.pm.impl.PmObjectBase.PmInitState;
 
@@ -34,6 +47,69 @@ public class PmInitTest {
   }
 
 
+  @Test
+  public void testConcurrentMetaDataInitializationCreatesSharedMetaData() throws Exception {
+    final int numOfThreads = 8;
+    final CyclicBarrier startBarrier = new CyclicBarrier(numOfThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+    try {
+      List<Future<PmObjectBase.MetaData>> futures = new ArrayList<Future<PmObjectBase.MetaData>>();
+      for (int i = 0; i < numOfThreads; ++i) {
+        futures.add(executor.submit(new Callable<PmObjectBase.MetaData>() {
+          @Override
+          public PmObjectBase.MetaData call() throws Exception {
+            ConcurrentInitElement pm = new ConcurrentInitElement(new PmConversationImpl());
+            startBarrier.await();
+            return pm.s.getPmMetaData();
+          }
+        }));
+      }
+
+      PmObjectBase.MetaData md = futures.get(0).get();
+      for (Future<PmObjectBase.MetaData> f : futures) {
+        assertSame("All threads use the same meta data instance.", md, f.get());
+      }
+      assertEquals("The meta data was initialized only once.", 1, ConcurrentInitElement.initCount.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testWarmUpPmMetaData() {
+    PmInitApi.warmUpPmMetaData(Arrays.asList(new Callable<PmObject>() {
+      @Override
+      public PmObject call() throws Exception {
+        return new WarmUpElement(new PmConversationImpl());
+      }
+    }));
+    assertEquals(1, WarmUpElement.initCount.get());
+
+    WarmUpElement pm = PmInitApi.initPmTree(new WarmUpElement(new PmConversationImpl()));
+    assertEquals(PmInitState.INITIALIZED, pm.s.pmInitState);
+    assertEquals("The meta data created by the warm-up call is used.", 1, WarmUpElement.initCount.get());
+  }
+
+  @Test
+  public void testWarmUpPmMetaDataReportsInitializationFailures() {
+    Callable<PmObject> factory = new Callable<PmObject>() {
+      @Override
+      public PmObject call() throws Exception {
+        return new FailingElement(new PmConversationImpl());
+      }
+    };
+
+    for (int i = 0; i < 2; ++i) {
+      try {
+        PmInitApi.warmUpPmMetaData(Arrays.asList(factory));
+        fail("The meta data initialization failure should be reported.");
+      } catch (PmRuntimeException e) {
+        // ok
+      }
+    }
+    assertEquals("A failed initialization is not cached. The next call tries it again.", 2, FailingElement.initCount.get());
+  }
+
   public static class MyElement extends PmObjectBase {
     public final PmAttrStringImpl s = new PmAttrStringImpl(this);
 
@@ -41,4 +117,54 @@ public class PmInitTest {
       super(pmParent);
     }
   }
+
+  public static class ConcurrentInitElement extends PmObjectBase {
+    static final AtomicInteger initCount = new AtomicInteger();
+    public final PmAttrStringImpl s = new PmAttrStringImpl(this);
+
+    public ConcurrentInitElement(PmObject pmParent) {
+      super(pmParent);
+    }
+
+    @Override
+    protected void initMetaData(MetaData metaData) {
+      super.initMetaData(metaData);
+      initCount.incrementAndGet();
+      // gives the other threads a chance to ask for the same meta data.
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  public static class WarmUpElement extends PmObjectBase {
+    static final AtomicInteger initCount = new AtomicInteger();
+    public final PmAttrStringImpl s = new PmAttrStringImpl(this);
+
+    public WarmUpElement(PmObject pmParent) {
+      super(pmParent);
+    }
+
+    @Override
+    protected void initMetaData(MetaData metaData) {
+      super.initMetaData(metaData);
+      initCount.incrementAndGet();
+    }
+  }
+
+  public static class FailingElement extends PmObjectBase {
+    static final AtomicInteger initCount = new AtomicInteger();
+
+    public FailingElement(PmObject pmParent) {
+      super(pmParent);
+    }
+
+    @Override
+    protected void initMetaData(MetaData metaData) {
+      initCount.incrementAndGet();
+      throw new IllegalStateException("Configuration error.");
+    }
+  }
 }
@@ -0,0 +1,86 @@
+package org.pm4j.core.pm.impl.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.pm4j.core.pm.PmMessage;
+import org.pm4j.core.pm.PmMessage.Severity;
+import org.pm4j.core.pm.PmObject;
+import org.pm4j.core.pm.impl.PmAttrStringImpl;
+import org.pm4j.core.pm.impl.PmConversationImpl;
+import org.pm4j.core.pm.impl.PmObjectBase;
+
+/**
+ * Tests {@link PmMessageStore}.
+ *
+ * @author olaf boede
+ */
+public class PmMessageStoreTest {
+
+  private PmConversationImpl conv = new PmConversationImpl();
+  private MyPm pm1 = new MyPm(conv);
+  private MyPm pm2 = new MyPm(conv);
+  private PmMessageStore store = new PmMessageStore();
+
+  @Test
+  public void testGetMessagesForPmAndSeverity() {
+    PmMessage m1 = add(pm1.a, Severity.ERROR);
+    PmMessage m2 = add(pm2.a, Severity.INFO);
+    PmMessage m3 = add(pm1.a, Severity.INFO);
+    PmMessage m4 = add(pm1.b, Severity.ERROR);
+
+    assertEquals(Arrays.asList(m1, m2, m3, m4), store.getMessages(null, null));
+    assertEquals(Arrays.asList(m1, m4), store.getMessages(null, Severity.ERROR));
+    assertEquals(Arrays.asList(m1, m3), store.getMessages(pm1.a, null));
+    assertEquals(Arrays.asList(m3), store.getMessages(pm1.a, Severity.INFO));
+    assertEquals(0, store.getMessages(pm1, null).size());
+  }
+
+  @Test
+  public void testGetTreeMessages() {
+    PmMessage m1 = add(pm1.a, Severity.INFO);
+    PmMessage m2 = add(pm2.a, Severity.ERROR);
+    PmMessage m3 = add(pm1, Severity.WARN);
+    PmMessage m4 = add(pm1.b, Severity.ERROR);
+
+    assertEquals(Arrays.asList(m1, m3, m4), store.getTreeMessages(pm1, Severity.INFO));
+    assertEquals(Arrays.asList(m3, m4), store.getTreeMessages(pm1, Severity.WARN));
+    assertEquals(Arrays.asList(m1, m2, m3, m4), store.getTreeMessages(conv, Severity.INFO));
+    assertEquals(Arrays.asList(m2), store.getTreeMessages(pm2, Severity.INFO));
+  }
+
+  @Test
+  public void testRemoveAndClear() {
+    PmMessage m1 = add(pm1.a, Severity.INFO);
+    PmMessage m2 = add(pm1.a, Severity.ERROR);
+
+    assertTrue(store.remove(m1));
+    assertFalse(store.remove(m1));
+    assertEquals(Arrays.asList(m2), store.getMessages(pm1.a, null));
+    assertEquals(Arrays.asList(m2), store.getTreeMessages(pm1, Severity.INFO));
+
+    store.clear();
+    assertTrue(store.isEmpty());
+    assertEquals(0, store.getTreeMessages(conv, Severity.INFO).size());
+  }
+
+  private PmMessage add(PmObject pm, Severity severity) {
+    PmMessage m = new PmMessage(pm, severity, "msgKey");
+    store.add(m);
+    return m;
+  }
+
+  public static class MyPm extends PmObjectBase {
+    public final PmAttrStringImpl a = new PmAttrStringImpl(this);
+    public final PmAttrStringImpl b = new PmAttrStringImpl(this);
+
+    public MyPm(PmObject pmParent) {
+      super(pmParent);
+    }
+  }
+
+}
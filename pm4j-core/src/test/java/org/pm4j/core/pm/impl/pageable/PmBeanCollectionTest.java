@@ -4,8 +4,12 @@ import org.junit.Test;
 import org.pm4j.common.pageable.TestBean;
 import org.pm4j.common.pageable.PageableCollection;
 import org.pm4j.common.pageable.PageableCollectionTestBase;
+import org.pm4j.common.pageable.PageableCollectionUtil;
+import org.pm4j.common.pageable.inmem.InMemCollectionBase;
+import org.pm4j.common.query.CompOpContains;
 import org.pm4j.common.query.CompOpStartsWith;
 import org.pm4j.common.query.QueryAttr;
+import org.pm4j.common.query.QueryExprCompare;
 import org.pm4j.common.query.QueryOptions;
 import org.pm4j.common.query.filter.FilterDefinition;
 import org.pm4j.common.query.inmem.InMemSortOrder;
@@ -67,6 +71,40 @@ public class PmBeanCollectionTest extends PageableCollectionTestBase<PmBeanColle
         0, collection.getModifications().getUpdatedItems().size());
   }
 
+  @Test
+  public void testTextIndexConsidersAnUpdateOfAnAddedItem() {
+    collection = makePageableCollection("Augsburg", "Bremen");
+    PageableCollection<TestBean> beanPc = beanTablePm.getPmPageableBeanCollection();
+    ((InMemCollectionBase<TestBean>) beanPc).setTextIndexAttrs(TestBean.ATTR_NAME);
+    BeanRowPm addedItem = createItem(3, "Heidelberg");
+    collection.getModificationHandler().addItem(addedItem);
+
+    beanPc.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "berg"));
+    assertEquals("[Heidelberg]", PageableCollectionUtil.shallowCopy(beanPc).toString());
+
+    setValue(addedItem.name, "Hamburg");
+    beanPc.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "burg"));
+    assertEquals("[Augsburg, Hamburg]", PageableCollectionUtil.shallowCopy(beanPc).toString());
+  }
+
+  @Test
+  public void testTextIndexConsidersARevertedUpdate() {
+    collection = makePageableCollection("Augsburg", "Bremen");
+    PageableCollection<TestBean> beanPc = beanTablePm.getPmPageableBeanCollection();
+    ((InMemCollectionBase<TestBean>) beanPc).setTextIndexAttrs(TestBean.ATTR_NAME);
+    beanPc.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "burg"));
+    assertEquals("[Augsburg]", PageableCollectionUtil.shallowCopy(beanPc).toString());
+    BeanRowPm augsburg = collection.getItemsOnPage().get(0);
+
+    setValue(augsburg.name, "Bonn");
+    beanPc.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "onn"));
+    assertEquals("[Bonn]", PageableCollectionUtil.shallowCopy(beanPc).toString());
+
+    setValue(augsburg.name, "Augsburg");
+    beanPc.getQueryParams().setQueryExpression(new QueryExprCompare(TestBean.ATTR_NAME, CompOpContains.class, "burg"));
+    assertEquals("[Augsburg]", PageableCollectionUtil.shallowCopy(beanPc).toString());
+  }
+
   @Override
   protected PageableCollection<BeanRowPm> makePageableCollection(String... strings) {
     List<TestBean> beans = makeBeans(strings);
@@ -35,4 +35,19 @@ public class PathResolverSyntaxVersion1Test extends PathResolverTest {
     assertNull(expr.getValue(p));
   }
 
+  /**
+   * A compatibility mode expression resolves attributes and variables for each class of the current value.
+   */
+  @Test
+  public void testCompatibleStyleExpressionOnDifferentClasses() {
+    PmConversation pmConversation = new PmConversationImpl();
+    pmConversation.setPmNamedObject("name", "variableValue");
+    Expression expr = PathExpressionChain.parse("name", VERSION_1);
+
+    for (int i = 0; i < 2; ++i) {
+      assertEquals("head", expr.exec(new PmExprExecCtxt(pmConversation, Pojo.make("head"))));
+      assertEquals("variableValue", expr.exec(new PmExprExecCtxt(pmConversation)));
+    }
+  }
+
 }